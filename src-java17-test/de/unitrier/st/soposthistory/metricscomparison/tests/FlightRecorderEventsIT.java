@@ -0,0 +1,100 @@
+package de.unitrier.st.soposthistory.metricscomparison.tests;
+
+import de.unitrier.st.soposthistory.metricscomparison.evaluation.MetricEvaluationManager;
+import de.unitrier.st.soposthistory.metricscomparison.monitoring.FlightRecorderEvents;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Run by the failsafe plugin of the Maven profile java17 on the multi-release JAR (the events are only recorded by
+ * the Java 17 classes, which are not used when the tests run on the class directory).
+ */
+class FlightRecorderEventsIT {
+    private static final String EVENT_PREFIX = "de.unitrier.st.soposthistory.metricscomparison.";
+
+    private static Path pathToPostIdList = Paths.get("testdata", "gt_test", "post_ids.csv");
+    private static Path pathToPostHistory = Paths.get("testdata", "gt_test", "files");
+    private static Path pathToGroundTruth = Paths.get("testdata", "gt_test", "gt");
+    private static Path testOutputDir = Paths.get("testdata", "output");
+
+    @Test
+    void testFlightRecorderEvents() throws IOException {
+        assertTrue(FlightRecorderEvents.isEnabled());
+
+        Path recordingFile = Files.createTempFile("metrics-comparison-", ".jfr");
+        try {
+            MetricEvaluationManager manager;
+            try (Recording recording = new Recording()) {
+                for (String eventName : new String[]{"EvaluationPhase", "PostEvaluation", "Aggregation"}) {
+                    recording.enable(EVENT_PREFIX + eventName).withThreshold(Duration.ZERO);
+                }
+                recording.start();
+
+                manager = MetricEvaluationManager.DEFAULT
+                        .withName("TestFlightRecorderEvents")
+                        .withInputPaths(pathToPostIdList, pathToPostHistory, pathToGroundTruth)
+                        .withOutputDirPath(testOutputDir)
+                        .withAllSimilarityMetrics(false)
+                        .withNumberOfRepetitions(1)
+                        .initialize();
+                manager.addSimilarityMetric(
+                        MetricEvaluationManager.getSimilarityMetric("fourGramOverlap", 0.6)
+                );
+                manager.run();
+                assertTrue(manager.isFinished());
+
+                MetricEvaluationManager.aggregateAndWriteSampleResults(
+                        Collections.singletonList(manager),
+                        Paths.get(testOutputDir.toString(), "TestFlightRecorderEvents_aggregated.csv").toFile()
+                );
+
+                recording.stop();
+                recording.dump(recordingFile);
+            }
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+
+            Set<String> phases = events.stream()
+                    .filter(event -> event.getEventType().getName().equals(EVENT_PREFIX + "EvaluationPhase"))
+                    .filter(event -> event.getString("sampleName").equals("TestFlightRecorderEvents"))
+                    .map(event -> event.getString("phase"))
+                    .collect(Collectors.toSet());
+            assertTrue(phases.contains(FlightRecorderEvents.LOAD));
+            assertTrue(phases.contains(FlightRecorderEvents.EVALUATE));
+            assertTrue(phases.contains(FlightRecorderEvents.WRITE));
+
+            List<RecordedEvent> postEvaluations = events.stream()
+                    .filter(event -> event.getEventType().getName().equals(EVENT_PREFIX + "PostEvaluation"))
+                    .filter(event -> event.getString("sampleName").equals("TestFlightRecorderEvents"))
+                    .collect(Collectors.toList());
+            assertEquals(manager.getPostVersionLists().size(), postEvaluations.size());
+            for (RecordedEvent postEvaluation : postEvaluations) {
+                assertEquals("fourGramOverlap", postEvaluation.getString("metric"));
+                assertEquals(0.6, postEvaluation.getDouble("threshold"));
+                assertTrue(manager.getPostVersionLists().containsKey(postEvaluation.getInt("postId")));
+            }
+
+            assertEquals(1, events.stream()
+                    .filter(event -> event.getEventType().getName().equals(EVENT_PREFIX + "Aggregation"))
+                    .count());
+        } finally {
+            Files.deleteIfExists(recordingFile);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package de.unitrier.st.soposthistory.metricscomparison.monitoring;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event for the aggregation of the results of all samples (see MetricEvaluationManager).
+ */
+@Name("de.unitrier.st.soposthistory.metricscomparison.Aggregation")
+@Label("Aggregation")
+@Category({"Metrics Comparison", "Evaluation"})
+@StackTrace(false)
+class AggregationEvent extends Event {
+    @Label("Sample Count")
+    public int sampleCount;
+
+    @Label("Metric Count")
+    public int metricCount;
+}
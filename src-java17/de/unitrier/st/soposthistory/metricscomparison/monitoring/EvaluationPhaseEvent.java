@@ -0,0 +1,33 @@
+package de.unitrier.st.soposthistory.metricscomparison.monitoring;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event for one phase of a MetricEvaluationManager (load, validate, evaluate, or write).
+ */
+@Name("de.unitrier.st.soposthistory.metricscomparison.EvaluationPhase")
+@Label("Evaluation Phase")
+@Category({"Metrics Comparison", "Evaluation"})
+@StackTrace(false)
+class EvaluationPhaseEvent extends Event {
+    @Label("Sample")
+    public String sampleName;
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Manager Thread Id")
+    public int threadId;
+
+    @Label("Metric Count")
+    public int metricCount;
+
+    @Label("Post Count")
+    public int postCount;
+
+    EvaluationPhaseEvent(String sampleName, String phase, int threadId) {
+        this.sampleName = sampleName;
+        this.phase = phase;
+        this.threadId = threadId;
+    }
+}
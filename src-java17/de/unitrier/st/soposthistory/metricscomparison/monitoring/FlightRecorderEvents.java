@@ -0,0 +1,104 @@
+package de.unitrier.st.soposthistory.metricscomparison.monitoring;
+
+/**
+ * JFR events of the evaluation (phases of a MetricEvaluationManager, post evaluations, and the aggregation).
+ * This is the Java 17 version of the class in the multi-release JAR. It records the events if the module jdk.jfr is
+ * present (checked once) and does nothing otherwise, e.g., in runtime images that have been linked without JFR.
+ * The begin methods return a handle that is passed to the corresponding commit method (null if no event is
+ * recorded, the commit methods ignore null).
+ */
+public final class FlightRecorderEvents {
+    public static final String LOAD = "load";
+    public static final String VALIDATE = "validate";
+    public static final String EVALUATE = "evaluate";
+    public static final String WRITE = "write";
+
+    private static final boolean ENABLED = ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
+    private FlightRecorderEvents() {}
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    public static Object beginPhase(String sampleName, String phase, int threadId) {
+        if (!ENABLED) {
+            return null;
+        }
+        EvaluationPhaseEvent event = new EvaluationPhaseEvent(sampleName, phase, threadId);
+        event.begin();
+        return event;
+    }
+
+    public static void commitPhase(Object event, int metricCount, int postCount) {
+        if (event == null) {
+            return;
+        }
+        EvaluationPhaseEvent phaseEvent = (EvaluationPhaseEvent) event;
+        phaseEvent.metricCount = metricCount;
+        phaseEvent.postCount = postCount;
+        phaseEvent.commit();
+    }
+
+    public static Object beginPostEvaluation() {
+        if (!ENABLED) {
+            return null;
+        }
+        PostEvaluationEvent event = new PostEvaluationEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * End the post evaluation event.
+     * @return true if the event should be committed (only then, its values need to be computed)
+     */
+    public static boolean endPostEvaluation(Object event) {
+        if (event == null) {
+            return false;
+        }
+        PostEvaluationEvent postEvaluationEvent = (PostEvaluationEvent) event;
+        postEvaluationEvent.end();
+        return postEvaluationEvent.shouldCommit();
+    }
+
+    public static void commitPostEvaluation(Object event, String sampleName, String metric, String metricType,
+                                            double threshold, int postId, int repetition, int postVersionCount,
+                                            int textBlockVersionCount, int codeBlockVersionCount,
+                                            int possibleComparisons) {
+        if (event == null) {
+            return;
+        }
+        PostEvaluationEvent postEvaluationEvent = (PostEvaluationEvent) event;
+        postEvaluationEvent.sampleName = sampleName;
+        postEvaluationEvent.metric = metric;
+        postEvaluationEvent.metricType = metricType;
+        postEvaluationEvent.threshold = threshold;
+        postEvaluationEvent.postId = postId;
+        postEvaluationEvent.repetition = repetition;
+        postEvaluationEvent.postVersionCount = postVersionCount;
+        postEvaluationEvent.textBlockVersionCount = textBlockVersionCount;
+        postEvaluationEvent.codeBlockVersionCount = codeBlockVersionCount;
+        postEvaluationEvent.possibleComparisons = possibleComparisons;
+        postEvaluationEvent.commit();
+    }
+
+    public static Object beginAggregation() {
+        if (!ENABLED) {
+            return null;
+        }
+        AggregationEvent event = new AggregationEvent();
+        event.begin();
+        return event;
+    }
+
+    public static void commitAggregation(Object event, int sampleCount, int metricCount) {
+        if (event == null) {
+            return;
+        }
+        AggregationEvent aggregationEvent = (AggregationEvent) event;
+        aggregationEvent.sampleCount = sampleCount;
+        aggregationEvent.metricCount = metricCount;
+        aggregationEvent.commit();
+    }
+}
@@ -0,0 +1,43 @@
+package de.unitrier.st.soposthistory.metricscomparison.monitoring;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event for the evaluation of one similarity metric using one SO post (see MetricEvaluationPerPost).
+ */
+@Name("de.unitrier.st.soposthistory.metricscomparison.PostEvaluation")
+@Label("Post Evaluation")
+@Category({"Metrics Comparison", "Evaluation"})
+@Description("Processing of the version history of one post using one similarity metric")
+@StackTrace(false)
+class PostEvaluationEvent extends Event {
+    @Label("Sample")
+    public String sampleName;
+
+    @Label("Metric")
+    public String metric;
+
+    @Label("Metric Type")
+    public String metricType;
+
+    @Label("Threshold")
+    public double threshold;
+
+    @Label("Post Id")
+    public int postId;
+
+    @Label("Repetition")
+    public int repetition;
+
+    @Label("Post Version Count")
+    public int postVersionCount;
+
+    @Label("Text Block Version Count")
+    public int textBlockVersionCount;
+
+    @Label("Code Block Version Count")
+    public int codeBlockVersionCount;
+
+    @Label("Possible Comparisons")
+    public int possibleComparisons;
+}
@@ -0,0 +1,35 @@
+package de.unitrier.st.soposthistory.metricscomparison.similarity;
+
+/**
+ * Vector operations of the profile based metrics (see DenseProfile).
+ * This is the Java 17 version of the class in the multi-release JAR. It uses the Vector API if the incubator module
+ * has been added to the JVM (--add-modules jdk.incubator.vector) and the scalar implementation otherwise.
+ */
+final class ProfileKernels {
+    private static final boolean VECTORIZED = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private ProfileKernels() {}
+
+    static String getImplementation() {
+        return VECTORIZED ? "vector (" + VectorProfileKernels.getSpecies() + ")" : "scalar";
+    }
+
+    /**
+     * @param result a * b, a * a, and b * b (first length components)
+     */
+    static void dotProducts(double[] a, double[] b, int length, double[] result) {
+        if (VECTORIZED) {
+            VectorProfileKernels.dotProducts(a, b, length, result);
+        } else {
+            ScalarProfileKernels.dotProducts(a, b, length, result);
+        }
+    }
+
+    static double manhattanDistance(double[] a, double[] b, int length) {
+        if (VECTORIZED) {
+            return VectorProfileKernels.manhattanDistance(a, b, length);
+        } else {
+            return ScalarProfileKernels.manhattanDistance(a, b, length);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package de.unitrier.st.soposthistory.metricscomparison.similarity;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Implementation of the vector operations of the profile based metrics using the Vector API (see ProfileKernels).
+ * The vectors contain counts, i.e., integral values, so that the results are equal to the ones of the scalar
+ * implementation although the additions are performed in a different order.
+ */
+final class VectorProfileKernels {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private VectorProfileKernels() {}
+
+    static String getSpecies() {
+        return SPECIES.toString();
+    }
+
+    static void dotProducts(double[] a, double[] b, int length, double[] result) {
+        DoubleVector ab = DoubleVector.zero(SPECIES);
+        DoubleVector aa = DoubleVector.zero(SPECIES);
+        DoubleVector bb = DoubleVector.zero(SPECIES);
+
+        int i = 0;
+        int upperBound = SPECIES.loopBound(length);
+        for (; i < upperBound; i += SPECIES.length()) {
+            DoubleVector va = DoubleVector.fromArray(SPECIES, a, i);
+            DoubleVector vb = DoubleVector.fromArray(SPECIES, b, i);
+            ab = va.fma(vb, ab);
+            aa = va.fma(va, aa);
+            bb = vb.fma(vb, bb);
+        }
+
+        double abSum = ab.reduceLanes(VectorOperators.ADD);
+        double aaSum = aa.reduceLanes(VectorOperators.ADD);
+        double bbSum = bb.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            abSum += a[i] * b[i];
+            aaSum += a[i] * a[i];
+            bbSum += b[i] * b[i];
+        }
+        result[0] = abSum;
+        result[1] = aaSum;
+        result[2] = bbSum;
+    }
+
+    static double manhattanDistance(double[] a, double[] b, int length) {
+        DoubleVector distance = DoubleVector.zero(SPECIES);
+
+        int i = 0;
+        int upperBound = SPECIES.loopBound(length);
+        for (; i < upperBound; i += SPECIES.length()) {
+            DoubleVector va = DoubleVector.fromArray(SPECIES, a, i);
+            DoubleVector vb = DoubleVector.fromArray(SPECIES, b, i);
+            distance = distance.add(va.sub(vb).abs());
+        }
+
+        double distanceSum = distance.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            distanceSum += Math.abs(a[i] - b[i]);
+        }
+        return distanceSum;
+    }
+}
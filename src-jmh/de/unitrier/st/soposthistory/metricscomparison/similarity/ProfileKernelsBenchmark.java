@@ -0,0 +1,90 @@
+package de.unitrier.st.soposthistory.metricscomparison.similarity;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the scalar implementation of the vector operations of the dense profile metrics with the implementation
+ * used by ProfileKernels (the Vector API implementation if the benchmark runs on the multi-release JAR).
+ * Build using mvn -P java17 package, then run (Java 17) with the JAR on the classpath:
+ *
+ * java -cp target/test-classes:target/so-posthistory-metricscomparision-1.1.9-jar-with-dependencies.jar:&lt;JMH&gt;
+ *      org.openjdk.jmh.Main ProfileKernelsBenchmark
+ *
+ * where &lt;JMH&gt; is the test classpath printed by mvn -P java17 dependency:build-classpath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Benchmark)
+public class ProfileKernelsBenchmark {
+    // characters of source code (letters, digits, whitespace, and punctuation)
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789 \n\t(){}[];.,=+-*/<>\"'";
+
+    @Param({"2", "3", "4"})
+    private int n;
+
+    @Param({"500", "5000"})
+    private int blockLength;
+
+    private String block1;
+    private String block2;
+    private DenseProfile.Profiles profiles;
+    private double[] dotProducts;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder(blockLength);
+        for (int i = 0; i < blockLength; i++) {
+            builder.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        block1 = builder.toString();
+        // second version of the block: 10% of the characters changed
+        for (int i = 0; i < blockLength / 10; i++) {
+            builder.setCharAt(random.nextInt(blockLength), ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        block2 = builder.toString();
+
+        profiles = new DenseProfile.Profiles(block1, block2, n);
+        dotProducts = new double[3];
+    }
+
+    @Benchmark
+    public double[] dotProductsScalar() {
+        ScalarProfileKernels.dotProducts(profiles.counts1, profiles.counts2, profiles.length, dotProducts);
+        return dotProducts;
+    }
+
+    @Benchmark
+    public double[] dotProducts() {
+        ProfileKernels.dotProducts(profiles.counts1, profiles.counts2, profiles.length, dotProducts);
+        return dotProducts;
+    }
+
+    @Benchmark
+    public double manhattanDistanceScalar() {
+        return ScalarProfileKernels.manhattanDistance(profiles.counts1, profiles.counts2, profiles.length);
+    }
+
+    @Benchmark
+    public double manhattanDistance() {
+        return ProfileKernels.manhattanDistance(profiles.counts1, profiles.counts2, profiles.length);
+    }
+
+    // complete metrics, i.e., including building the profiles
+
+    @Benchmark
+    public double cosine() {
+        return DenseProfile.cosine(block1, block2, n);
+    }
+
+    @Benchmark
+    public double manhattan() {
+        return DenseProfile.manhattan(block1, block2, n);
+    }
+}
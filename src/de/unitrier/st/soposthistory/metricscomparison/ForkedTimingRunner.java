@@ -0,0 +1,222 @@
+package de.unitrier.st.soposthistory.metricscomparison;
+
+import de.unitrier.st.soposthistory.metricscomparison.evaluation.MetricEvaluationManager;
+import de.unitrier.st.util.Util;
+import org.apache.commons.cli.*;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Timing mode in which each metric is evaluated (with all thresholds, on all samples) in its own JVM. In a single
+ * JVM, all metrics are called through the same call sites, the JIT compiler optimizes these call sites for the
+ * metrics that run first, and the runtimes of the other metrics are biased. In a fork, only one metric reaches the
+ * call sites, i.e., the runtimes of all metrics are measured under the same conditions.
+ *
+ * The forks are run one after another (each fork evaluates the samples in a single thread), their results are
+ * written to output-dir/forks/&lt;metric&gt; and merged into output-dir afterwards: the per version, per post, and
+ * per sample files of each sample and the aggregated results have the same names as the ones written by Main.
+ */
+public class ForkedTimingRunner {
+
+    private static Logger logger;
+
+    static {
+        // configure logger
+        try {
+            logger = Util.getClassLogger(ForkedTimingRunner.class);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static final String AGGREGATED_FILE_NAME = "MetricComparison_aggregated.csv";
+
+    public static void main(String[] args) {
+        System.out.println("SOPostHistory (Metrics Comparison, Forked Timing)");
+
+        Options options = new Options();
+
+        Option gtDirOption = new Option("s", "samples-dir", true, "path to directory with samples");
+        gtDirOption.setRequired(true);
+        options.addOption(gtDirOption);
+
+        Option outputDirOption = new Option("o", "output-dir", true, "path to output directory");
+        outputDirOption.setRequired(true);
+        options.addOption(outputDirOption);
+
+        Option metricsOption = new Option("m", "metrics", true, "comma-separated names of the metrics to evaluate (default: all metrics)");
+        metricsOption.setRequired(false);
+        options.addOption(metricsOption);
+
+        Option jvmArgsOption = new Option("j", "jvm-args", true, "whitespace-separated arguments of the forked JVMs (e.g., \"-Xmx8g\")");
+        jvmArgsOption.setRequired(false);
+        options.addOption(jvmArgsOption);
+
+        Option forkOption = new Option("f", "fork", true, "name of the metric to evaluate in this JVM (used for the forks)");
+        forkOption.setRequired(false);
+        options.addOption(forkOption);
+
+        CommandLineParser commandLineParser = new DefaultParser();
+        HelpFormatter commandLineFormatter = new HelpFormatter();
+        CommandLine commandLine;
+
+        try {
+            commandLine = commandLineParser.parse(options, args);
+        } catch (ParseException e) {
+            System.out.println(e.getMessage());
+            commandLineFormatter.printHelp("SOPostHistory (Metrics Comparison, Forked Timing)", options);
+            System.exit(1);
+            return;
+        }
+
+        Path samplesDir = Paths.get(commandLine.getOptionValue("samples-dir"));
+        Path outputDir = Paths.get(commandLine.getOptionValue("output-dir"));
+
+        if (commandLine.hasOption("fork")) {
+            evaluateMetric(commandLine.getOptionValue("fork"), samplesDir, outputDir);
+            return;
+        }
+
+        List<String> metricNames = commandLine.hasOption("metrics")
+                ? Arrays.asList(commandLine.getOptionValue("metrics").split(","))
+                : new ArrayList<>(MetricEvaluationManager.getSimilarityMetricNames());
+        List<String> jvmArgs = commandLine.hasOption("jvm-args")
+                ? Arrays.asList(commandLine.getOptionValue("jvm-args").trim().split("\\s+"))
+                : Collections.emptyList();
+
+        try {
+            Util.ensureEmptyDirectoryExists(outputDir);
+            List<Path> forkOutputDirs = new LinkedList<>();
+            List<String> failedMetrics = new LinkedList<>();
+            int i = 0;
+            for (String metricName : metricNames) {
+                i++;
+                logger.info("Evaluating metric " + metricName + " (" + i + " of " + metricNames.size() + ") in a forked JVM...");
+                Path forkOutputDir = Paths.get(outputDir.toString(), "forks", metricName);
+                if (fork(metricName, samplesDir, forkOutputDir, jvmArgs)) {
+                    forkOutputDirs.add(forkOutputDir);
+                } else {
+                    failedMetrics.add(metricName);
+                }
+            }
+
+            logger.info("Merging results of " + forkOutputDirs.size() + " forks...");
+            mergeResults(forkOutputDirs, outputDir);
+
+            if (!failedMetrics.isEmpty()) {
+                logger.warning("Evaluation failed for metrics " + failedMetrics + ".");
+                System.exit(1);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Run this class in a new JVM with the same class path to evaluate the given metric.
+     * @return true if the fork terminated normally
+     */
+    private static boolean fork(String metricName, Path samplesDir, Path forkOutputDir, List<String> jvmArgs)
+            throws IOException, InterruptedException {
+        List<String> command = new LinkedList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ForkedTimingRunner.class.getName());
+        command.add("--samples-dir");
+        command.add(samplesDir.toString());
+        command.add("--output-dir");
+        command.add(forkOutputDir.toString());
+        command.add("--fork");
+        command.add(metricName);
+
+        Files.createDirectories(forkOutputDir);
+        Process process = new ProcessBuilder(command).inheritIO().start();
+        int exitCode = process.waitFor();
+        if (exitCode != 0) {
+            logger.warning("Fork for metric " + metricName + " terminated with exit code " + exitCode + ".");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Evaluate the given metric with all thresholds on all samples (one sample after another in this thread).
+     */
+    private static void evaluateMetric(String metricName, Path samplesDir, Path outputDir) {
+        List<MetricEvaluationManager> managers = MetricEvaluationManager.createManagersFromSampleDirectories(
+                samplesDir, outputDir, false
+        );
+
+        for (MetricEvaluationManager manager : managers) {
+            for (double threshold : MetricEvaluationManager.getSimilarityThresholds()) {
+                manager.addSimilarityMetric(MetricEvaluationManager.getSimilarityMetric(metricName, threshold));
+            }
+            manager.reportPlannedPostEvaluations();
+        }
+
+        for (MetricEvaluationManager manager : managers) {
+            manager.run();
+        }
+
+        Path outputFileAggregated = Paths.get(outputDir.toString(), AGGREGATED_FILE_NAME);
+        MetricEvaluationManager.aggregateAndWriteSampleResults(managers, outputFileAggregated.toFile());
+    }
+
+    /**
+     * Concatenate the CSV files with the same name in the output directories of the forks (the header is written
+     * once, empty files are skipped).
+     */
+    public static void mergeResults(List<Path> forkOutputDirs, Path outputDir) throws IOException {
+        Set<String> writtenFiles = new HashSet<>();
+        for (Path forkOutputDir : forkOutputDirs) {
+            List<Path> files;
+            try (Stream<Path> paths = Files.list(forkOutputDir)) {
+                files = paths
+                        .filter(path -> path.toFile().getName().endsWith(".csv"))
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
+
+            for (Path file : files) {
+                String fileName = file.toFile().getName();
+                Path mergedFile = Paths.get(outputDir.toString(), fileName);
+
+                try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+                     BufferedWriter writer = Files.newBufferedWriter(mergedFile, StandardCharsets.UTF_8,
+                             StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                    String header = reader.readLine();
+                    if (header == null) {
+                        continue;
+                    }
+                    if (writtenFiles.add(fileName)) {
+                        writer.write(header);
+                        writer.newLine();
+                    }
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        writer.write(line);
+                        writer.newLine();
+                    }
+                }
+            }
+        }
+    }
+}
@@ -1,6 +1,13 @@
 package de.unitrier.st.soposthistory.metricscomparison;
 
 import de.unitrier.st.soposthistory.metricscomparison.evaluation.MetricEvaluationManager;
+import de.unitrier.st.soposthistory.metricscomparison.evaluation.SimilarityMetric;
+import de.unitrier.st.soposthistory.metricscomparison.io.SampleManifest;
+import de.unitrier.st.soposthistory.metricscomparison.monitoring.EvaluationEventLog;
+import de.unitrier.st.soposthistory.metricscomparison.monitoring.EvaluationProgress;
+import de.unitrier.st.soposthistory.metricscomparison.monitoring.ProgressHttpServer;
+import de.unitrier.st.soposthistory.metricscomparison.similarity.DenseProfile;
+import de.unitrier.st.soposthistory.metricscomparison.similarity.Prefilter;
 import org.apache.commons.cli.*;
 
 import de.unitrier.st.util.Util;
@@ -8,9 +15,12 @@ import de.unitrier.st.util.Util;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
@@ -56,6 +66,58 @@ class Main {
         combinedMetricsOption.setRequired(false);
         options.addOption(combinedMetricsOption);
 
+        Option planSweepOption = new Option("ps", "plan-sweep", false, "if present, only one configuration per group of thresholds yielding identical results is evaluated (the other configurations get its results and a null runtime)");
+        planSweepOption.setRequired(false);
+        options.addOption(planSweepOption);
+
+        Option deduplicateContentsOption = new Option("dc", "deduplicate-contents", false, "if present, identical block contents are only compared once per metric and repetition (the runtimes include the skipped comparisons and are not comparable with runs without this option; the index of the distinct contents needs additional heap memory)");
+        deduplicateContentsOption.setRequired(false);
+        options.addOption(deduplicateContentsOption);
+
+        Option offHeapStorageOption = new Option("oh", "off-heap-storage", false, "if present, the post histories are stored off-heap and only materialized while a post is evaluated (cannot be combined with deduplicate-contents)");
+        offHeapStorageOption.setRequired(false);
+        options.addOption(offHeapStorageOption);
+
+        Option streamingOption = new Option("sm", "streaming", false, "if present, posts are read and evaluated one at a time and not kept in memory (cannot be combined with plan-sweep or deduplicate-contents)");
+        streamingOption.setRequired(false);
+        options.addOption(streamingOption);
+
+        Option compressOutputOption = new Option("gz", "gzip-output", false, "if present, the output files are compressed using gzip");
+        compressOutputOption.setRequired(false);
+        options.addOption(compressOutputOption);
+
+        Option buildManifestsOption = new Option("bm", "build-manifests", false, "if present, a manifest (pack and index file) is built for each sample that does not have an up-to-date one");
+        buildManifestsOption.setRequired(false);
+        options.addOption(buildManifestsOption);
+
+        Option useManifestsOption = new Option("um", "use-manifests", false, "if present, the posts are read from the manifest of each sample, which is built if it is missing or outdated (cannot be combined with off-heap-storage, streaming, or deduplicate-contents)");
+        useManifestsOption.setRequired(false);
+        options.addOption(useManifestsOption);
+
+        Option persistConnectionsOption = new Option("pc", "persist-connections", false, "if present, the predicted connections are persisted for re-scoring");
+        persistConnectionsOption.setRequired(false);
+        options.addOption(persistConnectionsOption);
+
+        Option rescoreOption = new Option("rs", "rescore", true, "path to output directory of an evaluation with persisted connections; if present, these connections are re-scored against the current ground truth instead of evaluating the metrics");
+        rescoreOption.setRequired(false);
+        options.addOption(rescoreOption);
+
+        Option prefilterOption = new Option("pf", "prefilter", true, "comma-separated metric types (e.g., EDIT, only the edit metrics have prefilters); if present, comparisons of metrics with these types are skipped if an upper bound of the similarity is below the threshold (applies to the metrics evaluated with all thresholds, cannot be combined with selected-metrics-dir, test-default-metric, or test-combined-metrics)");
+        prefilterOption.setRequired(false);
+        options.addOption(prefilterOption);
+
+        Option minHashSignatureLengthOption = new Option("mh", "minhash-signature-length", true, "number of hash functions of the MinHash sketches (default: 128; applies to the metrics evaluated with all thresholds, cannot be combined with selected-metrics-dir, test-default-metric, or test-combined-metrics)");
+        minHashSignatureLengthOption.setRequired(false);
+        options.addOption(minHashSignatureLengthOption);
+
+        Option monitoringPortOption = new Option("mp", "monitoring-port", true, "if present, the progress is provided as JSON on http://localhost:<port>/progress");
+        monitoringPortOption.setRequired(false);
+        options.addOption(monitoringPortOption);
+
+        Option monitoringMBeanOption = new Option("mb", "monitoring-mbean", false, "if present, the progress is provided as MBean using JMX");
+        monitoringMBeanOption.setRequired(false);
+        options.addOption(monitoringMBeanOption);
+
         CommandLineParser commandLineParser = new DefaultParser();
         HelpFormatter commandLineFormatter = new HelpFormatter();
         CommandLine commandLine;
@@ -75,6 +137,13 @@ class Main {
         boolean testSelectedMetrics = commandLine.hasOption("selected-metrics-dir");
         boolean testDefaultMetric = commandLine.hasOption("test-default-metric");
         boolean testCombinedMetrics = commandLine.hasOption("test-combined-metrics");
+        boolean planSweep = commandLine.hasOption("plan-sweep");
+        boolean deduplicateContents = commandLine.hasOption("deduplicate-contents");
+        boolean useOffHeapStorage = commandLine.hasOption("off-heap-storage");
+        boolean streaming = commandLine.hasOption("streaming");
+        boolean compressOutput = commandLine.hasOption("gzip-output");
+        boolean persistConnections = commandLine.hasOption("persist-connections");
+        boolean useManifests = commandLine.hasOption("use-manifests");
         boolean addAllMetricsAndThresholds = !testSelectedMetrics && !testDefaultMetric && !testCombinedMetrics;
         Path selectedMetricsDir = null;
 
@@ -91,12 +160,96 @@ class Main {
             }
         }
 
+        if (streaming && (planSweep || deduplicateContents)) {
+            // these modes read all posts of a sample in advance
+            throw new IllegalArgumentException("streaming cannot be combined with plan-sweep or deduplicate-contents.");
+        }
+
+        if (deduplicateContents && (useOffHeapStorage || useManifests)) {
+            // the content store keeps all block contents on the heap
+            throw new IllegalArgumentException("deduplicate-contents cannot be combined with off-heap-storage or use-manifests.");
+        }
+
+        if (useManifests && (useOffHeapStorage || streaming)) {
+            // these modes read the posts from the PostHistory files
+            throw new IllegalArgumentException("use-manifests cannot be combined with off-heap-storage or streaming.");
+        }
+
+        if (!addAllMetricsAndThresholds
+                && (commandLine.hasOption("prefilter") || commandLine.hasOption("minhash-signature-length"))) {
+            // the selected, combined, and default metrics are not taken from the configured catalog
+            throw new IllegalArgumentException("prefilter and minhash-signature-length cannot be combined with selected-metrics-dir, test-default-metric, or test-combined-metrics.");
+        }
+
+        if (commandLine.hasOption("rescore")) {
+            Path connectionsDir = Paths.get(commandLine.getOptionValue("rescore"));
+            MetricEvaluationManager.rescoreSampleDirectories(samplesDir, connectionsDir, outputDir, compressOutput);
+            return;
+        }
+
+        // options of the managers created for the samples
+        MetricEvaluationManager template = MetricEvaluationManager.DEFAULT
+                .withAllSimilarityMetrics(addAllMetricsAndThresholds)
+                .withSweepPlanning(planSweep)
+                .withContentDeduplication(deduplicateContents)
+                .withOffHeapStorage(useOffHeapStorage)
+                .withStreaming(streaming)
+                .withOutputCompression(compressOutput)
+                .withConnectionPersistence(persistConnections);
+
+        if (commandLine.hasOption("prefilter")) {
+            Set<SimilarityMetric.MetricType> prefilteredTypes = EnumSet.noneOf(SimilarityMetric.MetricType.class);
+            for (String type : commandLine.getOptionValue("prefilter").split(",")) {
+                try {
+                    prefilteredTypes.add(SimilarityMetric.MetricType.valueOf(type.trim().toUpperCase()));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown metric type: " + type.trim() + " (valid types: "
+                            + Arrays.toString(SimilarityMetric.MetricType.values()) + ").", e);
+                }
+            }
+            template = template.withPrefilteredMetricTypes(prefilteredTypes);
+        }
+
+        if (commandLine.hasOption("minhash-signature-length")) {
+            template = template.withMinHashSignatureLength(
+                    Integer.parseInt(commandLine.getOptionValue("minhash-signature-length"))
+            );
+        }
+
+        if (commandLine.hasOption("build-manifests")) {
+            logger.info("Building manifests for samples in directory " + samplesDir + "...");
+            try {
+                SampleManifest.updateManifests(samplesDir);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        logger.info("Using " + DenseProfile.getImplementation() + " implementation of the dense profile metrics.");
+
         logger.info("Creating thread pool with at most " + threadCount + " threads...");
         // it is recommended to process only one sample at a time to prevent a bias in the runtime measurements
-        ExecutorService threadPool = Executors.newFixedThreadPool(threadCount);
+        // same configuration as Executors.newFixedThreadPool, typed as ThreadPoolExecutor to report the queue depth
+        ThreadPoolExecutor threadPool = new ThreadPoolExecutor(
+                threadCount, threadCount, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>()
+        );
+
+        // progress is available, if configured, using JMX and HTTP
+        if (commandLine.hasOption("monitoring-mbean")) {
+            EvaluationProgress.registerMBean();
+        }
+        EvaluationProgress.getInstance().setQueueDepthSupplier(() -> threadPool.getQueue().size());
+        ProgressHttpServer progressHttpServer = null;
+        if (commandLine.hasOption("monitoring-port")) {
+            try {
+                progressHttpServer = ProgressHttpServer.start(Integer.parseInt(commandLine.getOptionValue("monitoring-port")));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
 
         List<MetricEvaluationManager> managers = MetricEvaluationManager.createManagersFromSampleDirectories(
-                samplesDir, outputDir, addAllMetricsAndThresholds
+                samplesDir, outputDir, template, useManifests
         );
 
         if (testSelectedMetrics) {
@@ -127,6 +280,8 @@ class Main {
                 manager.addDefaultSimilarityMetric();
             }
 
+            manager.reportPlannedPostEvaluations();
+
             threadPool.execute(new Thread(manager));
         }
 
@@ -143,11 +298,23 @@ class Main {
 
             MetricEvaluationManager.aggregateAndWriteSampleResults(managers, outputFileAggregated.toFile());
 
+            if (commandLine.hasOption("prefilter")) {
+                for (Prefilter prefilter : Prefilter.getAll()) {
+                    logger.info("Prefilter " + prefilter);
+                }
+            }
+
         } catch (InterruptedException e) {
             threadPool.shutdownNow();
             e.printStackTrace();
         } catch (IOException e) {
             e.printStackTrace();
+        } finally {
+            EvaluationEventLog.getInstance().flush(logger);
+            EvaluationEventLog.getInstance().logSummary(logger);
+            if (progressHttpServer != null) {
+                progressHttpServer.stop();
+            }
         }
     }
 }
@@ -0,0 +1,179 @@
+package de.unitrier.st.soposthistory.metricscomparison.evaluation;
+
+import de.unitrier.st.soposthistory.Config;
+import de.unitrier.st.soposthistory.blocks.PostBlockVersion;
+import de.unitrier.st.soposthistory.version.PostVersion;
+import de.unitrier.st.soposthistory.version.PostVersionList;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * Index of the distinct contents of all post blocks of a sample.
+ * Each distinct content gets an id (consecutive versions of a post mostly share blocks). The index references the
+ * content of the first post block version with this content. The contents are not interned, each post block version
+ * keeps its own string, so the store needs heap memory in addition to the post version lists (one map entry per
+ * distinct content) and only saves comparisons, not memory.
+ * Wrapped configurations (see wrap) return the cached similarity of a content to itself when identical contents
+ * are compared, i.e., each metric compares a distinct content to itself at most once per sample and repetition.
+ * The caches are reset before each repetition (see WrappedConfig.resetCaches), so that each repetition measures the
+ * same work.
+ */
+class BlockContentStore {
+    private final Map<String, Integer> contentIds = new HashMap<>(); // content -> id (index of the distinct content)
+    private int blockCount = 0;
+    private long charCount = 0;
+    private long duplicateCharCount = 0;
+
+    // number of comparisons of identical contents answered from the cache
+    private final LongAdder shortCircuitedComparisons = new LongAdder();
+
+    static BlockContentStore create(Iterable<PostVersionList> postVersionLists) {
+        BlockContentStore store = new BlockContentStore();
+        for (PostVersionList postVersionList : postVersionLists) {
+            for (PostVersion postVersion : postVersionList) {
+                for (PostBlockVersion postBlockVersion : postVersion.getPostBlocks()) {
+                    store.add(postBlockVersion.getContent());
+                }
+            }
+        }
+        return store;
+    }
+
+    /**
+     * Add the content of a post block version to the store.
+     * @return id of the content
+     */
+    int add(String content) {
+        Integer id = contentIds.putIfAbsent(content, contentIds.size());
+
+        blockCount++;
+        charCount += content.length();
+        if (id == null) {
+            return contentIds.size() - 1;
+        }
+        duplicateCharCount += content.length();
+        return id;
+    }
+
+    int getBlockCount() {
+        return blockCount;
+    }
+
+    int getDistinctContentCount() {
+        return contentIds.size();
+    }
+
+    long getCharCount() {
+        return charCount;
+    }
+
+    long getDuplicateCharCount() {
+        return duplicateCharCount;
+    }
+
+    long getShortCircuitedComparisons() {
+        return shortCircuitedComparisons.sum();
+    }
+
+    /**
+     * Wrap the similarity metrics of the given configuration, see IdenticalContentMetric.
+     */
+    WrappedConfig wrap(Config config) {
+        // the same metric is often configured for text and code, they should share their cache
+        Map<BiFunction<String, String, Double>, IdenticalContentMetric> wrappedMetrics = new IdentityHashMap<>();
+        LongAdder avoidedComparisons = new LongAdder();
+        Config wrappedConfig = config
+                .withTextSimilarityMetric(wrap(config.getTextSimilarityMetric(), wrappedMetrics, avoidedComparisons))
+                .withTextBackupSimilarityMetric(wrap(config.getTextBackupSimilarityMetric(), wrappedMetrics, avoidedComparisons))
+                .withCodeSimilarityMetric(wrap(config.getCodeSimilarityMetric(), wrappedMetrics, avoidedComparisons))
+                .withCodeBackupSimilarityMetric(wrap(config.getCodeBackupSimilarityMetric(), wrappedMetrics, avoidedComparisons));
+        return new WrappedConfig(wrappedConfig, new ArrayList<>(wrappedMetrics.values()), avoidedComparisons);
+    }
+
+    private BiFunction<String, String, Double> wrap(BiFunction<String, String, Double> metric,
+                                                    Map<BiFunction<String, String, Double>, IdenticalContentMetric> wrappedMetrics,
+                                                    LongAdder avoidedComparisons) {
+        if (metric == null) {
+            return null;
+        }
+        return wrappedMetrics.computeIfAbsent(metric, m -> new IdenticalContentMetric(m, avoidedComparisons));
+    }
+
+    /**
+     * Configuration whose similarity metrics use this store, together with the caches of its metrics.
+     */
+    static class WrappedConfig {
+        private final Config config;
+        private final List<IdenticalContentMetric> metrics;
+        private final LongAdder avoidedComparisons; // comparisons answered without running the metric
+
+        private WrappedConfig(Config config, List<IdenticalContentMetric> metrics, LongAdder avoidedComparisons) {
+            this.config = config;
+            this.metrics = metrics;
+            this.avoidedComparisons = avoidedComparisons;
+        }
+
+        Config getConfig() {
+            return config;
+        }
+
+        /**
+         * @return number of comparisons of this configuration answered without running the metric (all repetitions)
+         */
+        long getAvoidedComparisons() {
+            return avoidedComparisons.sum();
+        }
+
+        /**
+         * Clear the cached similarities, must not be called while the configuration is used.
+         */
+        void resetCaches() {
+            for (IdenticalContentMetric metric : metrics) {
+                metric.resetCache();
+            }
+        }
+    }
+
+    /**
+     * Similarity metric that caches the similarity of each content to itself. Most metrics return 1.0 for identical
+     * contents, but some fail or return other values for, e.g., contents that are too short. Thus, the value is
+     * computed once per content instead of assuming 1.0; failures are not cached.
+     */
+    private class IdenticalContentMetric implements BiFunction<String, String, Double> {
+        private final BiFunction<String, String, Double> metric;
+        private final LongAdder avoidedComparisons; // of the wrapped configuration
+        private final Map<String, Double> selfSimilarities = new ConcurrentHashMap<>(); // content -> similarity
+
+        IdenticalContentMetric(BiFunction<String, String, Double> metric, LongAdder avoidedComparisons) {
+            this.metric = metric;
+            this.avoidedComparisons = avoidedComparisons;
+        }
+
+        @Override
+        public Double apply(String content1, String content2) {
+            if (content1 == null || content2 == null || !content1.equals(content2)) {
+                return metric.apply(content1, content2);
+            }
+
+            Double similarity = selfSimilarities.get(content1);
+            if (similarity != null) {
+                shortCircuitedComparisons.increment();
+                avoidedComparisons.increment();
+                return similarity;
+            }
+
+            similarity = metric.apply(content1, content2);
+            if (similarity != null) {
+                selfSimilarities.put(content1, similarity);
+            }
+            return similarity;
+        }
+
+        void resetCache() {
+            selfSimilarities.clear();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package de.unitrier.st.soposthistory.metricscomparison.evaluation;
+
+import de.unitrier.st.soposthistory.gt.PostGroundTruth;
+import de.unitrier.st.soposthistory.metricscomparison.io.PackedGroundTruth;
+import de.unitrier.st.soposthistory.version.PostVersionList;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Repository that keeps the post version lists and ground truths of all posts on the heap.
+ * The values of the ground truths are computed once (see PackedGroundTruth.of).
+ */
+class HeapPostRepository implements PostRepository {
+    private final Map<Integer, PostVersionList> postVersionLists; // postId -> PostVersionList
+    private final Map<Integer, PackedGroundTruth> postGroundTruths = new HashMap<>(); // postId -> ground truth
+
+    HeapPostRepository(Map<Integer, PostVersionList> postVersionLists, Map<Integer, PostGroundTruth> postGroundTruths) {
+        this.postVersionLists = postVersionLists;
+        for (Map.Entry<Integer, PostGroundTruth> entry : postGroundTruths.entrySet()) {
+            this.postGroundTruths.put(entry.getKey(), PackedGroundTruth.of(entry.getValue()));
+        }
+    }
+
+    @Override
+    public Set<Integer> getPostIds() {
+        return postVersionLists.keySet();
+    }
+
+    @Override
+    public PostVersionList getPostVersionList(int postId) {
+        return postVersionLists.get(postId);
+    }
+
+    @Override
+    public PackedGroundTruth getPostGroundTruth(int postId) {
+        return postGroundTruths.get(postId);
+    }
+
+    @Override
+    public List<Integer> getPostHistoryIds(int postId) {
+        return postVersionLists.get(postId).getPostHistoryIds();
+    }
+
+    @Override
+    public int getPostVersionCount(int postId) {
+        return postVersionLists.get(postId).size();
+    }
+
+    @Override
+    public int getPossibleComparisons(int postId) {
+        return postVersionLists.get(postId).getPossibleComparisons();
+    }
+
+    @Override
+    public Iterable<PostVersionList> getPostVersionLists() {
+        return postVersionLists.values();
+    }
+}
@@ -0,0 +1,120 @@
+package de.unitrier.st.soposthistory.metricscomparison.evaluation;
+
+import de.unitrier.st.soposthistory.metricscomparison.io.PackedGroundTruth;
+import de.unitrier.st.soposthistory.metricscomparison.io.SampleManifest;
+import de.unitrier.st.soposthistory.version.PostVersionList;
+
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Repository that reads the posts of a sample from its memory-mapped manifest (see SampleManifest) and only keeps a
+ * small summary of each post on the heap. Post version lists and ground truths (see PackedGroundTruth) are parsed
+ * from the pack each time they are requested, i.e., a post is available in constant time without opening its
+ * PostHistory or ground truth file; callers must not keep them.
+ */
+class ManifestPostRepository implements PostRepository {
+    private final SampleManifest manifest;
+    private final Map<Integer, PostSummary> summaries = new LinkedHashMap<>(); // postId -> summary
+
+    ManifestPostRepository(SampleManifest manifest) {
+        this.manifest = manifest;
+    }
+
+    /**
+     * Read the post version list of a post from the manifest, the post is added to the repository by add.
+     */
+    PostVersionList readPostVersionList(int postId) {
+        PostVersionList postVersionList = manifest.readPostVersionList(postId);
+        postVersionList.normalizeLinks(); // normalize links so that post version list and ground truth are comparable
+        return postVersionList;
+    }
+
+    /**
+     * Read the ground truth of a post from the manifest, the post is added to the repository by add.
+     */
+    PackedGroundTruth readPostGroundTruth(int postId) {
+        return manifest.readGroundTruth(postId);
+    }
+
+    /**
+     * Add a post that has already been read (and validated) to the repository.
+     */
+    void add(PostVersionList postVersionList) {
+        summaries.put(postVersionList.getPostId(), new PostSummary(
+                new ArrayList<>(postVersionList.getPostHistoryIds()),
+                postVersionList.size(),
+                postVersionList.getPossibleComparisons()
+        ));
+    }
+
+    Path getPackFile() {
+        return manifest.getPackFile();
+    }
+
+    @Override
+    public Set<Integer> getPostIds() {
+        return Collections.unmodifiableSet(summaries.keySet());
+    }
+
+    @Override
+    public PostVersionList getPostVersionList(int postId) {
+        if (!summaries.containsKey(postId)) {
+            return null;
+        }
+        return readPostVersionList(postId);
+    }
+
+    @Override
+    public PackedGroundTruth getPostGroundTruth(int postId) {
+        if (!summaries.containsKey(postId)) {
+            return null;
+        }
+        return readPostGroundTruth(postId);
+    }
+
+    @Override
+    public List<Integer> getPostHistoryIds(int postId) {
+        return summaries.get(postId).postHistoryIds;
+    }
+
+    @Override
+    public int getPostVersionCount(int postId) {
+        return summaries.get(postId).postVersionCount;
+    }
+
+    @Override
+    public int getPossibleComparisons(int postId) {
+        return summaries.get(postId).possibleComparisons;
+    }
+
+    @Override
+    public Iterable<PostVersionList> getPostVersionLists() {
+        return () -> new Iterator<PostVersionList>() {
+            // pack order, i.e., the pack is read sequentially
+            private final Iterator<Integer> postIds = summaries.keySet().iterator();
+
+            @Override
+            public boolean hasNext() {
+                return postIds.hasNext();
+            }
+
+            @Override
+            public PostVersionList next() {
+                return getPostVersionList(postIds.next());
+            }
+        };
+    }
+
+    private static class PostSummary {
+        private final List<Integer> postHistoryIds;
+        private final int postVersionCount;
+        private final int possibleComparisons;
+
+        PostSummary(List<Integer> postHistoryIds, int postVersionCount, int possibleComparisons) {
+            this.postHistoryIds = postHistoryIds;
+            this.postVersionCount = postVersionCount;
+            this.possibleComparisons = possibleComparisons;
+        }
+    }
+}
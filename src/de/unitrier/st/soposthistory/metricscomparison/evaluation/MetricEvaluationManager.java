@@ -2,6 +2,13 @@ package de.unitrier.st.soposthistory.metricscomparison.evaluation;
 
 import de.unitrier.st.soposthistory.Config;
 import de.unitrier.st.soposthistory.gt.PostGroundTruth;
+import de.unitrier.st.soposthistory.metricscomparison.io.OutputPipeline;
+import de.unitrier.st.soposthistory.metricscomparison.io.PackedGroundTruth;
+import de.unitrier.st.soposthistory.metricscomparison.io.SampleManifest;
+import de.unitrier.st.soposthistory.metricscomparison.monitoring.EvaluationEventLog;
+import de.unitrier.st.soposthistory.metricscomparison.monitoring.EvaluationProgress;
+import de.unitrier.st.soposthistory.metricscomparison.monitoring.FlightRecorderEvents;
+import de.unitrier.st.soposthistory.metricscomparison.similarity.MinHash;
 import de.unitrier.st.soposthistory.version.PostVersionList;
 import de.unitrier.st.util.Util;
 import org.apache.commons.csv.*;
@@ -15,6 +22,8 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Stream;
 
@@ -26,9 +35,9 @@ public class MetricEvaluationManager implements Runnable {
     public static final CSVFormat csvFormatMetricEvaluationPerPost;
     public static final CSVFormat csvFormatMetricEvaluationPerVersion;
     private static final CSVFormat csvFormatMetricEvaluationPerSample;
+    private static final CSVFormat csvFormatMetricEvaluationPerSampleWithContentStore;
     private static final CSVFormat csvFormatSelectedMetrics;
     private static final Path DEFAULT_OUTPUT_DIR = Paths.get("output");
-    private static final List<SimilarityMetric> allSimilarityMetrics = new LinkedList<>();
     private static final List<SimilarityMetric> selectedSimilarityMetrics = new LinkedList<>();
     private static final List<SimilarityMetric> combinedSimilarityMetrics = new LinkedList<>();
     private static final SimilarityMetric defaultSimilarityMetric = new SimilarityMetric(
@@ -40,24 +49,20 @@ public class MetricEvaluationManager implements Runnable {
     );
 
     private int threadId;
-    private String sampleName;
-    private boolean addAllSimilarityMetrics;
-    private boolean randomizeOrder;
-    private boolean validate;
-    private int numberOfRepetitions;
-    private int threadCount;
-
-    private Path postIdPath;
-    private Path postHistoryPath;
-    private Path groundTruthPath;
-    private Path outputDirPath;
+    private final Options options;
 
     private Set<Integer> postIds;
     private Map<Integer, PostGroundTruth> postGroundTruths; // postId -> PostGroundTruth
     private Map<Integer, PostVersionList> postVersionLists; // postId -> PostVersionList
+    private PostRepository posts; // provides the post version lists and ground truths to the evaluations
 
     private List<SimilarityMetric> similarityMetrics;
     private List<MetricEvaluationPerSample> metricEvaluationsPerSample;
+    private List<SimilarityMetric> plannedSimilarityMetrics;
+    private Map<SimilarityMetric, List<SimilarityMetric>> sweepPlan; // representative -> equivalent configurations
+    private BlockContentStore contentStore;
+
+    private boolean plannedPostEvaluationsReported; // flag used to check if the progress has been informed about this sample
 
     private boolean initialized;
     private boolean evaluationPrepared; // flag used to check if the metrics and samples have been added
@@ -106,6 +111,11 @@ public class MetricEvaluationManager implements Runnable {
                 .withEscape('\\')
                 .withNullString("null");
 
+        // the same format with an additional last column AvoidedComparisons, only used if a content store is used
+        // (see withContentDeduplication), so that the files of runs without it keep their columns
+        csvFormatMetricEvaluationPerSampleWithContentStore = csvFormatMetricEvaluationPerSample
+                .withHeader("MetricTypeText", "MetricText", "ThresholdText", "MetricTypeTextBackup", "MetricTextBackup", "ThresholdTextBackup", "MetricTypeCode", "MetricCode", "ThresholdCode", "MetricTypeCodeBackup", "MetricCodeBackup", "ThresholdCodeBackup", "Runtime", "InformednessText", "MarkednessText", "MatthewsCorrelationText", "FScoreText", "InformednessCode", "MarkednessCode", "MatthewsCorrelationCode", "FScoreCode", "PostCount", "PostVersionCount", "PostBlockVersionCount", "PossibleComparisons", "TextBlockVersionCount", "PossibleComparisonsText", "TruePositivesText", "TrueNegativesText", "FalsePositivesText", "FalseNegativesText", "FailuresText", "PrecisionText", "RecallText", "InversePrecisionText", "InverseRecallText", "FailureRateText", "CodeBlockVersionCount", "PossibleComparisonsCode", "TruePositivesCode", "TrueNegativesCode", "FalsePositivesCode", "FalseNegativesCode", "FailuresCode", "PrecisionCode", "RecallCode", "InversePrecisionCode", "InverseRecallCode", "FailureRateCode", "AvoidedComparisons");
+
         // configure CSV format for selected metrics
         csvFormatSelectedMetrics = CSVFormat.DEFAULT
                 .withHeader("Metric")
@@ -114,28 +124,10 @@ public class MetricEvaluationManager implements Runnable {
                 .withQuoteMode(QuoteMode.MINIMAL)
                 .withEscape('\\')
                 .withNullString("null");
-
-        // add default similarity metrics
-        createAllSimilarityMetrics();
     }
 
-    private MetricEvaluationManager(String sampleName, Path postIdPath,
-                                    Path postHistoryPath, Path groundTruthPath, Path outputDirPath,
-                                    boolean validate, boolean addAllSimilarityMetrics, boolean randomizeOrder,
-                                    int numberOfRepetitions, int threadCount) {
-
-        this.sampleName = sampleName;
-
-        this.postIdPath = postIdPath;
-        this.postHistoryPath = postHistoryPath;
-        this.groundTruthPath = groundTruthPath;
-        this.outputDirPath = outputDirPath;
-
-        this.validate = validate;
-        this.addAllSimilarityMetrics = addAllSimilarityMetrics;
-        this.randomizeOrder = randomizeOrder;
-        this.numberOfRepetitions = numberOfRepetitions;
-        this.threadCount = threadCount;
+    private MetricEvaluationManager(Options options) {
+        this.options = options;
 
         this.postIds = new HashSet<>();
         this.postGroundTruths = new HashMap<>();
@@ -149,82 +141,178 @@ public class MetricEvaluationManager implements Runnable {
         this.finished = false;
     }
 
-    public static final MetricEvaluationManager DEFAULT = new MetricEvaluationManager(
-            "SampleName",
-            null,
-            null,
-            null,
-            DEFAULT_OUTPUT_DIR,
-            true,
-            true,
-            true,
-            4,
-            1
-    );
+    public static final MetricEvaluationManager DEFAULT = new MetricEvaluationManager(new Options());
+
+    /**
+     * @return new (uninitialized) manager with a copy of the options of this manager changed by the given function
+     */
+    private MetricEvaluationManager with(Consumer<Options> change) {
+        Options changedOptions = options.copy();
+        change.accept(changedOptions);
+        return new MetricEvaluationManager(changedOptions);
+    }
 
     public MetricEvaluationManager withName(String name) {
-        return new MetricEvaluationManager(name, postIdPath, postHistoryPath, groundTruthPath, outputDirPath,
-                validate, addAllSimilarityMetrics, randomizeOrder, numberOfRepetitions, threadCount
-        );
+        return with(options -> options.sampleName = name);
     }
 
     public MetricEvaluationManager withInputPaths(Path postIdPath, Path postHistoryPath, Path groundTruthPath) {
-        return new MetricEvaluationManager(sampleName, postIdPath, postHistoryPath, groundTruthPath, outputDirPath,
-                validate, addAllSimilarityMetrics, randomizeOrder, numberOfRepetitions, threadCount
-        );
+        return with(options -> {
+            options.postIdPath = postIdPath;
+            options.postHistoryPath = postHistoryPath;
+            options.groundTruthPath = groundTruthPath;
+        });
     }
 
     public MetricEvaluationManager withOutputDirPath(Path outputDirPath) {
-        return new MetricEvaluationManager(sampleName, postIdPath, postHistoryPath, groundTruthPath, outputDirPath,
-                validate, addAllSimilarityMetrics, randomizeOrder, numberOfRepetitions, threadCount
-        );
+        return with(options -> options.outputDirPath = outputDirPath);
+    }
+
+    /**
+     * Read the posts from the manifest with the given pack file (see SampleManifest) instead of the PostHistory files.
+     * The manifest is built if it does not exist or is outdated. Manifests cannot be combined with off-heap storage
+     * or streaming, which read the posts from the PostHistory files, or with content deduplication, whose content
+     * store keeps all block contents on the heap (initialize throws an IllegalStateException).
+     */
+    public MetricEvaluationManager withManifestPath(Path manifestPath) {
+        return with(options -> options.manifestPath = manifestPath);
     }
 
     public MetricEvaluationManager withValidate(boolean validate) {
-        return new MetricEvaluationManager(sampleName, postIdPath, postHistoryPath, groundTruthPath, outputDirPath,
-                validate, addAllSimilarityMetrics, randomizeOrder, numberOfRepetitions, threadCount
-        );
+        return with(options -> options.validate = validate);
     }
 
     public MetricEvaluationManager withAllSimilarityMetrics(boolean addAllSimilarityMetrics) {
-        return new MetricEvaluationManager(sampleName, postIdPath, postHistoryPath, groundTruthPath, outputDirPath,
-                validate, addAllSimilarityMetrics, randomizeOrder, numberOfRepetitions, threadCount
-        );
+        return with(options -> options.addAllSimilarityMetrics = addAllSimilarityMetrics);
     }
 
     public MetricEvaluationManager withRandomizeOrder(boolean randomizeOrder) {
-        return new MetricEvaluationManager(sampleName, postIdPath, postHistoryPath, groundTruthPath, outputDirPath,
-                validate, addAllSimilarityMetrics, randomizeOrder, numberOfRepetitions, threadCount
-        );
+        return with(options -> options.randomizeOrder = randomizeOrder);
     }
 
     public MetricEvaluationManager withNumberOfRepetitions(int numberOfRepetitions) {
-        return new MetricEvaluationManager(sampleName, postIdPath, postHistoryPath, groundTruthPath, outputDirPath,
-                validate, addAllSimilarityMetrics, randomizeOrder, numberOfRepetitions, threadCount
-        );
+        return with(options -> options.numberOfRepetitions = numberOfRepetitions);
     }
 
     public MetricEvaluationManager withThreadCount(int threadCount) {
-        return new MetricEvaluationManager(sampleName, postIdPath, postHistoryPath, groundTruthPath, outputDirPath,
-                validate, addAllSimilarityMetrics, randomizeOrder, numberOfRepetitions, threadCount
-        );
+        return with(options -> options.threadCount = threadCount);
+    }
+
+    public MetricEvaluationManager withSweepPlanning(boolean planSweep) {
+        return with(options -> options.planSweep = planSweep);
+    }
+
+    /**
+     * Answer comparisons of identical block contents from a content store (see BlockContentStore). The store indexes
+     * the distinct contents of all posts of the sample in addition to the post version lists, i.e., it needs more heap
+     * memory, not less.
+     */
+    public MetricEvaluationManager withContentDeduplication(boolean deduplicateContents) {
+        return with(options -> options.deduplicateContents = deduplicateContents);
+    }
+
+    /**
+     * Keep the post histories off-heap and only create the post version lists while a post is evaluated (see
+     * OffHeapPostRepository). Off-heap storage cannot be combined with content deduplication, whose content store
+     * keeps all block contents on the heap (initialize throws an IllegalStateException).
+     */
+    public MetricEvaluationManager withOffHeapStorage(boolean useOffHeapStorage) {
+        return with(options -> options.useOffHeapStorage = useOffHeapStorage);
+    }
+
+    /**
+     * In streaming mode, posts are read one at a time during the evaluation, all metrics are evaluated on a post, and
+     * its results are written and added to the aggregated results per sample before the next post is read.
+     * Results per post are thus not kept (see getMetricEvaluation).
+     * Streaming cannot be combined with content deduplication or sweep planning, because they read all posts of the
+     * sample in advance (initialize throws an IllegalStateException).
+     */
+    public MetricEvaluationManager withStreaming(boolean streaming) {
+        return with(options -> options.streaming = streaming);
+    }
+
+    /**
+     * Compress the output files using gzip (".gz" is appended to the file names).
+     */
+    public MetricEvaluationManager withOutputCompression(boolean compressOutput) {
+        return with(options -> options.compressOutput = compressOutput);
+    }
+
+    /**
+     * Persist the connections predicted by each configuration (file &lt;sample&gt;_connections.bin), so that the
+     * results can be re-scored after changes of the ground truth (see rescoreSample).
+     */
+    public MetricEvaluationManager withConnectionPersistence(boolean persistConnections) {
+        return with(options -> options.persistConnections = persistConnections);
+    }
+
+    /**
+     * Use the prefilters of the metrics with the given types, i.e., skip comparisons whose similarity is bounded
+     * below the threshold (see Prefilter). Applies to the metrics added by withAllSimilarityMetrics.
+     */
+    public MetricEvaluationManager withPrefilteredMetricTypes(Set<SimilarityMetric.MetricType> types) {
+        Set<SimilarityMetric.MetricType> prefilteredMetricTypes = types.isEmpty()
+                ? EnumSet.noneOf(SimilarityMetric.MetricType.class)
+                : EnumSet.copyOf(types);
+        return with(options -> options.prefilteredMetricTypes = prefilteredMetricTypes);
+    }
+
+    /**
+     * Set the signature length of the MinHash metrics added by withAllSimilarityMetrics (see MinHash).
+     */
+    public MetricEvaluationManager withMinHashSignatureLength(int signatureLength) {
+        if (signatureLength < 1) {
+            String msg = "MinHash signature length must be at least 1.";
+            logger.warning(msg);
+            throw new IllegalArgumentException(msg);
+        }
+        return with(options -> options.minHashSignatureLength = signatureLength);
     }
 
     public MetricEvaluationManager initialize() {
+        if (options.streaming && (options.deduplicateContents || options.planSweep)) {
+            String msg = "Streaming cannot be combined with content deduplication or sweep planning, because they read "
+                    + "all posts of the sample in advance.";
+            logger.warning(msg);
+            throw new IllegalStateException(msg);
+        }
+        if (options.deduplicateContents && (options.useOffHeapStorage || options.manifestPath != null)) {
+            String msg = "Content deduplication cannot be combined with off-heap storage or manifests, because the "
+                    + "content store keeps all block contents of the sample on the heap.";
+            logger.warning(msg);
+            throw new IllegalStateException(msg);
+        }
+        if (options.manifestPath != null && (options.useOffHeapStorage || options.streaming)) {
+            String msg = "Manifests cannot be combined with off-heap storage or streaming, because they read the posts "
+                    + "from the PostHistory files.";
+            logger.warning(msg);
+            throw new IllegalStateException(msg);
+        }
+
         this.threadId = threadIdCounter.incrementAndGet();
 
-        if (addAllSimilarityMetrics) {
+        if (options.addAllSimilarityMetrics) {
             addAllSimilarityMetrics();
         }
 
         // ensure that input file exists (directories are tested in read methods)
-        Util.ensureFileExists(postIdPath);
+        Util.ensureFileExists(options.postIdPath);
 
-        logger.info("Thread " + threadId + ": Creating new MetricEvaluationManager for sample " + sampleName + " ...");
+        logger.info("Thread " + threadId + ": Creating new MetricEvaluationManager for sample " + options.sampleName + " ...");
 
-        try (CSVParser csvParser = new CSVParser(new FileReader(postIdPath.toFile()), csvFormatPostIds.withFirstRecordAsHeader())) {
+        Object loadEvent = FlightRecorderEvents.beginPhase(options.sampleName, FlightRecorderEvents.LOAD, threadId);
+        OffHeapPostRepository offHeapPosts = options.useOffHeapStorage ? new OffHeapPostRepository() : null;
+        StreamingPostRepository streamingPosts = options.streaming ? new StreamingPostRepository(options.postHistoryPath, options.groundTruthPath) : null;
+        ManifestPostRepository manifestPosts = null;
+        try (CSVParser csvParser = new CSVParser(new FileReader(options.postIdPath.toFile()), csvFormatPostIds.withFirstRecordAsHeader())) {
 
-            logger.info("Thread " + threadId + ": Reading PostIds from CSV file " + postIdPath.toFile().toString() + " ...");
+            logger.info("Thread " + threadId + ": Reading PostIds from CSV file " + options.postIdPath.toFile().toString() + " ...");
+
+            if (options.manifestPath != null) {
+                manifestPosts = new ManifestPostRepository(
+                        SampleManifest.openOrBuild(options.postIdPath, options.postHistoryPath, options.groundTruthPath, options.manifestPath)
+                );
+            }
 
             for (CSVRecord currentRecord : csvParser) {
                 int postId = Integer.parseInt(currentRecord.get("PostId"));
@@ -234,39 +322,65 @@ public class MetricEvaluationManager implements Runnable {
                 // add post id to set
                 postIds.add(postId);
 
-                // read post version list
-                PostVersionList newPostVersionList = PostVersionList.readFromCSV(
-                        postHistoryPath, postId, postTypeId, false
-                );
-                newPostVersionList.normalizeLinks();
-
-                if (newPostVersionList.size() != versionCount) {
-                    String msg = "Thread " + threadId + ": Version count expected to be " + versionCount + ", but was " + newPostVersionList.size();
-                    logger.warning(msg);
-                    throw new IllegalArgumentException(msg);
+                if (options.streaming) {
+                    // posts are read when they are evaluated
+                    streamingPosts.add(postId, postTypeId, versionCount);
+                    continue;
                 }
 
-                postVersionLists.put(postId, newPostVersionList);
+                if (manifestPosts != null) {
+                    // the post and its ground truth are read from the manifest again when needed
+                    PostVersionList newPostVersionList = validatePostVersionList(manifestPosts.readPostVersionList(postId), versionCount);
+                    PackedGroundTruth newPostGroundTruth = manifestPosts.readPostGroundTruth(postId);
+                    validatePostGroundTruth(newPostGroundTruth.getPossibleComparisons(), newPostGroundTruth.getPostHistoryIds(), newPostVersionList);
+                    manifestPosts.add(newPostVersionList);
+                    continue;
+                }
 
-                // read ground truth
-                PostGroundTruth newPostGroundTruth = PostGroundTruth.readFromCSV(groundTruthPath, postId);
+                PostVersionList newPostVersionList = readPostVersionList(postId, postTypeId, versionCount);
+                PostGroundTruth newPostGroundTruth = readPostGroundTruth(newPostVersionList);
 
-                if (newPostGroundTruth.getPossibleComparisons() != newPostVersionList.getPossibleComparisons()) {
-                    String msg = "Thread " + threadId + ": Number of possible comparisons in ground truth is different " + "from number of possible comparisons in post history.";
-                    logger.warning(msg);
-                    throw new IllegalArgumentException(msg);
+                if (options.useOffHeapStorage) {
+                    // only the PostHistory file and the packed ground truth are kept, the objects are created again when needed
+                    offHeapPosts.add(options.postHistoryPath, newPostVersionList, PackedGroundTruth.of(newPostGroundTruth));
+                } else {
+                    postVersionLists.put(postId, newPostVersionList);
+                    postGroundTruths.put(postId, newPostGroundTruth);
                 }
-
-                postGroundTruths.put(postId, newPostGroundTruth);
             }
         } catch (IOException e) {
             e.printStackTrace();
         }
+        if (options.streaming) {
+            posts = streamingPosts;
+        } else if (manifestPosts != null) {
+            posts = manifestPosts;
+            logger.info("Thread " + threadId + ": Reading posts of sample " + options.sampleName + " from manifest " + manifestPosts.getPackFile() + ".");
+        } else if (options.useOffHeapStorage) {
+            posts = offHeapPosts;
+            logger.info("Thread " + threadId + ": Stored " + offHeapPosts.getSize() + " bytes of post histories off-heap for sample " + options.sampleName + ".");
+        } else {
+            posts = new HeapPostRepository(postVersionLists, postGroundTruths);
+        }
+        FlightRecorderEvents.commitPhase(loadEvent, 0, postIds.size());
 
-        if (validate && !validate()) {
-            String msg = "Thread " + threadId + ": Post ground truth files and post version history files do not match.";
-            logger.warning(msg);
-            throw new IllegalArgumentException(msg);
+        if (options.deduplicateContents) {
+            contentStore = BlockContentStore.create(posts.getPostVersionLists());
+            logger.info("Thread " + threadId + ": " + contentStore.getDistinctContentCount() + " distinct contents in "
+                    + contentStore.getBlockCount() + " post block versions of sample " + options.sampleName + " ("
+                    + contentStore.getDuplicateCharCount() + " of " + contentStore.getCharCount() + " characters are duplicates).");
+        }
+
+        if (options.validate) {
+            Object validateEvent = FlightRecorderEvents.beginPhase(options.sampleName, FlightRecorderEvents.VALIDATE, threadId);
+            boolean valid = validate();
+            FlightRecorderEvents.commitPhase(validateEvent, metricEvaluationsPerSample.size(), postIds.size());
+
+            if (!valid) {
+                String msg = "Thread " + threadId + ": Post ground truth files and post version history files do not match.";
+                logger.warning(msg);
+                throw new IllegalArgumentException(msg);
+            }
         }
 
         initialized = true;
@@ -275,7 +389,10 @@ public class MetricEvaluationManager implements Runnable {
     }
 
     private void addAllSimilarityMetrics() {
-        similarityMetrics.addAll(allSimilarityMetrics);
+        // the catalog creates the (metric, threshold) configurations on first use
+        similarityMetrics.addAll(SimilarityMetricCatalog
+                .getInstance(options.prefilteredMetricTypes, options.minHashSignatureLength)
+                .getAllSimilarityMetrics());
     }
 
     public void addSelectedSimilarityMetrics() {
@@ -290,31 +407,86 @@ public class MetricEvaluationManager implements Runnable {
         similarityMetrics.add(defaultSimilarityMetric);
     }
 
+    private PostVersionList readPostVersionList(int postId, int postTypeId, int versionCount) {
+        PostVersionList postVersionList = PostVersionList.readFromCSV(
+                options.postHistoryPath, postId, postTypeId, false
+        );
+        postVersionList.normalizeLinks();
+
+        return validatePostVersionList(postVersionList, versionCount);
+    }
+
+    private PostVersionList validatePostVersionList(PostVersionList postVersionList, int versionCount) {
+        if (postVersionList.size() != versionCount) {
+            String msg = "Thread " + threadId + ": Version count expected to be " + versionCount + ", but was " + postVersionList.size();
+            logger.warning(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        return postVersionList;
+    }
+
+    private PostGroundTruth readPostGroundTruth(PostVersionList postVersionList) {
+        PostGroundTruth postGroundTruth = PostGroundTruth.readFromCSV(options.groundTruthPath, postVersionList.getPostId());
+        validatePostGroundTruth(postGroundTruth.getPossibleComparisons(), postGroundTruth.getPostHistoryIds(), postVersionList);
+        return postGroundTruth;
+    }
+
+    private void validatePostGroundTruth(int possibleComparisons, List<Integer> postHistoryIds, PostVersionList postVersionList) {
+        if (possibleComparisons != postVersionList.getPossibleComparisons()) {
+            String msg = "Thread " + threadId + ": Number of possible comparisons in ground truth is different " + "from number of possible comparisons in post history.";
+            logger.warning(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (!postHistoryIds.equals(postVersionList.getPostHistoryIds())) {
+            String msg = "Thread " + threadId + ": PostHistoryIds in postVersionList and postGroundTruth differ.";
+            logger.warning(msg);
+            throw new IllegalArgumentException(msg);
+        }
+    }
+
     public boolean validate() {
         if (!evaluationPrepared) {
             prepareEvaluation();
         }
-        for (MetricEvaluationPerSample sample : metricEvaluationsPerSample) {
-            if (!sample.validate()) {
-                return false;
-            }
-        }
-        return true;
+        // all evaluations share the same posts, validating one of them is sufficient
+        return metricEvaluationsPerSample.isEmpty() || metricEvaluationsPerSample.get(0).validate();
     }
 
     private void prepareEvaluation() {
         metricEvaluationsPerSample.clear();
-        for (SimilarityMetric similarityMetric : similarityMetrics) {
+
+        List<SimilarityMetric> metricsToEvaluate = similarityMetrics;
+        if (options.planSweep) {
+            // probing the metrics is expensive, only plan again if the metrics changed
+            if (sweepPlan == null || !similarityMetrics.equals(plannedSimilarityMetrics)) {
+                logger.info("Thread " + threadId + ": Planning evaluation of " + similarityMetrics.size() + " metrics for sample " + options.sampleName + "...");
+                sweepPlan = SweepPlanner.plan(similarityMetrics, posts.getPostVersionLists());
+                plannedSimilarityMetrics = new LinkedList<>(similarityMetrics);
+            }
+            metricsToEvaluate = new LinkedList<>(sweepPlan.keySet());
+        }
+
+        for (SimilarityMetric similarityMetric : metricsToEvaluate) {
             MetricEvaluationPerSample evaluationPerSample = new MetricEvaluationPerSample(
-                    sampleName,
+                    options.sampleName,
                     similarityMetric,
                     postIds,
-                    postVersionLists,
-                    postGroundTruths,
-                    numberOfRepetitions,
-                    randomizeOrder
+                    posts,
+                    options.numberOfRepetitions,
+                    options.randomizeOrder
             );
-            evaluationPerSample.prepareEvaluation();
+            if (contentStore != null) {
+                evaluationPerSample.useContentStore(contentStore);
+            }
+            if (options.persistConnections) {
+                evaluationPerSample.recordConnections();
+            }
+            if (!options.streaming) {
+                // in streaming mode, the evaluations per post are created when the post is read
+                evaluationPerSample.prepareEvaluation();
+            }
             metricEvaluationsPerSample.add(evaluationPerSample);
         }
     }
@@ -325,7 +497,7 @@ public class MetricEvaluationManager implements Runnable {
 
     @Override
     public void run() {
-        logger.info("Thread " + threadId + " started for sample " + sampleName + "...");
+        logger.info("Thread " + threadId + " started for sample " + options.sampleName + "...");
 
         if (!initialized) {
             initialize();
@@ -335,58 +507,287 @@ public class MetricEvaluationManager implements Runnable {
             prepareEvaluation();
         }
 
-        for (int currentRepetition = 1; currentRepetition <= numberOfRepetitions; currentRepetition++) {
-            if (randomizeOrder) {
-                logger.info( "Thread " + threadId + ": Randomizing order of similarity metrics for sample " + sampleName + "...");
+        EvaluationProgress evaluationProgress = EvaluationProgress.getInstance();
+        EvaluationEventLog eventLog = EvaluationEventLog.getInstance();
+        long plannedPostEvaluations = 0;
+        for (MetricEvaluationPerSample evaluationPerSample : metricEvaluationsPerSample) {
+            plannedPostEvaluations += (long) (options.streaming ? postIds.size() : evaluationPerSample.size()) * options.numberOfRepetitions;
+        }
+        if (plannedPostEvaluationsReported) {
+            // correct the estimate, e.g., if the sweep plan skipped configurations
+            evaluationProgress.addPlannedPostEvaluations(plannedPostEvaluations - getPlannedPostEvaluations());
+        } else {
+            evaluationProgress.addPlannedPostEvaluations(plannedPostEvaluations);
+        }
+
+        if (options.streaming) {
+            runStreaming(evaluationProgress, eventLog);
+            return;
+        }
+
+        Object evaluateEvent = FlightRecorderEvents.beginPhase(options.sampleName, FlightRecorderEvents.EVALUATE, threadId);
+        for (int currentRepetition = 1; currentRepetition <= options.numberOfRepetitions; currentRepetition++) {
+            if (options.randomizeOrder) {
+                if (eventLog.acquire(logger, Level.INFO, "manager.randomize")) {
+                    eventLog.log(logger, Level.INFO, "manager.randomize", "Randomizing order of similarity metrics",
+                            "managerThread", threadId, "sample", options.sampleName, "repetition", currentRepetition);
+                }
                 randomizeOrder();
             }
 
+            if (!(posts instanceof HeapPostRepository)) {
+                // the posts are created on demand, create each post once for all metrics
+                evaluatePostMajor(currentRepetition, evaluationProgress, eventLog);
+                continue;
+            }
+
             int size = metricEvaluationsPerSample.size();
             for (int i = 0; i < size; i++) {
                 MetricEvaluationPerSample evaluationPerSample = metricEvaluationsPerSample.get(i);
 
-                // Locale.ROOT -> force '.' as decimal separator
-                String progress = String.format(Locale.ROOT, "%.2f%%", (((double)(i+1))/size*100));
-                logger.info( "Thread " + threadId + ": Starting evaluation " + (i+1) + " of " + size + " (" + progress + "), "
-                        + "repetition " + currentRepetition + " of " + numberOfRepetitions + "...");
+                if (eventLog.acquire(logger, Level.INFO, "manager.evaluation")) {
+                    eventLog.log(logger, Level.INFO, "manager.evaluation", "Starting evaluation",
+                            "managerThread", threadId, "sample", options.sampleName,
+                            "evaluation", i+1, "evaluationCount", size,
+                            "repetition", currentRepetition, "repetitionCount", options.numberOfRepetitions);
+                }
 
+                evaluationProgress.setCurrentEvaluation(threadId, options.sampleName, evaluationPerSample.getSimilarityMetric());
                 synchronized (MetricEvaluationManager.class) {
                      evaluationPerSample.startEvaluation(currentRepetition);
                 }
             }
         }
+        evaluationProgress.clearCurrentEvaluation(threadId);
+        FlightRecorderEvents.commitPhase(evaluateEvent, metricEvaluationsPerSample.size(), postIds.size());
 
-        logger.info("Thread " + threadId + ": Saving results for sample " + sampleName + "...");
+        if (contentStore != null) {
+            logger.info("Thread " + threadId + ": " + contentStore.getShortCircuitedComparisons()
+                    + " comparisons of identical contents answered from the content store for sample " + options.sampleName + ".");
+        }
+
+        if (options.planSweep) {
+            addEquivalentResults();
+        }
+
+        logger.info("Thread " + threadId + ": Saving results for sample " + options.sampleName + "...");
+        Object writeEvent = FlightRecorderEvents.beginPhase(options.sampleName, FlightRecorderEvents.WRITE, threadId);
         writeToCSV();
+        FlightRecorderEvents.commitPhase(writeEvent, metricEvaluationsPerSample.size(), postIds.size());
+        logger.info("Thread " + threadId + ": Results saved.");
+
+        eventLog.flush(logger);
+
+        this.finished = true;
+        logger.info("Thread " + threadId + ": Finished.");
+    }
+
+    /**
+     * Evaluate all metrics on one post after the other. Each post is requested once from the repository and shared
+     * by the evaluations of all metrics, i.e., repositories that create the posts on demand (see
+     * OffHeapPostRepository and ManifestPostRepository) parse each post once per repetition instead of once per
+     * metric and repetition.
+     */
+    private void evaluatePostMajor(int currentRepetition, EvaluationProgress evaluationProgress, EvaluationEventLog eventLog) {
+        // postId -> evaluations of the post, in the (possibly randomized) order of the metrics
+        Map<Integer, List<MetricEvaluationPerPost>> evaluationsPerPost = new LinkedHashMap<>();
+        for (int postId : postIds) {
+            evaluationsPerPost.put(postId, new ArrayList<>(metricEvaluationsPerSample.size()));
+        }
+        for (MetricEvaluationPerSample evaluationPerSample : metricEvaluationsPerSample) {
+            for (MetricEvaluationPerPost evaluationPerPost : evaluationPerSample) {
+                evaluationsPerPost.get(evaluationPerPost.getPostId()).add(evaluationPerPost);
+            }
+        }
+
+        List<Integer> postOrder = new ArrayList<>(evaluationsPerPost.keySet());
+        if (options.randomizeOrder) {
+            Collections.shuffle(postOrder, new Random());
+        }
+
+        for (int postIndex = 0; postIndex < postOrder.size(); postIndex++) {
+            int postId = postOrder.get(postIndex);
+            if (eventLog.acquire(logger, Level.INFO, "manager.post")) {
+                eventLog.log(logger, Level.INFO, "manager.post", "Evaluating post",
+                        "managerThread", threadId, "sample", options.sampleName, "postId", postId,
+                        "post", postIndex+1, "postCount", postOrder.size(), "repetition", currentRepetition);
+            }
+
+            PostVersionList postVersionList = posts.getPostVersionList(postId);
+            PackedGroundTruth postGroundTruth = posts.getPostGroundTruth(postId);
+            for (MetricEvaluationPerPost evaluationPerPost : evaluationsPerPost.get(postId)) {
+                evaluationProgress.setCurrentEvaluation(threadId, options.sampleName, evaluationPerPost.getSimilarityMetric());
+                // each metric computes the MinHash sketches of the post
+                MinHash.clearThreadCaches();
+                synchronized (MetricEvaluationManager.class) {
+                    evaluationPerPost.startEvaluation(currentRepetition, postVersionList, postGroundTruth);
+                }
+            }
+        }
+    }
+
+    private void runStreaming(EvaluationProgress evaluationProgress, EvaluationEventLog eventLog) {
+        StreamingPostRepository streamingPosts = (StreamingPostRepository) posts;
+        int evaluationCount = metricEvaluationsPerSample.size();
+
+        // order in which the metrics are evaluated on a post
+        List<Integer> evaluationOrder = new ArrayList<>(evaluationCount);
+        for (int i = 0; i < evaluationCount; i++) {
+            evaluationOrder.add(i);
+        }
+
+        List<Integer> postOrder = new ArrayList<>(postIds);
+        if (options.randomizeOrder) {
+            if (eventLog.acquire(logger, Level.INFO, "manager.randomize")) {
+                eventLog.log(logger, Level.INFO, "manager.randomize", "Randomizing order of posts",
+                        "managerThread", threadId, "sample", options.sampleName);
+            }
+            Collections.shuffle(postOrder, new Random());
+        }
+
+        Object evaluateEvent = FlightRecorderEvents.beginPhase(options.sampleName, FlightRecorderEvents.EVALUATE, threadId);
+        // create output directory if it does not exist
+        try {
+            Util.createDirectory(options.outputDirPath);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        // results are written by the output pipeline, so that the evaluation does not wait for the disk
+        try (OutputPipeline outputPipeline = new OutputPipeline(options.sampleName, options.compressOutput)) {
+            Path outputFilePerVersion = getOutputFile(outputPipeline, "_per_version.csv");
+            Path outputFilePerPost = getOutputFile(outputPipeline, "_per_post.csv");
+            Path outputFilePerSample = getOutputFile(outputPipeline, "_per_sample.csv");
+
+            logger.info("Thread " + threadId + ": Streaming " + postOrder.size() + " posts of sample " + options.sampleName
+                    + ", writing results to " + outputFilePerVersion.toFile().getName() + ", "
+                    + outputFilePerPost.toFile().getName() + ", and " + outputFilePerSample.toFile().getName() + " ...");
+            try (CSVPrinter csvPrinterVersion = new CSVPrinter(outputPipeline.open(outputFilePerVersion), csvFormatMetricEvaluationPerVersion);
+                 CSVPrinter csvPrinterPost = new CSVPrinter(outputPipeline.open(outputFilePerPost), csvFormatMetricEvaluationPerPost);
+                 CSVPrinter csvPrinterSample = new CSVPrinter(outputPipeline.open(outputFilePerSample), csvFormatMetricEvaluationPerSample);
+                 PredictedConnections.PredictionWriter predictionWriter = openPredictionWriter()) {
+
+                for (int postIndex = 0; postIndex < postOrder.size(); postIndex++) {
+                    int postId = postOrder.get(postIndex);
+
+                    // read the post and make it the only post the evaluations can access
+                    PostVersionList postVersionList = readPostVersionList(
+                            postId, streamingPosts.getPostTypeId(postId), streamingPosts.getExpectedVersionCount(postId)
+                    );
+                    PostGroundTruth postGroundTruth = readPostGroundTruth(postVersionList);
+                    PostRepository currentPost = new HeapPostRepository(
+                            Collections.singletonMap(postId, postVersionList),
+                            Collections.singletonMap(postId, postGroundTruth)
+                    );
+
+                    if (eventLog.acquire(logger, Level.INFO, "manager.streaming")) {
+                        eventLog.log(logger, Level.INFO, "manager.streaming", "Evaluating post",
+                                "managerThread", threadId, "sample", options.sampleName, "postId", postId,
+                                "post", postIndex+1, "postCount", postOrder.size());
+                    }
+
+                    List<MetricEvaluationPerPost> evaluationsPerPost = new ArrayList<>(evaluationCount);
+                    for (MetricEvaluationPerSample evaluationPerSample : metricEvaluationsPerSample) {
+                        evaluationsPerPost.add(evaluationPerSample.createEvaluation(postId, currentPost));
+                    }
+
+                    for (int currentRepetition = 1; currentRepetition <= options.numberOfRepetitions; currentRepetition++) {
+                        if (options.randomizeOrder) {
+                            Collections.shuffle(evaluationOrder, new Random());
+                        }
+                        for (int i : evaluationOrder) {
+                            evaluationProgress.setCurrentEvaluation(threadId, options.sampleName, metricEvaluationsPerSample.get(i).getSimilarityMetric());
+                            // each repetition computes the MinHash sketches of the post again
+                            MinHash.clearThreadCaches();
+                            synchronized (MetricEvaluationManager.class) {
+                                evaluationsPerPost.get(i).startEvaluation(currentRepetition);
+                            }
+                        }
+                    }
+
+                    // write and aggregate the results, afterwards the post is released
+                    for (int i = 0; i < evaluationCount; i++) {
+                        MetricEvaluationPerPost evaluationPerPost = evaluationsPerPost.get(i);
+                        metricEvaluationsPerSample.get(i).accumulate(evaluationPerPost);
+                        evaluationPerPost.writeToCSV(csvPrinterPost, csvPrinterVersion);
+                        writePredictedConnections(predictionWriter, evaluationPerPost);
+                    }
+                }
+                evaluationProgress.clearCurrentEvaluation(threadId);
+
+                // write aggregated results per sample
+                for (MetricEvaluationPerSample evaluationPerSample : metricEvaluationsPerSample) {
+                    evaluationPerSample.writeToCSV(csvPrinterSample);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        FlightRecorderEvents.commitPhase(evaluateEvent, metricEvaluationsPerSample.size(), postIds.size());
+
         logger.info("Thread " + threadId + ": Results saved.");
 
+        eventLog.flush(logger);
+
         this.finished = true;
         logger.info("Thread " + threadId + ": Finished.");
     }
 
+    /**
+     * Estimate the number of post evaluations before the evaluation has been prepared and inform the global progress.
+     * @return number of post evaluations (metrics * posts * repetitions)
+     */
+    public long reportPlannedPostEvaluations() {
+        long plannedPostEvaluations = getPlannedPostEvaluations();
+        EvaluationProgress.getInstance().addPlannedPostEvaluations(plannedPostEvaluations);
+        plannedPostEvaluationsReported = true;
+        return plannedPostEvaluations;
+    }
+
+    private long getPlannedPostEvaluations() {
+        return (long) similarityMetrics.size() * postIds.size() * options.numberOfRepetitions;
+    }
+
+    private void addEquivalentResults() {
+        // configurations that yield identical results get a copy of the results of their representative
+        List<MetricEvaluationPerSample> equivalentEvaluations = new LinkedList<>();
+        for (MetricEvaluationPerSample evaluationPerSample : metricEvaluationsPerSample) {
+            for (SimilarityMetric equivalentMetric : sweepPlan.get(evaluationPerSample.getSimilarityMetric())) {
+                equivalentEvaluations.add(evaluationPerSample.copyFor(equivalentMetric));
+            }
+        }
+        logger.info("Thread " + threadId + ": Added results of " + equivalentEvaluations.size() + " equivalent configurations for sample " + options.sampleName + ".");
+        metricEvaluationsPerSample.addAll(equivalentEvaluations);
+    }
+
     private void writeToCSV() {
+        // create output directory if it does not exist
         try {
-            // create output directory if it does not exist
-            Util.createDirectory(outputDirPath);
+            Util.createDirectory(options.outputDirPath);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
 
+        // the rows are formatted on this thread and written by the output pipeline
+        try (OutputPipeline outputPipeline = new OutputPipeline(options.sampleName, options.compressOutput)) {
             // output file by version
-            Path outputFilePerVersion = Paths.get(this.outputDirPath.toString(), sampleName + "_per_version.csv");
-            Util.deleteFileIfExists(outputFilePerVersion);
+            Path outputFilePerVersion = getOutputFile(outputPipeline, "_per_version.csv");
 
             // output file aggregated by post
-            Path outputFilePerPost = Paths.get(this.outputDirPath.toString(), sampleName + "_per_post.csv");
-            Util.deleteFileIfExists(outputFilePerPost);
+            Path outputFilePerPost = getOutputFile(outputPipeline, "_per_post.csv");
 
             // output file aggregated by sample
-            Path outputFilePerSample = Paths.get(this.outputDirPath.toString(), sampleName + "_per_sample.csv");
-            Util.deleteFileIfExists(outputFilePerSample);
+            Path outputFilePerSample = getOutputFile(outputPipeline, "_per_sample.csv");
 
             logger.info("Thread " + threadId + ": Writing metric evaluation results per version to CSV file " + outputFilePerVersion.toFile().getName() + " ...");
             logger.info("Thread " + threadId + ": Writing metric evaluation results per post to CSV file " + outputFilePerPost.toFile().getName() + " ...");
             logger.info("Thread " + threadId + ": Writing metric evaluation results per sample to CSV file " + outputFilePerSample.toFile().getName() + " ...");
-            try (CSVPrinter csvPrinterVersion = new CSVPrinter(new FileWriter(outputFilePerVersion.toFile()), csvFormatMetricEvaluationPerVersion);
-                 CSVPrinter csvPrinterPost = new CSVPrinter(new FileWriter(outputFilePerPost.toFile()), csvFormatMetricEvaluationPerPost);
-                 CSVPrinter csvPrinterSample = new CSVPrinter(new FileWriter(outputFilePerSample.toFile()), csvFormatMetricEvaluationPerSample)) {
+            CSVFormat csvFormatPerSample = contentStore != null
+                    ? csvFormatMetricEvaluationPerSampleWithContentStore
+                    : csvFormatMetricEvaluationPerSample;
+            try (CSVPrinter csvPrinterVersion = new CSVPrinter(outputPipeline.open(outputFilePerVersion), csvFormatMetricEvaluationPerVersion);
+                 CSVPrinter csvPrinterPost = new CSVPrinter(outputPipeline.open(outputFilePerPost), csvFormatMetricEvaluationPerPost);
+                 CSVPrinter csvPrinterSample = new CSVPrinter(outputPipeline.open(outputFilePerSample), csvFormatPerSample);
+                 PredictedConnections.PredictionWriter predictionWriter = openPredictionWriter()) {
 
                 // header is automatically written
 
@@ -394,6 +795,7 @@ public class MetricEvaluationManager implements Runnable {
                 for (MetricEvaluationPerSample evaluationPerSample : metricEvaluationsPerSample) {
                     for (MetricEvaluationPerPost evaluationPerPost : evaluationPerSample) {
                         evaluationPerPost.writeToCSV(csvPrinterPost, csvPrinterVersion);
+                        writePredictedConnections(predictionWriter, evaluationPerPost);
                     }
                 }
 
@@ -407,16 +809,48 @@ public class MetricEvaluationManager implements Runnable {
         }
     }
 
+    /**
+     * @return writer for the predicted connections, null if they are not persisted
+     */
+    private PredictedConnections.PredictionWriter openPredictionWriter() throws IOException {
+        if (!options.persistConnections) {
+            return null;
+        }
+        Path connectionsFile = Paths.get(options.outputDirPath.toString(), options.sampleName + "_connections.bin");
+        Util.deleteFileIfExists(connectionsFile);
+        logger.info("Thread " + threadId + ": Writing predicted connections to file " + connectionsFile.toFile().getName() + " ...");
+        return new PredictedConnections.PredictionWriter(connectionsFile);
+    }
+
+    private void writePredictedConnections(PredictedConnections.PredictionWriter predictionWriter,
+                                           MetricEvaluationPerPost evaluationPerPost) throws IOException {
+        if (predictionWriter != null) {
+            predictionWriter.write(evaluationPerPost.getSimilarityMetric(), evaluationPerPost.getPredictedConnections());
+        }
+    }
+
+    private Path getOutputFile(OutputPipeline outputPipeline, String suffix) throws IOException {
+        Path outputFile = outputPipeline.resolve(Paths.get(options.outputDirPath.toString(), options.sampleName + suffix));
+        Util.deleteFileIfExists(outputFile);
+        return outputFile;
+    }
+
+    /**
+     * @return ground truths of the sample (empty if off-heap storage, streaming, or a manifest is used)
+     */
     public Map<Integer, PostGroundTruth> getPostGroundTruths() {
         return postGroundTruths;
     }
 
+    /**
+     * @return post version lists of the sample (empty if off-heap storage, streaming, or a manifest is used)
+     */
     public Map<Integer, PostVersionList> getPostVersionLists() {
         return postVersionLists;
     }
 
     public Set<Integer> getPostIds() {
-        return postVersionLists.keySet();
+        return postIds;
     }
 
     public void addSimilarityMetric(SimilarityMetric metric) {
@@ -448,7 +882,7 @@ public class MetricEvaluationManager implements Runnable {
     }
 
     public String getSampleName() {
-        return sampleName;
+        return options.sampleName;
     }
 
     public boolean isFinished() {
@@ -466,6 +900,20 @@ public class MetricEvaluationManager implements Runnable {
             Path samplesDir,
             Path outputDir,
             boolean addDefaultMetricsAndThresholds) {
+        return createManagersFromSampleDirectories(samplesDir, outputDir,
+                DEFAULT.withAllSimilarityMetrics(addDefaultMetricsAndThresholds), false);
+    }
+
+    /*
+     * Create managers for all samples in a directory (see above), the managers get the options of the given template
+     * manager. If manifests are used, they are read from (and built in) the sample directories (see
+     * SampleManifest.getPackFile).
+     */
+    public static List<MetricEvaluationManager> createManagersFromSampleDirectories(
+            Path samplesDir,
+            Path outputDir,
+            MetricEvaluationManager template,
+            boolean useManifests) {
 
         try {
             Util.ensureEmptyDirectoryExists(outputDir);
@@ -488,11 +936,11 @@ public class MetricEvaluationManager implements Runnable {
                         Path pathToPostHistory = Paths.get(path.toString(), "files");
                         Path pathToGroundTruth = Paths.get(path.toString(), "completed");
 
-                        MetricEvaluationManager manager = MetricEvaluationManager.DEFAULT
+                        MetricEvaluationManager manager = template
                                 .withName(name)
                                 .withInputPaths(pathToPostIdList, pathToPostHistory, pathToGroundTruth)
                                 .withOutputDirPath(outputDir)
-                                .withAllSimilarityMetrics(addDefaultMetricsAndThresholds)
+                                .withManifestPath(useManifests ? SampleManifest.getPackFile(path) : null)
                                 .initialize();
 
                         managers.add(manager);
@@ -505,12 +953,110 @@ public class MetricEvaluationManager implements Runnable {
         return managers;
     }
 
+    /**
+     * Score the connections persisted by an earlier evaluation (see withConnectionPersistence) against the current
+     * ground truth and write the results per version, post, and sample to the output directory.
+     * The version histories are not processed again; runtimes are the ones measured in the earlier evaluation.
+     */
+    public static void rescoreSample(String sampleName, Path connectionsFile, Path groundTruthPath,
+                                     Path outputDirPath, boolean compressOutput) {
+        Util.ensureDirectoryExists(groundTruthPath);
+        logger.info("Re-scoring predicted connections in file " + connectionsFile + " for sample " + sampleName + "...");
+
+        try {
+            Util.createDirectory(outputDirPath);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        int postEvaluationCount = 0;
+        try (OutputPipeline outputPipeline = new OutputPipeline(sampleName, compressOutput);
+             PredictedConnections.PredictionReader predictionReader = new PredictedConnections.PredictionReader(connectionsFile)) {
+            Path outputFilePerVersion = outputPipeline.resolve(Paths.get(outputDirPath.toString(), sampleName + "_per_version.csv"));
+            Path outputFilePerPost = outputPipeline.resolve(Paths.get(outputDirPath.toString(), sampleName + "_per_post.csv"));
+            Path outputFilePerSample = outputPipeline.resolve(Paths.get(outputDirPath.toString(), sampleName + "_per_sample.csv"));
+            Util.deleteFileIfExists(outputFilePerVersion);
+            Util.deleteFileIfExists(outputFilePerPost);
+            Util.deleteFileIfExists(outputFilePerSample);
+
+            try (CSVPrinter csvPrinterVersion = new CSVPrinter(outputPipeline.open(outputFilePerVersion), csvFormatMetricEvaluationPerVersion);
+                 CSVPrinter csvPrinterPost = new CSVPrinter(outputPipeline.open(outputFilePerPost), csvFormatMetricEvaluationPerPost);
+                 CSVPrinter csvPrinterSample = new CSVPrinter(outputPipeline.open(outputFilePerSample), csvFormatMetricEvaluationPerSample)) {
+
+                // the reader returns one SimilarityMetric instance per configuration
+                Map<SimilarityMetric, MetricEvaluationPerSample> evaluationsPerSample = new LinkedHashMap<>();
+                Map<Integer, PostGroundTruth> postGroundTruths = new HashMap<>(); // postId -> PostGroundTruth
+
+                PredictedConnections predictedConnections;
+                while ((predictedConnections = predictionReader.next()) != null) {
+                    SimilarityMetric similarityMetric = predictionReader.getSimilarityMetric();
+                    MetricEvaluationPerSample evaluationPerSample = evaluationsPerSample.computeIfAbsent(
+                            similarityMetric,
+                            metric -> new MetricEvaluationPerSample(sampleName, metric, Collections.emptySet(), null, 1, false)
+                    );
+                    PostGroundTruth postGroundTruth = postGroundTruths.computeIfAbsent(
+                            predictedConnections.getPostId(),
+                            postId -> PostGroundTruth.readFromCSV(groundTruthPath, postId)
+                    );
+
+                    MetricEvaluationPerPost evaluationPerPost = predictedConnections.rescore(sampleName, similarityMetric, postGroundTruth);
+                    evaluationPerSample.accumulate(evaluationPerPost);
+                    evaluationPerPost.writeToCSV(csvPrinterPost, csvPrinterVersion);
+                    postEvaluationCount++;
+                }
+
+                for (MetricEvaluationPerSample evaluationPerSample : evaluationsPerSample.values()) {
+                    evaluationPerSample.writeToCSV(csvPrinterSample);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        logger.info("Re-scored " + postEvaluationCount + " post evaluations of sample " + sampleName + ".");
+    }
+
+    /**
+     * Re-score all samples in the samples directory using the connections persisted in the connections directory
+     * (output directory of an earlier evaluation).
+     */
+    public static void rescoreSampleDirectories(Path samplesDir, Path connectionsDir, Path outputDir, boolean compressOutput) {
+        try (Stream<Path> paths = Files.list(samplesDir)) {
+            paths.forEach(
+                    path -> {
+                        // only consider directories (ignore, e.g., .DS_Store files on macOS)
+                        if (!Files.isDirectory(path)) {
+                            return;
+                        }
+                        String name = path.toFile().getName();
+                        rescoreSample(
+                                name,
+                                Paths.get(connectionsDir.toString(), name + "_connections.bin"),
+                                Paths.get(path.toString(), "completed"),
+                                outputDir,
+                                compressOutput
+                        );
+                    }
+            );
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
     public static void aggregateAndWriteSampleResults(List<MetricEvaluationManager> managers, File outputFile) {
+        Object aggregationEvent = FlightRecorderEvents.beginAggregation();
+
         // aggregate results over all samples
         Map<SimilarityMetric, MetricResult> aggregatedMetricResultsText = new HashMap<>();
         Map<SimilarityMetric, MetricResult> aggregatedMetricResultsCode = new HashMap<>();
+        Map<SimilarityMetric, Double> aggregatedAvoidedComparisons = new HashMap<>();
+        boolean contentStoreUsed = false; // AvoidedComparisons is only written if a sample used a content store
         for (int i=0; i<managers.size(); i++) {
             MetricEvaluationManager manager = managers.get(i);
+            contentStoreUsed |= manager.options.deduplicateContents;
+            for (MetricEvaluationPerSample evaluation : manager.metricEvaluationsPerSample) {
+                aggregatedAvoidedComparisons.merge(evaluation.getSimilarityMetric(), evaluation.getAvoidedComparisons(), Double::sum);
+            }
             if (i==0) {
                 for (MetricEvaluationPerSample evaluation : manager.metricEvaluationsPerSample) {
                     MetricResult resultText = evaluation.getResultAggregatedBySampleText();
@@ -543,7 +1089,10 @@ public class MetricEvaluationManager implements Runnable {
         }
 
         // write aggregated results
-        try (CSVPrinter csvPrinterAggregated = new CSVPrinter(new FileWriter(outputFile), csvFormatMetricEvaluationPerSample)) {
+        CSVFormat csvFormatAggregated = contentStoreUsed
+                ? csvFormatMetricEvaluationPerSampleWithContentStore
+                : csvFormatMetricEvaluationPerSample;
+        try (CSVPrinter csvPrinterAggregated = new CSVPrinter(new FileWriter(outputFile), csvFormatAggregated)) {
             for (SimilarityMetric similarityMetric : aggregatedMetricResultsText.keySet()) {
                 MetricResult aggregatedResultText = aggregatedMetricResultsText.get(similarityMetric);
                 MetricResult aggregatedResultCode = aggregatedMetricResultsCode.get(similarityMetric);
@@ -564,8 +1113,9 @@ public class MetricEvaluationManager implements Runnable {
                 // "PrecisionText", "RecallText", "InversePrecisionText", "InverseRecallText", "FailureRateText",
                 // "CodeBlockVersionCount", "PossibleComparisonsCode",
                 // "TruePositivesCode", "TrueNegativesCode", "FalsePositivesCode", "FalseNegativesCode", "FailuresCode",
-                // "PrecisionCode", "RecallCode", "InversePrecisionCode", "InverseRecallCode", "FailureRateCode"
-                csvPrinterAggregated.printRecord(
+                // "PrecisionCode", "RecallCode", "InversePrecisionCode", "InverseRecallCode", "FailureRateCode",
+                // "AvoidedComparisons" (only if a content store is used)
+                List<Object> values = new ArrayList<>(Arrays.asList(
                         similarityMetric.getTypeText(),
                         similarityMetric.getNameText(),
                         similarityMetric.getConfig().getTextSimilarityThreshold(),
@@ -582,7 +1132,7 @@ public class MetricEvaluationManager implements Runnable {
                         similarityMetric.getBackupNameCode(),
                         similarityMetric.getConfig().getCodeBackupSimilarityThreshold(),
 
-                        aggregatedResultText.getRuntime(),
+                        aggregatedResultText.getMeasuredRuntime(),
 
                         aggregatedResultText.getInformedness(),
                         aggregatedResultText.getMarkedness(),
@@ -628,27 +1178,39 @@ public class MetricEvaluationManager implements Runnable {
                         aggregatedResultCode.getInversePrecision(),
                         aggregatedResultCode.getInverseRecall(),
                         aggregatedResultCode.getFailureRate()
-                );
+                ));
+                if (contentStoreUsed) {
+                    values.add(aggregatedAvoidedComparisons.get(similarityMetric));
+                }
+                csvPrinterAggregated.printRecord(values);
             }
         } catch (IOException e) {
             e.printStackTrace();
         }
 
+        FlightRecorderEvents.commitAggregation(aggregationEvent, managers.size(), aggregatedMetricResultsText.size());
+
         logger.info("Aggregated results over all samples saved.");
     }
 
+    /**
+     * @return metric with the given name and threshold, without prefilter and with the default MinHash signature
+     * length (see withPrefilteredMetricTypes and withMinHashSignatureLength for the metrics added by
+     * withAllSimilarityMetrics)
+     */
     public static SimilarityMetric getSimilarityMetric(String name, double threshold) {
-        for (SimilarityMetric metric : allSimilarityMetrics) {
-            if (metric.getNameText().equals(name)
-                    && metric.getNameCode().equals(name)
-                    && metric.getConfig().getTextSimilarityThreshold() == threshold
-                    && metric.getConfig().getCodeSimilarityThreshold() == threshold) {
-                return metric;
-            }
-        }
-        String msg = "No default similarity metric with name " + name + " and threshold " + threshold + " found.";
-        logger.warning(msg);
-        throw new IllegalArgumentException(msg);
+        return SimilarityMetricCatalog.getDefault().getSimilarityMetric(name, threshold);
+    }
+
+    public static Set<String> getSimilarityMetricNames() {
+        return SimilarityMetricCatalog.getSimilarityMetricNames();
+    }
+
+    /**
+     * @return thresholds each metric is evaluated with when all metrics are evaluated
+     */
+    public static List<Double> getSimilarityThresholds() {
+        return Collections.unmodifiableList(SimilarityMetricCatalog.thresholds);
     }
 
     /*
@@ -1007,877 +1569,37 @@ public class MetricEvaluationManager implements Runnable {
     }
 
     /**
-     * Add all available metrics.
+     * Settings of a manager. The with methods change a copy, the options of a manager are not changed afterwards.
      */
-    private static void createAllSimilarityMetrics() {
-        List<Double> thresholds = Arrays.asList(0.0, 0.1, 0.2, 0.3, 0.4, 0.5, 0.6, 0.7, 0.8, 0.9, 1.0);
-
-        // do not use for loop with += 0.1 --> leads to rounding errors
-        for (double threshold : thresholds) {
-
-            // ****** Equality based *****
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "equal",
-                    de.unitrier.st.stringsimilarity.equal.Variants::equal,
-                    SimilarityMetric.MetricType.EQUAL,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "equalNormalized",
-                    de.unitrier.st.stringsimilarity.equal.Variants::equalNormalized,
-                    SimilarityMetric.MetricType.EQUAL,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "tokenEqual",
-                    de.unitrier.st.stringsimilarity.equal.Variants::tokenEqual,
-                    SimilarityMetric.MetricType.EQUAL,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "tokenEqualNormalized",
-                    de.unitrier.st.stringsimilarity.equal.Variants::tokenEqualNormalized,
-                    SimilarityMetric.MetricType.EQUAL,
-                    threshold)
-            );
-
-
-            // ****** Edit based *****
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "levenshtein",
-                    de.unitrier.st.stringsimilarity.edit.Variants::levenshtein,
-                    SimilarityMetric.MetricType.EDIT,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "levenshteinNormalized",
-                    de.unitrier.st.stringsimilarity.edit.Variants::levenshteinNormalized,
-                    SimilarityMetric.MetricType.EDIT,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "damerauLevenshtein",
-                    de.unitrier.st.stringsimilarity.edit.Variants::damerauLevenshtein,
-                    SimilarityMetric.MetricType.EDIT,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "damerauLevenshteinNormalized",
-                    de.unitrier.st.stringsimilarity.edit.Variants::damerauLevenshteinNormalized,
-                    SimilarityMetric.MetricType.EDIT,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "optimalAlignment",
-                    de.unitrier.st.stringsimilarity.edit.Variants::optimalAlignment,
-                    SimilarityMetric.MetricType.EDIT,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "optimalAlignmentNormalized",
-                    de.unitrier.st.stringsimilarity.edit.Variants::optimalAlignmentNormalized,
-                    SimilarityMetric.MetricType.EDIT,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "longestCommonSubsequence",
-                    de.unitrier.st.stringsimilarity.edit.Variants::longestCommonSubsequence,
-                    SimilarityMetric.MetricType.EDIT,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "longestCommonSubsequenceNormalized",
-                    de.unitrier.st.stringsimilarity.edit.Variants::longestCommonSubsequenceNormalized,
-                    SimilarityMetric.MetricType.EDIT,
-                    threshold)
-            );
-
-
-            // ****** Fingerprint based *****
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingTwoGramJaccard",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingTwoGramJaccard,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingThreeGramJaccard",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingThreeGramJaccard,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingFourGramJaccard",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFourGramJaccard,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingFiveGramJaccard",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFiveGramJaccard,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingTwoGramJaccardNormalized",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingTwoGramJaccardNormalized,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingThreeGramJaccardNormalized",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingThreeGramJaccardNormalized,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingFourGramJaccardNormalized",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFourGramJaccardNormalized,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingFiveGramJaccardNormalized",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFiveGramJaccardNormalized,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingTwoGramDice",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingTwoGramDice,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingThreeGramDice",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingThreeGramDice,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingFourGramDice",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFourGramDice,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingFiveGramDice",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFiveGramDice,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingTwoGramDiceNormalized",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingTwoGramDiceNormalized,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingThreeGramDiceNormalized",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingThreeGramDiceNormalized,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingFourGramDiceNormalized",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFourGramDiceNormalized,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingFiveGramDiceNormalized",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFiveGramDiceNormalized,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingTwoGramOverlap",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingTwoGramOverlap,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingThreeGramOverlap",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingThreeGramOverlap,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingFourGramOverlap",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFourGramOverlap,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingFiveGramOverlap",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFiveGramOverlap,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingTwoGramOverlapNormalized",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingTwoGramOverlapNormalized,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingThreeGramOverlapNormalized",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingThreeGramOverlapNormalized,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingFourGramOverlapNormalized",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFourGramOverlapNormalized,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingFiveGramOverlapNormalized",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFiveGramOverlapNormalized,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingTwoGramLongestCommonSubsequence",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingTwoGramLongestCommonSubsequence,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingThreeGramLongestCommonSubsequence",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingThreeGramLongestCommonSubsequence,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingFourGramLongestCommonSubsequence",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFourGramLongestCommonSubsequence,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingFiveGramLongestCommonSubsequence",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFiveGramLongestCommonSubsequence,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingTwoGramLongestCommonSubsequenceNormalized",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingTwoGramLongestCommonSubsequenceNormalized,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingThreeGramLongestCommonSubsequenceNormalized",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingThreeGramLongestCommonSubsequenceNormalized,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingFourGramLongestCommonSubsequenceNormalized",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFourGramLongestCommonSubsequenceNormalized,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingFiveGramLongestCommonSubsequenceNormalized",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFiveGramLongestCommonSubsequenceNormalized,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingTwoGramOptimalAlignment",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingTwoGramOptimalAlignment,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingThreeGramOptimalAlignment",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingThreeGramOptimalAlignment,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingFourGramOptimalAlignment",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFourGramOptimalAlignment,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingFiveGramOptimalAlignment",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFiveGramOptimalAlignment,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingTwoGramOptimalAlignmentNormalized",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingTwoGramOptimalAlignmentNormalized,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingThreeGramOptimalAlignmentNormalized",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingThreeGramOptimalAlignmentNormalized,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingFourGramOptimalAlignmentNormalized",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFourGramOptimalAlignmentNormalized,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "winnowingFiveGramOptimalAlignmentNormalized",
-                    de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFiveGramOptimalAlignmentNormalized,
-                    SimilarityMetric.MetricType.FINGERPRINT,
-                    threshold)
-            );
-
-
-            // ****** Profile based *****
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "cosineTokenNormalizedBool",
-                    de.unitrier.st.stringsimilarity.profile.Variants::cosineTokenNormalizedBool,
-                    SimilarityMetric.MetricType.PROFILE,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "cosineTokenNormalizedTermFrequency",
-                    de.unitrier.st.stringsimilarity.profile.Variants::cosineTokenNormalizedTermFrequency,
-                    SimilarityMetric.MetricType.PROFILE,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "cosineTokenNormalizedNormalizedTermFrequency",
-                    de.unitrier.st.stringsimilarity.profile.Variants::cosineTokenNormalizedNormalizedTermFrequency,
-                    SimilarityMetric.MetricType.PROFILE,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "cosineTwoGramNormalizedBool",
-                    de.unitrier.st.stringsimilarity.profile.Variants::cosineTwoGramNormalizedBool,
-                    SimilarityMetric.MetricType.PROFILE,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "cosineThreeGramNormalizedBool",
-                    de.unitrier.st.stringsimilarity.profile.Variants::cosineThreeGramNormalizedBool,
-                    SimilarityMetric.MetricType.PROFILE,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "cosineFourGramNormalizedBool",
-                    de.unitrier.st.stringsimilarity.profile.Variants::cosineFourGramNormalizedBool,
-                    SimilarityMetric.MetricType.PROFILE,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "cosineFiveGramNormalizedBool",
-                    de.unitrier.st.stringsimilarity.profile.Variants::cosineFiveGramNormalizedBool,
-                    SimilarityMetric.MetricType.PROFILE,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "cosineTwoGramNormalizedTermFrequency",
-                    de.unitrier.st.stringsimilarity.profile.Variants::cosineTwoGramNormalizedTermFrequency,
-                    SimilarityMetric.MetricType.PROFILE,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "cosineThreeGramNormalizedTermFrequency",
-                    de.unitrier.st.stringsimilarity.profile.Variants::cosineThreeGramNormalizedTermFrequency,
-                    SimilarityMetric.MetricType.PROFILE,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "cosineFourGramNormalizedTermFrequency",
-                    de.unitrier.st.stringsimilarity.profile.Variants::cosineFourGramNormalizedTermFrequency,
-                    SimilarityMetric.MetricType.PROFILE,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "cosineFiveGramNormalizedTermFrequency",
-                    de.unitrier.st.stringsimilarity.profile.Variants::cosineFiveGramNormalizedTermFrequency,
-                    SimilarityMetric.MetricType.PROFILE,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "cosineTwoGramNormalizedNormalizedTermFrequency",
-                    de.unitrier.st.stringsimilarity.profile.Variants::cosineTwoGramNormalizedNormalizedTermFrequency,
-                    SimilarityMetric.MetricType.PROFILE,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "cosineThreeGramNormalizedNormalizedTermFrequency",
-                    de.unitrier.st.stringsimilarity.profile.Variants::cosineThreeGramNormalizedNormalizedTermFrequency,
-                    SimilarityMetric.MetricType.PROFILE,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "cosineFourGramNormalizedNormalizedTermFrequency",
-                    de.unitrier.st.stringsimilarity.profile.Variants::cosineFourGramNormalizedNormalizedTermFrequency,
-                    SimilarityMetric.MetricType.PROFILE,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "cosineFiveGramNormalizedNormalizedTermFrequency",
-                    de.unitrier.st.stringsimilarity.profile.Variants::cosineFiveGramNormalizedNormalizedTermFrequency,
-                    SimilarityMetric.MetricType.PROFILE,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "cosineTwoShingleNormalizedBool",
-                    de.unitrier.st.stringsimilarity.profile.Variants::cosineTwoShingleNormalizedBool,
-                    SimilarityMetric.MetricType.PROFILE,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "cosineThreeShingleNormalizedBool",
-                    de.unitrier.st.stringsimilarity.profile.Variants::cosineThreeShingleNormalizedBool,
-                    SimilarityMetric.MetricType.PROFILE,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "cosineTwoShingleNormalizedTermFrequency",
-                    de.unitrier.st.stringsimilarity.profile.Variants::cosineTwoShingleNormalizedTermFrequency,
-                    SimilarityMetric.MetricType.PROFILE,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "cosineThreeShingleNormalizedTermFrequency",
-                    de.unitrier.st.stringsimilarity.profile.Variants::cosineThreeShingleNormalizedTermFrequency,
-                    SimilarityMetric.MetricType.PROFILE,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "cosineTwoShingleNormalizedNormalizedTermFrequency",
-                    de.unitrier.st.stringsimilarity.profile.Variants::cosineTwoShingleNormalizedNormalizedTermFrequency,
-                    SimilarityMetric.MetricType.PROFILE,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "cosineThreeShingleNormalizedNormalizedTermFrequency",
-                    de.unitrier.st.stringsimilarity.profile.Variants::cosineThreeShingleNormalizedNormalizedTermFrequency,
-                    SimilarityMetric.MetricType.PROFILE,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "manhattanTokenNormalized",
-                    de.unitrier.st.stringsimilarity.profile.Variants::manhattanTokenNormalized,
-                    SimilarityMetric.MetricType.PROFILE,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "manhattanTwoGramNormalized",
-                    de.unitrier.st.stringsimilarity.profile.Variants::manhattanTwoGramNormalized,
-                    SimilarityMetric.MetricType.PROFILE,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "manhattanThreeGramNormalized",
-                    de.unitrier.st.stringsimilarity.profile.Variants::manhattanThreeGramNormalized,
-                    SimilarityMetric.MetricType.PROFILE,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "manhattanFourGramNormalized",
-                    de.unitrier.st.stringsimilarity.profile.Variants::manhattanFourGramNormalized,
-                    SimilarityMetric.MetricType.PROFILE,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "manhattanFiveGramNormalized",
-                    de.unitrier.st.stringsimilarity.profile.Variants::manhattanFiveGramNormalized,
-                    SimilarityMetric.MetricType.PROFILE,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "manhattanTwoShingleNormalized",
-                    de.unitrier.st.stringsimilarity.profile.Variants::manhattanTwoShingleNormalized,
-                    SimilarityMetric.MetricType.PROFILE,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "manhattanThreeShingleNormalized",
-                    de.unitrier.st.stringsimilarity.profile.Variants::manhattanThreeShingleNormalized,
-                    SimilarityMetric.MetricType.PROFILE,
-                    threshold)
-            );
-
-
-
-            // ****** Set based *****
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "tokenJaccard",
-                    de.unitrier.st.stringsimilarity.set.Variants::tokenJaccard,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "tokenJaccardNormalized",
-                    de.unitrier.st.stringsimilarity.set.Variants::tokenJaccardNormalized,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "twoGramJaccard",
-                    de.unitrier.st.stringsimilarity.set.Variants::twoGramJaccard,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "threeGramJaccard",
-                    de.unitrier.st.stringsimilarity.set.Variants::threeGramJaccard,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "fourGramJaccard",
-                    de.unitrier.st.stringsimilarity.set.Variants::fourGramJaccard,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "fiveGramJaccard",
-                    de.unitrier.st.stringsimilarity.set.Variants::fiveGramJaccard,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "twoGramJaccardNormalized",
-                    de.unitrier.st.stringsimilarity.set.Variants::twoGramJaccardNormalized,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "threeGramJaccardNormalized",
-                    de.unitrier.st.stringsimilarity.set.Variants::threeGramJaccardNormalized,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "fourGramJaccardNormalized",
-                    de.unitrier.st.stringsimilarity.set.Variants::fourGramJaccardNormalized,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "fiveGramJaccardNormalized",
-                    de.unitrier.st.stringsimilarity.set.Variants::fiveGramJaccardNormalized,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "twoGramJaccardNormalizedPadding",
-                    de.unitrier.st.stringsimilarity.set.Variants::twoGramJaccardNormalizedPadding,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "threeGramJaccardNormalizedPadding",
-                    de.unitrier.st.stringsimilarity.set.Variants::threeGramJaccardNormalizedPadding,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "fourGramJaccardNormalizedPadding",
-                    de.unitrier.st.stringsimilarity.set.Variants::fourGramJaccardNormalizedPadding,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "fiveGramJaccardNormalizedPadding",
-                    de.unitrier.st.stringsimilarity.set.Variants::fiveGramJaccardNormalizedPadding,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "twoShingleJaccard",
-                    de.unitrier.st.stringsimilarity.set.Variants::twoShingleJaccard,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "threeShingleJaccard",
-                    de.unitrier.st.stringsimilarity.set.Variants::threeShingleJaccard,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "twoShingleJaccardNormalized",
-                    de.unitrier.st.stringsimilarity.set.Variants::twoShingleJaccardNormalized,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "threeShingleJaccardNormalized",
-                    de.unitrier.st.stringsimilarity.set.Variants::threeShingleJaccardNormalized,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "tokenDice",
-                    de.unitrier.st.stringsimilarity.set.Variants::tokenDice,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "tokenDiceNormalized",
-                    de.unitrier.st.stringsimilarity.set.Variants::tokenDiceNormalized,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "twoGramDice",
-                    de.unitrier.st.stringsimilarity.set.Variants::twoGramDice,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "threeGramDice",
-                    de.unitrier.st.stringsimilarity.set.Variants::threeGramDice,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "fourGramDice",
-                    de.unitrier.st.stringsimilarity.set.Variants::fourGramDice,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "fiveGramDice",
-                    de.unitrier.st.stringsimilarity.set.Variants::fiveGramDice,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "twoGramDiceNormalized",
-                    de.unitrier.st.stringsimilarity.set.Variants::twoGramDiceNormalized,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "threeGramDiceNormalized",
-                    de.unitrier.st.stringsimilarity.set.Variants::threeGramDiceNormalized,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "fourGramDiceNormalized",
-                    de.unitrier.st.stringsimilarity.set.Variants::fourGramDiceNormalized,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "fiveGramDiceNormalized",
-                    de.unitrier.st.stringsimilarity.set.Variants::fiveGramDiceNormalized,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "twoGramDiceNormalizedPadding",
-                    de.unitrier.st.stringsimilarity.set.Variants::twoGramDiceNormalizedPadding,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "threeGramDiceNormalizedPadding",
-                    de.unitrier.st.stringsimilarity.set.Variants::threeGramDiceNormalizedPadding,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "fourGramDiceNormalizedPadding",
-                    de.unitrier.st.stringsimilarity.set.Variants::fourGramDiceNormalizedPadding,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "fiveGramDiceNormalizedPadding",
-                    de.unitrier.st.stringsimilarity.set.Variants::fiveGramDiceNormalizedPadding,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "twoShingleDice",
-                    de.unitrier.st.stringsimilarity.set.Variants::twoShingleDice,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "threeShingleDice",
-                    de.unitrier.st.stringsimilarity.set.Variants::threeShingleDice,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "twoShingleDiceNormalized",
-                    de.unitrier.st.stringsimilarity.set.Variants::twoShingleDiceNormalized,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "threeShingleDiceNormalized",
-                    de.unitrier.st.stringsimilarity.set.Variants::threeShingleDiceNormalized,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "tokenOverlap",
-                    de.unitrier.st.stringsimilarity.set.Variants::tokenOverlap,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "tokenOverlapNormalized",
-                    de.unitrier.st.stringsimilarity.set.Variants::tokenOverlapNormalized,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "twoGramOverlap",
-                    de.unitrier.st.stringsimilarity.set.Variants::twoGramOverlap,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "threeGramOverlap",
-                    de.unitrier.st.stringsimilarity.set.Variants::threeGramOverlap,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "fourGramOverlap",
-                    de.unitrier.st.stringsimilarity.set.Variants::fourGramOverlap,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "fiveGramOverlap",
-                    de.unitrier.st.stringsimilarity.set.Variants::fiveGramOverlap,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "twoGramOverlapNormalized",
-                    de.unitrier.st.stringsimilarity.set.Variants::twoGramOverlapNormalized,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "threeGramOverlapNormalized",
-                    de.unitrier.st.stringsimilarity.set.Variants::threeGramOverlapNormalized,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "fourGramOverlapNormalized",
-                    de.unitrier.st.stringsimilarity.set.Variants::fourGramOverlapNormalized,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "fiveGramOverlapNormalized",
-                    de.unitrier.st.stringsimilarity.set.Variants::fiveGramOverlapNormalized,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "twoGramOverlapNormalizedPadding",
-                    de.unitrier.st.stringsimilarity.set.Variants::twoGramOverlapNormalizedPadding,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "threeGramOverlapNormalizedPadding",
-                    de.unitrier.st.stringsimilarity.set.Variants::threeGramOverlapNormalizedPadding,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "fourGramOverlapNormalizedPadding",
-                    de.unitrier.st.stringsimilarity.set.Variants::fourGramOverlapNormalizedPadding,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "fiveGramOverlapNormalizedPadding",
-                    de.unitrier.st.stringsimilarity.set.Variants::fiveGramOverlapNormalizedPadding,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "twoShingleOverlap",
-                    de.unitrier.st.stringsimilarity.set.Variants::twoShingleOverlap,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "threeShingleOverlap",
-                    de.unitrier.st.stringsimilarity.set.Variants::threeShingleOverlap,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "twoShingleOverlapNormalized",
-                    de.unitrier.st.stringsimilarity.set.Variants::twoShingleOverlapNormalized,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
-            allSimilarityMetrics.add(new SimilarityMetric(
-                    "threeShingleOverlapNormalized",
-                    de.unitrier.st.stringsimilarity.set.Variants::threeShingleOverlapNormalized,
-                    SimilarityMetric.MetricType.SET,
-                    threshold)
-            );
+    private static class Options implements Cloneable {
+        private String sampleName = "SampleName";
+        private Path postIdPath = null;
+        private Path postHistoryPath = null;
+        private Path groundTruthPath = null;
+        private Path outputDirPath = DEFAULT_OUTPUT_DIR;
+        private Path manifestPath = null; // pack file of the sample manifest, null if posts are read from the files
+        private boolean validate = true;
+        private boolean addAllSimilarityMetrics = true;
+        private boolean randomizeOrder = true;
+        private int numberOfRepetitions = 4;
+        private int threadCount = 1;
+        private boolean planSweep = false;
+        private boolean deduplicateContents = false;
+        private boolean useOffHeapStorage = false;
+        private boolean streaming = false;
+        private boolean compressOutput = false;
+        private boolean persistConnections = false;
+        // configuration of the catalog the metrics added by withAllSimilarityMetrics are taken from
+        private Set<SimilarityMetric.MetricType> prefilteredMetricTypes = EnumSet.noneOf(SimilarityMetric.MetricType.class);
+        private int minHashSignatureLength = MinHash.DEFAULT_SIGNATURE_LENGTH;
+
+        Options copy() {
+            try {
+                // all fields are immutable or replaced as a whole
+                return (Options) clone();
+            } catch (CloneNotSupportedException e) {
+                throw new IllegalStateException(e);
+            }
         }
     }
 }
@@ -5,13 +5,17 @@ import de.unitrier.st.soposthistory.Config;
 import de.unitrier.st.soposthistory.blocks.CodeBlockVersion;
 import de.unitrier.st.soposthistory.blocks.TextBlockVersion;
 import de.unitrier.st.soposthistory.gt.PostBlockConnection;
-import de.unitrier.st.soposthistory.gt.PostGroundTruth;
+import de.unitrier.st.soposthistory.metricscomparison.io.PackedGroundTruth;
+import de.unitrier.st.soposthistory.metricscomparison.monitoring.EvaluationEventLog;
+import de.unitrier.st.soposthistory.metricscomparison.monitoring.EvaluationProgress;
+import de.unitrier.st.soposthistory.metricscomparison.monitoring.FlightRecorderEvents;
 import de.unitrier.st.soposthistory.version.PostVersionList;
 import de.unitrier.st.util.Util;
 import org.apache.commons.csv.CSVPrinter;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -29,12 +33,19 @@ public class MetricEvaluationPerPost {
         }
     }
 
+    private final String sampleName;
     private final SimilarityMetric similarityMetric;
+    private final Config config; // configuration used to process the version history
 
     final private int postId;
     final private List<Integer> postHistoryIds;
-    final private PostVersionList postVersionList;
-    final private PostGroundTruth postGroundTruth;
+    final private PostRepository posts;
+    final private int postVersionCount;
+    final private int possibleComparisons;
+
+    // post version list and ground truth are only requested from the repository during the evaluation
+    private PostVersionList postVersionList;
+    private PackedGroundTruth postGroundTruth;
 
     private int numberOfRepetitions;
     private int currentRepetition;
@@ -53,25 +64,26 @@ public class MetricEvaluationPerPost {
     private Map<Integer, MetricResult> resultsCode;
     private MetricResult aggregatedResultCode;
 
-    MetricEvaluationPerPost(SimilarityMetric similarityMetric,
+    // connections predicted in the last repetition, only recorded if requested
+    private boolean recordConnections;
+    private PredictedConnections predictedConnections;
+
+    MetricEvaluationPerPost(String sampleName,
+                            SimilarityMetric similarityMetric,
+                            Config config,
                             int postId,
-                            PostVersionList postVersionList,
-                            PostGroundTruth postGroundTruth,
+                            PostRepository posts,
                             int numberOfRepetitions) {
 
+        this.sampleName = sampleName;
         this.similarityMetric = similarityMetric;
+        this.config = config;
 
         this.postId = postId;
-        this.postVersionList = postVersionList;
-        postVersionList.normalizeLinks(); // normalize links so that post version list and ground truth are comparable
-        this.postGroundTruth = postGroundTruth;
-        this.postHistoryIds = postVersionList.getPostHistoryIds();
-
-        if (!this.postGroundTruth.getPostHistoryIds().equals(this.postHistoryIds)) {
-            String msg = "PostHistoryIds in postVersionList and postGroundTruth differ.";
-            logger.warning(msg);
-            throw new IllegalArgumentException(msg);
-        }
+        this.posts = posts;
+        this.postHistoryIds = posts.getPostHistoryIds(postId);
+        this.postVersionCount = posts.getPostVersionCount(postId);
+        this.possibleComparisons = posts.getPossibleComparisons(postId);
 
         this.runtime = 0;
 
@@ -84,13 +96,116 @@ public class MetricEvaluationPerPost {
         this.stopWatch = Stopwatch.createUnstarted();
     }
 
+    private MetricEvaluationPerPost(SimilarityMetric similarityMetric, MetricEvaluationPerPost evaluation) {
+        this.sampleName = evaluation.sampleName;
+        this.similarityMetric = similarityMetric;
+        this.config = similarityMetric.getConfig();
+
+        this.postId = evaluation.postId;
+        this.posts = evaluation.posts;
+        this.postHistoryIds = evaluation.postHistoryIds;
+        this.postVersionCount = evaluation.postVersionCount;
+        this.possibleComparisons = evaluation.possibleComparisons;
+
+        this.runtime = 0;
+
+        this.resultsText = copyResults(evaluation.resultsText);
+        this.resultsCode = copyResults(evaluation.resultsCode);
+
+        this.numberOfRepetitions = evaluation.numberOfRepetitions;
+        this.currentRepetition = evaluation.currentRepetition;
+
+        this.recordConnections = evaluation.recordConnections;
+        this.predictedConnections = evaluation.predictedConnections == null
+                ? null : evaluation.predictedConnections.withoutRuntime();
+
+        this.stopWatch = Stopwatch.createUnstarted();
+    }
+
+    /**
+     * Create an evaluation from results that have been computed before (see PredictedConnections.rescore).
+     */
+    MetricEvaluationPerPost(String sampleName,
+                            SimilarityMetric similarityMetric,
+                            int postId,
+                            List<Integer> postHistoryIds,
+                            Map<Integer, MetricResult> resultsText,
+                            Map<Integer, MetricResult> resultsCode) {
+        this.sampleName = sampleName;
+        this.similarityMetric = similarityMetric;
+        this.config = similarityMetric.getConfig();
+
+        this.postId = postId;
+        this.posts = null;
+        this.postHistoryIds = postHistoryIds;
+        this.postVersionCount = postHistoryIds.size();
+        int possibleComparisons = 0;
+        for (int postHistoryId : postHistoryIds) {
+            possibleComparisons += resultsText.get(postHistoryId).getPossibleComparisons()
+                    + resultsCode.get(postHistoryId).getPossibleComparisons();
+        }
+        this.possibleComparisons = possibleComparisons;
+
+        this.runtime = 0;
+
+        this.resultsText = resultsText;
+        this.resultsCode = resultsCode;
+
+        this.numberOfRepetitions = 1;
+        this.currentRepetition = 1;
+
+        this.stopWatch = Stopwatch.createUnstarted();
+    }
+
+    /**
+     * Create an evaluation for an equivalent configuration (see SweepPlanner) with the results of this evaluation.
+     * The runtime has not been measured for the equivalent configuration and is written as null.
+     */
+    MetricEvaluationPerPost copyFor(SimilarityMetric equivalentMetric) {
+        return new MetricEvaluationPerPost(equivalentMetric, this);
+    }
+
+    private Map<Integer, MetricResult> copyResults(Map<Integer, MetricResult> results) {
+        Map<Integer, MetricResult> copy = new HashMap<>();
+        for (Map.Entry<Integer, MetricResult> entry : results.entrySet()) {
+            MetricResult result = new MetricResult(similarityMetric);
+            result.add(entry.getValue());
+            // the runtime has only been measured for the representative
+            result.setRuntimeNotMeasured();
+            copy.put(entry.getKey(), result);
+        }
+        return copy;
+    }
+
     private void reset() {
         this.runtime = 0;
         this.stopWatch.reset();
     }
 
     void startEvaluation(int currentRepetition) {
-        // the post version list is shared by all metric evaluations conducted for the corresponding post
+        startEvaluation(currentRepetition, posts.getPostVersionList(postId), posts.getPostGroundTruth(postId));
+    }
+
+    /**
+     * Evaluate the post that the caller requested from the repository, so that a post is created once for the
+     * evaluations of all metrics (see MetricEvaluationManager).
+     */
+    void startEvaluation(int currentRepetition, PostVersionList postVersionList, PackedGroundTruth postGroundTruth) {
+        this.postVersionList = postVersionList;
+        this.postGroundTruth = postGroundTruth;
+        try {
+            evaluate(currentRepetition);
+        } finally {
+            // release the post so that repositories may create it on demand
+            this.postVersionList = null;
+            this.postGroundTruth = null;
+        }
+
+        EvaluationProgress.getInstance().postEvaluated(possibleComparisons);
+    }
+
+    private void evaluate(int currentRepetition) {
+        // the post version list may be shared by all metric evaluations conducted for the corresponding post
         synchronized (postVersionList) {
             this.currentRepetition++;
 
@@ -100,10 +215,25 @@ public class MetricEvaluationPerPost {
                 throw new IllegalArgumentException(msg);
             }
 
-            //logger.info("Evaluating metric " + similarityMetric + " on post " + postId);
+            Object event = FlightRecorderEvents.beginPostEvaluation();
 
             // alternate the order in which the post history is processed and evaluated
-            evaluatePostBlockVersions(similarityMetric.getConfig());
+            evaluatePostBlockVersions(config);
+
+            if (FlightRecorderEvents.endPostEvaluation(event)) {
+                FlightRecorderEvents.commitPostEvaluation(event,
+                        sampleName,
+                        similarityMetric.getNameText(),
+                        similarityMetric.getTypeText().toString(),
+                        similarityMetric.getConfig().getTextSimilarityThreshold(),
+                        postId,
+                        currentRepetition,
+                        postVersionList.size(),
+                        postVersionList.getTextBlockVersionCount(),
+                        postVersionList.getCodeBlockVersionCount(),
+                        possibleComparisons
+                );
+            }
         }
     }
 
@@ -118,6 +248,11 @@ public class MetricEvaluationPerPost {
 
         // save runtime value
         runtime = stopWatch.elapsed().getNano();
+        EvaluationEventLog eventLog = EvaluationEventLog.getInstance();
+        if (eventLog.acquire(logger, Level.FINE, "post.evaluation")) {
+            eventLog.log(logger, Level.FINE, "post.evaluation", "Evaluated metric on post",
+                    "sample", sampleName, "metric", similarityMetric, "postId", postId, "runtime", runtime);
+        }
 
         // save and validate results (text)
         setResultAndRuntime(resultsText, TextBlockVersion.getPostBlockTypeIdFilter());
@@ -127,6 +262,11 @@ public class MetricEvaluationPerPost {
         setResultAndRuntime(resultsCode, CodeBlockVersion.getPostBlockTypeIdFilter());
         validateResultsCode();
 
+        if (recordConnections && currentRepetition == numberOfRepetitions) {
+            // the runtime in the results is the mean of all repetitions now
+            predictedConnections = PredictedConnections.record(postVersionList, postId, postHistoryIds, resultsText, resultsCode);
+        }
+
         // reset flag inputTooShort, stopWatch, and runtime variables
         this.reset();
         // reset post block version history
@@ -304,8 +444,8 @@ public class MetricEvaluationPerPost {
                 similarityMetric.getConfig().getCodeBackupSimilarityThreshold(),
 
                 postId,
-                aggregatedResultText.getRuntime(),
-                postVersionList.size(),
+                aggregatedResultText.getMeasuredRuntime(),
+                postVersionCount,
                 aggregatedResultText.getPostBlockVersionCount() + aggregatedResultCode.getPostBlockVersionCount(),
                 aggregatedResultText.getPossibleComparisons() + aggregatedResultCode.getPossibleComparisons(),
                 aggregatedResultText.getPostBlockVersionCount(),
@@ -360,7 +500,7 @@ public class MetricEvaluationPerPost {
 
                     postId,
                     postHistoryId,
-                    resultText.getRuntime(),
+                    resultText.getMeasuredRuntime(),
                     resultText.getPossibleComparisons() + resultCode.getPossibleComparisons(),
                     resultText.getPostBlockVersionCount(),
                     resultText.getPossibleComparisons(),
@@ -405,6 +545,21 @@ public class MetricEvaluationPerPost {
         return aggregatedResultCode;
     }
 
+    void recordConnections() {
+        this.recordConnections = true;
+    }
+
+    PredictedConnections getPredictedConnections() {
+        return predictedConnections;
+    }
+
+    /**
+     * @return true if the post version list and ground truth of the post are not referenced after the evaluation
+     */
+    public boolean isPostReleased() {
+        return postVersionList == null && postGroundTruth == null;
+    }
+
     public List<Integer> getPostHistoryIds() {
         return postHistoryIds;
     }
@@ -1,15 +1,19 @@
 package de.unitrier.st.soposthistory.metricscomparison.evaluation;
 
+import de.unitrier.st.soposthistory.Config;
 import de.unitrier.st.soposthistory.blocks.CodeBlockVersion;
 import de.unitrier.st.soposthistory.blocks.PostBlockVersion;
 import de.unitrier.st.soposthistory.blocks.TextBlockVersion;
-import de.unitrier.st.soposthistory.gt.PostGroundTruth;
+import de.unitrier.st.soposthistory.metricscomparison.io.PackedGroundTruth;
+import de.unitrier.st.soposthistory.metricscomparison.monitoring.EvaluationEventLog;
+import de.unitrier.st.soposthistory.metricscomparison.similarity.MinHash;
 import de.unitrier.st.soposthistory.version.PostVersionList;
 import de.unitrier.st.util.Util;
 import org.apache.commons.csv.CSVPrinter;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -29,13 +33,15 @@ public class MetricEvaluationPerSample extends LinkedList<MetricEvaluationPerPos
 
     private String sampleName;
     private SimilarityMetric similarityMetric;
+    private Config config; // configuration used to process the version histories
+    private BlockContentStore.WrappedConfig wrappedConfig; // null if no content store is used
 
     private Set<Integer> postIds;
-    private Map<Integer, PostGroundTruth> postGroundTruths; // postId -> PostGroundTruth
-    private Map<Integer, PostVersionList> postVersionLists; // postId -> PostVersionList
+    private PostRepository posts;
 
     private int numberOfRepetitions;
     private boolean randomizeOrder;
+    private boolean recordConnections;
 
     private MetricResult aggregatedResultText;
     private MetricResult aggregatedResultCode;
@@ -43,32 +49,28 @@ public class MetricEvaluationPerSample extends LinkedList<MetricEvaluationPerPos
     MetricEvaluationPerSample(String sampleName,
                               SimilarityMetric similarityMetric,
                               Set<Integer> postIds,
-                              Map<Integer, PostVersionList> postVersionLists,
-                              Map<Integer, PostGroundTruth> postGroundTruths,
+                              PostRepository posts,
                               int numberOfRepetitions,
                               boolean randomizeOrder) {
         this.sampleName = sampleName;
         this.similarityMetric = similarityMetric;
+        this.config = similarityMetric.getConfig();
         this.postIds = postIds;
-        this.postGroundTruths = postGroundTruths;
-        this.postVersionLists = postVersionLists;
+        this.posts = posts;
         this.numberOfRepetitions = numberOfRepetitions;
         this.randomizeOrder = randomizeOrder;
     }
 
     boolean validate() {
-        if (postGroundTruths.size() != postVersionLists.size())
-            return false;
-
         // check if GT and post version list contain the same posts with the same number of possible comparisons
-        for (int postId : postVersionLists.keySet()) {
-            PostGroundTruth gt = postGroundTruths.get(postId);
+        for (int postId : postIds) {
+            PostVersionList list = posts.getPostVersionList(postId);
+            PackedGroundTruth gt = posts.getPostGroundTruth(postId);
 
-            if (gt == null) {
+            if (list == null || gt == null) {
                 return false;
             } else {
                 // text
-                PostVersionList list = postVersionLists.get(postId);
                 int possibleComparisonsList = list.getPossibleComparisons(TextBlockVersion.getPostBlockTypeIdFilter());
                 int possibleCompariosnsGT = gt.getPossibleComparisons(TextBlockVersion.getPostBlockTypeIdFilter());
                 if (possibleComparisonsList != possibleCompariosnsGT) {
@@ -96,27 +98,109 @@ public class MetricEvaluationPerSample extends LinkedList<MetricEvaluationPerPos
         Collections.shuffle(this, new Random());
     }
 
+    /**
+     * Let the metrics of this evaluation use the given content store to skip comparisons of identical contents.
+     * The cached similarities are reset before each repetition (see startEvaluation).
+     */
+    void useContentStore(BlockContentStore contentStore) {
+        wrappedConfig = contentStore.wrap(similarityMetric.getConfig());
+        config = wrappedConfig.getConfig();
+    }
+
     void prepareEvaluation() {
         for (int postId : postIds) {
-            this.add(
-                    new MetricEvaluationPerPost(
-                            similarityMetric,
-                            postId,
-                            postVersionLists.get(postId),
-                            postGroundTruths.get(postId),
-                            numberOfRepetitions
-                    )
-            );
+            this.add(createEvaluation(postId, posts));
+        }
+    }
+
+    /**
+     * Let the evaluations record the predicted connections (see PredictedConnections).
+     */
+    void recordConnections() {
+        this.recordConnections = true;
+    }
+
+    MetricEvaluationPerPost createEvaluation(int postId, PostRepository posts) {
+        MetricEvaluationPerPost evaluationPerPost = new MetricEvaluationPerPost(
+                sampleName,
+                similarityMetric,
+                config,
+                postId,
+                posts,
+                numberOfRepetitions
+        );
+        if (recordConnections) {
+            evaluationPerPost.recordConnections();
+        }
+        return evaluationPerPost;
+    }
+
+    /**
+     * Add the results of an evaluation that is not part of this sample evaluation (streaming mode) to the
+     * aggregated results.
+     */
+    void accumulate(MetricEvaluationPerPost evaluationPerPost) {
+        if (aggregatedResultText == null) {
+            aggregatedResultText = new MetricResult(similarityMetric);
+            aggregatedResultCode = new MetricResult(similarityMetric);
+        }
+        aggregatedResultText.add(evaluationPerPost.getResultAggregatedByPostText());
+        aggregatedResultCode.add(evaluationPerPost.getResultAggregatedByPostCode());
+    }
+
+    /**
+     * Create an evaluation for an equivalent configuration (see SweepPlanner) that reuses the results of this evaluation.
+     * The copy reports the avoided comparisons of this evaluation, because its results were computed with them.
+     */
+    MetricEvaluationPerSample copyFor(SimilarityMetric equivalentMetric) {
+        MetricEvaluationPerSample copy = new MetricEvaluationPerSample(
+                sampleName,
+                equivalentMetric,
+                postIds,
+                posts,
+                numberOfRepetitions,
+                randomizeOrder
+        );
+        for (MetricEvaluationPerPost evaluationPerPost : this) {
+            copy.add(evaluationPerPost.copyFor(equivalentMetric));
+        }
+        // only used for getAvoidedComparisons, copies are not evaluated
+        copy.wrappedConfig = wrappedConfig;
+        return copy;
+    }
+
+    /**
+     * @return average number of comparisons per repetition that were answered by the content store without running
+     * the metric (0 if no content store is used)
+     */
+    double getAvoidedComparisons() {
+        if (wrappedConfig == null) {
+            return 0;
         }
+        return wrappedConfig.getAvoidedComparisons() / (double) numberOfRepetitions;
     }
 
     void startEvaluation(int currentRepetition) {
+        EvaluationEventLog eventLog = EvaluationEventLog.getInstance();
+
         if (randomizeOrder) {
-            logger.info("Randomizing order of posts in sample " + sampleName + " for metric " + similarityMetric + "...");
+            if (eventLog.acquire(logger, Level.INFO, "sample.randomize")) {
+                eventLog.log(logger, Level.INFO, "sample.randomize", "Randomizing order of posts",
+                        "sample", sampleName, "metric", similarityMetric);
+            }
             randomizeOrder();
         }
 
-        logger.info("Starting evaluation run " + currentRepetition + " for metric " + similarityMetric + " on sample " + sampleName + "...");
+        if (eventLog.acquire(logger, Level.INFO, "sample.evaluation")) {
+            eventLog.log(logger, Level.INFO, "sample.evaluation", "Starting evaluation run",
+                    "sample", sampleName, "metric", similarityMetric, "repetition", currentRepetition);
+        }
+
+        // each repetition has to do the same work, otherwise later repetitions only measure cache lookups
+        if (wrappedConfig != null) {
+            wrappedConfig.resetCaches();
+        }
+        MinHash.clearThreadCaches();
 
         for (MetricEvaluationPerPost evaluation : this) {
             evaluation.startEvaluation(currentRepetition);
@@ -145,8 +229,9 @@ public class MetricEvaluationPerSample extends LinkedList<MetricEvaluationPerPos
         // "PrecisionText", "RecallText", "InversePrecisionText", "InverseRecallText", "FailureRateText",
         // "CodeBlockVersionCount", "PossibleComparisonsCode",
         // "TruePositivesCode", "TrueNegativesCode", "FalsePositivesCode", "FalseNegativesCode", "FailuresCode",
-        // "PrecisionCode", "RecallCode", "InversePrecisionCode", "InverseRecallCode", "FailureRateCode"
-        csvPrinterSample.printRecord(
+        // "PrecisionCode", "RecallCode", "InversePrecisionCode", "InverseRecallCode", "FailureRateCode",
+        // "AvoidedComparisons" (only if a content store is used, see MetricEvaluationManager)
+        List<Object> values = new ArrayList<>(Arrays.asList(
                 similarityMetric.getTypeText(),
                 similarityMetric.getNameText(),
                 similarityMetric.getConfig().getTextSimilarityThreshold(),
@@ -163,7 +248,7 @@ public class MetricEvaluationPerSample extends LinkedList<MetricEvaluationPerPos
                 similarityMetric.getBackupNameCode(),
                 similarityMetric.getConfig().getCodeBackupSimilarityThreshold(),
 
-                aggregatedResultText.getRuntime(),
+                aggregatedResultText.getMeasuredRuntime(),
 
                 aggregatedResultText.getInformedness(),
                 aggregatedResultText.getMarkedness(),
@@ -209,7 +294,11 @@ public class MetricEvaluationPerSample extends LinkedList<MetricEvaluationPerPos
                 aggregatedResultCode.getInversePrecision(),
                 aggregatedResultCode.getInverseRecall(),
                 aggregatedResultCode.getFailureRate()
-        );
+        ));
+        if (wrappedConfig != null) {
+            values.add(getAvoidedComparisons());
+        }
+        csvPrinterSample.printRecord(values);
     }
 
     MetricResult getResultAggregatedBySampleText() {
@@ -19,6 +19,8 @@ public class MetricResult {
     private int falseNegatives;
     private int failedPredecessorComparisons;
     private long runtime;
+    // false for results that have been copied from an equivalent configuration (see SweepPlanner)
+    private boolean runtimeMeasured;
 
     static {
         // configure logger
@@ -41,6 +43,7 @@ public class MetricResult {
         this.falseNegatives = 0;
         this.failedPredecessorComparisons = 0;
         this.runtime = 0;
+        this.runtimeMeasured = true;
     }
 
     SimilarityMetric getSimilarityMetric() {
@@ -87,6 +90,18 @@ public class MetricResult {
         return runtime;
     }
 
+    boolean isRuntimeMeasured() {
+        return runtimeMeasured;
+    }
+
+    /**
+     * @return runtime for the result files, null if (a part of) the result has not been measured for this
+     * configuration
+     */
+    Long getMeasuredRuntime() {
+        return runtimeMeasured ? runtime : null;
+    }
+
     void setPostCount(int postCount) {
         this.postCount = postCount;
     }
@@ -127,6 +142,11 @@ public class MetricResult {
         this.runtime = runtime;
     }
 
+    void setRuntimeNotMeasured() {
+        this.runtime = 0;
+        this.runtimeMeasured = false;
+    }
+
     void add(MetricResult result) {
         postCount += result.getPostCount();
         postVersionCount += result.getPostVersionCount();
@@ -138,6 +158,7 @@ public class MetricResult {
         falseNegatives += result.getFalseNegatives();
         failedPredecessorComparisons += result.getFailedPredecessorComparisons();
         runtime += result.getRuntime();
+        runtimeMeasured &= result.isRuntimeMeasured();
     }
 
     double getPrecision() {
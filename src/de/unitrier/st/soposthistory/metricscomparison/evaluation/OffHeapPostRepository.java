@@ -0,0 +1,116 @@
+package de.unitrier.st.soposthistory.metricscomparison.evaluation;
+
+import de.unitrier.st.soposthistory.metricscomparison.io.OffHeapPostStore;
+import de.unitrier.st.soposthistory.metricscomparison.io.PackedGroundTruth;
+import de.unitrier.st.soposthistory.metricscomparison.io.PostHistoryMappedReader;
+import de.unitrier.st.soposthistory.version.PostVersionList;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Repository for large samples that keeps the PostHistory files and the packed ground truths (see PackedGroundTruth)
+ * of all posts in OffHeapPostStores and only keeps a small summary of each post on the heap. Post version lists and
+ * ground truths are parsed from the off-heap views each time they are requested; callers must not keep them. The
+ * evaluation requests each post once per repetition and evaluates all metrics on it (see MetricEvaluationManager).
+ * Heap usage thus depends on the number of posts evaluated concurrently instead of the sample size.
+ */
+class OffHeapPostRepository implements PostRepository {
+    private final OffHeapPostStore store = new OffHeapPostStore(); // PostHistory files
+    private final OffHeapPostStore groundTruths = new OffHeapPostStore(); // packed ground truths
+    private final Map<Integer, PostSummary> summaries = new LinkedHashMap<>(); // postId -> summary
+
+    /**
+     * Add a post that has already been read (and validated) to the repository.
+     */
+    void add(Path postHistoryPath, PostVersionList postVersionList, PackedGroundTruth postGroundTruth) throws IOException {
+        int postId = postVersionList.getPostId();
+        store.put(postId, Paths.get(postHistoryPath.toString(), postId + ".csv"));
+        groundTruths.put(postId, postGroundTruth.toByteArray());
+        summaries.put(postId, new PostSummary(
+                postVersionList.getPostTypeId(),
+                new ArrayList<>(postVersionList.getPostHistoryIds()),
+                postVersionList.size(),
+                postVersionList.getPossibleComparisons()
+        ));
+    }
+
+    /**
+     * @return number of bytes stored off-heap (PostHistory files and ground truths)
+     */
+    long getSize() {
+        return store.getSize() + groundTruths.getSize();
+    }
+
+    @Override
+    public Set<Integer> getPostIds() {
+        return Collections.unmodifiableSet(summaries.keySet());
+    }
+
+    @Override
+    public PostVersionList getPostVersionList(int postId) {
+        PostSummary summary = summaries.get(postId);
+        if (summary == null) {
+            return null;
+        }
+        PostVersionList postVersionList = PostHistoryMappedReader.readPostVersionList(store.get(postId), postId, summary.postTypeId);
+        postVersionList.normalizeLinks(); // normalize links so that post version list and ground truth are comparable
+        return postVersionList;
+    }
+
+    @Override
+    public PackedGroundTruth getPostGroundTruth(int postId) {
+        if (!summaries.containsKey(postId)) {
+            return null;
+        }
+        return PackedGroundTruth.read(groundTruths.get(postId));
+    }
+
+    @Override
+    public List<Integer> getPostHistoryIds(int postId) {
+        return summaries.get(postId).postHistoryIds;
+    }
+
+    @Override
+    public int getPostVersionCount(int postId) {
+        return summaries.get(postId).postVersionCount;
+    }
+
+    @Override
+    public int getPossibleComparisons(int postId) {
+        return summaries.get(postId).possibleComparisons;
+    }
+
+    @Override
+    public Iterable<PostVersionList> getPostVersionLists() {
+        return () -> new Iterator<PostVersionList>() {
+            private final Iterator<Integer> postIds = summaries.keySet().iterator();
+
+            @Override
+            public boolean hasNext() {
+                return postIds.hasNext();
+            }
+
+            @Override
+            public PostVersionList next() {
+                return getPostVersionList(postIds.next());
+            }
+        };
+    }
+
+    private static class PostSummary {
+        private final int postTypeId;
+        private final List<Integer> postHistoryIds;
+        private final int postVersionCount;
+        private final int possibleComparisons;
+
+        PostSummary(int postTypeId, List<Integer> postHistoryIds, int postVersionCount, int possibleComparisons) {
+            this.postTypeId = postTypeId;
+            this.postHistoryIds = postHistoryIds;
+            this.postVersionCount = postVersionCount;
+            this.possibleComparisons = possibleComparisons;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package de.unitrier.st.soposthistory.metricscomparison.evaluation;
+
+import de.unitrier.st.soposthistory.metricscomparison.io.PackedGroundTruth;
+import de.unitrier.st.soposthistory.version.PostVersionList;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Provides the post version lists and ground truths of a sample to the metric evaluations.
+ * Evaluations request the data of a post only while they evaluate it (see MetricEvaluationPerPost), so that
+ * implementations may create the objects on demand (see OffHeapPostRepository).
+ */
+interface PostRepository {
+    Set<Integer> getPostIds();
+
+    PostVersionList getPostVersionList(int postId);
+
+    PackedGroundTruth getPostGroundTruth(int postId);
+
+    // the following values are available without creating the post version list
+    List<Integer> getPostHistoryIds(int postId);
+
+    int getPostVersionCount(int postId);
+
+    int getPossibleComparisons(int postId);
+
+    /**
+     * @return post version lists of all posts, possibly created while iterating
+     */
+    Iterable<PostVersionList> getPostVersionLists();
+}
@@ -0,0 +1,347 @@
+package de.unitrier.st.soposthistory.metricscomparison.evaluation;
+
+import de.unitrier.st.soposthistory.Config;
+import de.unitrier.st.soposthistory.blocks.CodeBlockVersion;
+import de.unitrier.st.soposthistory.blocks.TextBlockVersion;
+import de.unitrier.st.soposthistory.gt.PostBlockConnection;
+import de.unitrier.st.soposthistory.gt.PostGroundTruth;
+import de.unitrier.st.soposthistory.metricscomparison.io.PackedGroundTruth;
+import de.unitrier.st.soposthistory.version.PostVersion;
+import de.unitrier.st.soposthistory.version.PostVersionList;
+import de.unitrier.st.util.Util;
+
+import java.io.*;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.logging.Logger;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Post block connections predicted by one configuration for the versions of one post, together with the values of
+ * the evaluation that do not depend on the ground truth (block counts, possible comparisons, failed comparisons, and
+ * runtime, which is -1 for configurations that have not been measured, see SweepPlanner). Persisted predictions
+ * can be scored against an updated ground truth without processing the version history again (see
+ * MetricEvaluationManager.rescoreSample).
+ * Connections are stored as encoded by PackedGroundTruth.encodeConnections in a deflated binary file that contains
+ * the predictions of all configurations and posts of a sample.
+ */
+class PredictedConnections {
+    private static Logger logger = null;
+
+    static {
+        // configure logger
+        try {
+            logger = Util.getClassLogger(PredictedConnections.class);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static final int MAGIC = 0x534F5043; // "SOPC"
+    private static final int FORMAT_VERSION = 2; // 2: connections include the PostBlockTypeIds
+
+    private final int postId;
+    private final List<Integer> postHistoryIds;
+    private final VersionPrediction[] text;
+    private final VersionPrediction[] code;
+
+    private PredictedConnections(int postId, List<Integer> postHistoryIds, VersionPrediction[] text, VersionPrediction[] code) {
+        this.postId = postId;
+        this.postHistoryIds = postHistoryIds;
+        this.text = text;
+        this.code = code;
+    }
+
+    /**
+     * Record the connections of a processed post version list and the results of its evaluation.
+     */
+    static PredictedConnections record(PostVersionList postVersionList, int postId, List<Integer> postHistoryIds,
+                                       Map<Integer, MetricResult> resultsText, Map<Integer, MetricResult> resultsCode) {
+        VersionPrediction[] text = new VersionPrediction[postHistoryIds.size()];
+        VersionPrediction[] code = new VersionPrediction[postHistoryIds.size()];
+        for (int i = 0; i < postHistoryIds.size(); i++) {
+            int postHistoryId = postHistoryIds.get(i);
+            PostVersion postVersion = postVersionList.getPostVersion(postHistoryId);
+            text[i] = new VersionPrediction(resultsText.get(postHistoryId),
+                    PackedGroundTruth.encodeConnections(postVersion.getConnections(TextBlockVersion.getPostBlockTypeIdFilter())));
+            code[i] = new VersionPrediction(resultsCode.get(postHistoryId),
+                    PackedGroundTruth.encodeConnections(postVersion.getConnections(CodeBlockVersion.getPostBlockTypeIdFilter())));
+        }
+        return new PredictedConnections(postId, postHistoryIds, text, code);
+    }
+
+    /**
+     * @return the same predictions for an equivalent configuration (see SweepPlanner), for which the runtime has not
+     * been measured
+     */
+    PredictedConnections withoutRuntime() {
+        VersionPrediction[] textWithoutRuntime = new VersionPrediction[text.length];
+        VersionPrediction[] codeWithoutRuntime = new VersionPrediction[code.length];
+        for (int i = 0; i < text.length; i++) {
+            textWithoutRuntime[i] = text[i].withoutRuntime();
+            codeWithoutRuntime[i] = code[i].withoutRuntime();
+        }
+        return new PredictedConnections(postId, postHistoryIds, textWithoutRuntime, codeWithoutRuntime);
+    }
+
+    /**
+     * Score the predictions against the given ground truth.
+     * @return evaluation with the results per version (TP, FP, TN, FN) according to the ground truth
+     */
+    MetricEvaluationPerPost rescore(String sampleName, SimilarityMetric similarityMetric, PostGroundTruth postGroundTruth) {
+        if (!postGroundTruth.getPostHistoryIds().equals(postHistoryIds)) {
+            String msg = "PostHistoryIds of post " + postId + " in ground truth and predicted connections differ.";
+            logger.warning(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        Map<Integer, MetricResult> resultsText = new HashMap<>();
+        Map<Integer, MetricResult> resultsCode = new HashMap<>();
+        for (int i = 0; i < postHistoryIds.size(); i++) {
+            int postHistoryId = postHistoryIds.get(i);
+            resultsText.put(postHistoryId, text[i].score(similarityMetric, postId, postGroundTruth, postHistoryId,
+                    TextBlockVersion.getPostBlockTypeIdFilter()));
+            resultsCode.put(postHistoryId, code[i].score(similarityMetric, postId, postGroundTruth, postHistoryId,
+                    CodeBlockVersion.getPostBlockTypeIdFilter()));
+        }
+
+        return new MetricEvaluationPerPost(sampleName, similarityMetric, postId, postHistoryIds, resultsText, resultsCode);
+    }
+
+    int getPostId() {
+        return postId;
+    }
+
+    private static class VersionPrediction {
+        // persisted runtime of results that have not been measured for their configuration
+        private static final long RUNTIME_NOT_MEASURED = -1;
+
+        private final int postBlockVersionCount;
+        private final int possibleComparisons;
+        private final int failedPredecessorComparisons;
+        private final long runtime;
+        private final int[] connections;
+
+        VersionPrediction(MetricResult result, int[] connections) {
+            this(result.getPostBlockVersionCount(), result.getPossibleComparisons(),
+                    result.getFailedPredecessorComparisons(),
+                    result.isRuntimeMeasured() ? result.getRuntime() : RUNTIME_NOT_MEASURED, connections);
+        }
+
+        VersionPrediction(int postBlockVersionCount, int possibleComparisons, int failedPredecessorComparisons,
+                          long runtime, int[] connections) {
+            this.postBlockVersionCount = postBlockVersionCount;
+            this.possibleComparisons = possibleComparisons;
+            this.failedPredecessorComparisons = failedPredecessorComparisons;
+            this.runtime = runtime;
+            this.connections = connections;
+        }
+
+        VersionPrediction withoutRuntime() {
+            return new VersionPrediction(postBlockVersionCount, possibleComparisons, failedPredecessorComparisons,
+                    RUNTIME_NOT_MEASURED, connections);
+        }
+
+        /**
+         * Score the connections like MetricEvaluationPerPost.getResults scores the connections of a processed version.
+         */
+        MetricResult score(SimilarityMetric similarityMetric, int postId, PostGroundTruth postGroundTruth,
+                           int postHistoryId, Set<Integer> postBlockTypeFilter) {
+            int possibleComparisonsGT = postGroundTruth.getPossibleComparisons(postHistoryId, postBlockTypeFilter);
+            if (possibleComparisonsGT != possibleComparisons) {
+                String msg = "Invalid result (expected: " + possibleComparisonsGT + "; actual: " + possibleComparisons + ")";
+                logger.warning(msg);
+                throw new IllegalStateException(msg);
+            }
+
+            Set<PostBlockConnection> postBlockConnections = PackedGroundTruth.decodeConnections(postId, connections);
+            Set<PostBlockConnection> postBlockConnectionsGT = postGroundTruth.getConnections(postHistoryId, postBlockTypeFilter);
+
+            int truePositivesCount = PostBlockConnection.getTruePositives(postBlockConnections, postBlockConnectionsGT).size();
+            int falsePositivesCount = PostBlockConnection.getFalsePositives(postBlockConnections, postBlockConnectionsGT).size();
+
+            int possibleConnectionsGT = postGroundTruth.getPossibleConnections(postHistoryId, postBlockTypeFilter);
+            int trueNegativesCount = PostBlockConnection.getTrueNegatives(postBlockConnections, postBlockConnectionsGT, possibleConnectionsGT);
+            int falseNegativesCount = PostBlockConnection.getFalseNegatives(postBlockConnections, postBlockConnectionsGT).size();
+
+            int allConnectionsCount = truePositivesCount + falsePositivesCount + trueNegativesCount + falseNegativesCount;
+            if (possibleConnectionsGT != allConnectionsCount) {
+                String msg = "Invalid result (expected: " + possibleConnectionsGT + "; actual: " + allConnectionsCount + ")";
+                logger.warning(msg);
+                throw new IllegalStateException(msg);
+            }
+
+            MetricResult result = new MetricResult(similarityMetric);
+            if (runtime == RUNTIME_NOT_MEASURED) {
+                result.setRuntimeNotMeasured();
+            } else {
+                result.setRuntime(runtime);
+            }
+            // post count and post version count are always one for non-aggregated results
+            result.setPostCount(1);
+            result.setPostVersionCount(1);
+            result.setPostBlockVersionCount(postBlockVersionCount);
+            result.setPossibleComparisons(possibleComparisons);
+            result.setTruePositives(truePositivesCount);
+            result.setFalsePositives(falsePositivesCount);
+            result.setTrueNegatives(trueNegativesCount);
+            result.setFalseNegatives(falseNegativesCount);
+            result.setFailedPredecessorComparisons(failedPredecessorComparisons);
+            return result;
+        }
+
+        void write(DataOutputStream output) throws IOException {
+            output.writeInt(postBlockVersionCount);
+            output.writeInt(possibleComparisons);
+            output.writeInt(failedPredecessorComparisons);
+            output.writeLong(runtime);
+            output.writeInt(connections.length / 6);
+            for (int value : connections) {
+                output.writeInt(value);
+            }
+        }
+
+        static VersionPrediction read(DataInputStream input) throws IOException {
+            int postBlockVersionCount = input.readInt();
+            int possibleComparisons = input.readInt();
+            int failedPredecessorComparisons = input.readInt();
+            long runtime = input.readLong();
+            int[] connections = new int[input.readInt() * 6];
+            for (int i = 0; i < connections.length; i++) {
+                connections[i] = input.readInt();
+            }
+            return new VersionPrediction(postBlockVersionCount, possibleComparisons, failedPredecessorComparisons,
+                    runtime, connections);
+        }
+    }
+
+    /**
+     * Writes the predictions of a sample, one record per configuration and post.
+     */
+    static class PredictionWriter implements Closeable {
+        private final DataOutputStream output;
+
+        PredictionWriter(Path file) throws IOException {
+            output = new DataOutputStream(new DeflaterOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(file.toFile()), 1024 * 1024)));
+            output.writeInt(MAGIC);
+            output.writeInt(FORMAT_VERSION);
+        }
+
+        void write(SimilarityMetric similarityMetric, PredictedConnections predictedConnections) throws IOException {
+            output.writeBoolean(true); // another record follows
+
+            // configuration, see MetricEvaluationPerPost.writeToCSV
+            Config config = similarityMetric.getConfig();
+            output.writeUTF(similarityMetric.getTypeText().name());
+            output.writeUTF(similarityMetric.getNameText());
+            output.writeDouble(config.getTextSimilarityThreshold());
+            output.writeUTF(similarityMetric.getBackupTypeText().name());
+            output.writeUTF(similarityMetric.getBackupNameText());
+            output.writeDouble(config.getTextBackupSimilarityThreshold());
+            output.writeUTF(similarityMetric.getTypeCode().name());
+            output.writeUTF(similarityMetric.getNameCode());
+            output.writeDouble(config.getCodeSimilarityThreshold());
+            output.writeUTF(similarityMetric.getBackupTypeCode().name());
+            output.writeUTF(similarityMetric.getBackupNameCode());
+            output.writeDouble(config.getCodeBackupSimilarityThreshold());
+
+            output.writeInt(predictedConnections.postId);
+            output.writeInt(predictedConnections.postHistoryIds.size());
+            for (int i = 0; i < predictedConnections.postHistoryIds.size(); i++) {
+                output.writeInt(predictedConnections.postHistoryIds.get(i));
+                predictedConnections.text[i].write(output);
+                predictedConnections.code[i].write(output);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            output.writeBoolean(false); // end of file
+            output.close();
+        }
+    }
+
+    /**
+     * Reads the predictions written by a PredictionWriter. Configurations are returned as SimilarityMetrics that only
+     * describe the configuration (names, types, and thresholds), one instance per configuration.
+     */
+    static class PredictionReader implements Closeable {
+        private final DataInputStream input;
+        private final Map<String, SimilarityMetric> similarityMetrics = new HashMap<>(); // description -> metric
+        private SimilarityMetric currentSimilarityMetric;
+
+        PredictionReader(Path file) throws IOException {
+            Util.ensureFileExists(file);
+            input = new DataInputStream(new BufferedInputStream(new InflaterInputStream(
+                    new FileInputStream(file.toFile())), 1024 * 1024));
+            if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+                input.close();
+                String msg = "File " + file + " does not contain predicted connections of version " + FORMAT_VERSION + ".";
+                logger.warning(msg);
+                throw new IllegalArgumentException(msg);
+            }
+        }
+
+        /**
+         * @return next record, null at the end of the file
+         */
+        PredictedConnections next() throws IOException {
+            if (!input.readBoolean()) {
+                return null;
+            }
+
+            SimilarityMetric.MetricType typeText = SimilarityMetric.MetricType.valueOf(input.readUTF());
+            String nameText = input.readUTF();
+            double thresholdText = input.readDouble();
+            SimilarityMetric.MetricType backupTypeText = SimilarityMetric.MetricType.valueOf(input.readUTF());
+            String backupNameText = input.readUTF();
+            double backupThresholdText = input.readDouble();
+            SimilarityMetric.MetricType typeCode = SimilarityMetric.MetricType.valueOf(input.readUTF());
+            String nameCode = input.readUTF();
+            double thresholdCode = input.readDouble();
+            SimilarityMetric.MetricType backupTypeCode = SimilarityMetric.MetricType.valueOf(input.readUTF());
+            String backupNameCode = input.readUTF();
+            double backupThresholdCode = input.readDouble();
+
+            String description = typeText + ";" + nameText + ";" + thresholdText + ";"
+                    + backupTypeText + ";" + backupNameText + ";" + backupThresholdText + ";"
+                    + typeCode + ";" + nameCode + ";" + thresholdCode + ";"
+                    + backupTypeCode + ";" + backupNameCode + ";" + backupThresholdCode;
+            currentSimilarityMetric = similarityMetrics.computeIfAbsent(description, key -> new SimilarityMetric(
+                    nameText, typeText, backupNameText, backupTypeText,
+                    nameCode, typeCode, backupNameCode, backupTypeCode,
+                    Config.METRICS_COMPARISON
+                            .withTextSimilarityThreshold(thresholdText)
+                            .withTextBackupSimilarityThreshold(backupThresholdText)
+                            .withCodeSimilarityThreshold(thresholdCode)
+                            .withCodeBackupSimilarityThreshold(backupThresholdCode)
+            ));
+
+            int postId = input.readInt();
+            int versionCount = input.readInt();
+            List<Integer> postHistoryIds = new ArrayList<>(versionCount);
+            VersionPrediction[] text = new VersionPrediction[versionCount];
+            VersionPrediction[] code = new VersionPrediction[versionCount];
+            for (int i = 0; i < versionCount; i++) {
+                postHistoryIds.add(input.readInt());
+                text[i] = VersionPrediction.read(input);
+                code[i] = VersionPrediction.read(input);
+            }
+            return new PredictedConnections(postId, postHistoryIds, text, code);
+        }
+
+        /**
+         * @return configuration of the record returned by the last call of next()
+         */
+        SimilarityMetric getSimilarityMetric() {
+            return currentSimilarityMetric;
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+    }
+}
@@ -5,7 +5,7 @@ import de.unitrier.st.soposthistory.Config;
 import java.util.function.BiFunction;
 
 public class SimilarityMetric {
-    public enum MetricType {NONE, EQUAL, EDIT, FINGERPRINT, PROFILE, SET, DEFAULT}
+    public enum MetricType {NONE, EQUAL, EDIT, FINGERPRINT, PROFILE, SET, MINHASH, DEFAULT}
 
     final private String nameText;
     final private MetricType typeText;
@@ -0,0 +1,1191 @@
+package de.unitrier.st.soposthistory.metricscomparison.evaluation;
+
+import de.unitrier.st.soposthistory.metricscomparison.similarity.BandedEditDistance;
+import de.unitrier.st.soposthistory.metricscomparison.similarity.BitParallelEditDistance;
+import de.unitrier.st.soposthistory.metricscomparison.similarity.BitParallelLongestCommonSubsequence;
+import de.unitrier.st.soposthistory.metricscomparison.similarity.DenseProfile;
+import de.unitrier.st.soposthistory.metricscomparison.similarity.MinHash;
+import de.unitrier.st.soposthistory.metricscomparison.similarity.Prefilter;
+import de.unitrier.st.util.Util;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.DoubleFunction;
+import java.util.function.IntFunction;
+import java.util.logging.Logger;
+
+/**
+ * Catalog of all available similarity metrics.
+ * The metric functions are registered once, the (metric, threshold) configurations are only created when they are
+ * requested, either by name and threshold or as a whole when all metrics and thresholds are evaluated.
+ * A catalog creates the configurations with its settings (prefiltered metric types, MinHash signature length). There
+ * is one catalog per combination of settings (see getInstance), i.e., managers with the same settings use the same
+ * configurations.
+ */
+public class SimilarityMetricCatalog {
+    private static Logger logger = null;
+
+    // do not use for loop with += 0.1 --> leads to rounding errors
+    static final List<Double> thresholds = Arrays.asList(0.0, 0.1, 0.2, 0.3, 0.4, 0.5, 0.6, 0.7, 0.8, 0.9, 1.0);
+
+    private static final Map<String, MetricDefinition> definitions = new LinkedHashMap<>(); // name -> definition
+    private static final Map<CatalogKey, SimilarityMetricCatalog> catalogs = new ConcurrentHashMap<>(); // settings -> catalog
+
+    private final Set<SimilarityMetric.MetricType> prefilteredTypes;
+    private final int minHashSignatureLength;
+    private final Map<MetricKey, SimilarityMetric> similarityMetrics = new ConcurrentHashMap<>(); // (name, threshold) -> metric
+    private volatile List<SimilarityMetric> allSimilarityMetrics = null;
+    private final Map<String, MinHash> minHashes = new ConcurrentHashMap<>(); // elements -> sketches
+
+    static {
+        // configure logger
+        try {
+            logger = Util.getClassLogger(SimilarityMetricCatalog.class);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        // register available similarity metrics (configurations are created on demand)
+        registerAllSimilarityMetrics();
+    }
+
+    private SimilarityMetricCatalog(Set<SimilarityMetric.MetricType> prefilteredTypes, int minHashSignatureLength) {
+        this.prefilteredTypes = prefilteredTypes;
+        this.minHashSignatureLength = minHashSignatureLength;
+    }
+
+    /**
+     * @return catalog without prefilters and with the default MinHash signature length
+     */
+    public static SimilarityMetricCatalog getDefault() {
+        return getInstance(EnumSet.noneOf(SimilarityMetric.MetricType.class), MinHash.DEFAULT_SIGNATURE_LENGTH);
+    }
+
+    /**
+     * Get the catalog with the given settings. Repeated calls with the same settings return the same catalog.
+     * @param prefilteredTypes metric types for which the prefilters are used (see Prefilter), metrics without a
+     *                         prefilter are not affected
+     * @param minHashSignatureLength number of hash functions of the MinHash sketches (see MinHash), at least 1
+     */
+    public static SimilarityMetricCatalog getInstance(Set<SimilarityMetric.MetricType> prefilteredTypes, int minHashSignatureLength) {
+        Set<SimilarityMetric.MetricType> types = prefilteredTypes.isEmpty()
+                ? EnumSet.noneOf(SimilarityMetric.MetricType.class)
+                : EnumSet.copyOf(prefilteredTypes);
+        return catalogs.computeIfAbsent(new CatalogKey(types, minHashSignatureLength), key -> {
+            if (!types.isEmpty()) {
+                logger.info("Prefilters enabled for metric types " + types + ".");
+            }
+            return new SimilarityMetricCatalog(types, minHashSignatureLength);
+        });
+    }
+
+    /**
+     * Get the metric with the given name and threshold. Repeated calls return the same instance, which is required
+     * because the metrics are used as keys when aggregating results over samples.
+     */
+    public SimilarityMetric getSimilarityMetric(String name, double threshold) {
+        MetricDefinition definition = definitions.get(name);
+        if (definition == null || !thresholds.contains(threshold)) {
+            String msg = "No default similarity metric with name " + name + " and threshold " + threshold + " found.";
+            logger.warning(msg);
+            throw new IllegalArgumentException(msg);
+        }
+        return similarityMetrics.computeIfAbsent(
+                new MetricKey(name, threshold),
+                key -> new SimilarityMetric(definition.name, createMetric(definition, key.threshold),
+                        definition.type, key.threshold)
+        );
+    }
+
+    private BiFunction<String, String, Double> createMetric(MetricDefinition definition, double threshold) {
+        if (definition.prefilter != null && prefilteredTypes.contains(definition.type)) {
+            return definition.prefilter.apply(definition.prefilteredMetric, threshold);
+        }
+        return definition.metricFactory.create(this, threshold);
+    }
+
+    /**
+     * Get all registered metrics combined with all thresholds (ordered by threshold, then by registration order).
+     */
+    public List<SimilarityMetric> getAllSimilarityMetrics() {
+        if (allSimilarityMetrics == null) {
+            synchronized (this) {
+                if (allSimilarityMetrics == null) {
+                    List<SimilarityMetric> metrics = new ArrayList<>(thresholds.size() * definitions.size());
+                    for (double threshold : thresholds) {
+                        for (String name : definitions.keySet()) {
+                            metrics.add(getSimilarityMetric(name, threshold));
+                        }
+                    }
+                    allSimilarityMetrics = Collections.unmodifiableList(metrics);
+                    logger.info(allSimilarityMetrics.size() + " metrics created.");
+                }
+            }
+        }
+        return allSimilarityMetrics;
+    }
+
+    /**
+     * @return number of (metric, threshold) configurations this catalog has created so far
+     */
+    public int getCreatedSimilarityMetricCount() {
+        return similarityMetrics.size();
+    }
+
+    public static Set<String> getSimilarityMetricNames() {
+        return Collections.unmodifiableSet(definitions.keySet());
+    }
+
+    private static void register(String name, BiFunction<String, String, Double> metric, SimilarityMetric.MetricType type) {
+        register(name, metric, type, null);
+    }
+
+    /**
+     * Register a metric together with a prefilter that bounds its similarity (null if there is no such bound).
+     */
+    private static void register(String name, BiFunction<String, String, Double> metric, SimilarityMetric.MetricType type,
+                                 Prefilter prefilter) {
+        addDefinition(new MetricDefinition(name, (catalog, threshold) -> metric, type, prefilter, metric));
+    }
+
+    /**
+     * Register a metric that compares the normalized strings together with a prefilter that normalizes the strings
+     * (see Prefilter.NORMALIZED_LENGTH_RATIO). If the prefilter is used, it passes the normalized strings to
+     * metricWithoutNormalization, i.e., the strings are only normalized once per comparison.
+     */
+    private static void registerNormalized(String name, BiFunction<String, String, Double> metric,
+                                           BiFunction<String, String, Double> metricWithoutNormalization,
+                                           SimilarityMetric.MetricType type, Prefilter prefilter) {
+        addDefinition(new MetricDefinition(name, (catalog, threshold) -> metric, type, prefilter,
+                metricWithoutNormalization));
+    }
+
+    /**
+     * Register a metric that is created for a particular threshold, e.g., because it stops as soon as the similarity
+     * is known to be below the threshold. Such metrics must make the same accept/reject decisions as the exact metric
+     * and return the exact similarity for accepted pairs.
+     */
+    private static void registerThresholdAware(String name,
+                                               DoubleFunction<BiFunction<String, String, Double>> metricFactory,
+                                               SimilarityMetric.MetricType type) {
+        addDefinition(new MetricDefinition(name, (catalog, threshold) -> metricFactory.apply(threshold), type, null, null));
+    }
+
+    /**
+     * Register a MinHash metric. All metrics of a catalog with the same elements (and all thresholds) share the
+     * sketcher, i.e., the sketch of a block is computed once for all of them.
+     */
+    private static void registerMinHash(String name, String elements, IntFunction<MinHash> sketcherFactory,
+                                        boolean dice) {
+        addDefinition(new MetricDefinition(
+                name,
+                (catalog, threshold) -> {
+                    MinHash minHash = catalog.minHashes.computeIfAbsent(
+                            elements, key -> sketcherFactory.apply(catalog.minHashSignatureLength)
+                    );
+                    return dice ? minHash::dice : minHash::jaccard;
+                },
+                SimilarityMetric.MetricType.MINHASH,
+                null,
+                null
+        ));
+    }
+
+    private static void addDefinition(MetricDefinition definition) {
+        if (definitions.put(definition.name, definition) != null) {
+            String msg = "Similarity metric " + definition.name + " registered twice.";
+            logger.warning(msg);
+            throw new IllegalStateException(msg);
+        }
+    }
+
+    private interface MetricFactory {
+        BiFunction<String, String, Double> create(SimilarityMetricCatalog catalog, double threshold);
+    }
+
+    private static class MetricDefinition {
+        final String name;
+        final MetricFactory metricFactory; // (catalog, threshold) -> metric
+        final SimilarityMetric.MetricType type;
+        final Prefilter prefilter; // null if the metric is not prefiltered
+        final BiFunction<String, String, Double> prefilteredMetric; // metric passed to the prefilter
+
+        MetricDefinition(String name, MetricFactory metricFactory, SimilarityMetric.MetricType type,
+                         Prefilter prefilter, BiFunction<String, String, Double> prefilteredMetric) {
+            this.name = name;
+            this.metricFactory = metricFactory;
+            this.type = type;
+            this.prefilter = prefilter;
+            this.prefilteredMetric = prefilteredMetric;
+        }
+    }
+
+    private static class MetricKey {
+        final String name;
+        final double threshold;
+
+        MetricKey(String name, double threshold) {
+            this.name = name;
+            this.threshold = threshold;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            MetricKey metricKey = (MetricKey) o;
+            return Double.compare(metricKey.threshold, threshold) == 0 && name.equals(metricKey.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, threshold);
+        }
+    }
+
+    private static class CatalogKey {
+        final Set<SimilarityMetric.MetricType> prefilteredTypes;
+        final int minHashSignatureLength;
+
+        CatalogKey(Set<SimilarityMetric.MetricType> prefilteredTypes, int minHashSignatureLength) {
+            this.prefilteredTypes = prefilteredTypes;
+            this.minHashSignatureLength = minHashSignatureLength;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            CatalogKey catalogKey = (CatalogKey) o;
+            return minHashSignatureLength == catalogKey.minHashSignatureLength
+                    && prefilteredTypes.equals(catalogKey.prefilteredTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(prefilteredTypes, minHashSignatureLength);
+        }
+    }
+
+    /**
+     * Register all available metrics.
+     */
+    private static void registerAllSimilarityMetrics() {
+        // ****** Equality based *****
+
+        register(
+                "equal",
+                de.unitrier.st.stringsimilarity.equal.Variants::equal,
+                SimilarityMetric.MetricType.EQUAL
+        );
+        register(
+                "equalNormalized",
+                de.unitrier.st.stringsimilarity.equal.Variants::equalNormalized,
+                SimilarityMetric.MetricType.EQUAL
+        );
+
+        register(
+                "tokenEqual",
+                de.unitrier.st.stringsimilarity.equal.Variants::tokenEqual,
+                SimilarityMetric.MetricType.EQUAL
+        );
+        register(
+                "tokenEqualNormalized",
+                de.unitrier.st.stringsimilarity.equal.Variants::tokenEqualNormalized,
+                SimilarityMetric.MetricType.EQUAL
+        );
+
+
+        // ****** Edit based *****
+
+        register(
+                "levenshtein",
+                de.unitrier.st.stringsimilarity.edit.Variants::levenshtein,
+                SimilarityMetric.MetricType.EDIT,
+                Prefilter.LENGTH_RATIO
+        );
+        registerNormalized(
+                "levenshteinNormalized",
+                de.unitrier.st.stringsimilarity.edit.Variants::levenshteinNormalized,
+                de.unitrier.st.stringsimilarity.edit.Variants::levenshtein,
+                SimilarityMetric.MetricType.EDIT,
+                Prefilter.NORMALIZED_LENGTH_RATIO
+        );
+
+        register(
+                "damerauLevenshtein",
+                de.unitrier.st.stringsimilarity.edit.Variants::damerauLevenshtein,
+                SimilarityMetric.MetricType.EDIT,
+                Prefilter.LENGTH_RATIO
+        );
+        registerNormalized(
+                "damerauLevenshteinNormalized",
+                de.unitrier.st.stringsimilarity.edit.Variants::damerauLevenshteinNormalized,
+                de.unitrier.st.stringsimilarity.edit.Variants::damerauLevenshtein,
+                SimilarityMetric.MetricType.EDIT,
+                Prefilter.NORMALIZED_LENGTH_RATIO
+        );
+
+        register(
+                "optimalAlignment",
+                de.unitrier.st.stringsimilarity.edit.Variants::optimalAlignment,
+                SimilarityMetric.MetricType.EDIT,
+                Prefilter.LENGTH_RATIO
+        );
+        registerNormalized(
+                "optimalAlignmentNormalized",
+                de.unitrier.st.stringsimilarity.edit.Variants::optimalAlignmentNormalized,
+                de.unitrier.st.stringsimilarity.edit.Variants::optimalAlignment,
+                SimilarityMetric.MetricType.EDIT,
+                Prefilter.NORMALIZED_LENGTH_RATIO
+        );
+
+        // bit-parallel implementations of the above (same values, see BitParallelEditDistance)
+        register(
+                "levenshteinBitParallel",
+                BitParallelEditDistance::levenshtein,
+                SimilarityMetric.MetricType.EDIT,
+                Prefilter.LENGTH_RATIO
+        );
+        registerNormalized(
+                "levenshteinBitParallelNormalized",
+                BitParallelEditDistance::levenshteinNormalized,
+                BitParallelEditDistance::levenshtein,
+                SimilarityMetric.MetricType.EDIT,
+                Prefilter.NORMALIZED_LENGTH_RATIO
+        );
+
+        register(
+                "optimalAlignmentBitParallel",
+                BitParallelEditDistance::optimalAlignment,
+                SimilarityMetric.MetricType.EDIT,
+                Prefilter.LENGTH_RATIO
+        );
+        registerNormalized(
+                "optimalAlignmentBitParallelNormalized",
+                BitParallelEditDistance::optimalAlignmentNormalized,
+                BitParallelEditDistance::optimalAlignment,
+                SimilarityMetric.MetricType.EDIT,
+                Prefilter.NORMALIZED_LENGTH_RATIO
+        );
+
+        // threshold-aware implementations of the above (same decisions, see BandedEditDistance)
+        registerThresholdAware(
+                "levenshteinBanded",
+                BandedEditDistance::levenshtein,
+                SimilarityMetric.MetricType.EDIT
+        );
+        registerThresholdAware(
+                "levenshteinBandedNormalized",
+                BandedEditDistance::levenshteinNormalized,
+                SimilarityMetric.MetricType.EDIT
+        );
+
+        registerThresholdAware(
+                "optimalAlignmentBanded",
+                BandedEditDistance::optimalAlignment,
+                SimilarityMetric.MetricType.EDIT
+        );
+        registerThresholdAware(
+                "optimalAlignmentBandedNormalized",
+                BandedEditDistance::optimalAlignmentNormalized,
+                SimilarityMetric.MetricType.EDIT
+        );
+
+        register(
+                "longestCommonSubsequence",
+                de.unitrier.st.stringsimilarity.edit.Variants::longestCommonSubsequence,
+                SimilarityMetric.MetricType.EDIT
+        );
+        register(
+                "longestCommonSubsequenceNormalized",
+                de.unitrier.st.stringsimilarity.edit.Variants::longestCommonSubsequenceNormalized,
+                SimilarityMetric.MetricType.EDIT
+        );
+
+        // bit-parallel implementations of the above (same values, see BitParallelLongestCommonSubsequence), the
+        // winnowing LCS metrics below have no bit-parallel variant because their fingerprints are library internals
+        register(
+                "longestCommonSubsequenceBitParallel",
+                BitParallelLongestCommonSubsequence::longestCommonSubsequence,
+                SimilarityMetric.MetricType.EDIT
+        );
+        register(
+                "longestCommonSubsequenceBitParallelNormalized",
+                BitParallelLongestCommonSubsequence::longestCommonSubsequenceNormalized,
+                SimilarityMetric.MetricType.EDIT
+        );
+
+
+        // ****** Fingerprint based *****
+        // the library fingerprints both blocks inside each call; the fingerprints are not cached per block, because
+        // they, their hash function and the window size are not part of its API (caching belongs into the library)
+
+        register(
+                "winnowingTwoGramJaccard",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingTwoGramJaccard,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+        register(
+                "winnowingThreeGramJaccard",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingThreeGramJaccard,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+        register(
+                "winnowingFourGramJaccard",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFourGramJaccard,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+        register(
+                "winnowingFiveGramJaccard",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFiveGramJaccard,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+
+        register(
+                "winnowingTwoGramJaccardNormalized",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingTwoGramJaccardNormalized,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+        register(
+                "winnowingThreeGramJaccardNormalized",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingThreeGramJaccardNormalized,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+        register(
+                "winnowingFourGramJaccardNormalized",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFourGramJaccardNormalized,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+        register(
+                "winnowingFiveGramJaccardNormalized",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFiveGramJaccardNormalized,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+
+        register(
+                "winnowingTwoGramDice",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingTwoGramDice,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+        register(
+                "winnowingThreeGramDice",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingThreeGramDice,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+        register(
+                "winnowingFourGramDice",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFourGramDice,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+        register(
+                "winnowingFiveGramDice",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFiveGramDice,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+
+        register(
+                "winnowingTwoGramDiceNormalized",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingTwoGramDiceNormalized,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+        register(
+                "winnowingThreeGramDiceNormalized",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingThreeGramDiceNormalized,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+        register(
+                "winnowingFourGramDiceNormalized",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFourGramDiceNormalized,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+        register(
+                "winnowingFiveGramDiceNormalized",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFiveGramDiceNormalized,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+
+        register(
+                "winnowingTwoGramOverlap",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingTwoGramOverlap,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+        register(
+                "winnowingThreeGramOverlap",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingThreeGramOverlap,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+        register(
+                "winnowingFourGramOverlap",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFourGramOverlap,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+        register(
+                "winnowingFiveGramOverlap",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFiveGramOverlap,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+
+        register(
+                "winnowingTwoGramOverlapNormalized",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingTwoGramOverlapNormalized,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+        register(
+                "winnowingThreeGramOverlapNormalized",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingThreeGramOverlapNormalized,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+        register(
+                "winnowingFourGramOverlapNormalized",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFourGramOverlapNormalized,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+        register(
+                "winnowingFiveGramOverlapNormalized",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFiveGramOverlapNormalized,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+
+        register(
+                "winnowingTwoGramLongestCommonSubsequence",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingTwoGramLongestCommonSubsequence,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+        register(
+                "winnowingThreeGramLongestCommonSubsequence",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingThreeGramLongestCommonSubsequence,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+        register(
+                "winnowingFourGramLongestCommonSubsequence",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFourGramLongestCommonSubsequence,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+        register(
+                "winnowingFiveGramLongestCommonSubsequence",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFiveGramLongestCommonSubsequence,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+
+
+        register(
+                "winnowingTwoGramLongestCommonSubsequenceNormalized",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingTwoGramLongestCommonSubsequenceNormalized,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+        register(
+                "winnowingThreeGramLongestCommonSubsequenceNormalized",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingThreeGramLongestCommonSubsequenceNormalized,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+        register(
+                "winnowingFourGramLongestCommonSubsequenceNormalized",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFourGramLongestCommonSubsequenceNormalized,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+        register(
+                "winnowingFiveGramLongestCommonSubsequenceNormalized",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFiveGramLongestCommonSubsequenceNormalized,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+
+        register(
+                "winnowingTwoGramOptimalAlignment",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingTwoGramOptimalAlignment,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+        register(
+                "winnowingThreeGramOptimalAlignment",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingThreeGramOptimalAlignment,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+        register(
+                "winnowingFourGramOptimalAlignment",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFourGramOptimalAlignment,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+        register(
+                "winnowingFiveGramOptimalAlignment",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFiveGramOptimalAlignment,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+
+        register(
+                "winnowingTwoGramOptimalAlignmentNormalized",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingTwoGramOptimalAlignmentNormalized,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+        register(
+                "winnowingThreeGramOptimalAlignmentNormalized",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingThreeGramOptimalAlignmentNormalized,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+        register(
+                "winnowingFourGramOptimalAlignmentNormalized",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFourGramOptimalAlignmentNormalized,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+        register(
+                "winnowingFiveGramOptimalAlignmentNormalized",
+                de.unitrier.st.stringsimilarity.fingerprint.Variants::winnowingFiveGramOptimalAlignmentNormalized,
+                SimilarityMetric.MetricType.FINGERPRINT
+        );
+
+
+        // ****** Profile based *****
+
+        register(
+                "cosineTokenNormalizedBool",
+                de.unitrier.st.stringsimilarity.profile.Variants::cosineTokenNormalizedBool,
+                SimilarityMetric.MetricType.PROFILE
+        );
+        register(
+                "cosineTokenNormalizedTermFrequency",
+                de.unitrier.st.stringsimilarity.profile.Variants::cosineTokenNormalizedTermFrequency,
+                SimilarityMetric.MetricType.PROFILE
+        );
+        register(
+                "cosineTokenNormalizedNormalizedTermFrequency",
+                de.unitrier.st.stringsimilarity.profile.Variants::cosineTokenNormalizedNormalizedTermFrequency,
+                SimilarityMetric.MetricType.PROFILE
+        );
+
+        register(
+                "cosineTwoGramNormalizedBool",
+                de.unitrier.st.stringsimilarity.profile.Variants::cosineTwoGramNormalizedBool,
+                SimilarityMetric.MetricType.PROFILE
+        );
+        register(
+                "cosineThreeGramNormalizedBool",
+                de.unitrier.st.stringsimilarity.profile.Variants::cosineThreeGramNormalizedBool,
+                SimilarityMetric.MetricType.PROFILE
+        );
+        register(
+                "cosineFourGramNormalizedBool",
+                de.unitrier.st.stringsimilarity.profile.Variants::cosineFourGramNormalizedBool,
+                SimilarityMetric.MetricType.PROFILE
+        );
+        register(
+                "cosineFiveGramNormalizedBool",
+                de.unitrier.st.stringsimilarity.profile.Variants::cosineFiveGramNormalizedBool,
+                SimilarityMetric.MetricType.PROFILE
+        );
+
+        register(
+                "cosineTwoGramNormalizedTermFrequency",
+                de.unitrier.st.stringsimilarity.profile.Variants::cosineTwoGramNormalizedTermFrequency,
+                SimilarityMetric.MetricType.PROFILE
+        );
+        register(
+                "cosineThreeGramNormalizedTermFrequency",
+                de.unitrier.st.stringsimilarity.profile.Variants::cosineThreeGramNormalizedTermFrequency,
+                SimilarityMetric.MetricType.PROFILE
+        );
+        register(
+                "cosineFourGramNormalizedTermFrequency",
+                de.unitrier.st.stringsimilarity.profile.Variants::cosineFourGramNormalizedTermFrequency,
+                SimilarityMetric.MetricType.PROFILE
+        );
+        register(
+                "cosineFiveGramNormalizedTermFrequency",
+                de.unitrier.st.stringsimilarity.profile.Variants::cosineFiveGramNormalizedTermFrequency,
+                SimilarityMetric.MetricType.PROFILE
+        );
+
+        register(
+                "cosineTwoGramNormalizedNormalizedTermFrequency",
+                de.unitrier.st.stringsimilarity.profile.Variants::cosineTwoGramNormalizedNormalizedTermFrequency,
+                SimilarityMetric.MetricType.PROFILE
+        );
+        register(
+                "cosineThreeGramNormalizedNormalizedTermFrequency",
+                de.unitrier.st.stringsimilarity.profile.Variants::cosineThreeGramNormalizedNormalizedTermFrequency,
+                SimilarityMetric.MetricType.PROFILE
+        );
+        register(
+                "cosineFourGramNormalizedNormalizedTermFrequency",
+                de.unitrier.st.stringsimilarity.profile.Variants::cosineFourGramNormalizedNormalizedTermFrequency,
+                SimilarityMetric.MetricType.PROFILE
+        );
+        register(
+                "cosineFiveGramNormalizedNormalizedTermFrequency",
+                de.unitrier.st.stringsimilarity.profile.Variants::cosineFiveGramNormalizedNormalizedTermFrequency,
+                SimilarityMetric.MetricType.PROFILE
+        );
+
+        register(
+                "cosineTwoShingleNormalizedBool",
+                de.unitrier.st.stringsimilarity.profile.Variants::cosineTwoShingleNormalizedBool,
+                SimilarityMetric.MetricType.PROFILE
+        );
+        register(
+                "cosineThreeShingleNormalizedBool",
+                de.unitrier.st.stringsimilarity.profile.Variants::cosineThreeShingleNormalizedBool,
+                SimilarityMetric.MetricType.PROFILE
+        );
+
+        register(
+                "cosineTwoShingleNormalizedTermFrequency",
+                de.unitrier.st.stringsimilarity.profile.Variants::cosineTwoShingleNormalizedTermFrequency,
+                SimilarityMetric.MetricType.PROFILE
+        );
+        register(
+                "cosineThreeShingleNormalizedTermFrequency",
+                de.unitrier.st.stringsimilarity.profile.Variants::cosineThreeShingleNormalizedTermFrequency,
+                SimilarityMetric.MetricType.PROFILE
+        );
+
+        register(
+                "cosineTwoShingleNormalizedNormalizedTermFrequency",
+                de.unitrier.st.stringsimilarity.profile.Variants::cosineTwoShingleNormalizedNormalizedTermFrequency,
+                SimilarityMetric.MetricType.PROFILE
+        );
+        register(
+                "cosineThreeShingleNormalizedNormalizedTermFrequency",
+                de.unitrier.st.stringsimilarity.profile.Variants::cosineThreeShingleNormalizedNormalizedTermFrequency,
+                SimilarityMetric.MetricType.PROFILE
+        );
+
+        register(
+                "manhattanTokenNormalized",
+                de.unitrier.st.stringsimilarity.profile.Variants::manhattanTokenNormalized,
+                SimilarityMetric.MetricType.PROFILE
+        );
+
+        register(
+                "manhattanTwoGramNormalized",
+                de.unitrier.st.stringsimilarity.profile.Variants::manhattanTwoGramNormalized,
+                SimilarityMetric.MetricType.PROFILE
+        );
+        register(
+                "manhattanThreeGramNormalized",
+                de.unitrier.st.stringsimilarity.profile.Variants::manhattanThreeGramNormalized,
+                SimilarityMetric.MetricType.PROFILE
+        );
+        register(
+                "manhattanFourGramNormalized",
+                de.unitrier.st.stringsimilarity.profile.Variants::manhattanFourGramNormalized,
+                SimilarityMetric.MetricType.PROFILE
+        );
+        register(
+                "manhattanFiveGramNormalized",
+                de.unitrier.st.stringsimilarity.profile.Variants::manhattanFiveGramNormalized,
+                SimilarityMetric.MetricType.PROFILE
+        );
+
+        register(
+                "manhattanTwoShingleNormalized",
+                de.unitrier.st.stringsimilarity.profile.Variants::manhattanTwoShingleNormalized,
+                SimilarityMetric.MetricType.PROFILE
+        );
+        register(
+                "manhattanThreeShingleNormalized",
+                de.unitrier.st.stringsimilarity.profile.Variants::manhattanThreeShingleNormalized,
+                SimilarityMetric.MetricType.PROFILE
+        );
+
+        // dense implementations of the n-gram profiles (vectorized in the Java 17 build, see DenseProfile)
+        register(
+                "cosineTwoGramNormalizedDense",
+                DenseProfile.cosineNGramNormalized(2),
+                SimilarityMetric.MetricType.PROFILE
+        );
+        register(
+                "cosineThreeGramNormalizedDense",
+                DenseProfile.cosineNGramNormalized(3),
+                SimilarityMetric.MetricType.PROFILE
+        );
+        register(
+                "cosineFourGramNormalizedDense",
+                DenseProfile.cosineNGramNormalized(4),
+                SimilarityMetric.MetricType.PROFILE
+        );
+
+        register(
+                "manhattanTwoGramNormalizedDense",
+                DenseProfile.manhattanNGramNormalized(2),
+                SimilarityMetric.MetricType.PROFILE
+        );
+        register(
+                "manhattanThreeGramNormalizedDense",
+                DenseProfile.manhattanNGramNormalized(3),
+                SimilarityMetric.MetricType.PROFILE
+        );
+        register(
+                "manhattanFourGramNormalizedDense",
+                DenseProfile.manhattanNGramNormalized(4),
+                SimilarityMetric.MetricType.PROFILE
+        );
+
+
+
+        // ****** Set based *****
+
+        register(
+                "tokenJaccard",
+                de.unitrier.st.stringsimilarity.set.Variants::tokenJaccard,
+                SimilarityMetric.MetricType.SET
+        );
+        register(
+                "tokenJaccardNormalized",
+                de.unitrier.st.stringsimilarity.set.Variants::tokenJaccardNormalized,
+                SimilarityMetric.MetricType.SET
+        );
+
+        register(
+                "twoGramJaccard",
+                de.unitrier.st.stringsimilarity.set.Variants::twoGramJaccard,
+                SimilarityMetric.MetricType.SET
+        );
+        register(
+                "threeGramJaccard",
+                de.unitrier.st.stringsimilarity.set.Variants::threeGramJaccard,
+                SimilarityMetric.MetricType.SET
+        );
+        register(
+                "fourGramJaccard",
+                de.unitrier.st.stringsimilarity.set.Variants::fourGramJaccard,
+                SimilarityMetric.MetricType.SET
+        );
+        register(
+                "fiveGramJaccard",
+                de.unitrier.st.stringsimilarity.set.Variants::fiveGramJaccard,
+                SimilarityMetric.MetricType.SET
+        );
+
+        register(
+                "twoGramJaccardNormalized",
+                de.unitrier.st.stringsimilarity.set.Variants::twoGramJaccardNormalized,
+                SimilarityMetric.MetricType.SET
+        );
+        register(
+                "threeGramJaccardNormalized",
+                de.unitrier.st.stringsimilarity.set.Variants::threeGramJaccardNormalized,
+                SimilarityMetric.MetricType.SET
+        );
+        register(
+                "fourGramJaccardNormalized",
+                de.unitrier.st.stringsimilarity.set.Variants::fourGramJaccardNormalized,
+                SimilarityMetric.MetricType.SET
+        );
+        register(
+                "fiveGramJaccardNormalized",
+                de.unitrier.st.stringsimilarity.set.Variants::fiveGramJaccardNormalized,
+                SimilarityMetric.MetricType.SET
+        );
+
+        register(
+                "twoGramJaccardNormalizedPadding",
+                de.unitrier.st.stringsimilarity.set.Variants::twoGramJaccardNormalizedPadding,
+                SimilarityMetric.MetricType.SET
+        );
+        register(
+                "threeGramJaccardNormalizedPadding",
+                de.unitrier.st.stringsimilarity.set.Variants::threeGramJaccardNormalizedPadding,
+                SimilarityMetric.MetricType.SET
+        );
+        register(
+                "fourGramJaccardNormalizedPadding",
+                de.unitrier.st.stringsimilarity.set.Variants::fourGramJaccardNormalizedPadding,
+                SimilarityMetric.MetricType.SET
+        );
+        register(
+                "fiveGramJaccardNormalizedPadding",
+                de.unitrier.st.stringsimilarity.set.Variants::fiveGramJaccardNormalizedPadding,
+                SimilarityMetric.MetricType.SET
+        );
+
+        register(
+                "twoShingleJaccard",
+                de.unitrier.st.stringsimilarity.set.Variants::twoShingleJaccard,
+                SimilarityMetric.MetricType.SET
+        );
+        register(
+                "threeShingleJaccard",
+                de.unitrier.st.stringsimilarity.set.Variants::threeShingleJaccard,
+                SimilarityMetric.MetricType.SET
+        );
+
+        register(
+                "twoShingleJaccardNormalized",
+                de.unitrier.st.stringsimilarity.set.Variants::twoShingleJaccardNormalized,
+                SimilarityMetric.MetricType.SET
+        );
+        register(
+                "threeShingleJaccardNormalized",
+                de.unitrier.st.stringsimilarity.set.Variants::threeShingleJaccardNormalized,
+                SimilarityMetric.MetricType.SET
+        );
+
+        register(
+                "tokenDice",
+                de.unitrier.st.stringsimilarity.set.Variants::tokenDice,
+                SimilarityMetric.MetricType.SET
+        );
+        register(
+                "tokenDiceNormalized",
+                de.unitrier.st.stringsimilarity.set.Variants::tokenDiceNormalized,
+                SimilarityMetric.MetricType.SET
+        );
+
+        register(
+                "twoGramDice",
+                de.unitrier.st.stringsimilarity.set.Variants::twoGramDice,
+                SimilarityMetric.MetricType.SET
+        );
+        register(
+                "threeGramDice",
+                de.unitrier.st.stringsimilarity.set.Variants::threeGramDice,
+                SimilarityMetric.MetricType.SET
+        );
+        register(
+                "fourGramDice",
+                de.unitrier.st.stringsimilarity.set.Variants::fourGramDice,
+                SimilarityMetric.MetricType.SET
+        );
+        register(
+                "fiveGramDice",
+                de.unitrier.st.stringsimilarity.set.Variants::fiveGramDice,
+                SimilarityMetric.MetricType.SET
+        );
+
+        register(
+                "twoGramDiceNormalized",
+                de.unitrier.st.stringsimilarity.set.Variants::twoGramDiceNormalized,
+                SimilarityMetric.MetricType.SET
+        );
+        register(
+                "threeGramDiceNormalized",
+                de.unitrier.st.stringsimilarity.set.Variants::threeGramDiceNormalized,
+                SimilarityMetric.MetricType.SET
+        );
+        register(
+                "fourGramDiceNormalized",
+                de.unitrier.st.stringsimilarity.set.Variants::fourGramDiceNormalized,
+                SimilarityMetric.MetricType.SET
+        );
+        register(
+                "fiveGramDiceNormalized",
+                de.unitrier.st.stringsimilarity.set.Variants::fiveGramDiceNormalized,
+                SimilarityMetric.MetricType.SET
+        );
+
+        register(
+                "twoGramDiceNormalizedPadding",
+                de.unitrier.st.stringsimilarity.set.Variants::twoGramDiceNormalizedPadding,
+                SimilarityMetric.MetricType.SET
+        );
+        register(
+                "threeGramDiceNormalizedPadding",
+                de.unitrier.st.stringsimilarity.set.Variants::threeGramDiceNormalizedPadding,
+                SimilarityMetric.MetricType.SET
+        );
+        register(
+                "fourGramDiceNormalizedPadding",
+                de.unitrier.st.stringsimilarity.set.Variants::fourGramDiceNormalizedPadding,
+                SimilarityMetric.MetricType.SET
+        );
+        register(
+                "fiveGramDiceNormalizedPadding",
+                de.unitrier.st.stringsimilarity.set.Variants::fiveGramDiceNormalizedPadding,
+                SimilarityMetric.MetricType.SET
+        );
+
+        register(
+                "twoShingleDice",
+                de.unitrier.st.stringsimilarity.set.Variants::twoShingleDice,
+                SimilarityMetric.MetricType.SET
+        );
+        register(
+                "threeShingleDice",
+                de.unitrier.st.stringsimilarity.set.Variants::threeShingleDice,
+                SimilarityMetric.MetricType.SET
+        );
+
+        register(
+                "twoShingleDiceNormalized",
+                de.unitrier.st.stringsimilarity.set.Variants::twoShingleDiceNormalized,
+                SimilarityMetric.MetricType.SET
+        );
+        register(
+                "threeShingleDiceNormalized",
+                de.unitrier.st.stringsimilarity.set.Variants::threeShingleDiceNormalized,
+                SimilarityMetric.MetricType.SET
+        );
+
+        register(
+                "tokenOverlap",
+                de.unitrier.st.stringsimilarity.set.Variants::tokenOverlap,
+                SimilarityMetric.MetricType.SET
+        );
+        register(
+                "tokenOverlapNormalized",
+                de.unitrier.st.stringsimilarity.set.Variants::tokenOverlapNormalized,
+                SimilarityMetric.MetricType.SET
+        );
+
+        register(
+                "twoGramOverlap",
+                de.unitrier.st.stringsimilarity.set.Variants::twoGramOverlap,
+                SimilarityMetric.MetricType.SET
+        );
+        register(
+                "threeGramOverlap",
+                de.unitrier.st.stringsimilarity.set.Variants::threeGramOverlap,
+                SimilarityMetric.MetricType.SET
+        );
+        register(
+                "fourGramOverlap",
+                de.unitrier.st.stringsimilarity.set.Variants::fourGramOverlap,
+                SimilarityMetric.MetricType.SET
+        );
+        register(
+                "fiveGramOverlap",
+                de.unitrier.st.stringsimilarity.set.Variants::fiveGramOverlap,
+                SimilarityMetric.MetricType.SET
+        );
+
+        register(
+                "twoGramOverlapNormalized",
+                de.unitrier.st.stringsimilarity.set.Variants::twoGramOverlapNormalized,
+                SimilarityMetric.MetricType.SET
+        );
+        register(
+                "threeGramOverlapNormalized",
+                de.unitrier.st.stringsimilarity.set.Variants::threeGramOverlapNormalized,
+                SimilarityMetric.MetricType.SET
+        );
+        register(
+                "fourGramOverlapNormalized",
+                de.unitrier.st.stringsimilarity.set.Variants::fourGramOverlapNormalized,
+                SimilarityMetric.MetricType.SET
+        );
+        register(
+                "fiveGramOverlapNormalized",
+                de.unitrier.st.stringsimilarity.set.Variants::fiveGramOverlapNormalized,
+                SimilarityMetric.MetricType.SET
+        );
+
+        register(
+                "twoGramOverlapNormalizedPadding",
+                de.unitrier.st.stringsimilarity.set.Variants::twoGramOverlapNormalizedPadding,
+                SimilarityMetric.MetricType.SET
+        );
+        register(
+                "threeGramOverlapNormalizedPadding",
+                de.unitrier.st.stringsimilarity.set.Variants::threeGramOverlapNormalizedPadding,
+                SimilarityMetric.MetricType.SET
+        );
+        register(
+                "fourGramOverlapNormalizedPadding",
+                de.unitrier.st.stringsimilarity.set.Variants::fourGramOverlapNormalizedPadding,
+                SimilarityMetric.MetricType.SET
+        );
+        register(
+                "fiveGramOverlapNormalizedPadding",
+                de.unitrier.st.stringsimilarity.set.Variants::fiveGramOverlapNormalizedPadding,
+                SimilarityMetric.MetricType.SET
+        );
+
+        register(
+                "twoShingleOverlap",
+                de.unitrier.st.stringsimilarity.set.Variants::twoShingleOverlap,
+                SimilarityMetric.MetricType.SET
+        );
+        register(
+                "threeShingleOverlap",
+                de.unitrier.st.stringsimilarity.set.Variants::threeShingleOverlap,
+                SimilarityMetric.MetricType.SET
+        );
+
+        register(
+                "twoShingleOverlapNormalized",
+                de.unitrier.st.stringsimilarity.set.Variants::twoShingleOverlapNormalized,
+                SimilarityMetric.MetricType.SET
+        );
+        register(
+                "threeShingleOverlapNormalized",
+                de.unitrier.st.stringsimilarity.set.Variants::threeShingleOverlapNormalized,
+                SimilarityMetric.MetricType.SET
+        );
+
+        // ****** MinHash based *****
+        // approximations of the normalized set based metrics (sketches are shared by the Jaccard and Dice variant)
+
+        registerMinHash(
+                "twoGramJaccardNormalizedMinHash",
+                "twoGramNormalized",
+                signatureLength -> MinHash.nGramsNormalized(2, signatureLength),
+                false
+        );
+        registerMinHash(
+                "twoGramDiceNormalizedMinHash",
+                "twoGramNormalized",
+                signatureLength -> MinHash.nGramsNormalized(2, signatureLength),
+                true
+        );
+        registerMinHash(
+                "threeGramJaccardNormalizedMinHash",
+                "threeGramNormalized",
+                signatureLength -> MinHash.nGramsNormalized(3, signatureLength),
+                false
+        );
+        registerMinHash(
+                "threeGramDiceNormalizedMinHash",
+                "threeGramNormalized",
+                signatureLength -> MinHash.nGramsNormalized(3, signatureLength),
+                true
+        );
+        registerMinHash(
+                "fourGramJaccardNormalizedMinHash",
+                "fourGramNormalized",
+                signatureLength -> MinHash.nGramsNormalized(4, signatureLength),
+                false
+        );
+        registerMinHash(
+                "fourGramDiceNormalizedMinHash",
+                "fourGramNormalized",
+                signatureLength -> MinHash.nGramsNormalized(4, signatureLength),
+                true
+        );
+        registerMinHash(
+                "fiveGramJaccardNormalizedMinHash",
+                "fiveGramNormalized",
+                signatureLength -> MinHash.nGramsNormalized(5, signatureLength),
+                false
+        );
+        registerMinHash(
+                "fiveGramDiceNormalizedMinHash",
+                "fiveGramNormalized",
+                signatureLength -> MinHash.nGramsNormalized(5, signatureLength),
+                true
+        );
+        registerMinHash(
+                "twoShingleJaccardNormalizedMinHash",
+                "twoShingleNormalized",
+                signatureLength -> MinHash.shinglesNormalized(2, signatureLength),
+                false
+        );
+        registerMinHash(
+                "twoShingleDiceNormalizedMinHash",
+                "twoShingleNormalized",
+                signatureLength -> MinHash.shinglesNormalized(2, signatureLength),
+                true
+        );
+        registerMinHash(
+                "threeShingleJaccardNormalizedMinHash",
+                "threeShingleNormalized",
+                signatureLength -> MinHash.shinglesNormalized(3, signatureLength),
+                false
+        );
+        registerMinHash(
+                "threeShingleDiceNormalizedMinHash",
+                "threeShingleNormalized",
+                signatureLength -> MinHash.shinglesNormalized(3, signatureLength),
+                true
+        );
+    }
+}
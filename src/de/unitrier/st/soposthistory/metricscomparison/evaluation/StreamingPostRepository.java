@@ -0,0 +1,103 @@
+package de.unitrier.st.soposthistory.metricscomparison.evaluation;
+
+import de.unitrier.st.soposthistory.gt.PostGroundTruth;
+import de.unitrier.st.soposthistory.metricscomparison.io.PackedGroundTruth;
+import de.unitrier.st.soposthistory.version.PostVersionList;
+
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Repository for samples that do not fit into the heap. Only the post ids (together with the post type id and the
+ * expected number of versions from the post id list) are kept, post version lists and ground truths are read from
+ * the sample directories each time they are requested. The streaming evaluation (see MetricEvaluationManager)
+ * reads each post once and evaluates all metrics on it before it continues with the next post.
+ * The post version list read last is cached, so that consecutive requests for the same post (e.g., its post history
+ * ids and its possible comparisons) read the post only once.
+ */
+class StreamingPostRepository implements PostRepository {
+    private final Path postHistoryPath;
+    private final Path groundTruthPath;
+    private final Map<Integer, int[]> posts = new LinkedHashMap<>(); // postId -> {postTypeId, versionCount}
+
+    // post version list read last
+    private int lastPostId;
+    private PostVersionList lastPostVersionList;
+
+    StreamingPostRepository(Path postHistoryPath, Path groundTruthPath) {
+        this.postHistoryPath = postHistoryPath;
+        this.groundTruthPath = groundTruthPath;
+    }
+
+    void add(int postId, int postTypeId, int versionCount) {
+        posts.put(postId, new int[]{postTypeId, versionCount});
+    }
+
+    int getPostTypeId(int postId) {
+        return posts.get(postId)[0];
+    }
+
+    int getExpectedVersionCount(int postId) {
+        return posts.get(postId)[1];
+    }
+
+    @Override
+    public Set<Integer> getPostIds() {
+        return Collections.unmodifiableSet(posts.keySet());
+    }
+
+    @Override
+    public synchronized PostVersionList getPostVersionList(int postId) {
+        if (!posts.containsKey(postId)) {
+            return null;
+        }
+        if (lastPostVersionList != null && lastPostId == postId) {
+            return lastPostVersionList;
+        }
+        PostVersionList postVersionList = PostVersionList.readFromCSV(postHistoryPath, postId, getPostTypeId(postId), false);
+        postVersionList.normalizeLinks(); // normalize links so that post version list and ground truth are comparable
+        lastPostId = postId;
+        lastPostVersionList = postVersionList;
+        return postVersionList;
+    }
+
+    @Override
+    public PackedGroundTruth getPostGroundTruth(int postId) {
+        if (!posts.containsKey(postId)) {
+            return null;
+        }
+        return PackedGroundTruth.of(PostGroundTruth.readFromCSV(groundTruthPath, postId));
+    }
+
+    @Override
+    public List<Integer> getPostHistoryIds(int postId) {
+        return getPostVersionList(postId).getPostHistoryIds();
+    }
+
+    @Override
+    public int getPostVersionCount(int postId) {
+        return getExpectedVersionCount(postId);
+    }
+
+    @Override
+    public int getPossibleComparisons(int postId) {
+        return getPostVersionList(postId).getPossibleComparisons();
+    }
+
+    @Override
+    public Iterable<PostVersionList> getPostVersionLists() {
+        return () -> new Iterator<PostVersionList>() {
+            private final Iterator<Integer> postIds = posts.keySet().iterator();
+
+            @Override
+            public boolean hasNext() {
+                return postIds.hasNext();
+            }
+
+            @Override
+            public PostVersionList next() {
+                return getPostVersionList(postIds.next());
+            }
+        };
+    }
+}
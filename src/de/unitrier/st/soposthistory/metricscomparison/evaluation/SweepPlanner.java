@@ -0,0 +1,167 @@
+package de.unitrier.st.soposthistory.metricscomparison.evaluation;
+
+import com.google.common.base.Stopwatch;
+import de.unitrier.st.soposthistory.blocks.CodeBlockVersion;
+import de.unitrier.st.soposthistory.blocks.PostBlockVersion;
+import de.unitrier.st.soposthistory.blocks.TextBlockVersion;
+import de.unitrier.st.soposthistory.version.PostVersion;
+import de.unitrier.st.soposthistory.version.PostVersionList;
+import de.unitrier.st.util.Util;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.logging.Logger;
+
+/**
+ * Planning stage for threshold sweeps.
+ * A post block is connected to a predecessor if their similarity is greater than or equal to the configured
+ * threshold. Two thresholds t1 < t2 of the same metric thus produce identical connections if the metric does not
+ * produce a similarity value v with t1 <= v < t2 for any pair of blocks that is compared. For each group of such
+ * configurations, only one representative (the one with the lowest threshold) has to be evaluated.
+ */
+class SweepPlanner {
+    private static Logger logger = null;
+
+    static {
+        // configure logger
+        try {
+            logger = Util.getClassLogger(SweepPlanner.class);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private SweepPlanner() {}
+
+    /**
+     * Plan the evaluation of the given metrics.
+     * @param similarityMetrics metrics to evaluate
+     * @param postVersionLists post version lists of the sample, used to probe the similarity values a metric
+     *                         produces (may be null, then only metrics with binary similarity values are collapsed)
+     * @return representative -> configurations yielding identical results (excluding the representative), in the
+     * order of the given metrics
+     */
+    static Map<SimilarityMetric, List<SimilarityMetric>> plan(List<SimilarityMetric> similarityMetrics,
+                                                              Iterable<PostVersionList> postVersionLists) {
+        Map<SimilarityMetric, List<SimilarityMetric>> plan = new LinkedHashMap<>();
+
+        // group configurations that only differ in their threshold
+        Map<String, List<SimilarityMetric>> groups = new LinkedHashMap<>(); // metric name -> configurations
+        for (SimilarityMetric similarityMetric : similarityMetrics) {
+            if (isSingleMetric(similarityMetric)) {
+                groups.computeIfAbsent(similarityMetric.getNameText(), name -> new ArrayList<>()).add(similarityMetric);
+            } else {
+                // combined metrics (with backup metrics) are always evaluated
+                plan.put(similarityMetric, new LinkedList<>());
+            }
+        }
+
+        // probing costs about one evaluation per metric name, the time is logged to judge whether planning pays off
+        Stopwatch probeStopwatch = Stopwatch.createStarted();
+        int collapsedCount = 0;
+        for (List<SimilarityMetric> group : groups.values()) {
+            group.sort(Comparator.comparingDouble(metric -> metric.getConfig().getTextSimilarityThreshold()));
+
+            double[] thresholds = new double[group.size()];
+            for (int i = 0; i < thresholds.length; i++) {
+                thresholds[i] = group.get(i).getConfig().getTextSimilarityThreshold();
+            }
+
+            boolean[] split = getSplits(group.get(0), thresholds, postVersionLists);
+
+            SimilarityMetric representative = group.get(0);
+            plan.put(representative, new LinkedList<>());
+            for (int i = 1; i < group.size(); i++) {
+                if (split[i]) {
+                    representative = group.get(i);
+                    plan.put(representative, new LinkedList<>());
+                } else {
+                    plan.get(representative).add(group.get(i));
+                    collapsedCount++;
+                }
+            }
+        }
+
+        logger.info("Sweep plan: " + plan.size() + " of " + similarityMetrics.size() + " configurations have to be evaluated, "
+                + collapsedCount + " configurations yield identical results (probing " + groups.size()
+                + " metrics took " + probeStopwatch.elapsed(TimeUnit.MILLISECONDS) + " ms).");
+
+        return plan;
+    }
+
+    /**
+     * A configuration can only be collapsed if text and code blocks are compared using the same metric and
+     * threshold and no backup metrics are configured.
+     */
+    private static boolean isSingleMetric(SimilarityMetric similarityMetric) {
+        return similarityMetric.getNameText().equals(similarityMetric.getNameCode())
+                && similarityMetric.getTypeText() == similarityMetric.getTypeCode()
+                && similarityMetric.getTypeText() != SimilarityMetric.MetricType.DEFAULT
+                && similarityMetric.getBackupTypeText() == SimilarityMetric.MetricType.NONE
+                && similarityMetric.getBackupTypeCode() == SimilarityMetric.MetricType.NONE
+                && similarityMetric.getConfig().getTextSimilarityThreshold() == similarityMetric.getConfig().getCodeSimilarityThreshold();
+    }
+
+    /**
+     * split[i] is true if thresholds[i-1] and thresholds[i] (sorted in ascending order) may yield different results.
+     */
+    private static boolean[] getSplits(SimilarityMetric similarityMetric, double[] thresholds,
+                                       Iterable<PostVersionList> postVersionLists) {
+        boolean[] split = new boolean[thresholds.length];
+
+        if (similarityMetric.getTypeText() == SimilarityMetric.MetricType.EQUAL) {
+            // equality-based metrics only return 0.0 or 1.0
+            markSplit(split, thresholds, 0.0);
+            markSplit(split, thresholds, 1.0);
+            return split;
+        }
+
+        if (postVersionLists == null) {
+            Arrays.fill(split, true);
+            return split;
+        }
+
+        // probe the similarity values the metric produces for all pairs of blocks that may be compared
+        BiFunction<String, String, Double> metric = similarityMetric.getConfig().getTextSimilarityMetric();
+        for (PostVersionList postVersionList : postVersionLists) {
+            for (int i = 1; i < postVersionList.size(); i++) {
+                PostVersion previousVersion = postVersionList.get(i - 1);
+                PostVersion currentVersion = postVersionList.get(i);
+                probe(metric, split, thresholds, previousVersion, currentVersion, TextBlockVersion.getPostBlockTypeIdFilter());
+                probe(metric, split, thresholds, previousVersion, currentVersion, CodeBlockVersion.getPostBlockTypeIdFilter());
+            }
+        }
+
+        return split;
+    }
+
+    private static void probe(BiFunction<String, String, Double> metric, boolean[] split, double[] thresholds,
+                              PostVersion previousVersion, PostVersion currentVersion, Set<Integer> postBlockTypeFilter) {
+        for (PostBlockVersion currentBlock : currentVersion.getPostBlocks(postBlockTypeFilter)) {
+            for (PostBlockVersion previousBlock : previousVersion.getPostBlocks(postBlockTypeFilter)) {
+                Double similarity;
+                try {
+                    similarity = metric.apply(currentBlock.getContent(), previousBlock.getContent());
+                } catch (RuntimeException e) {
+                    // failed comparisons (e.g., input too short) do not depend on the threshold
+                    continue;
+                }
+                if (similarity != null && !similarity.isNaN()) {
+                    markSplit(split, thresholds, similarity);
+                }
+            }
+        }
+    }
+
+    private static void markSplit(boolean[] split, double[] thresholds, double similarity) {
+        // the value is accepted by all thresholds <= similarity and rejected by all other thresholds
+        for (int i = 1; i < thresholds.length; i++) {
+            if (thresholds[i - 1] <= similarity && similarity < thresholds[i]) {
+                split[i] = true;
+                return;
+            }
+        }
+    }
+}
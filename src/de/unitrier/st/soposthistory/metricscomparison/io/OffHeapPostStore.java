@@ -0,0 +1,127 @@
+package de.unitrier.st.soposthistory.metricscomparison.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores the raw content of files (e.g., the PostHistory file of each post of a sample) and other byte arrays
+ * (e.g., the packed ground truth of each post) outside of the Java heap.
+ * Files are read directly into direct byte buffers that are allocated in chunks; get() returns a read-only view of
+ * the stored bytes that can be parsed on demand (see PostHistoryMappedReader). Thus, only the index and the objects
+ * created from the views occupy heap memory.
+ */
+public class OffHeapPostStore {
+    private static final int DEFAULT_CHUNK_SIZE = 64 * 1024 * 1024;
+
+    private final int chunkSize;
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private final Map<Integer, long[]> index = new HashMap<>(); // key -> (chunk, offset, length)
+    private ByteBuffer currentChunk;
+    private long size = 0;
+
+    public OffHeapPostStore() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    public OffHeapPostStore(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive.");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Read the given file into the store.
+     */
+    public synchronized void put(int key, Path file) throws IOException {
+        checkKey(key);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("File " + file + " too large for off-heap store.");
+            }
+            int length = (int) fileSize;
+
+            ByteBuffer target = allocate(length);
+            while (target.hasRemaining()) {
+                if (channel.read(target) < 0) {
+                    throw new IOException("Unexpected end of file " + file);
+                }
+            }
+            addToIndex(key, length);
+        }
+    }
+
+    /**
+     * Copy the given bytes (e.g., a PackedGroundTruth) into the store.
+     */
+    public synchronized void put(int key, byte[] content) {
+        checkKey(key);
+        allocate(content.length).put(content);
+        addToIndex(key, content.length);
+    }
+
+    private void checkKey(int key) {
+        if (index.containsKey(key)) {
+            throw new IllegalArgumentException("Key " + key + " already stored.");
+        }
+    }
+
+    /**
+     * @return view of the next length bytes of the current chunk, which are written by the caller
+     */
+    private ByteBuffer allocate(int length) {
+        if (currentChunk == null || currentChunk.remaining() < length) {
+            // contents larger than the chunk size get their own chunk
+            currentChunk = ByteBuffer.allocateDirect(Math.max(chunkSize, length));
+            chunks.add(currentChunk);
+        }
+        ByteBuffer target = currentChunk.duplicate();
+        target.limit(currentChunk.position() + length);
+        return target;
+    }
+
+    private void addToIndex(int key, int length) {
+        int offset = currentChunk.position();
+        currentChunk.position(offset + length);
+        index.put(key, new long[] {chunks.size() - 1, offset, length});
+        size += length;
+    }
+
+    /**
+     * @return read-only view of the stored bytes (position 0, limit = length), null if key is not stored
+     */
+    public synchronized ByteBuffer get(int key) {
+        long[] entry = index.get(key);
+        if (entry == null) {
+            return null;
+        }
+        ByteBuffer view = chunks.get((int) entry[0]).duplicate();
+        view.position((int) entry[1]);
+        view.limit((int) (entry[1] + entry[2]));
+        return view.slice().asReadOnlyBuffer();
+    }
+
+    public synchronized boolean contains(int key) {
+        return index.containsKey(key);
+    }
+
+    public synchronized int getEntryCount() {
+        return index.size();
+    }
+
+    /**
+     * @return number of stored bytes
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+}
@@ -0,0 +1,244 @@
+package de.unitrier.st.soposthistory.metricscomparison.io;
+
+import de.unitrier.st.util.Util;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes several output files on a dedicated writer thread.
+ * Writers opened with open(file) collect the written characters in chunks that are handed over to the writer thread
+ * using a bounded queue, i.e., the calling thread only blocks if the writer thread falls behind by more than
+ * QUEUE_CAPACITY chunks. The writer thread opens the files, writes them using large buffers, and optionally
+ * compresses them using gzip. Writers can be wrapped by CSVPrinters; closing the printer closes the file.
+ */
+public class OutputPipeline implements Closeable {
+    private static Logger logger = null;
+
+    static {
+        // configure logger
+        try {
+            logger = Util.getClassLogger(OutputPipeline.class);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static final int CHUNK_SIZE = 64 * 1024; // characters
+    private static final int QUEUE_CAPACITY = 64; // chunks
+    private static final int BUFFER_SIZE = 1024 * 1024; // bytes
+    private static final Chunk END = new Chunk(null, null, false);
+
+    private final boolean gzip;
+    private final BlockingQueue<Chunk> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread writerThread;
+    private volatile IOException failure;
+    private boolean closed;
+
+    public OutputPipeline(String name, boolean gzip) {
+        this.gzip = gzip;
+        this.writerThread = new Thread(this::writeChunks, "output-pipeline-" + name);
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * @return path of the file that is actually written for the given file (".gz" is appended if gzip is enabled)
+     */
+    public Path resolve(Path file) {
+        return gzip ? Paths.get(file.toString() + ".gz") : file;
+    }
+
+    /**
+     * Open a writer for the given file, which is created by the writer thread. The path is used as is, i.e., the
+     * caller has to resolve it first if gzip may be enabled.
+     * A writer must only be used by one thread at a time.
+     */
+    public Writer open(Path file) throws IOException {
+        checkFailure();
+        if (closed) {
+            String msg = "Output pipeline has already been closed.";
+            logger.warning(msg);
+            throw new IllegalStateException(msg);
+        }
+        return new PipelineWriter(file);
+    }
+
+    private void enqueue(Chunk chunk) throws IOException {
+        checkFailure();
+        put(chunk);
+    }
+
+    private void put(Chunk chunk) throws InterruptedIOException {
+        try {
+            queue.put(chunk);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for output pipeline.");
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("Writing output failed.", failure);
+        }
+    }
+
+    /**
+     * Wait until all chunks have been written and all files have been closed. The writer thread is also stopped if
+     * writing failed before (it drops the remaining chunks and closes the open files), then the failure is thrown.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        put(END);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for output pipeline.");
+        }
+        checkFailure();
+    }
+
+    private void writeChunks() {
+        Map<Path, Writer> writers = new HashMap<>();
+        try {
+            while (true) {
+                Chunk chunk = queue.take();
+                if (chunk == END) {
+                    break;
+                }
+                if (failure != null) {
+                    continue; // drop remaining chunks, the error is reported to the producers
+                }
+                try {
+                    Writer writer = writers.get(chunk.file);
+                    if (writer == null) {
+                        writer = openFile(chunk.file);
+                        writers.put(chunk.file, writer);
+                    }
+                    writer.write(chunk.content);
+                    if (chunk.last) {
+                        writers.remove(chunk.file).close();
+                    }
+                } catch (IOException e) {
+                    logger.warning("Writing output file " + chunk.file + " failed: " + e.getMessage());
+                    failure = e;
+                }
+            }
+        } catch (InterruptedException e) {
+            failure = new InterruptedIOException("Output pipeline was interrupted.");
+        } finally {
+            // files that have not been closed by their writers
+            for (Writer writer : writers.values()) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private Writer openFile(Path file) throws IOException {
+        OutputStream outputStream = new FileOutputStream(file.toFile());
+        if (gzip) {
+            outputStream = new GZIPOutputStream(outputStream, BUFFER_SIZE);
+        } else {
+            outputStream = new BufferedOutputStream(outputStream, BUFFER_SIZE);
+        }
+        return new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+    }
+
+    private static class Chunk {
+        private final Path file;
+        private final String content;
+        private final boolean last;
+
+        Chunk(Path file, String content, boolean last) {
+            this.file = file;
+            this.content = content;
+            this.last = last;
+        }
+    }
+
+    private class PipelineWriter extends Writer {
+        private final Path file;
+        private final StringBuilder buffer = new StringBuilder(CHUNK_SIZE);
+        private boolean writerClosed = false;
+
+        PipelineWriter(Path file) {
+            this.file = file;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            ensureOpen();
+            buffer.append(chars, offset, length);
+            if (buffer.length() >= CHUNK_SIZE) {
+                handOver(false);
+            }
+        }
+
+        @Override
+        public void write(String string, int offset, int length) throws IOException {
+            ensureOpen();
+            buffer.append(string, offset, offset + length);
+            if (buffer.length() >= CHUNK_SIZE) {
+                handOver(false);
+            }
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            ensureOpen();
+            buffer.append((char) c);
+            if (buffer.length() >= CHUNK_SIZE) {
+                handOver(false);
+            }
+        }
+
+        /**
+         * Hand the collected characters over to the writer thread, the file is not necessarily written afterwards.
+         */
+        @Override
+        public void flush() throws IOException {
+            ensureOpen();
+            if (buffer.length() > 0) {
+                handOver(false);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (writerClosed) {
+                return;
+            }
+            writerClosed = true;
+            handOver(true);
+        }
+
+        private void handOver(boolean last) throws IOException {
+            enqueue(new Chunk(file, buffer.toString(), last));
+            buffer.setLength(0);
+        }
+
+        private void ensureOpen() throws IOException {
+            if (writerClosed) {
+                throw new IOException("Writer for " + file + " has already been closed.");
+            }
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package de.unitrier.st.soposthistory.metricscomparison.io;
+
+import de.unitrier.st.soposthistory.blocks.CodeBlockVersion;
+import de.unitrier.st.soposthistory.blocks.PostBlockVersion;
+import de.unitrier.st.soposthistory.blocks.TextBlockVersion;
+import de.unitrier.st.soposthistory.gt.PostBlockConnection;
+import de.unitrier.st.soposthistory.gt.PostBlockLifeSpanVersion;
+import de.unitrier.st.soposthistory.gt.PostGroundTruth;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * The values of a PostGroundTruth that the metric evaluation uses: the post history ids, the possible comparisons of
+ * the post, and, for each version and for text and code blocks, the possible comparisons, the possible connections,
+ * and the connections. Unlike PostGroundTruth, which can only be read from the ground truth file, a packed ground
+ * truth can be written to a byte array and read from a byte buffer, i.e., it can be kept off-heap (see
+ * OffHeapPostStore) or in the pack of a manifest (see SampleManifest).
+ * Connections are stored as (PostHistoryId, PostBlockTypeId, LocalId) of both blocks (see encodeConnections).
+ */
+public class PackedGroundTruth {
+    // the post block type filters the values are stored for
+    private static final int TEXT = 0;
+    private static final int CODE = 1;
+    private static final int ALL = 2;
+
+    private final int postId;
+    private final List<Integer> postHistoryIds;
+    private final int possibleComparisons; // all post block types, see PostGroundTruth.getPossibleComparisons()
+    private final int[] possibleComparisonsPerFilter; // text, code, all
+    private final Map<Integer, Version> versions; // postHistoryId -> version
+
+    private PackedGroundTruth(int postId, List<Integer> postHistoryIds, int possibleComparisons,
+                              int[] possibleComparisonsPerFilter, Map<Integer, Version> versions) {
+        this.postId = postId;
+        this.postHistoryIds = postHistoryIds;
+        this.possibleComparisons = possibleComparisons;
+        this.possibleComparisonsPerFilter = possibleComparisonsPerFilter;
+        this.versions = versions;
+    }
+
+    /**
+     * @return the values of the given ground truth, the connections are the sets returned by the ground truth
+     */
+    public static PackedGroundTruth of(PostGroundTruth postGroundTruth) {
+        List<Integer> postHistoryIds = new ArrayList<>(postGroundTruth.getPostHistoryIds());
+        Map<Integer, Version> versions = new HashMap<>();
+        for (int postHistoryId : postHistoryIds) {
+            Version version = new Version();
+            for (int filter = TEXT; filter <= CODE; filter++) {
+                Set<Integer> postBlockTypeFilter = getFilter(filter);
+                version.possibleComparisons[filter] = postGroundTruth.getPossibleComparisons(postHistoryId, postBlockTypeFilter);
+                version.possibleConnections[filter] = postGroundTruth.getPossibleConnections(postHistoryId, postBlockTypeFilter);
+                version.connections.add(postGroundTruth.getConnections(postHistoryId, postBlockTypeFilter));
+            }
+            versions.put(postHistoryId, version);
+        }
+
+        int[] possibleComparisonsPerFilter = new int[3];
+        for (int filter = TEXT; filter <= ALL; filter++) {
+            possibleComparisonsPerFilter[filter] = postGroundTruth.getPossibleComparisons(getFilter(filter));
+        }
+
+        return new PackedGroundTruth(postGroundTruth.getPostId(), postHistoryIds,
+                postGroundTruth.getPossibleComparisons(), possibleComparisonsPerFilter, versions);
+    }
+
+    /**
+     * @return packed ground truth written by toByteArray, the buffer is read from its current position
+     */
+    public static PackedGroundTruth read(ByteBuffer buffer) {
+        int postId = buffer.getInt();
+        int possibleComparisons = buffer.getInt();
+        int[] possibleComparisonsPerFilter = new int[3];
+        for (int filter = TEXT; filter <= ALL; filter++) {
+            possibleComparisonsPerFilter[filter] = buffer.getInt();
+        }
+
+        int versionCount = buffer.getInt();
+        List<Integer> postHistoryIds = new ArrayList<>(versionCount);
+        Map<Integer, Version> versions = new HashMap<>();
+        for (int i = 0; i < versionCount; i++) {
+            int postHistoryId = buffer.getInt();
+            Version version = new Version();
+            for (int filter = TEXT; filter <= CODE; filter++) {
+                version.possibleComparisons[filter] = buffer.getInt();
+                version.possibleConnections[filter] = buffer.getInt();
+                int[] encodedConnections = new int[buffer.getInt() * 6];
+                for (int j = 0; j < encodedConnections.length; j++) {
+                    encodedConnections[j] = buffer.getInt();
+                }
+                version.connections.add(decodeConnections(postId, encodedConnections));
+            }
+            postHistoryIds.add(postHistoryId);
+            versions.put(postHistoryId, version);
+        }
+
+        return new PackedGroundTruth(postId, postHistoryIds, possibleComparisons, possibleComparisonsPerFilter, versions);
+    }
+
+    public byte[] toByteArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeInt(postId);
+            output.writeInt(possibleComparisons);
+            for (int filter = TEXT; filter <= ALL; filter++) {
+                output.writeInt(possibleComparisonsPerFilter[filter]);
+            }
+
+            output.writeInt(postHistoryIds.size());
+            for (int postHistoryId : postHistoryIds) {
+                Version version = versions.get(postHistoryId);
+                output.writeInt(postHistoryId);
+                for (int filter = TEXT; filter <= CODE; filter++) {
+                    output.writeInt(version.possibleComparisons[filter]);
+                    output.writeInt(version.possibleConnections[filter]);
+                    int[] encodedConnections = encodeConnections(version.connections.get(filter));
+                    output.writeInt(encodedConnections.length / 6);
+                    for (int value : encodedConnections) {
+                        output.writeInt(value);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // not thrown by ByteArrayOutputStream
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return connections encoded as (PostHistoryId, PostBlockTypeId, LocalId) of the left and of the right block,
+     * i.e., six values per connection
+     */
+    public static int[] encodeConnections(Set<PostBlockConnection> connections) {
+        int[] encodedConnections = new int[connections.size() * 6];
+        int i = 0;
+        for (PostBlockConnection connection : connections) {
+            PostBlockLifeSpanVersion left = connection.getLeft();
+            PostBlockLifeSpanVersion right = connection.getRight();
+            encodedConnections[i++] = left.getPostHistoryId();
+            encodedConnections[i++] = left.getPostBlockTypeId();
+            encodedConnections[i++] = left.getLocalId();
+            encodedConnections[i++] = right.getPostHistoryId();
+            encodedConnections[i++] = right.getPostBlockTypeId();
+            encodedConnections[i++] = right.getLocalId();
+        }
+        return encodedConnections;
+    }
+
+    /**
+     * @return connections of the given post encoded by encodeConnections
+     */
+    public static Set<PostBlockConnection> decodeConnections(int postId, int[] encodedConnections) {
+        Set<PostBlockConnection> connections = new HashSet<>();
+        for (int i = 0; i < encodedConnections.length; i += 6) {
+            connections.add(new PostBlockConnection(
+                    new PostBlockLifeSpanVersion(postId, encodedConnections[i], encodedConnections[i + 1], encodedConnections[i + 2]),
+                    new PostBlockLifeSpanVersion(postId, encodedConnections[i + 3], encodedConnections[i + 4], encodedConnections[i + 5])
+            ));
+        }
+        return connections;
+    }
+
+    private static Set<Integer> getFilter(int filter) {
+        switch (filter) {
+            case TEXT:
+                return TextBlockVersion.getPostBlockTypeIdFilter();
+            case CODE:
+                return CodeBlockVersion.getPostBlockTypeIdFilter();
+            default:
+                return PostBlockVersion.getAllPostBlockTypeIdFilters();
+        }
+    }
+
+    private static int indexOf(Set<Integer> postBlockTypeFilter) {
+        for (int filter = TEXT; filter <= ALL; filter++) {
+            if (getFilter(filter).equals(postBlockTypeFilter)) {
+                return filter;
+            }
+        }
+        throw new IllegalArgumentException("Only the filters for text blocks, code blocks, and all blocks are packed.");
+    }
+
+    private Version getVersion(int postHistoryId, Set<Integer> postBlockTypeFilter) {
+        if (indexOf(postBlockTypeFilter) == ALL) {
+            throw new IllegalArgumentException("Values per version are only packed for text blocks and code blocks.");
+        }
+        Version version = versions.get(postHistoryId);
+        if (version == null) {
+            throw new IllegalArgumentException("Post " + postId + " has no version " + postHistoryId + ".");
+        }
+        return version;
+    }
+
+    public int getPostId() {
+        return postId;
+    }
+
+    public List<Integer> getPostHistoryIds() {
+        return Collections.unmodifiableList(postHistoryIds);
+    }
+
+    public int getPossibleComparisons() {
+        return possibleComparisons;
+    }
+
+    public int getPossibleComparisons(Set<Integer> postBlockTypeFilter) {
+        return possibleComparisonsPerFilter[indexOf(postBlockTypeFilter)];
+    }
+
+    public int getPossibleComparisons(int postHistoryId, Set<Integer> postBlockTypeFilter) {
+        return getVersion(postHistoryId, postBlockTypeFilter).possibleComparisons[indexOf(postBlockTypeFilter)];
+    }
+
+    public int getPossibleConnections(int postHistoryId, Set<Integer> postBlockTypeFilter) {
+        return getVersion(postHistoryId, postBlockTypeFilter).possibleConnections[indexOf(postBlockTypeFilter)];
+    }
+
+    public Set<PostBlockConnection> getConnections(int postHistoryId, Set<Integer> postBlockTypeFilter) {
+        return getVersion(postHistoryId, postBlockTypeFilter).connections.get(indexOf(postBlockTypeFilter));
+    }
+
+    private static class Version {
+        private final int[] possibleComparisons = new int[2]; // text, code
+        private final int[] possibleConnections = new int[2];
+        private final List<Set<PostBlockConnection>> connections = new ArrayList<>(2);
+    }
+}
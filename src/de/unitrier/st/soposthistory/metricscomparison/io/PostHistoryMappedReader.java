@@ -0,0 +1,544 @@
+package de.unitrier.st.soposthistory.metricscomparison.io;
+
+import de.unitrier.st.soposthistory.history.PostHistory;
+import de.unitrier.st.soposthistory.version.PostVersionList;
+import de.unitrier.st.util.Util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Reader for the PostHistory CSV files of a sample (files/&lt;postId&gt;.csv), specialized for their dialect:
+ * header "Id;PostId;UserId;PostHistoryTypeId;RevisionGUID;CreationDate;Text;UserDisplayName;Comment", ';' as
+ * delimiter, '"' as quote that is escaped by doubling it, '\\' as escape character, "null" for missing values, and
+ * HTML-encoded line breaks (&amp;#xD;&amp;#xA;) in the text.
+ * Quotes, escapes, and null values are handled like commons-csv 1.4 does with the CSVFormat of the extractor, i.e.,
+ * the parsed values are the same as the ones PostVersionList.readFromCSV reads.
+ * The file is memory-mapped and the delimiters are scanned on the mapped bytes; numeric columns are parsed without
+ * creating strings, string columns are decoded once and unescaped only if they contain escape sequences.
+ */
+public class PostHistoryMappedReader {
+    private static Logger logger = null;
+
+    static {
+        // configure logger
+        try {
+            logger = Util.getClassLogger(PostHistoryMappedReader.class);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static final String HEADER = "Id;PostId;UserId;PostHistoryTypeId;RevisionGUID;CreationDate;Text;UserDisplayName;Comment";
+    private static final int COLUMN_COUNT = 9;
+    private static final String LINE_BREAK_ENTITY = "&#xD;&#xA;";
+
+    private static final byte DELIMITER = ';';
+    private static final byte QUOTE = '"';
+    private static final byte ESCAPE = '\\';
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+
+    private final ByteBuffer buffer;
+    private final CharsetDecoder decoder;
+    private CharBuffer charBuffer; // reused for decoding
+    private char[] unescapeBuffer; // reused for unescaping
+
+    // start and end (exclusive) of the values of the fields of the current row (without the enclosing quotes),
+    // whether they are quoted, and whether they contain escape sequences or doubled quotes
+    private final int[] fieldStart = new int[COLUMN_COUNT];
+    private final int[] fieldEnd = new int[COLUMN_COUNT];
+    private final boolean[] fieldQuoted = new boolean[COLUMN_COUNT];
+    private final boolean[] fieldEscaped = new boolean[COLUMN_COUNT];
+    private int fieldCount;
+
+    private PostHistoryMappedReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.charBuffer = CharBuffer.allocate(1024);
+        this.unescapeBuffer = new char[1024];
+    }
+
+    /**
+     * Read all rows of the PostHistory file of the given post, ordered by PostHistoryId.
+     * @param decodeLineBreaks if true, HTML-encoded line breaks in the text are replaced while unescaping
+     */
+    public static List<PostHistoryRecord> readRecords(Path dir, int postId, boolean decodeLineBreaks) {
+        Path pathToCSVFile = Paths.get(dir.toString(), postId + ".csv");
+        Util.ensureFileExists(pathToCSVFile);
+
+        try (FileChannel channel = FileChannel.open(pathToCSVFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return readRecords(buffer, postId, decodeLineBreaks);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Reading PostHistory file " + pathToCSVFile + " failed", e);
+        }
+    }
+
+    /**
+     * Read all rows of a PostHistory file that has already been loaded into the given buffer (e.g., a view of an
+     * OffHeapPostStore), ordered by PostHistoryId.
+     */
+    public static List<PostHistoryRecord> readRecords(ByteBuffer buffer, int postId, boolean decodeLineBreaks) {
+        List<PostHistoryRecord> records = new PostHistoryMappedReader(buffer).parse(decodeLineBreaks);
+
+        for (PostHistoryRecord record : records) {
+            if (record.getPostId() != postId) {
+                String msg = "Wrong PostId in PostHistory file (expected: " + postId + "; actual: " + record.getPostId() + ")";
+                logger.warning(msg);
+                throw new IllegalArgumentException(msg);
+            }
+        }
+        records.sort(Comparator.comparingInt(PostHistoryRecord::getId));
+
+        return records;
+    }
+
+    /**
+     * Read the PostHistory file of the given post and create the same PostVersionList as
+     * PostVersionList.readFromCSV(dir, postId, postTypeId, false).
+     */
+    public static PostVersionList readPostVersionList(Path dir, int postId, int postTypeId) {
+        return toPostVersionList(readRecords(dir, postId, false), postId, postTypeId);
+    }
+
+    /**
+     * Create the PostVersionList of the given post from a PostHistory file that has already been loaded into the
+     * given buffer.
+     */
+    public static PostVersionList readPostVersionList(ByteBuffer buffer, int postId, int postTypeId) {
+        return toPostVersionList(readRecords(buffer, postId, false), postId, postTypeId);
+    }
+
+    private static PostVersionList toPostVersionList(List<PostHistoryRecord> records, int postId, int postTypeId) {
+        PostVersionList postVersionList = new PostVersionList(postId, postTypeId);
+        for (PostHistoryRecord record : records) {
+            // the block extraction of the extractor expects the text as stored in the CSV file
+            PostHistory postHistory = new PostHistory(
+                    record.getId(),
+                    record.getPostId(),
+                    (byte) postTypeId,
+                    (byte) record.getPostHistoryTypeId(),
+                    record.getText()
+            );
+            postHistory.extractPostBlocks();
+            postVersionList.add(postHistory.toPostVersion());
+        }
+
+        return postVersionList;
+    }
+
+    /**
+     * Replace HTML-encoded line breaks by '\n' in one pass.
+     */
+    static String decodeLineBreaks(String text) {
+        if (text == null || text.indexOf('&') < 0) {
+            return text;
+        }
+        StringBuilder decoded = new StringBuilder(text.length());
+        int length = text.length();
+        int entityLength = LINE_BREAK_ENTITY.length();
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(i) == '&' && text.startsWith(LINE_BREAK_ENTITY, i)) {
+                decoded.append('\n');
+                i += entityLength - 1;
+            } else {
+                decoded.append(text.charAt(i));
+            }
+        }
+        return decoded.toString();
+    }
+
+    private List<PostHistoryRecord> parse(boolean decodeLineBreaks) {
+        List<PostHistoryRecord> records = new ArrayList<>();
+        int position = 0;
+        int limit = buffer.limit();
+
+        // skip UTF-8 byte order mark
+        if (limit >= 3 && buffer.get(0) == (byte) 0xEF && buffer.get(1) == (byte) 0xBB && buffer.get(2) == (byte) 0xBF) {
+            position = 3;
+        }
+
+        // validate header
+        position = scanRow(position);
+        if (position < 0 || !HEADER.equals(getRow())) {
+            String msg = "Unexpected header in PostHistory file (expected: " + HEADER + ")";
+            logger.warning(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        while (position < limit) {
+            int rowStart = position;
+            position = scanRow(position);
+            if (position < 0) {
+                String msg = "Invalid row in PostHistory file at byte " + rowStart + " (expected " + COLUMN_COUNT + " columns)";
+                logger.warning(msg);
+                throw new IllegalArgumentException(msg);
+            }
+            if (isEmptyLine()) {
+                continue; // empty line
+            }
+
+            records.add(new PostHistoryRecord(
+                    parseInt(0),
+                    parseInt(1),
+                    parseInteger(2),
+                    parseInt(3),
+                    getString(4, false),
+                    getString(5, false),
+                    getString(6, decodeLineBreaks),
+                    getString(7, false),
+                    getString(8, false)
+            ));
+        }
+
+        return records;
+    }
+
+    /**
+     * Find the fields of the row starting at the given position.
+     * Like commons-csv, a field is quoted if it starts with a quote, an escape character escapes the following
+     * character (also a delimiter, quote, or line break), and only whitespace may follow the closing quote.
+     * @return position of the next row, -1 if the row does not have the expected number of columns
+     */
+    private int scanRow(int position) {
+        int limit = buffer.limit();
+        int field = 0;
+        startField(field, position);
+
+        while (position < limit) {
+            byte b = buffer.get(position);
+
+            if (b == QUOTE && position == fieldStart[field] && !fieldQuoted[field]) {
+                // quoted field, ends at a quote that is neither escaped nor followed by another quote
+                fieldQuoted[field] = true;
+                position++;
+                fieldStart[field] = position;
+                while (true) {
+                    if (position >= limit) {
+                        throw invalidRow(fieldStart[field] - 1, "end of file reached before quoted value finished");
+                    }
+                    byte c = buffer.get(position);
+                    if (c == ESCAPE) {
+                        position = skipEscapedCharacter(position);
+                        fieldEscaped[field] = true;
+                    } else if (c == QUOTE) {
+                        if (position + 1 < limit && buffer.get(position + 1) == QUOTE) {
+                            position += 2; // doubled quote
+                            fieldEscaped[field] = true;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        position++;
+                    }
+                }
+                fieldEnd[field] = position;
+                position++; // closing quote
+
+                // only whitespace is allowed between closing quote and delimiter or line break
+                while (position < limit) {
+                    byte c = buffer.get(position);
+                    if (c == DELIMITER || c == LF || c == CR) {
+                        break;
+                    }
+                    if (!isWhitespace(c)) {
+                        throw invalidRow(position, "invalid character between quoted value and delimiter");
+                    }
+                    position++;
+                }
+                if (position >= limit) {
+                    break;
+                }
+                b = buffer.get(position);
+            } else if (b == ESCAPE) {
+                position = skipEscapedCharacter(position);
+                fieldEscaped[field] = true;
+                continue;
+            }
+
+            if (b == DELIMITER) {
+                if (!fieldQuoted[field]) {
+                    fieldEnd[field] = position;
+                }
+                field++;
+                if (field >= COLUMN_COUNT) {
+                    return -1;
+                }
+                startField(field, position + 1);
+            } else if (b == LF || b == CR) {
+                if (!fieldQuoted[field]) {
+                    fieldEnd[field] = position;
+                }
+                position++;
+                if (b == CR && position < limit && buffer.get(position) == LF) {
+                    position++;
+                }
+                return endRow(field, position);
+            }
+
+            position++;
+        }
+
+        // last row without line break
+        if (!fieldQuoted[field]) {
+            fieldEnd[field] = position;
+        }
+        return endRow(field, position);
+    }
+
+    private void startField(int field, int position) {
+        fieldStart[field] = position;
+        fieldQuoted[field] = false;
+        fieldEscaped[field] = false;
+    }
+
+    /**
+     * @param position position of an escape character
+     * @return position after the escaped character
+     */
+    private int skipEscapedCharacter(int position) {
+        if (position + 1 >= buffer.limit()) {
+            throw invalidRow(position, "end of file reached while processing escape sequence");
+        }
+        // escaped multi-byte UTF-8 characters are no escape sequences, their remaining bytes are no ASCII characters
+        return position + 2;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        // same as commons-csv (Character.isWhitespace), restricted to the ASCII characters that can occur here
+        return b == ' ' || b == '\t' || b == 0x0B || b == '\f' || (b >= 0x1C && b <= 0x1F);
+    }
+
+    private IllegalArgumentException invalidRow(int position, String reason) {
+        String msg = "Invalid row in PostHistory file at byte " + position + " (" + reason + ")";
+        logger.warning(msg);
+        return new IllegalArgumentException(msg);
+    }
+
+    private int endRow(int lastField, int position) {
+        fieldCount = lastField + 1;
+        return fieldCount == COLUMN_COUNT || isEmptyLine() ? position : -1;
+    }
+
+    private boolean isEmptyLine() {
+        return fieldCount == 1 && !fieldQuoted[0] && fieldEnd[0] == fieldStart[0];
+    }
+
+    private String getRow() {
+        StringBuilder row = new StringBuilder();
+        for (int i = 0; i < COLUMN_COUNT; i++) {
+            if (i > 0) {
+                row.append(';');
+            }
+            row.append(getString(i, false));
+        }
+        return row.toString();
+    }
+
+    /**
+     * Like commons-csv, values that are "null" after unescaping are null, whether they are quoted or not.
+     */
+    private boolean isNull(int field) {
+        if (fieldEscaped[field]) {
+            return getString(field, false) == null;
+        }
+        return fieldEnd[field] - fieldStart[field] == 4
+                && buffer.get(fieldStart[field]) == 'n'
+                && buffer.get(fieldStart[field] + 1) == 'u'
+                && buffer.get(fieldStart[field] + 2) == 'l'
+                && buffer.get(fieldStart[field] + 3) == 'l';
+    }
+
+    private int parseInt(int field) {
+        Integer value = parseInteger(field);
+        if (value == null) {
+            String msg = "Missing value in column " + HEADER.split(";")[field] + ".";
+            logger.warning(msg);
+            throw new IllegalArgumentException(msg);
+        }
+        return value;
+    }
+
+    private Integer parseInteger(int field) {
+        if (isNull(field) || fieldEnd[field] == fieldStart[field]) {
+            return null;
+        }
+
+        if (fieldEscaped[field]) {
+            return Integer.parseInt(getString(field, false));
+        }
+
+        int start = fieldStart[field];
+        int end = fieldEnd[field];
+        boolean negative = buffer.get(start) == '-';
+        int position = negative ? start + 1 : start;
+        if (position >= end) {
+            throw new NumberFormatException("Invalid number in column " + HEADER.split(";")[field] + ".");
+        }
+
+        long value = 0;
+        for (; position < end; position++) {
+            int digit = buffer.get(position) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Invalid number in column " + HEADER.split(";")[field] + ".");
+            }
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw new NumberFormatException("Number out of range in column " + HEADER.split(";")[field] + ".");
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Number out of range in column " + HEADER.split(";")[field] + ".");
+        }
+        return (int) value;
+    }
+
+    private String getString(int field, boolean decodeLineBreaks) {
+        boolean escaped = fieldEscaped[field];
+        if (!escaped && isNull(field)) {
+            return null;
+        }
+
+        int start = fieldStart[field];
+        int end = fieldEnd[field];
+        if (end <= start) {
+            return "";
+        }
+
+        // decode UTF-8 into the reused char buffer
+        ByteBuffer bytes = buffer.duplicate();
+        bytes.position(start);
+        bytes.limit(end);
+        int maxChars = end - start; // UTF-8 never needs more chars than bytes
+        if (charBuffer.capacity() < maxChars) {
+            charBuffer = CharBuffer.allocate(Math.max(maxChars, 2 * charBuffer.capacity()));
+        }
+        charBuffer.clear();
+        decoder.reset();
+        decoder.decode(bytes, charBuffer, true);
+        decoder.flush(charBuffer);
+        charBuffer.flip();
+
+        if (!escaped && !decodeLineBreaks) {
+            return charBuffer.toString();
+        }
+
+        char[] chars = charBuffer.array();
+        int length = charBuffer.limit();
+        if (unescapeBuffer.length < length) {
+            unescapeBuffer = new char[Math.max(length, 2 * unescapeBuffer.length)];
+        }
+        int count = escaped ? unescape(chars, length, fieldQuoted[field]) : copy(chars, length);
+
+        if (escaped && count == 4 && unescapeBuffer[0] == 'n' && unescapeBuffer[1] == 'u'
+                && unescapeBuffer[2] == 'l' && unescapeBuffer[3] == 'l') {
+            return null;
+        }
+
+        if (decodeLineBreaks) {
+            // in place, the decoded text is never longer than the unescaped one
+            int entityLength = LINE_BREAK_ENTITY.length();
+            int decodedCount = 0;
+            for (int i = 0; i < count; i++) {
+                char c = unescapeBuffer[i];
+                if (c == '&' && startsWith(unescapeBuffer, i, count, LINE_BREAK_ENTITY)) {
+                    unescapeBuffer[decodedCount++] = '\n';
+                    i += entityLength - 1;
+                } else {
+                    unescapeBuffer[decodedCount++] = c;
+                }
+            }
+            count = decodedCount;
+        }
+
+        return new String(unescapeBuffer, 0, count);
+    }
+
+    private int copy(char[] chars, int length) {
+        System.arraycopy(chars, 0, unescapeBuffer, 0, length);
+        return length;
+    }
+
+    /**
+     * Resolve escape sequences (and doubled quotes in quoted values) into the unescape buffer, like the lexer of
+     * commons-csv 1.4 does: \r, \n, \t, \b, and \f are replaced by the corresponding control characters, an escaped
+     * line break, tab, form feed, backspace, delimiter, quote, or escape character by the character itself, and any
+     * other escaped character is kept together with the escape character.
+     * @return number of unescaped characters
+     */
+    private int unescape(char[] chars, int length, boolean quoted) {
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            char c = chars[i];
+            if (c == ESCAPE && i + 1 < length) {
+                char escapedChar = chars[++i];
+                switch (escapedChar) {
+                    case 'r':
+                        unescapeBuffer[count++] = '\r';
+                        break;
+                    case 'n':
+                        unescapeBuffer[count++] = '\n';
+                        break;
+                    case 't':
+                        unescapeBuffer[count++] = '\t';
+                        break;
+                    case 'b':
+                        unescapeBuffer[count++] = '\b';
+                        break;
+                    case 'f':
+                        unescapeBuffer[count++] = '\f';
+                        break;
+                    case '\r':
+                    case '\n':
+                    case '\f':
+                    case '\t':
+                    case '\b':
+                    case DELIMITER:
+                    case QUOTE:
+                    case ESCAPE:
+                        unescapeBuffer[count++] = escapedChar;
+                        break;
+                    default:
+                        unescapeBuffer[count++] = c;
+                        unescapeBuffer[count++] = escapedChar;
+                }
+            } else if (quoted && c == QUOTE && i + 1 < length && chars[i + 1] == QUOTE) {
+                unescapeBuffer[count++] = c;
+                i++;
+            } else {
+                unescapeBuffer[count++] = c;
+            }
+        }
+        return count;
+    }
+
+    private static boolean startsWith(char[] chars, int offset, int length, String prefix) {
+        if (offset + prefix.length() > length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (chars[offset + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,70 @@
+package de.unitrier.st.soposthistory.metricscomparison.io;
+
+/**
+ * One row of a PostHistory CSV file (see PostHistoryMappedReader).
+ * The text is stored as in the CSV file, i.e., with HTML-encoded line breaks; getDecodedText() replaces them.
+ */
+public class PostHistoryRecord {
+    private final int id;
+    private final int postId;
+    private final Integer userId;
+    private final int postHistoryTypeId;
+    private final String revisionGuid;
+    private final String creationDate;
+    private final String text;
+    private final String userDisplayName;
+    private final String comment;
+
+    PostHistoryRecord(int id, int postId, Integer userId, int postHistoryTypeId, String revisionGuid,
+                      String creationDate, String text, String userDisplayName, String comment) {
+        this.id = id;
+        this.postId = postId;
+        this.userId = userId;
+        this.postHistoryTypeId = postHistoryTypeId;
+        this.revisionGuid = revisionGuid;
+        this.creationDate = creationDate;
+        this.text = text;
+        this.userDisplayName = userDisplayName;
+        this.comment = comment;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getPostId() {
+        return postId;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public int getPostHistoryTypeId() {
+        return postHistoryTypeId;
+    }
+
+    public String getRevisionGuid() {
+        return revisionGuid;
+    }
+
+    public String getCreationDate() {
+        return creationDate;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public String getDecodedText() {
+        return PostHistoryMappedReader.decodeLineBreaks(text);
+    }
+
+    public String getUserDisplayName() {
+        return userDisplayName;
+    }
+
+    public String getComment() {
+        return comment;
+    }
+}
@@ -0,0 +1,486 @@
+package de.unitrier.st.soposthistory.metricscomparison.io;
+
+import de.unitrier.st.soposthistory.gt.PostGroundTruth;
+import de.unitrier.st.soposthistory.version.PostVersionList;
+import de.unitrier.st.util.Util;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import static de.unitrier.st.soposthistory.metricscomparison.evaluation.MetricEvaluationManager.csvFormatPostIds;
+
+/**
+ * Packed representation of a sample for random access to its posts.
+ * The PostHistory file (files/&lt;postId&gt;.csv) of each post is copied into one pack file (&lt;sample&gt;.pack),
+ * together with its ground truth (completed/completed_&lt;postId&gt;.csv), which is read once and stored as
+ * PackedGroundTruth; the posts are stored in the order of the post id list. The index file
+ * (&lt;sample&gt;.pack.idx) maps each post id to the post type id, the version count, and the offsets and lengths of
+ * the PostHistory file and the ground truth in the pack. It also stores size and modification time of the post id
+ * list the manifest has been built for and, for the PostHistory files and the ground truth files, the total size and
+ * the newest modification time of the packed files; a manifest is outdated if one of them has changed since (e.g.,
+ * because a ground truth file has been corrected). Pack and index are written to temporary files that replace the
+ * previous manifest only after they have been written completely.
+ * Opening a manifest reads the index and memory-maps the pack, afterwards the files of a post are available as byte
+ * buffers without further file system accesses; iterating over getPostIds() reads the pack sequentially.
+ */
+public class SampleManifest {
+    private static Logger logger = null;
+
+    static {
+        // configure logger
+        try {
+            logger = Util.getClassLogger(SampleManifest.class);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static final int MAGIC = 0x534F504B; // "SOPK"
+    // 3: packed ground truths instead of ground truth files
+    // 4: stamps of the packed PostHistory and ground truth files
+    private static final int FORMAT_VERSION = 4;
+    // the pack is mapped in segments, files are placed so that they do not cross segment boundaries
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    private final Path packFile;
+    private final Map<Integer, Entry> index; // postId -> entry, in pack order
+    private final List<ByteBuffer> segments;
+
+    private SampleManifest(Path packFile, Map<Integer, Entry> index, List<ByteBuffer> segments) {
+        this.packFile = packFile;
+        this.index = index;
+        this.segments = segments;
+    }
+
+    /**
+     * @return pack file of a sample directory with the layout expected by
+     * MetricEvaluationManager.createManagersFromSampleDirectories
+     */
+    public static Path getPackFile(Path sampleDir) {
+        return Paths.get(sampleDir.toString(), sampleDir.toFile().getName() + ".pack");
+    }
+
+    public static Path getIndexFile(Path packFile) {
+        return Paths.get(packFile.toString() + ".idx");
+    }
+
+    /**
+     * Build the manifest of a sample directory (&lt;sample&gt;.csv, files, completed), see getPackFile.
+     */
+    public static SampleManifest buildForSampleDirectory(Path sampleDir) throws IOException {
+        String name = sampleDir.toFile().getName();
+        return build(
+                Paths.get(sampleDir.toString(), name + ".csv"),
+                Paths.get(sampleDir.toString(), "files"),
+                Paths.get(sampleDir.toString(), "completed"),
+                getPackFile(sampleDir)
+        );
+    }
+
+    /**
+     * Build the manifests of all sample directories in the given directory that do not have a manifest yet or whose
+     * manifest is outdated (see isUpToDate).
+     */
+    public static void updateManifests(Path samplesDir) throws IOException {
+        try (Stream<Path> paths = Files.list(samplesDir)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                // only consider directories (ignore, e.g., .DS_Store files on macOS)
+                if (!Files.isDirectory(path)) {
+                    continue;
+                }
+                String name = path.toFile().getName();
+                if (isUpToDate(getPackFile(path), Paths.get(path.toString(), name + ".csv"),
+                        Paths.get(path.toString(), "files"), Paths.get(path.toString(), "completed"))) {
+                    continue;
+                }
+                buildForSampleDirectory(path);
+            }
+        }
+    }
+
+    /**
+     * Open the manifest with the given pack file, the manifest is built first if it does not exist or is outdated.
+     */
+    public static SampleManifest openOrBuild(Path postIdPath, Path postHistoryPath, Path groundTruthPath,
+                                             Path packFile) throws IOException {
+        if (isUpToDate(packFile, postIdPath, postHistoryPath, groundTruthPath)) {
+            return open(packFile);
+        }
+        return build(postIdPath, postHistoryPath, groundTruthPath, packFile);
+    }
+
+    /**
+     * @return true if the manifest exists, has the current format, and has been built for the current version of the
+     * post id list (same size and modification time) and of the packed PostHistory and ground truth files (same total
+     * size and newest modification time)
+     */
+    public static boolean isUpToDate(Path packFile, Path postIdPath, Path postHistoryPath,
+                                     Path groundTruthPath) throws IOException {
+        Path indexFile = getIndexFile(packFile);
+        if (!Files.exists(packFile) || !Files.exists(indexFile) || !Files.exists(postIdPath)) {
+            return false;
+        }
+        try (DataInputStream indexInput = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(indexFile.toFile())))) {
+            if (indexInput.readInt() != MAGIC || indexInput.readInt() != FORMAT_VERSION) {
+                logger.info("Manifest " + packFile + " has an outdated format.");
+                return false;
+            }
+            if (indexInput.readLong() != Files.size(postIdPath)
+                    || indexInput.readLong() != Files.getLastModifiedTime(postIdPath).toMillis()) {
+                logger.info("Manifest " + packFile + " is outdated, " + postIdPath + " has changed.");
+                return false;
+            }
+            Stamp postHistoryStamp = Stamp.read(indexInput);
+            Stamp groundTruthStamp = Stamp.read(indexInput);
+
+            int postCount = indexInput.readInt();
+            Stamp currentPostHistoryStamp = new Stamp();
+            Stamp currentGroundTruthStamp = new Stamp();
+            for (int i = 0; i < postCount; i++) {
+                int postId = indexInput.readInt();
+                indexInput.skipBytes(INDEX_ENTRY_SIZE - Integer.BYTES);
+                Path postHistoryFile = getPostHistoryFile(postHistoryPath, postId);
+                Path groundTruthFile = getGroundTruthFile(groundTruthPath, postId);
+                if (!Files.exists(postHistoryFile) || !Files.exists(groundTruthFile)) {
+                    logger.info("Manifest " + packFile + " is outdated, files of post " + postId + " are missing.");
+                    return false;
+                }
+                currentPostHistoryStamp.add(postHistoryFile);
+                currentGroundTruthStamp.add(groundTruthFile);
+            }
+            if (!postHistoryStamp.equals(currentPostHistoryStamp)) {
+                logger.info("Manifest " + packFile + " is outdated, files in " + postHistoryPath + " have changed.");
+                return false;
+            }
+            if (!groundTruthStamp.equals(currentGroundTruthStamp)) {
+                logger.info("Manifest " + packFile + " is outdated, files in " + groundTruthPath + " have changed.");
+                return false;
+            }
+        } catch (EOFException e) {
+            return false;
+        }
+        return true;
+    }
+
+    private static Path getPostHistoryFile(Path postHistoryPath, int postId) {
+        return Paths.get(postHistoryPath.toString(), postId + ".csv");
+    }
+
+    private static Path getGroundTruthFile(Path groundTruthPath, int postId) {
+        // see PostGroundTruth.readFromCSV
+        return Paths.get(groundTruthPath.toString(), "completed_" + postId + ".csv");
+    }
+
+    /**
+     * Pack the PostHistory and ground truth files of all posts in the post id list and write the index.
+     * @return the opened manifest
+     */
+    public static SampleManifest build(Path postIdPath, Path postHistoryPath, Path groundTruthPath,
+                                       Path packFile) throws IOException {
+        Util.ensureFileExists(postIdPath);
+        Util.ensureDirectoryExists(postHistoryPath);
+        Util.ensureDirectoryExists(groundTruthPath);
+
+        logger.info("Building manifest " + packFile + " for posts in " + postIdPath + " ...");
+
+        // stamp of the post id list, taken before reading it
+        long postIdListSize = Files.size(postIdPath);
+        long postIdListModified = Files.getLastModifiedTime(postIdPath).toMillis();
+
+        // pack and index are written to temporary files, so that a failed build does not leave a truncated pack
+        Path indexFile = getIndexFile(packFile);
+        Path tempPackFile = Paths.get(packFile.toString() + ".tmp");
+        Path tempIndexFile = Paths.get(indexFile.toString() + ".tmp");
+
+        Map<Integer, Entry> index = new LinkedHashMap<>();
+        Stamp postHistoryStamp = new Stamp();
+        Stamp groundTruthStamp = new Stamp();
+        try (CSVParser csvParser = new CSVParser(new FileReader(postIdPath.toFile()), csvFormatPostIds.withFirstRecordAsHeader());
+             FileChannel pack = FileChannel.open(tempPackFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            long offset = 0;
+            for (CSVRecord currentRecord : csvParser) {
+                int postId = Integer.parseInt(currentRecord.get("PostId"));
+                int postTypeId = Integer.parseInt(currentRecord.get("PostTypeId"));
+                int versionCount = Integer.parseInt(currentRecord.get("VersionCount"));
+
+                if (index.containsKey(postId)) {
+                    // post id lists may contain duplicates, the evaluation considers each post once
+                    logger.info("Post " + postId + " is contained more than once in " + postIdPath + ", packing it once.");
+                    continue;
+                }
+
+                Entry entry = new Entry(postTypeId, versionCount);
+
+                // stamps of the files, taken before reading them
+                Path postHistoryFile = getPostHistoryFile(postHistoryPath, postId);
+                postHistoryStamp.add(postHistoryFile);
+                groundTruthStamp.add(getGroundTruthFile(groundTruthPath, postId));
+
+                offset = align(offset, Files.size(postHistoryFile));
+                entry.postHistoryOffset = offset;
+                entry.postHistoryLength = append(pack, postHistoryFile, offset);
+                offset += entry.postHistoryLength;
+
+                byte[] groundTruth = PackedGroundTruth.of(PostGroundTruth.readFromCSV(groundTruthPath, postId)).toByteArray();
+                offset = align(offset, groundTruth.length);
+                entry.groundTruthOffset = offset;
+                entry.groundTruthLength = append(pack, groundTruth, offset);
+                offset += entry.groundTruthLength;
+
+                index.put(postId, entry);
+            }
+        }
+
+        try (DataOutputStream indexOutput = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(tempIndexFile.toFile())))) {
+            indexOutput.writeInt(MAGIC);
+            indexOutput.writeInt(FORMAT_VERSION);
+            indexOutput.writeLong(postIdListSize);
+            indexOutput.writeLong(postIdListModified);
+            postHistoryStamp.write(indexOutput);
+            groundTruthStamp.write(indexOutput);
+            indexOutput.writeInt(index.size());
+            for (Map.Entry<Integer, Entry> indexEntry : index.entrySet()) {
+                Entry entry = indexEntry.getValue();
+                indexOutput.writeInt(indexEntry.getKey());
+                indexOutput.writeInt(entry.postTypeId);
+                indexOutput.writeInt(entry.versionCount);
+                indexOutput.writeLong(entry.postHistoryOffset);
+                indexOutput.writeInt(entry.postHistoryLength);
+                indexOutput.writeLong(entry.groundTruthOffset);
+                indexOutput.writeInt(entry.groundTruthLength);
+            }
+        }
+
+        // the previous index is deleted first, so that it is never combined with the new pack
+        Files.deleteIfExists(indexFile);
+        Files.move(tempPackFile, packFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(tempIndexFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        logger.info("Manifest for " + index.size() + " posts built.");
+
+        return new SampleManifest(packFile, index, map(packFile));
+    }
+
+    /**
+     * Open a manifest that has been built before.
+     */
+    public static SampleManifest open(Path packFile) throws IOException {
+        Util.ensureFileExists(packFile);
+        Path indexFile = getIndexFile(packFile);
+        Util.ensureFileExists(indexFile);
+
+        Map<Integer, Entry> index = new LinkedHashMap<>();
+        try (DataInputStream indexInput = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(indexFile.toFile())))) {
+            if (indexInput.readInt() != MAGIC || indexInput.readInt() != FORMAT_VERSION) {
+                String msg = "File " + indexFile + " is not a manifest index of version " + FORMAT_VERSION + ".";
+                logger.warning(msg);
+                throw new IllegalArgumentException(msg);
+            }
+            indexInput.readLong(); // size of the post id list, see isUpToDate
+            indexInput.readLong(); // modification time of the post id list
+            Stamp.read(indexInput); // stamp of the PostHistory files
+            Stamp.read(indexInput); // stamp of the ground truth files
+            int postCount = indexInput.readInt();
+            for (int i = 0; i < postCount; i++) {
+                int postId = indexInput.readInt();
+                Entry entry = new Entry(indexInput.readInt(), indexInput.readInt());
+                entry.postHistoryOffset = indexInput.readLong();
+                entry.postHistoryLength = indexInput.readInt();
+                entry.groundTruthOffset = indexInput.readLong();
+                entry.groundTruthLength = indexInput.readInt();
+                index.put(postId, entry);
+            }
+        }
+
+        return new SampleManifest(packFile, index, map(packFile));
+    }
+
+    private static long align(long offset, long length) {
+        if (length > SEGMENT_SIZE) {
+            String msg = "Files larger than " + SEGMENT_SIZE + " bytes cannot be packed.";
+            logger.warning(msg);
+            throw new IllegalArgumentException(msg);
+        }
+        long segmentEnd = (offset / SEGMENT_SIZE + 1) * SEGMENT_SIZE;
+        return offset + length > segmentEnd ? segmentEnd : offset;
+    }
+
+    private static int append(FileChannel pack, Path file, long offset) throws IOException {
+        if (offset > pack.size()) {
+            // transferFrom does not write beyond the end of the file, fill the gap left by align
+            pack.write(ByteBuffer.allocate(1), offset - 1);
+        }
+        try (FileChannel source = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = source.size();
+            long transferred = 0;
+            while (transferred < length) {
+                long count = pack.transferFrom(source, offset + transferred, length - transferred);
+                if (count <= 0) {
+                    throw new IOException("Unexpected end of file " + file);
+                }
+                transferred += count;
+            }
+            return (int) length;
+        }
+    }
+
+    private static int append(FileChannel pack, byte[] content, long offset) throws IOException {
+        ByteBuffer source = ByteBuffer.wrap(content);
+        while (source.hasRemaining()) {
+            // writing at an offset beyond the end of the file fills the gap left by align
+            offset += pack.write(source, offset);
+        }
+        return content.length;
+    }
+
+    private static List<ByteBuffer> map(Path packFile) throws IOException {
+        List<ByteBuffer> segments = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(packFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += SEGMENT_SIZE) {
+                segments.add(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(SEGMENT_SIZE, size - position)));
+            }
+        }
+        return segments;
+    }
+
+    private ByteBuffer slice(long offset, int length) {
+        ByteBuffer view = segments.get((int) (offset / SEGMENT_SIZE)).duplicate();
+        int position = (int) (offset % SEGMENT_SIZE);
+        view.position(position);
+        view.limit(position + length);
+        return view.slice().asReadOnlyBuffer();
+    }
+
+    private Entry getEntry(int postId) {
+        Entry entry = index.get(postId);
+        if (entry == null) {
+            String msg = "Post " + postId + " is not contained in manifest " + packFile + ".";
+            logger.warning(msg);
+            throw new IllegalArgumentException(msg);
+        }
+        return entry;
+    }
+
+    /**
+     * @return post ids in the order of the pack
+     */
+    public Set<Integer> getPostIds() {
+        return Collections.unmodifiableSet(index.keySet());
+    }
+
+    public boolean contains(int postId) {
+        return index.containsKey(postId);
+    }
+
+    public int getPostTypeId(int postId) {
+        return getEntry(postId).postTypeId;
+    }
+
+    public int getVersionCount(int postId) {
+        return getEntry(postId).versionCount;
+    }
+
+    /**
+     * @return read-only view of the PostHistory file of the post
+     */
+    public ByteBuffer getPostHistory(int postId) {
+        Entry entry = getEntry(postId);
+        return slice(entry.postHistoryOffset, entry.postHistoryLength);
+    }
+
+    /**
+     * @return read-only view of the packed ground truth of the post (see PackedGroundTruth.read)
+     */
+    public ByteBuffer getGroundTruth(int postId) {
+        Entry entry = getEntry(postId);
+        return slice(entry.groundTruthOffset, entry.groundTruthLength);
+    }
+
+    public PackedGroundTruth readGroundTruth(int postId) {
+        return PackedGroundTruth.read(getGroundTruth(postId));
+    }
+
+    public List<PostHistoryRecord> readPostHistoryRecords(int postId, boolean decodeLineBreaks) {
+        return PostHistoryMappedReader.readRecords(getPostHistory(postId), postId, decodeLineBreaks);
+    }
+
+    public PostVersionList readPostVersionList(int postId) {
+        return PostHistoryMappedReader.readPostVersionList(getPostHistory(postId), postId, getPostTypeId(postId));
+    }
+
+    public Path getPackFile() {
+        return packFile;
+    }
+
+    // post id, post type id, version count, offset and length of the PostHistory file and of the ground truth
+    private static final int INDEX_ENTRY_SIZE = 3 * Integer.BYTES + 2 * (Long.BYTES + Integer.BYTES);
+
+    /**
+     * Total size and newest modification time of a set of files.
+     */
+    private static class Stamp {
+        private long size = 0;
+        private long newestModified = 0;
+
+        void add(Path file) throws IOException {
+            size += Files.size(file);
+            newestModified = Math.max(newestModified, Files.getLastModifiedTime(file).toMillis());
+        }
+
+        void write(DataOutputStream output) throws IOException {
+            output.writeLong(size);
+            output.writeLong(newestModified);
+        }
+
+        static Stamp read(DataInputStream input) throws IOException {
+            Stamp stamp = new Stamp();
+            stamp.size = input.readLong();
+            stamp.newestModified = input.readLong();
+            return stamp;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Stamp stamp = (Stamp) o;
+            return size == stamp.size && newestModified == stamp.newestModified;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(size, newestModified);
+        }
+    }
+
+    private static class Entry {
+        private final int postTypeId;
+        private final int versionCount;
+        private long postHistoryOffset;
+        private int postHistoryLength;
+        private long groundTruthOffset;
+        private int groundTruthLength;
+
+        Entry(int postTypeId, int versionCount) {
+            this.postTypeId = postTypeId;
+            this.versionCount = versionCount;
+        }
+    }
+}
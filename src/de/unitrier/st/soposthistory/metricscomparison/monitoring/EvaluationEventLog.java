@@ -0,0 +1,230 @@
+package de.unitrier.st.soposthistory.metricscomparison.monitoring;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Asynchronous, rate-limited log for events of the evaluation loop.
+ * Events consist of a category, a message, and key-value pairs. They are rendered and passed to the
+ * java.util.logging logger of the calling class by a background thread, so that formatting and I/O do not
+ * affect the runtime measurements. For each category, at most maxEventsPerSecond events are logged per second,
+ * further events are only counted. If the queue is full, events are dropped instead of blocking the evaluation.
+ * Callers check the level and the rate limit with acquire before they create the key-value pairs, e.g.:
+ * if (eventLog.acquire(logger, Level.FINE, "post.evaluation")) { eventLog.log(logger, Level.FINE, ...); }
+ */
+public class EvaluationEventLog {
+    private static final int DEFAULT_CAPACITY = 10000;
+    private static final int DEFAULT_MAX_EVENTS_PER_SECOND = 10;
+
+    private static final EvaluationEventLog instance = new EvaluationEventLog(DEFAULT_CAPACITY, DEFAULT_MAX_EVENTS_PER_SECOND, System::currentTimeMillis);
+
+    private final BlockingQueue<Event> queue;
+    private final Map<String, CategoryState> categories = new ConcurrentHashMap<>(); // category -> counters
+    private final AtomicLong droppedEvents = new AtomicLong(0);
+    private final LongSupplier clock; // milliseconds, used for the rate limit
+    private volatile int maxEventsPerSecond;
+
+    /**
+     * Create a separate event log with its own queue and counters, the evaluation uses the one returned by getInstance.
+     * @param clock current time in milliseconds, used for the rate limit (e.g., System::currentTimeMillis)
+     */
+    public EvaluationEventLog(int capacity, int maxEventsPerSecond, LongSupplier clock) {
+        if (maxEventsPerSecond < 1) {
+            throw new IllegalArgumentException("Maximum number of events per second must be positive.");
+        }
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.clock = clock;
+        this.maxEventsPerSecond = maxEventsPerSecond;
+
+        Thread writerThread = new Thread(this::writeEvents, "evaluation-event-log");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    public static EvaluationEventLog getInstance() {
+        return instance;
+    }
+
+    public void setMaxEventsPerSecond(int maxEventsPerSecond) {
+        if (maxEventsPerSecond < 1) {
+            throw new IllegalArgumentException("Maximum number of events per second must be positive.");
+        }
+        this.maxEventsPerSecond = maxEventsPerSecond;
+    }
+
+    /**
+     * Check whether an event of the given category is logged, i.e., the level is loggable and the event passes the
+     * rate limit (otherwise it is counted as suppressed). If true, the caller has to pass the event to log.
+     */
+    public boolean acquire(Logger logger, Level level, String category) {
+        if (logger == null || !logger.isLoggable(level)) {
+            return false;
+        }
+        CategoryState state = categories.computeIfAbsent(category, c -> new CategoryState());
+        return state.tryAcquire(clock.getAsLong(), maxEventsPerSecond);
+    }
+
+    /**
+     * Enqueue an event for which acquire returned true, the message is rendered by the background thread.
+     * @param keyValuePairs alternating keys and values, e.g., "postId", 42
+     */
+    public void log(Logger logger, Level level, String category, String message, Object... keyValuePairs) {
+        Event event = new Event(logger, level, category, message, keyValuePairs);
+        if (queue.offer(event)) {
+            categories.computeIfAbsent(category, c -> new CategoryState()).logged.increment();
+        } else {
+            droppedEvents.incrementAndGet();
+        }
+    }
+
+    /**
+     * Wait until all enqueued events have been logged.
+     */
+    public void flush(Logger logger) {
+        CountDownLatch latch = new CountDownLatch(1);
+        try {
+            queue.put(new Event(latch));
+            if (!latch.await(1, TimeUnit.MINUTES)) {
+                logger.warning("Timeout while flushing evaluation event log.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            e.printStackTrace();
+        }
+    }
+
+    public long getLogged(String category) {
+        CategoryState state = categories.get(category);
+        return state == null ? 0 : state.logged.sum();
+    }
+
+    public long getSuppressed(String category) {
+        CategoryState state = categories.get(category);
+        return state == null ? 0 : state.getSuppressed();
+    }
+
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    /**
+     * Log a summary with the number of logged, suppressed (rate limit), and dropped (full queue) events per category
+     * since the start of the program. The counters are global, so the summary is logged once at the end (see Main).
+     */
+    public void logSummary(Logger logger) {
+        StringBuilder summary = new StringBuilder("Evaluation event log summary:");
+        categories.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> summary.append(" ").append(entry.getKey())
+                        .append(" (logged: ").append(entry.getValue().logged.sum())
+                        .append("; suppressed: ").append(entry.getValue().getSuppressed()).append(");"));
+        summary.append(" dropped: ").append(droppedEvents.get());
+        logger.info(summary.toString());
+    }
+
+    private void writeEvents() {
+        while (true) {
+            Event event;
+            try {
+                event = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            if (event.flushLatch != null) {
+                event.flushLatch.countDown();
+                continue;
+            }
+
+            try {
+                LogRecord record = new LogRecord(event.level, event.render());
+                record.setMillis(event.timestamp);
+                record.setLoggerName(event.logger.getName());
+                record.setSourceClassName(event.logger.getName());
+                record.setSourceMethodName(event.category);
+                event.logger.log(record);
+            } catch (RuntimeException e) {
+                // a failing handler must not stop the writer thread
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static class CategoryState {
+        private long windowStart;
+        private int eventsInWindow;
+        private final LongAdder logged = new LongAdder(); // counted when the event has been enqueued
+        private long suppressed;
+
+        synchronized long getSuppressed() {
+            return suppressed;
+        }
+
+        synchronized boolean tryAcquire(long now, int maxEventsPerSecond) {
+            if (now - windowStart >= 1000) {
+                windowStart = now;
+                eventsInWindow = 0;
+            }
+            if (eventsInWindow < maxEventsPerSecond) {
+                eventsInWindow++;
+                return true;
+            }
+            suppressed++;
+            return false;
+        }
+    }
+
+    private static class Event {
+        private final Logger logger;
+        private final Level level;
+        private final String category;
+        private final String message;
+        private final Object[] keyValuePairs;
+        private final long timestamp;
+        private final String threadName;
+        private final CountDownLatch flushLatch;
+
+        Event(Logger logger, Level level, String category, String message, Object[] keyValuePairs) {
+            this.logger = logger;
+            this.level = level;
+            this.category = category;
+            this.message = message;
+            this.keyValuePairs = keyValuePairs;
+            this.timestamp = System.currentTimeMillis();
+            this.threadName = Thread.currentThread().getName();
+            this.flushLatch = null;
+        }
+
+        Event(CountDownLatch flushLatch) {
+            this.logger = null;
+            this.level = null;
+            this.category = null;
+            this.message = null;
+            this.keyValuePairs = null;
+            this.timestamp = System.currentTimeMillis();
+            this.threadName = null;
+            this.flushLatch = flushLatch;
+        }
+
+        String render() {
+            StringBuilder builder = new StringBuilder();
+            builder.append("[").append(category).append("] ").append(message)
+                    .append(" {thread=").append(threadName);
+            for (int i = 0; i + 1 < keyValuePairs.length; i += 2) {
+                builder.append(", ").append(keyValuePairs[i]).append("=").append(keyValuePairs[i + 1]);
+            }
+            builder.append("}");
+            return builder.toString();
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package de.unitrier.st.soposthistory.metricscomparison.monitoring;
+
+import de.unitrier.st.soposthistory.metricscomparison.similarity.Prefilter;
+import de.unitrier.st.util.Util;
+
+import javax.management.*;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+import java.util.logging.Logger;
+
+/**
+ * Progress of the metric evaluation, shared by all MetricEvaluationManagers of one JVM.
+ * The counters are updated after each evaluation of a post and can be read using JMX or ProgressHttpServer.
+ * Throughput values are averaged since the first completed post evaluation.
+ */
+public class EvaluationProgress implements EvaluationProgressMBean {
+    private static Logger logger;
+
+    static {
+        // configure logger
+        try {
+            logger = Util.getClassLogger(EvaluationProgress.class);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public static final String OBJECT_NAME = "de.unitrier.st.soposthistory.metricscomparison:type=EvaluationProgress";
+
+    private static final EvaluationProgress instance = new EvaluationProgress();
+
+    private final AtomicLong plannedPostEvaluations = new AtomicLong(0);
+    private final AtomicLong completedPostEvaluations = new AtomicLong(0);
+    private final AtomicLong completedComparisons = new AtomicLong(0);
+    private final AtomicLong startTime = new AtomicLong(0); // nano time of first completed post evaluation
+
+    private final Map<Integer, String> currentEvaluations = new ConcurrentHashMap<>(); // thread id -> (sample; metric)
+    private volatile IntSupplier queueDepthSupplier = () -> 0;
+
+    private EvaluationProgress() {}
+
+    public static EvaluationProgress getInstance() {
+        return instance;
+    }
+
+    /**
+     * Register the progress as platform MBean (does nothing if it has already been registered).
+     */
+    public static void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(instance, name);
+                logger.info("Registered MBean " + OBJECT_NAME);
+            }
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public void addPlannedPostEvaluations(long postEvaluations) {
+        plannedPostEvaluations.addAndGet(postEvaluations);
+    }
+
+    public void postEvaluated(int comparisons) {
+        startTime.compareAndSet(0, System.nanoTime());
+        completedPostEvaluations.incrementAndGet();
+        completedComparisons.addAndGet(comparisons);
+    }
+
+    public void setCurrentEvaluation(int threadId, String sampleName, Object similarityMetric) {
+        currentEvaluations.put(threadId, "(" + sampleName + "; " + similarityMetric + ")");
+    }
+
+    public void clearCurrentEvaluation(int threadId) {
+        currentEvaluations.remove(threadId);
+    }
+
+    public void setQueueDepthSupplier(IntSupplier queueDepthSupplier) {
+        this.queueDepthSupplier = queueDepthSupplier;
+    }
+
+    @Override
+    public long getPlannedPostEvaluations() {
+        return plannedPostEvaluations.get();
+    }
+
+    @Override
+    public long getCompletedPostEvaluations() {
+        return completedPostEvaluations.get();
+    }
+
+    @Override
+    public long getCompletedComparisons() {
+        return completedComparisons.get();
+    }
+
+    private double getElapsedSeconds() {
+        long start = startTime.get();
+        if (start == 0) {
+            return 0.0;
+        }
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    @Override
+    public double getPostsPerSecond() {
+        double elapsedSeconds = getElapsedSeconds();
+        return elapsedSeconds > 0 ? completedPostEvaluations.get() / elapsedSeconds : 0.0;
+    }
+
+    @Override
+    public double getComparisonsPerSecond() {
+        double elapsedSeconds = getElapsedSeconds();
+        return elapsedSeconds > 0 ? completedComparisons.get() / elapsedSeconds : 0.0;
+    }
+
+    @Override
+    public long getEstimatedSecondsRemaining() {
+        double postsPerSecond = getPostsPerSecond();
+        long remaining = plannedPostEvaluations.get() - completedPostEvaluations.get();
+        if (postsPerSecond <= 0 || remaining < 0) {
+            return -1; // unknown
+        }
+        return Math.round(remaining / postsPerSecond);
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return queueDepthSupplier.getAsInt();
+    }
+
+    private MemoryUsage getHeapMemoryUsage() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+    }
+
+    @Override
+    public long getUsedHeapMemory() {
+        return getHeapMemoryUsage().getUsed();
+    }
+
+    @Override
+    public long getMaxHeapMemory() {
+        return getHeapMemoryUsage().getMax();
+    }
+
+    @Override
+    public String[] getCurrentEvaluations() {
+        return currentEvaluations.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(entry -> "Thread " + entry.getKey() + ": " + entry.getValue())
+                .toArray(String[]::new);
+    }
+
+    @Override
+    public String[] getPrefilterEliminations() {
+        return Prefilter.getAll().stream()
+                .map(Prefilter::toString)
+                .toArray(String[]::new);
+    }
+
+    String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{");
+        json.append("\"plannedPostEvaluations\":").append(getPlannedPostEvaluations()).append(",");
+        json.append("\"completedPostEvaluations\":").append(getCompletedPostEvaluations()).append(",");
+        json.append("\"completedComparisons\":").append(getCompletedComparisons()).append(",");
+        // Locale.ROOT -> force '.' as decimal separator
+        json.append("\"postsPerSecond\":").append(String.format(Locale.ROOT, "%.2f", getPostsPerSecond())).append(",");
+        json.append("\"comparisonsPerSecond\":").append(String.format(Locale.ROOT, "%.2f", getComparisonsPerSecond())).append(",");
+        json.append("\"estimatedSecondsRemaining\":").append(getEstimatedSecondsRemaining()).append(",");
+        json.append("\"queueDepth\":").append(getQueueDepth()).append(",");
+        json.append("\"usedHeapMemory\":").append(getUsedHeapMemory()).append(",");
+        json.append("\"maxHeapMemory\":").append(getMaxHeapMemory()).append(",");
+        json.append("\"currentEvaluations\":{");
+        boolean first = true;
+        for (Map.Entry<Integer, String> entry : new TreeMap<>(currentEvaluations).entrySet()) {
+            if (!first) {
+                json.append(",");
+            }
+            json.append("\"").append(entry.getKey()).append("\":\"").append(escapeJson(entry.getValue())).append("\"");
+            first = false;
+        }
+        json.append("},");
+        json.append("\"prefilters\":{");
+        first = true;
+        for (Prefilter prefilter : Prefilter.getAll()) {
+            if (!first) {
+                json.append(",");
+            }
+            json.append("\"").append(prefilter.getName()).append("\":{")
+                    .append("\"checkedComparisons\":").append(prefilter.getCheckedComparisons()).append(",")
+                    .append("\"eliminatedComparisons\":").append(prefilter.getEliminatedComparisons()).append("}");
+            first = false;
+        }
+        json.append("}}");
+        return json.toString();
+    }
+
+    private static String escapeJson(String value) {
+        StringBuilder escaped = new StringBuilder();
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < 0x20) {
+                escaped.append(String.format("\\u%04x", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,24 @@
+package de.unitrier.st.soposthistory.metricscomparison.monitoring;
+
+/**
+ * Management interface for the progress of the metric evaluation (see EvaluationProgress).
+ */
+public interface EvaluationProgressMBean {
+    long getPlannedPostEvaluations();
+    long getCompletedPostEvaluations();
+    long getCompletedComparisons();
+
+    double getPostsPerSecond();
+    double getComparisonsPerSecond();
+    long getEstimatedSecondsRemaining();
+
+    int getQueueDepth();
+    long getUsedHeapMemory();
+    long getMaxHeapMemory();
+
+    // thread -> (sample; metric)
+    String[] getCurrentEvaluations();
+
+    // prefilter -> eliminated and checked comparisons
+    String[] getPrefilterEliminations();
+}
@@ -0,0 +1,51 @@
+package de.unitrier.st.soposthistory.metricscomparison.monitoring;
+
+/**
+ * JFR events of the evaluation (phases of a MetricEvaluationManager, post evaluations, and the aggregation).
+ * This is the Java 8 version, which does not record events: the project targets Java 8, where jdk.jfr is not
+ * available on all JVMs. The multi-release JAR built with the Maven profile java17 contains a version of this class
+ * that records the events if the JVM provides JFR (src-java17).
+ * The begin methods return a handle that is passed to the corresponding commit method (null if no event is
+ * recorded, the commit methods ignore null).
+ */
+public final class FlightRecorderEvents {
+    public static final String LOAD = "load";
+    public static final String VALIDATE = "validate";
+    public static final String EVALUATE = "evaluate";
+    public static final String WRITE = "write";
+
+    private FlightRecorderEvents() {}
+
+    public static boolean isEnabled() {
+        return false;
+    }
+
+    public static Object beginPhase(String sampleName, String phase, int threadId) {
+        return null;
+    }
+
+    public static void commitPhase(Object event, int metricCount, int postCount) {}
+
+    public static Object beginPostEvaluation() {
+        return null;
+    }
+
+    /**
+     * End the post evaluation event.
+     * @return true if the event should be committed (only then, its values need to be computed)
+     */
+    public static boolean endPostEvaluation(Object event) {
+        return false;
+    }
+
+    public static void commitPostEvaluation(Object event, String sampleName, String metric, String metricType,
+                                            double threshold, int postId, int repetition, int postVersionCount,
+                                            int textBlockVersionCount, int codeBlockVersionCount,
+                                            int possibleComparisons) {}
+
+    public static Object beginAggregation() {
+        return null;
+    }
+
+    public static void commitAggregation(Object event, int sampleCount, int metricCount) {}
+}
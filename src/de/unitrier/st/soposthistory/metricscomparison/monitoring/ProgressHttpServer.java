@@ -0,0 +1,69 @@
+package de.unitrier.st.soposthistory.metricscomparison.monitoring;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.unitrier.st.util.Util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Logger;
+
+/**
+ * Minimal HTTP server that provides the current EvaluationProgress as JSON (GET /progress).
+ * The server only binds to the loopback address.
+ */
+public class ProgressHttpServer {
+    private static Logger logger;
+
+    static {
+        // configure logger
+        try {
+            logger = Util.getClassLogger(ProgressHttpServer.class);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private final HttpServer server;
+
+    private ProgressHttpServer(HttpServer server) {
+        this.server = server;
+    }
+
+    public static ProgressHttpServer start(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/progress", ProgressHttpServer::handle);
+        server.setExecutor(null); // requests are handled by the dispatcher thread
+        server.start();
+        logger.info("Progress available at http://localhost:" + server.getAddress().getPort() + "/progress");
+        return new ProgressHttpServer(server);
+    }
+
+    private static void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] response = EvaluationProgress.getInstance().toJson().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(response);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+}
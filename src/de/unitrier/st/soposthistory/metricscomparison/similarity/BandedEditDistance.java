@@ -0,0 +1,164 @@
+package de.unitrier.st.soposthistory.metricscomparison.similarity;
+
+import de.unitrier.st.stringsimilarity.Normalization;
+
+import java.util.function.BiFunction;
+
+/**
+ * Threshold-aware variants of the edit based metrics.
+ * Two blocks are only connected if their similarity 1 - distance / max(length) is greater than or equal to the
+ * threshold, i.e., if the distance does not exceed a bound k that is known before the comparison. The distance is
+ * computed in a band of width 2k + 1 around the main diagonal (Ukkonen 1985), which takes O(k * n) instead of
+ * O(m * n), and the computation stops as soon as all values in the band exceed k. Pairs with a length difference
+ * larger than k are rejected without any computation.
+ *
+ * If the distance does not exceed k, the exact similarity is returned. Otherwise, the returned similarity is
+ * 1 - (k + 1) / max(length), which is below the threshold, so that the metrics make the same accept/reject
+ * decisions as the exact metrics (see BitParallelEditDistance). If the band is wide (long strings, low thresholds),
+ * the bit-parallel computation is used instead; it stops as soon as the remaining characters cannot bring the
+ * distance back to k.
+ */
+public class BandedEditDistance {
+    // the band is used if it has at most this many cells per word of the bit-parallel computation (measured on
+    // random strings, a cell of the band takes about half as long as a word operation of the bit-parallel computation)
+    private static final int BANDED_CELLS_PER_WORD = 2;
+
+    private BandedEditDistance() {}
+
+    public static BiFunction<String, String, Double> levenshtein(double threshold) {
+        return (str1, str2) -> similarity(str1, str2, threshold, false);
+    }
+
+    public static BiFunction<String, String, Double> levenshteinNormalized(double threshold) {
+        return (str1, str2) -> similarity(
+                Normalization.normalizeForEdit(str1), Normalization.normalizeForEdit(str2), threshold, false
+        );
+    }
+
+    public static BiFunction<String, String, Double> optimalAlignment(double threshold) {
+        return (str1, str2) -> similarity(str1, str2, threshold, true);
+    }
+
+    public static BiFunction<String, String, Double> optimalAlignmentNormalized(double threshold) {
+        return (str1, str2) -> similarity(
+                Normalization.normalizeForEdit(str1), Normalization.normalizeForEdit(str2), threshold, true
+        );
+    }
+
+    private static double similarity(String str1, String str2, double threshold, boolean transpositions) {
+        int maxLength = Math.max(str1.length(), str2.length());
+        int maxDistance = getMaxDistance(maxLength, threshold);
+        if (maxDistance < 0) {
+            // no distance is accepted (threshold > 1)
+            return BitParallelEditDistance.similarity(str1, str2, maxLength);
+        }
+
+        int distance;
+        int words = (Math.min(str1.length(), str2.length()) + BitParallelEditDistance.WORD_SIZE - 1)
+                / BitParallelEditDistance.WORD_SIZE;
+        if (2 * maxDistance + 1 <= BANDED_CELLS_PER_WORD * words) {
+            distance = distance(str1, str2, maxDistance, transpositions);
+        } else {
+            // a wide band is slower than the bit-parallel computation of the whole column
+            distance = BitParallelEditDistance.distance(str1, str2, transpositions, maxDistance);
+        }
+        return BitParallelEditDistance.similarity(str1, str2, Math.min(distance, maxDistance + 1));
+    }
+
+    /**
+     * @return largest distance d with 1 - d / maxLength &gt;= threshold (computed like the similarity to avoid
+     * rounding differences), -1 if there is no such distance
+     */
+    static int getMaxDistance(int maxLength, double threshold) {
+        if (maxLength == 0) {
+            return threshold <= 1.0 ? 0 : -1;
+        }
+        int maxDistance = (int) Math.floor((1.0 - threshold) * maxLength);
+        maxDistance = Math.max(-1, Math.min(maxLength, maxDistance));
+        while (maxDistance < maxLength && 1.0 - (double) (maxDistance + 1) / maxLength >= threshold) {
+            maxDistance++;
+        }
+        while (maxDistance >= 0 && 1.0 - (double) maxDistance / maxLength < threshold) {
+            maxDistance--;
+        }
+        return maxDistance;
+    }
+
+    public static int levenshteinDistance(String str1, String str2, int maxDistance) {
+        return distance(str1, str2, maxDistance, false);
+    }
+
+    public static int optimalAlignmentDistance(String str1, String str2, int maxDistance) {
+        return distance(str1, str2, maxDistance, true);
+    }
+
+    /**
+     * @return edit distance of the strings if it does not exceed maxDistance, otherwise maxDistance + 1
+     */
+    private static int distance(String str1, String str2, int maxDistance, boolean transpositions) {
+        // rows correspond to the shorter string
+        String rows = str1.length() <= str2.length() ? str1 : str2;
+        String columns = str1.length() <= str2.length() ? str2 : str1;
+        int n = rows.length();
+        int m = columns.length();
+        int exceeded = maxDistance + 1;
+
+        if (m - n > maxDistance) {
+            return exceeded;
+        }
+        if (n == 0) {
+            return m;
+        }
+
+        // values outside of the band are treated as exceeded
+        int[] previousPreviousRow = new int[m + 1];
+        int[] previousRow = new int[m + 1];
+        int[] currentRow = new int[m + 1];
+        for (int j = 0; j <= Math.min(m, maxDistance); j++) {
+            previousRow[j] = j;
+        }
+        if (maxDistance + 1 <= m) {
+            previousRow[maxDistance + 1] = exceeded;
+        }
+        int previousRowMin = 0;
+
+        for (int i = 1; i <= n; i++) {
+            int low = Math.max(1, i - maxDistance);
+            int high = Math.min(m, i + maxDistance);
+            char rowChar = rows.charAt(i - 1);
+
+            currentRow[low - 1] = low == 1 && i <= maxDistance ? i : exceeded;
+            int rowMin = currentRow[low - 1];
+
+            for (int j = low; j <= high; j++) {
+                char columnChar = columns.charAt(j - 1);
+                int value = previousRow[j - 1] + (rowChar == columnChar ? 0 : 1);
+                value = Math.min(value, currentRow[j - 1] + 1);
+                value = Math.min(value, previousRow[j] + 1);
+                if (transpositions && i > 1 && j > 1
+                        && rowChar == columns.charAt(j - 2) && rows.charAt(i - 2) == columnChar) {
+                    value = Math.min(value, previousPreviousRow[j - 2] + 1);
+                }
+                value = Math.min(value, exceeded);
+                currentRow[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (high < m) {
+                currentRow[high + 1] = exceeded;
+            }
+
+            // every alignment passes through each row (transpositions may skip one row)
+            if (rowMin > maxDistance && (!transpositions || previousRowMin > maxDistance)) {
+                return exceeded;
+            }
+            previousRowMin = rowMin;
+
+            int[] swap = previousPreviousRow;
+            previousPreviousRow = previousRow;
+            previousRow = currentRow;
+            currentRow = swap;
+        }
+
+        return previousRow[m];
+    }
+}
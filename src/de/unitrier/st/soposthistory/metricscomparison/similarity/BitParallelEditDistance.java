@@ -0,0 +1,299 @@
+package de.unitrier.st.soposthistory.metricscomparison.similarity;
+
+import de.unitrier.st.stringsimilarity.Normalization;
+
+import java.util.Arrays;
+
+/**
+ * Bit-parallel computation of the Levenshtein distance (Myers 1999, in the formulation of Hyyro 2003) and of the
+ * optimal string alignment distance, i.e., the restricted Damerau-Levenshtein distance (Hyyro 2002).
+ * One column of the dynamic programming table is encoded as vertical deltas in bit vectors, each character of the
+ * longer string updates the column in O(ceil(m/64)) word operations, where m is the length of the shorter string.
+ * Strings with up to 64 characters use a single word, longer strings use multiple words with the carries of the
+ * addition and of the shifts propagated between the words.
+ *
+ * The similarities are computed like the ones of the edit based metrics in de.unitrier.st.stringsimilarity.edit,
+ * i.e., 1 - distance / max(length), and can be used as drop-in replacements for them.
+ */
+public class BitParallelEditDistance {
+    static final int WORD_SIZE = 64;
+
+    private BitParallelEditDistance() {}
+
+    public static double levenshtein(String str1, String str2) {
+        return similarity(str1, str2, levenshteinDistance(str1, str2));
+    }
+
+    public static double levenshteinNormalized(String str1, String str2) {
+        return levenshtein(Normalization.normalizeForEdit(str1), Normalization.normalizeForEdit(str2));
+    }
+
+    public static double optimalAlignment(String str1, String str2) {
+        return similarity(str1, str2, optimalAlignmentDistance(str1, str2));
+    }
+
+    public static double optimalAlignmentNormalized(String str1, String str2) {
+        return optimalAlignment(Normalization.normalizeForEdit(str1), Normalization.normalizeForEdit(str2));
+    }
+
+    static double similarity(String str1, String str2, int distance) {
+        int maxLength = Math.max(str1.length(), str2.length());
+        if (maxLength == 0) {
+            return 1.0;
+        }
+        return 1.0 - (double) distance / maxLength;
+    }
+
+    public static int levenshteinDistance(String str1, String str2) {
+        return distance(str1, str2, false);
+    }
+
+    public static int optimalAlignmentDistance(String str1, String str2) {
+        return distance(str1, str2, true);
+    }
+
+    private static int distance(String str1, String str2, boolean transpositions) {
+        return distance(str1, str2, transpositions, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return distance of the strings if it does not exceed maxDistance, otherwise maxDistance + 1 (the computation
+     * stops as soon as the distance is known to exceed maxDistance)
+     */
+    static int distance(String str1, String str2, boolean transpositions, int maxDistance) {
+        // the shorter string is encoded in the bit vectors
+        String pattern = str1.length() <= str2.length() ? str1 : str2;
+        String text = str1.length() <= str2.length() ? str2 : str1;
+
+        if (text.length() - pattern.length() > maxDistance) {
+            return maxDistance + 1;
+        }
+        if (pattern.isEmpty()) {
+            return text.length();
+        }
+
+        PatternMasks masks = new PatternMasks(pattern);
+        if (masks.words == 1) {
+            return singleWordDistance(masks, pattern.length(), text, transpositions, maxDistance);
+        } else {
+            return multiWordDistance(masks, pattern.length(), text, transpositions, maxDistance);
+        }
+    }
+
+    private static int singleWordDistance(PatternMasks masks, int m, String text, boolean transpositions,
+                                          int maxDistance) {
+        long lastRow = 1L << (m - 1);
+        long vp = -1L; // vertical deltas of the first column are +1
+        long vn = 0L;
+        long d0 = 0L;
+        long previousEq = 0L;
+        int score = m;
+
+        for (int j = 0; j < text.length(); j++) {
+            long eq = masks.get(text.charAt(j), 0);
+            long transposition = transpositions ? (((~d0) & eq) << 1) & previousEq : 0L;
+            d0 = (((eq & vp) + vp) ^ vp) | eq | vn | transposition;
+            long hp = vn | ~(d0 | vp);
+            long hn = vp & d0;
+
+            if ((hp & lastRow) != 0) {
+                score++;
+            } else if ((hn & lastRow) != 0) {
+                score--;
+            }
+
+            // horizontal deltas of the first row are +1
+            hp = (hp << 1) | 1L;
+            hn = hn << 1;
+            vp = hn | ~(d0 | hp);
+            vn = hp & d0;
+            previousEq = eq;
+
+            // each remaining character decreases the score by at most one
+            if (score - (text.length() - 1 - j) > maxDistance) {
+                return maxDistance + 1;
+            }
+        }
+
+        return score;
+    }
+
+    private static int multiWordDistance(PatternMasks masks, int m, String text, boolean transpositions,
+                                         int maxDistance) {
+        int words = masks.words;
+        int lastWord = words - 1;
+        long lastRow = 1L << ((m - 1) % WORD_SIZE);
+        long[] vp = new long[words];
+        long[] vn = new long[words];
+        long[] d0 = new long[words];
+        long[] previousEq = new long[words];
+        long[] eq = new long[words];
+        Arrays.fill(vp, -1L);
+        int score = m;
+
+        for (int j = 0; j < text.length(); j++) {
+            masks.get(text.charAt(j), eq);
+
+            long additionCarry = 0L;
+            long hpCarry = 1L; // horizontal deltas of the first row are +1
+            long hnCarry = 0L;
+            long transpositionCarry = 0L;
+
+            for (int w = 0; w < words; w++) {
+                long currentEq = eq[w];
+                long currentVp = vp[w];
+                long currentVn = vn[w];
+
+                long transposition = 0L;
+                if (transpositions) {
+                    long matches = (~d0[w]) & currentEq;
+                    transposition = ((matches << 1) | transpositionCarry) & previousEq[w];
+                    transpositionCarry = matches >>> (WORD_SIZE - 1);
+                }
+
+                // (eq & vp) + vp with the carry of the lower word
+                long summand = currentEq & currentVp;
+                long sum = summand + currentVp;
+                long carry = Long.compareUnsigned(sum, summand) < 0 ? 1L : 0L;
+                long sumWithCarry = sum + additionCarry;
+                if (Long.compareUnsigned(sumWithCarry, sum) < 0) {
+                    carry = 1L;
+                }
+                additionCarry = carry;
+
+                long currentD0 = (sumWithCarry ^ currentVp) | currentEq | currentVn | transposition;
+                long hp = currentVn | ~(currentD0 | currentVp);
+                long hn = currentVp & currentD0;
+
+                if (w == lastWord) {
+                    if ((hp & lastRow) != 0) {
+                        score++;
+                    } else if ((hn & lastRow) != 0) {
+                        score--;
+                    }
+                }
+
+                long shiftedHp = (hp << 1) | hpCarry;
+                long shiftedHn = (hn << 1) | hnCarry;
+                hpCarry = hp >>> (WORD_SIZE - 1);
+                hnCarry = hn >>> (WORD_SIZE - 1);
+
+                vp[w] = shiftedHn | ~(currentD0 | shiftedHp);
+                vn[w] = shiftedHp & currentD0;
+                d0[w] = currentD0;
+            }
+
+            long[] swap = previousEq;
+            previousEq = eq;
+            eq = swap;
+
+            if (score - (text.length() - 1 - j) > maxDistance) {
+                return maxDistance + 1;
+            }
+        }
+
+        return score;
+    }
+
+    /**
+     * Match masks of the pattern: bit i of word w of the mask of character c is set if the pattern has c at position
+     * 64 * w + i. Masks of Latin-1 characters are stored in an array, masks of other characters in a small hash table.
+     */
+    static class PatternMasks {
+        private static final int LATIN1_SIZE = 256;
+
+        final int words;
+        private final long[] latin1Masks;
+        private char[] otherChars;
+        private long[][] otherMasks;
+        private int otherCount;
+
+        PatternMasks(CharSequence pattern) {
+            this.words = (pattern.length() + WORD_SIZE - 1) / WORD_SIZE;
+            this.latin1Masks = new long[LATIN1_SIZE * words];
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                long bit = 1L << (i % WORD_SIZE);
+                int word = i / WORD_SIZE;
+                if (c < LATIN1_SIZE) {
+                    latin1Masks[c * words + word] |= bit;
+                } else {
+                    getOrAddOther(c)[word] |= bit;
+                }
+            }
+        }
+
+        long get(char c, int word) {
+            if (c < LATIN1_SIZE) {
+                return latin1Masks[c * words + word];
+            }
+            long[] mask = findOther(c);
+            return mask == null ? 0L : mask[word];
+        }
+
+        void get(char c, long[] target) {
+            if (c < LATIN1_SIZE) {
+                System.arraycopy(latin1Masks, c * words, target, 0, words);
+                return;
+            }
+            long[] mask = findOther(c);
+            if (mask == null) {
+                Arrays.fill(target, 0L);
+            } else {
+                System.arraycopy(mask, 0, target, 0, words);
+            }
+        }
+
+        private long[] findOther(char c) {
+            if (otherChars == null) {
+                return null;
+            }
+            int capacity = otherChars.length;
+            for (int i = c & (capacity - 1); otherMasks[i] != null; i = (i + 1) & (capacity - 1)) {
+                if (otherChars[i] == c) {
+                    return otherMasks[i];
+                }
+            }
+            return null;
+        }
+
+        private long[] getOrAddOther(char c) {
+            long[] mask = findOther(c);
+            if (mask != null) {
+                return mask;
+            }
+            if (otherChars == null || 2 * (otherCount + 1) > otherChars.length) {
+                grow();
+            }
+            int capacity = otherChars.length;
+            int i = c & (capacity - 1);
+            while (otherMasks[i] != null) {
+                i = (i + 1) & (capacity - 1);
+            }
+            otherChars[i] = c;
+            otherMasks[i] = new long[words];
+            otherCount++;
+            return otherMasks[i];
+        }
+
+        private void grow() {
+            char[] oldChars = otherChars;
+            long[][] oldMasks = otherMasks;
+            int capacity = oldChars == null ? 16 : 2 * oldChars.length;
+            otherChars = new char[capacity];
+            otherMasks = new long[capacity][];
+            if (oldChars != null) {
+                for (int i = 0; i < oldChars.length; i++) {
+                    if (oldMasks[i] != null) {
+                        int j = oldChars[i] & (capacity - 1);
+                        while (otherMasks[j] != null) {
+                            j = (j + 1) & (capacity - 1);
+                        }
+                        otherChars[j] = oldChars[i];
+                        otherMasks[j] = oldMasks[i];
+                    }
+                }
+            }
+        }
+    }
+}
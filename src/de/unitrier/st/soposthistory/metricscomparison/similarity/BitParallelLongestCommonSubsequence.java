@@ -0,0 +1,103 @@
+package de.unitrier.st.soposthistory.metricscomparison.similarity;
+
+import de.unitrier.st.stringsimilarity.Normalization;
+
+import java.util.Arrays;
+
+/**
+ * Bit-parallel computation of the length of the longest common subsequence (Allison and Dix 1986, in the formulation
+ * of Hyyro 2004). One column of the dynamic programming table is encoded in a bit vector whose zero bits mark the
+ * positions where the LCS length increases, each character of the longer string updates the column with one addition
+ * in O(ceil(m/64)) word operations, where m is the length of the shorter string.
+ *
+ * The similarities are computed like the ones of longestCommonSubsequence in de.unitrier.st.stringsimilarity.edit,
+ * i.e., the LCS distance (insertions and deletions only) m + n - 2 * lcs is normalized like the other edit
+ * distances: 1 - distance / max(length).
+ *
+ * There is no bit-parallel variant of the winnowing*LongestCommonSubsequence metrics: they compute the LCS over
+ * winnowing fingerprints that de.unitrier.st.stringsimilarity.fingerprint computes inside each call, and neither the
+ * fingerprints nor their hash function and window size are part of its API.
+ */
+public class BitParallelLongestCommonSubsequence {
+    private BitParallelLongestCommonSubsequence() {}
+
+    public static double longestCommonSubsequence(String str1, String str2) {
+        return similarity(str1.length(), str2.length(), longestCommonSubsequenceLength(str1, str2));
+    }
+
+    public static double longestCommonSubsequenceNormalized(String str1, String str2) {
+        return longestCommonSubsequence(Normalization.normalizeForEdit(str1), Normalization.normalizeForEdit(str2));
+    }
+
+    static double similarity(int length1, int length2, int lcsLength) {
+        int maxLength = Math.max(length1, length2);
+        if (maxLength == 0) {
+            return 1.0;
+        }
+        return 1.0 - (double) (length1 + length2 - 2 * lcsLength) / maxLength;
+    }
+
+    public static int longestCommonSubsequenceLength(String str1, String str2) {
+        // the shorter string is encoded in the bit vectors
+        String pattern = str1.length() <= str2.length() ? str1 : str2;
+        String text = str1.length() <= str2.length() ? str2 : str1;
+
+        if (pattern.isEmpty()) {
+            return 0;
+        }
+
+        BitParallelEditDistance.PatternMasks masks = new BitParallelEditDistance.PatternMasks(pattern);
+        if (masks.words == 1) {
+            return singleWordLength(masks, pattern.length(), text);
+        } else {
+            return multiWordLength(masks, pattern.length(), text);
+        }
+    }
+
+    private static int singleWordLength(BitParallelEditDistance.PatternMasks masks, int m, String text) {
+        long v = -1L;
+        for (int j = 0; j < text.length(); j++) {
+            long eq = masks.get(text.charAt(j), 0);
+            long u = v & eq;
+            v = (v + u) | (v & ~eq);
+        }
+        long patternBits = m == BitParallelEditDistance.WORD_SIZE ? -1L : (1L << m) - 1;
+        return m - Long.bitCount(v & patternBits);
+    }
+
+    private static int multiWordLength(BitParallelEditDistance.PatternMasks masks, int m, String text) {
+        int words = masks.words;
+        long[] v = new long[words];
+        long[] eq = new long[words];
+        Arrays.fill(v, -1L);
+
+        for (int j = 0; j < text.length(); j++) {
+            masks.get(text.charAt(j), eq);
+
+            long carry = 0L;
+            for (int w = 0; w < words; w++) {
+                long currentV = v[w];
+                long u = currentV & eq[w];
+
+                // v + u with the carry of the lower word
+                long sum = currentV + u;
+                long nextCarry = Long.compareUnsigned(sum, currentV) < 0 ? 1L : 0L;
+                long sumWithCarry = sum + carry;
+                if (Long.compareUnsigned(sumWithCarry, sum) < 0) {
+                    nextCarry = 1L;
+                }
+                carry = nextCarry;
+
+                v[w] = sumWithCarry | (currentV & ~eq[w]);
+            }
+        }
+
+        int zeros = 0;
+        for (int w = 0; w < words; w++) {
+            int bits = Math.min(BitParallelEditDistance.WORD_SIZE, m - w * BitParallelEditDistance.WORD_SIZE);
+            long patternBits = bits == BitParallelEditDistance.WORD_SIZE ? -1L : (1L << bits) - 1;
+            zeros += bits - Long.bitCount(v[w] & patternBits);
+        }
+        return zeros;
+    }
+}
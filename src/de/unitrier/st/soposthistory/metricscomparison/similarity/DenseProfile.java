@@ -0,0 +1,127 @@
+package de.unitrier.st.soposthistory.metricscomparison.similarity;
+
+import de.unitrier.st.stringsimilarity.Normalization;
+
+import java.util.Arrays;
+import java.util.function.BiFunction;
+
+/**
+ * Cosine and Manhattan similarity of the character n-gram profiles (n-gram counts) of two strings normalized for
+ * n-gram comparison. The n-grams of both strings are numbered in the order of their first occurrence, i.e., the
+ * profiles are dense vectors over the union of the n-grams of the two strings. The vector operations are performed
+ * by ProfileKernels, which uses the Vector API in the multi-release JAR built with the Maven profile java17.
+ *
+ * An n-gram is identified by its characters packed into a long value, thus n is limited to 4.
+ */
+public class DenseProfile {
+    static final int MAX_N = 4;
+
+    private DenseProfile() {}
+
+    public static BiFunction<String, String, Double> cosineNGramNormalized(int n) {
+        checkN(n);
+        return (str1, str2) -> cosine(
+                Normalization.normalizeForNGram(str1), Normalization.normalizeForNGram(str2), n
+        );
+    }
+
+    public static BiFunction<String, String, Double> manhattanNGramNormalized(int n) {
+        checkN(n);
+        return (str1, str2) -> manhattan(
+                Normalization.normalizeForNGram(str1), Normalization.normalizeForNGram(str2), n
+        );
+    }
+
+    public static String getImplementation() {
+        return ProfileKernels.getImplementation();
+    }
+
+    private static void checkN(int n) {
+        if (n < 1 || n > MAX_N) {
+            throw new IllegalArgumentException("n must be between 1 and " + MAX_N + ".");
+        }
+    }
+
+    static double cosine(String str1, String str2, int n) {
+        Profiles profiles = new Profiles(str1, str2, n);
+        if (profiles.isEmpty()) {
+            return str1.equals(str2) ? 1.0 : 0.0;
+        }
+
+        double[] dotProducts = new double[3];
+        ProfileKernels.dotProducts(profiles.counts1, profiles.counts2, profiles.length, dotProducts);
+        return dotProducts[0] / (Math.sqrt(dotProducts[1]) * Math.sqrt(dotProducts[2]));
+    }
+
+    /**
+     * @return 1 - (Manhattan distance of the profiles) / (sum of the counts of both profiles)
+     */
+    static double manhattan(String str1, String str2, int n) {
+        Profiles profiles = new Profiles(str1, str2, n);
+        if (profiles.isEmpty()) {
+            return str1.equals(str2) ? 1.0 : 0.0;
+        }
+
+        double distance = ProfileKernels.manhattanDistance(profiles.counts1, profiles.counts2, profiles.length);
+        return 1.0 - distance / (profiles.total1 + profiles.total2);
+    }
+
+    /**
+     * n-gram counts of two strings as dense vectors over the union of their n-grams.
+     */
+    static class Profiles {
+        final double[] counts1;
+        final double[] counts2;
+        final int total1; // number of n-grams of the first string
+        final int total2;
+        int length; // number of distinct n-grams of both strings
+
+        // open addressing: packed n-gram -> index in the count vectors
+        private final long[] keys;
+        private final int[] indices;
+        private final int mask;
+
+        Profiles(String str1, String str2, int n) {
+            total1 = Math.max(0, str1.length() - n + 1);
+            total2 = Math.max(0, str2.length() - n + 1);
+            counts1 = new double[total1 + total2];
+            counts2 = new double[total1 + total2];
+
+            int capacity = Integer.highestOneBit(Math.max(1, 2 * (total1 + total2))) << 1;
+            keys = new long[capacity];
+            indices = new int[capacity];
+            Arrays.fill(indices, -1);
+            mask = capacity - 1;
+
+            count(str1, n, total1, counts1);
+            count(str2, n, total2, counts2);
+        }
+
+        boolean isEmpty() {
+            return total1 == 0 || total2 == 0;
+        }
+
+        private void count(String str, int n, int total, double[] counts) {
+            for (int i = 0; i < total; i++) {
+                long key = 0;
+                for (int j = i; j < i + n; j++) {
+                    key = (key << Character.SIZE) | str.charAt(j);
+                }
+                counts[indexOf(key)]++;
+            }
+        }
+
+        private int indexOf(long key) {
+            int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+            while (indices[slot] != -1) {
+                if (keys[slot] == key) {
+                    return indices[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            indices[slot] = length;
+            return length++;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package de.unitrier.st.soposthistory.metricscomparison.similarity;
+
+import de.unitrier.st.stringsimilarity.Normalization;
+import de.unitrier.st.stringsimilarity.Tokenization;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+
+/**
+ * Approximate Jaccard and Dice similarity of the n-gram or shingle sets of two strings using MinHash sketches
+ * (Broder 1997). The sketch of a string contains, for each of k hash functions, the minimum hash value of all
+ * elements of its set. The fraction of equal positions in two sketches is an unbiased estimate of the Jaccard
+ * similarity of the sets with a standard error of sqrt(J * (1 - J) / k), the Dice similarity is derived from this
+ * estimate (D = 2J / (1 + J)).
+ *
+ * Computing a sketch takes O(k * |set|), comparing two sketches O(k) independent of the length of the strings.
+ * Each sketch is computed once per block: every thread caches the sketches of the most recently compared contents
+ * (the blocks of the two versions of a post that are currently compared). The evaluation clears the caches of its
+ * thread before each repetition (see clearThreadCaches), so that each repetition computes the sketches again.
+ */
+public class MinHash {
+    public static final int DEFAULT_SIGNATURE_LENGTH = 128;
+    private static final int CACHE_SIZE = 1024; // sketches per thread
+    private static final long SEED = 4711L;
+    private static final int[] EMPTY_SKETCH = new int[0];
+    private static final int MAX_PACKED_N = 4; // n-grams of up to four chars are packed into a long
+
+    // sketch caches of the current thread, one per sketcher
+    private static final ThreadLocal<Map<MinHash, Map<String, int[]>>> sketchCaches =
+            ThreadLocal.withInitial(IdentityHashMap::new);
+
+    private final int signatureLength;
+    private final Function<String, long[]> elements; // string -> hash values of the elements of its set
+    private final long[] seeds; // one per hash function
+
+    private MinHash(int signatureLength, Function<String, long[]> elements) {
+        if (signatureLength < 1) {
+            throw new IllegalArgumentException("Signature length must be at least 1.");
+        }
+        this.signatureLength = signatureLength;
+        this.elements = elements;
+
+        // the same seeds in each run -> reproducible results
+        SplittableRandom random = new SplittableRandom(SEED);
+        this.seeds = new long[signatureLength];
+        for (int i = 0; i < signatureLength; i++) {
+            seeds[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * Sketches of the sets of character n-grams of the strings normalized for n-gram comparison.
+     */
+    public static MinHash nGramsNormalized(int n, int signatureLength) {
+        return new MinHash(signatureLength, str -> nGramHashes(Normalization.normalizeForNGram(str), n));
+    }
+
+    /**
+     * Sketches of the sets of token n-grams (shingles) of the strings normalized for shingle comparison.
+     */
+    public static MinHash shinglesNormalized(int n, int signatureLength) {
+        return new MinHash(signatureLength, str -> shingleHashes(Tokenization.tokens(Normalization.normalizeForShingle(str)), n));
+    }
+
+    public double jaccard(String str1, String str2) {
+        int[] sketch1 = getSketch(str1);
+        int[] sketch2 = getSketch(str2);
+
+        if (sketch1.length == 0 || sketch2.length == 0) {
+            // at least one of the strings is shorter than the elements
+            return str1.equals(str2) ? 1.0 : 0.0;
+        }
+
+        int equalPositions = 0;
+        for (int i = 0; i < signatureLength; i++) {
+            if (sketch1[i] == sketch2[i]) {
+                equalPositions++;
+            }
+        }
+        return (double) equalPositions / signatureLength;
+    }
+
+    public double dice(String str1, String str2) {
+        double jaccard = jaccard(str1, str2);
+        return 2 * jaccard / (1 + jaccard);
+    }
+
+    public int getSignatureLength() {
+        return signatureLength;
+    }
+
+    /**
+     * Clear the cached sketches of all sketchers in the current thread.
+     */
+    public static void clearThreadCaches() {
+        sketchCaches.get().clear();
+    }
+
+    /**
+     * @return sketch of the string (empty if its set is empty), computed on the first request of the current thread
+     */
+    int[] getSketch(String str) {
+        Map<String, int[]> cache = sketchCaches.get().computeIfAbsent(this, minHash -> new LinkedHashMap<String, int[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, int[]> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        });
+        int[] sketch = cache.get(str);
+        if (sketch == null) {
+            sketch = computeSketch(elements.apply(str));
+            cache.put(str, sketch);
+        }
+        return sketch;
+    }
+
+    private int[] computeSketch(long[] elementHashes) {
+        if (elementHashes.length == 0) {
+            return EMPTY_SKETCH;
+        }
+
+        int[] sketch = new int[signatureLength];
+        Arrays.fill(sketch, Integer.MAX_VALUE);
+        for (long elementHash : elementHashes) {
+            for (int i = 0; i < signatureLength; i++) {
+                // the minimum of the signed values is as good as the minimum of the unsigned values
+                int hash = (int) (mix(elementHash ^ seeds[i]) >>> 32);
+                if (hash < sketch[i]) {
+                    sketch[i] = hash;
+                }
+            }
+        }
+        return sketch;
+    }
+
+    static long[] nGramHashes(String str, int n) {
+        int count = Math.max(0, str.length() - n + 1);
+        long[] hashes = new long[count];
+        for (int i = 0; i < count; i++) {
+            long hash;
+            if (n <= MAX_PACKED_N) {
+                // exact: 16 bits per char, distinct n-grams get distinct hashes (mix is a bijection)
+                hash = 0;
+                for (int j = i; j < i + n; j++) {
+                    hash = (hash << Character.SIZE) | str.charAt(j);
+                }
+            } else {
+                hash = hash(str, i, i + n);
+            }
+            hashes[i] = mix(hash);
+        }
+        return hashes;
+    }
+
+    private static long[] shingleHashes(List<String> tokens, int n) {
+        int count = Math.max(0, tokens.size() - n + 1);
+        long[] hashes = new long[count];
+        for (int i = 0; i < count; i++) {
+            long hash = 0;
+            for (int j = i; j < i + n; j++) {
+                String token = tokens.get(j);
+                hash = mix(0x9E3779B97F4A7C15L * hash + hash(token, 0, token.length()));
+            }
+            hashes[i] = mix(hash);
+        }
+        return hashes;
+    }
+
+    /**
+     * 64 bit FNV-1a hash of the chars from begin (inclusive) to end (exclusive), unlike String.hashCode, strings
+     * differing in few chars (e.g., "Aa" and "BB") get different hash values.
+     */
+    private static long hash(String str, int begin, int end) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = begin; i < end; i++) {
+            hash = (hash ^ str.charAt(i)) * 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Finalizer of MurmurHash3 (64 bit), every bit of the input affects every bit of the output.
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB93FE3E5BB53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
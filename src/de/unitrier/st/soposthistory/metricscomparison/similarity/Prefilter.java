@@ -0,0 +1,113 @@
+package de.unitrier.st.soposthistory.metricscomparison.similarity;
+
+import de.unitrier.st.stringsimilarity.Normalization;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Upper bound of the similarity computed by a metric, which is much cheaper to compute than the metric itself.
+ * If the bound is below the threshold, the metric cannot reach the threshold either and the comparison is skipped;
+ * the bound is returned instead of the similarity, which is also below the threshold. Thus, a prefiltered metric
+ * makes the same accept/reject decisions as the metric and returns the exact similarity for accepted pairs.
+ *
+ * The edit based metrics compute 1 - distance / max(length) and the distance is at least the length difference,
+ * i.e., their similarity is at most the ratio of the shorter and the longer length. The normalized variants compare
+ * the normalized strings, so their prefilter normalizes both strings once and passes the normalized strings to the
+ * metric without normalization. Each prefilter counts the comparisons it checked and the comparisons it eliminated
+ * (over all metrics it is used for).
+ *
+ * The set based metrics (Jaccard, Dice, Overlap) and the other profile and fingerprint metrics have no prefilter:
+ * their length-ratio bounds only hold for the cardinalities of the token or n-gram sets, and computing these
+ * cardinalities costs about as much as the metric itself. Cosine is scale invariant, i.e., token counts do not
+ * bound it.
+ */
+public class Prefilter {
+    // bound of levenshtein, damerauLevenshtein, optimalAlignment, and their bit-parallel implementations
+    public static final Prefilter LENGTH_RATIO = new Prefilter("lengthRatio", null);
+    // bound of the normalized variants of the above, applied to the metrics without normalization (e.g., levenshtein
+    // for levenshteinNormalized)
+    public static final Prefilter NORMALIZED_LENGTH_RATIO = new Prefilter(
+            "normalizedLengthRatio",
+            Normalization::normalizeForEdit
+    );
+
+    private static final List<Prefilter> prefilters = Collections.unmodifiableList(Arrays.asList(
+            LENGTH_RATIO, NORMALIZED_LENGTH_RATIO
+    ));
+
+    private final String name;
+    private final UnaryOperator<String> normalization; // null if the strings are compared as they are
+    private final LongAdder checkedComparisons = new LongAdder();
+    private final LongAdder eliminatedComparisons = new LongAdder();
+
+    private Prefilter(String name, UnaryOperator<String> normalization) {
+        this.name = name;
+        this.normalization = normalization;
+    }
+
+    public static List<Prefilter> getAll() {
+        return prefilters;
+    }
+
+    /**
+     * @param metric metric that is applied to the normalized strings if the prefilter normalizes them, e.g.,
+     *               levenshtein for NORMALIZED_LENGTH_RATIO
+     * @return metric that only calls the given metric if the upper bound reaches the threshold
+     */
+    public BiFunction<String, String, Double> apply(BiFunction<String, String, Double> metric, double threshold) {
+        if (threshold <= 0.0) {
+            // every bound reaches the threshold
+            if (normalization == null) {
+                return metric;
+            }
+            return (str1, str2) -> metric.apply(normalization.apply(str1), normalization.apply(str2));
+        }
+        return (str1, str2) -> {
+            if (normalization != null) {
+                str1 = normalization.apply(str1);
+                str2 = normalization.apply(str2);
+            }
+            checkedComparisons.increment();
+            double bound = lengthRatio(str1.length(), str2.length());
+            if (bound < threshold) {
+                eliminatedComparisons.increment();
+                return bound;
+            }
+            return metric.apply(str1, str2);
+        };
+    }
+
+    /**
+     * @return 1 - (maxLength - minLength) / maxLength, computed like the similarity of the edit based metrics to
+     * avoid rounding differences (1 if both strings are empty)
+     */
+    static double lengthRatio(int length1, int length2) {
+        int maxLength = Math.max(length1, length2);
+        if (maxLength == 0) {
+            return 1.0;
+        }
+        return 1.0 - (double) Math.abs(length1 - length2) / maxLength;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCheckedComparisons() {
+        return checkedComparisons.sum();
+    }
+
+    public long getEliminatedComparisons() {
+        return eliminatedComparisons.sum();
+    }
+
+    @Override
+    public String toString() {
+        return name + ": " + getEliminatedComparisons() + " of " + getCheckedComparisons() + " comparisons eliminated";
+    }
+}
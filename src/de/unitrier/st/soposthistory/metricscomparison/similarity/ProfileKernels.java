@@ -0,0 +1,25 @@
+package de.unitrier.st.soposthistory.metricscomparison.similarity;
+
+/**
+ * Vector operations of the profile based metrics (see DenseProfile).
+ * This is the Java 8 version, which uses the scalar implementation. The multi-release JAR built with the Maven
+ * profile java17 contains a version of this class that uses the Vector API (src-java17).
+ */
+final class ProfileKernels {
+    private ProfileKernels() {}
+
+    static String getImplementation() {
+        return "scalar";
+    }
+
+    /**
+     * @param result a * b, a * a, and b * b (first length components)
+     */
+    static void dotProducts(double[] a, double[] b, int length, double[] result) {
+        ScalarProfileKernels.dotProducts(a, b, length, result);
+    }
+
+    static double manhattanDistance(double[] a, double[] b, int length) {
+        return ScalarProfileKernels.manhattanDistance(a, b, length);
+    }
+}
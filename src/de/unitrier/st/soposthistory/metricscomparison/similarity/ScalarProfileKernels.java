@@ -0,0 +1,32 @@
+package de.unitrier.st.soposthistory.metricscomparison.similarity;
+
+/**
+ * Scalar implementation of the vector operations of the profile based metrics (see ProfileKernels).
+ * The vectors contain counts, i.e., integral values, so that all sums are exact and do not depend on the order of
+ * the additions.
+ */
+final class ScalarProfileKernels {
+    private ScalarProfileKernels() {}
+
+    static void dotProducts(double[] a, double[] b, int length, double[] result) {
+        double ab = 0.0;
+        double aa = 0.0;
+        double bb = 0.0;
+        for (int i = 0; i < length; i++) {
+            ab += a[i] * b[i];
+            aa += a[i] * a[i];
+            bb += b[i] * b[i];
+        }
+        result[0] = ab;
+        result[1] = aa;
+        result[2] = bb;
+    }
+
+    static double manhattanDistance(double[] a, double[] b, int length) {
+        double distance = 0.0;
+        for (int i = 0; i < length; i++) {
+            distance += Math.abs(a[i] - b[i]);
+        }
+        return distance;
+    }
+}
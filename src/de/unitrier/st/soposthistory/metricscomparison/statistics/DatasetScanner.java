@@ -0,0 +1,233 @@
+package de.unitrier.st.soposthistory.metricscomparison.statistics;
+
+import de.unitrier.st.soposthistory.version.PostVersionList;
+import de.unitrier.st.util.Util;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+
+import static de.unitrier.st.soposthistory.metricscomparison.evaluation.MetricEvaluationManager.csvFormatPostIds;
+
+/**
+ * Reads the posts of several samples once and hands each PostVersionList to all registered collectors.
+ * Each collector is registered together with the samples it considers. The posts are distributed over the worker
+ * threads, every worker thread has its own state per collector, i.e., collectors do not need to synchronize.
+ * After all posts have been read, the states of the worker threads are merged and the collectors are finished
+ * (e.g., they print or write their results).
+ */
+public class DatasetScanner {
+    private static Logger logger = null;
+
+    static {
+        // configure logger
+        try {
+            logger = Util.getClassLogger(DatasetScanner.class);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @param <S> type of the state of a worker thread
+     */
+    public interface Collector<S> {
+        S createState();
+
+        /**
+         * Called once for each post of the samples the collector has been registered for. The post version list is
+         * shared between the collectors and must not be modified.
+         */
+        void accept(S state, Path sample, PostVersionList postVersionList);
+
+        /**
+         * Add the results collected in source to target.
+         */
+        void merge(S target, S source);
+
+        void finish(S state);
+    }
+
+    private final List<Collector<?>> collectors = new ArrayList<>();
+    private final List<Set<Path>> collectorSamples = new ArrayList<>();
+    private final int threadCount;
+
+    public DatasetScanner(int threadCount) {
+        if (threadCount < 1) {
+            String msg = "Thread count must be at least 1.";
+            logger.warning(msg);
+            throw new IllegalArgumentException(msg);
+        }
+        this.threadCount = threadCount;
+    }
+
+    public DatasetScanner register(Collector<?> collector, List<Path> samples) {
+        collectors.add(collector);
+        collectorSamples.add(new HashSet<>(samples));
+        return this;
+    }
+
+    public void scan() {
+        List<Post> posts = listPosts();
+        logger.info("Scanning " + posts.size() + " posts with " + collectors.size() + " collectors using "
+                + threadCount + " threads...");
+
+        AtomicInteger nextPost = new AtomicInteger(0);
+        ExecutorService threadPool = Executors.newFixedThreadPool(threadCount);
+        List<Future<Object[]>> workers = new ArrayList<>(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            workers.add(threadPool.submit(() -> scanPosts(posts, nextPost)));
+        }
+        threadPool.shutdown();
+
+        List<Object[]> workerStates = new ArrayList<>(threadCount);
+        try {
+            for (Future<Object[]> worker : workers) {
+                workerStates.add(worker.get());
+            }
+        } catch (InterruptedException e) {
+            threadPool.shutdownNow();
+            Thread.currentThread().interrupt();
+            String msg = "Interrupted while scanning posts.";
+            logger.warning(msg);
+            throw new IllegalStateException(msg, e);
+        } catch (ExecutionException e) {
+            threadPool.shutdownNow();
+            String msg = "Scanning posts failed: " + e.getCause();
+            logger.warning(msg);
+            throw new IllegalStateException(msg, e.getCause());
+        }
+
+        for (int i = 0; i < collectors.size(); i++) {
+            finish(collectors.get(i), workerStates, i);
+        }
+
+        logger.info("Scanned " + posts.size() + " posts.");
+    }
+
+    private Object[] scanPosts(List<Post> posts, AtomicInteger nextPost) {
+        Object[] states = new Object[collectors.size()];
+        for (int i = 0; i < collectors.size(); i++) {
+            states[i] = collectors.get(i).createState();
+        }
+
+        int index;
+        while ((index = nextPost.getAndIncrement()) < posts.size()) {
+            Post post = posts.get(index);
+            // the collectors only read the versions and their blocks, the version history is not processed
+            PostVersionList postVersionList = PostVersionList.readFromCSV(
+                    Paths.get(post.sample.toString(), "files"), post.postId, post.postTypeId, false
+            );
+            for (int i = 0; i < collectors.size(); i++) {
+                if (collectorSamples.get(i).contains(post.sample)) {
+                    accept(collectors.get(i), states[i], post.sample, postVersionList);
+                }
+            }
+
+            if ((index + 1) % 1000 == 0) {
+                logger.info("Processed " + (index + 1) + " of " + posts.size() + " posts.");
+            }
+        }
+
+        return states;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <S> void accept(Collector<S> collector, Object state, Path sample, PostVersionList postVersionList) {
+        collector.accept((S) state, sample, postVersionList);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <S> void finish(Collector<S> collector, List<Object[]> workerStates, int collectorIndex) {
+        S state = (S) workerStates.get(0)[collectorIndex];
+        for (int i = 1; i < workerStates.size(); i++) {
+            collector.merge(state, (S) workerStates.get(i)[collectorIndex]);
+        }
+        collector.finish(state);
+    }
+
+    private List<Post> listPosts() {
+        // union of the registered samples, each sample is read once
+        Set<Path> samples = new LinkedHashSet<>();
+        for (Set<Path> currentSamples : collectorSamples) {
+            samples.addAll(currentSamples);
+        }
+
+        List<Post> posts = new ArrayList<>();
+        for (Path sample : samples) {
+            File[] postVersionListFilesInFolder = Paths.get(sample.toString(), "files").toFile().listFiles(
+                    (dir, name) -> name.matches(PostVersionList.fileNamePattern.pattern())
+            );
+
+            if (postVersionListFilesInFolder == null) {
+                logger.warning("Sample " + sample + " does not contain a directory with post version lists.");
+                continue;
+            }
+
+            Map<Integer, Integer> postTypeIds = readPostTypeIds(sample);
+            int unknownPostTypeIds = 0;
+            for (File postVersionListFile : postVersionListFilesInFolder) {
+                Matcher matcher = PostVersionList.fileNamePattern.matcher(postVersionListFile.getName());
+                if (matcher.find()) {
+                    int postId = Integer.parseInt(matcher.group(1));
+                    Integer postTypeId = postTypeIds.get(postId);
+                    if (postTypeId == null) {
+                        unknownPostTypeIds++;
+                        postTypeId = 0;
+                    }
+                    posts.add(new Post(sample, postId, postTypeId));
+                }
+            }
+            if (unknownPostTypeIds > 0) {
+                logger.warning("Post type id of " + unknownPostTypeIds + " posts of sample " + sample
+                        + " not found in the list of post ids, using post type id 0 for them.");
+            }
+        }
+        return posts;
+    }
+
+    private static Map<Integer, Integer> readPostTypeIds(Path sample) {
+        // post type ids are only available if the sample contains a list of post ids (see MetricEvaluationManager)
+        Map<Integer, Integer> postTypeIds = new HashMap<>();
+        Path postIdPath = Paths.get(sample.toString(), sample.toFile().getName() + ".csv");
+        if (!Files.exists(postIdPath)) {
+            logger.warning("Sample " + sample + " does not contain a list of post ids (" + postIdPath.toFile().getName()
+                    + "), post type ids are unknown.");
+            return postTypeIds;
+        }
+
+        try (CSVParser csvParser = new CSVParser(new FileReader(postIdPath.toFile()), csvFormatPostIds.withFirstRecordAsHeader())) {
+            for (CSVRecord currentRecord : csvParser) {
+                postTypeIds.put(
+                        Integer.parseInt(currentRecord.get("PostId")),
+                        Integer.parseInt(currentRecord.get("PostTypeId"))
+                );
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return postTypeIds;
+    }
+
+    private static class Post {
+        private final Path sample;
+        private final int postId;
+        private final int postTypeId;
+
+        Post(Path sample, int postId, int postTypeId) {
+            this.sample = sample;
+            this.postId = postId;
+            this.postTypeId = postTypeId;
+        }
+    }
+}
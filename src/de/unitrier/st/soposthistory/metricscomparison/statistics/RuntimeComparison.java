@@ -0,0 +1,556 @@
+package de.unitrier.st.soposthistory.metricscomparison.statistics;
+
+import de.unitrier.st.util.Util;
+import org.apache.commons.csv.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static de.unitrier.st.soposthistory.metricscomparison.evaluation.MetricEvaluationManager.csvFormatMetricEvaluationPerPost;
+
+/**
+ * Compares the runtimes measured in several runs of the metric evaluation (output directories of
+ * MetricEvaluationManager). The per post results of each sample are joined on (metric descriptor, post id), where the
+ * metric descriptor consists of the twelve metric columns of the per post files. The first run is the base run.
+ *
+ * The per post files are sorted by the join key in chunks of sortChunkSize rows (chunks are spilled to temporary
+ * files if a file has more rows) and merge-joined afterwards, i.e., the memory used does not depend on the size of
+ * the samples. For each post, the spread and relative deviation of the runtimes are written to
+ * runtime_comparison_per_post.csv; for each metric and run, a paired comparison with the base run is written to
+ * runtime_comparison_per_metric.csv.
+ */
+public class RuntimeComparison {
+    private static Logger logger = null;
+
+    public static final CSVFormat csvFormatRuntimeComparisonPerPost;
+    public static final CSVFormat csvFormatRuntimeComparisonPerMetric;
+
+    private static final String[] descriptorColumns = {"MetricTypeText", "MetricText", "ThresholdText",
+            "MetricTypeTextBackup", "MetricTextBackup", "ThresholdTextBackup", "MetricTypeCode", "MetricCode",
+            "ThresholdCode", "MetricTypeCodeBackup", "MetricCodeBackup", "ThresholdCodeBackup"};
+    private static final Pattern perPostFileNamePattern = Pattern.compile("(.+)_per_post\\.csv(\\.gz)?");
+    private static final int DEFAULT_SORT_CHUNK_SIZE = 100000; // rows
+    private static final double SIGNIFICANCE_LEVEL = 0.05;
+
+    static {
+        // configure logger
+        try {
+            logger = Util.getClassLogger(RuntimeComparison.class);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        List<String> header = new ArrayList<>();
+        header.add("Sample");
+        header.addAll(Arrays.asList(descriptorColumns));
+
+        // configure CSV format for runtime comparison per post
+        List<String> headerPerPost = new ArrayList<>(header);
+        headerPerPost.addAll(Arrays.asList("PostId", "RuntimeBase", "RuntimeMin", "RuntimeMax", "RuntimeSpread",
+                "RuntimeMean", "RuntimeStandardDeviation", "RelativeDeviation", "RelativeSpread"));
+        csvFormatRuntimeComparisonPerPost = CSVFormat.DEFAULT
+                .withHeader(headerPerPost.toArray(new String[0]))
+                .withDelimiter(';')
+                .withQuote('"')
+                .withQuoteMode(QuoteMode.MINIMAL)
+                .withEscape('\\')
+                .withNullString("null");
+
+        // configure CSV format for runtime comparison per metric (paired comparison of each run with the base run)
+        List<String> headerPerMetric = new ArrayList<>(header);
+        headerPerMetric.addAll(Arrays.asList("Run", "PostCount", "MeanDifference", "StandardDeviationOfDifference",
+                "MeanRelativeDifference", "TStatistic", "PValue", "Significant"));
+        csvFormatRuntimeComparisonPerMetric = CSVFormat.DEFAULT
+                .withHeader(headerPerMetric.toArray(new String[0]))
+                .withDelimiter(';')
+                .withQuote('"')
+                .withQuoteMode(QuoteMode.MINIMAL)
+                .withEscape('\\')
+                .withNullString("null");
+    }
+
+    private final List<Path> runDirs;
+    private final int sortChunkSize;
+
+    /**
+     * @param runDirs output directories of the runs, the first one is the base run
+     */
+    public RuntimeComparison(List<Path> runDirs) {
+        this(runDirs, DEFAULT_SORT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param runDirs output directories of the runs, the first one is the base run
+     * @param sortChunkSize number of rows that are sorted in memory, larger files are sorted in several chunks
+     */
+    public RuntimeComparison(List<Path> runDirs, int sortChunkSize) {
+        if (runDirs.size() < 2) {
+            String msg = "At least two runs are needed for a comparison.";
+            logger.warning(msg);
+            throw new IllegalArgumentException(msg);
+        }
+        if (sortChunkSize < 1) {
+            String msg = "Sort chunk size must be at least 1.";
+            logger.warning(msg);
+            throw new IllegalArgumentException(msg);
+        }
+        this.runDirs = new ArrayList<>(runDirs);
+        this.sortChunkSize = sortChunkSize;
+    }
+
+    /**
+     * Usage: RuntimeComparison &lt;output dir&gt; &lt;base run dir&gt; &lt;run dir&gt;...
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: RuntimeComparison <output dir> <base run dir> <run dir>...");
+            System.exit(1);
+        }
+        List<Path> runDirs = Arrays.stream(args).skip(1).map(Paths::get).collect(Collectors.toList());
+        new RuntimeComparison(runDirs).compare(Paths.get(args[0]));
+    }
+
+    public void compare(Path outputDir) throws IOException {
+        List<Map<String, Path>> perPostFiles = new ArrayList<>(runDirs.size());
+        for (Path runDir : runDirs) {
+            perPostFiles.add(listPerPostFiles(runDir));
+        }
+
+        // check whether all files are available
+        Set<String> samples = new TreeSet<>(perPostFiles.get(0).keySet());
+        for (int i = 1; i < perPostFiles.size(); i++) {
+            if (!perPostFiles.get(i).keySet().equals(samples)) {
+                String msg = "Runs need to be over same samples but there was a difference:"
+                        + "\n" + runDirs.get(0) + ": " + samples
+                        + "\n" + runDirs.get(i) + ": " + new TreeSet<>(perPostFiles.get(i).keySet());
+                logger.warning(msg);
+                throw new IllegalArgumentException(msg);
+            }
+        }
+
+        Util.createDirectory(outputDir);
+        Path outputFilePerPost = Paths.get(outputDir.toString(), "runtime_comparison_per_post.csv");
+        Path outputFilePerMetric = Paths.get(outputDir.toString(), "runtime_comparison_per_metric.csv");
+        logger.info("Comparing runtimes of " + runDirs.size() + " runs, writing results to "
+                + outputFilePerPost.toFile().getName() + " and " + outputFilePerMetric.toFile().getName() + " ...");
+
+        // header is automatically written
+        try (CSVPrinter csvPrinterPost = new CSVPrinter(new BufferedWriter(new FileWriter(outputFilePerPost.toFile())), csvFormatRuntimeComparisonPerPost);
+             CSVPrinter csvPrinterMetric = new CSVPrinter(new BufferedWriter(new FileWriter(outputFilePerMetric.toFile())), csvFormatRuntimeComparisonPerMetric)) {
+            for (String sample : samples) {
+                logger.info("Comparing runtimes of sample " + sample + " ...");
+                List<Path> files = new ArrayList<>(runDirs.size());
+                for (Map<String, Path> currentPerPostFiles : perPostFiles) {
+                    files.add(currentPerPostFiles.get(sample));
+                }
+                compareSample(sample, files, csvPrinterPost, csvPrinterMetric);
+            }
+        }
+    }
+
+    private static Map<String, Path> listPerPostFiles(Path runDir) throws IOException {
+        Util.ensureDirectoryExists(runDir);
+        Map<String, Path> perPostFiles = new HashMap<>(); // sample -> per post file
+        try (Stream<Path> paths = Files.list(runDir)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                Matcher matcher = perPostFileNamePattern.matcher(path.toFile().getName());
+                if (matcher.matches()) {
+                    perPostFiles.put(matcher.group(1), path);
+                }
+            }
+        }
+        return perPostFiles;
+    }
+
+    private void compareSample(String sample, List<Path> files,
+                               CSVPrinter csvPrinterPost, CSVPrinter csvPrinterMetric) throws IOException {
+        int runCount = files.size();
+        List<RowSource> sources = new ArrayList<>(runCount);
+        try {
+            for (Path file : files) {
+                sources.add(sort(file));
+            }
+
+            Row[] heads = new Row[runCount];
+            for (int i = 0; i < runCount; i++) {
+                heads[i] = sources.get(i).next();
+            }
+
+            long[] runtimes = new long[runCount];
+            Row group = null; // first row of the current metric
+            RunningStatistics[] differences = null;
+            RunningStatistics[] relativeDifferences = null;
+            int incompleteKeys = 0;
+
+            while (true) {
+                // the smallest key of all runs is processed next
+                Row current = null;
+                for (Row head : heads) {
+                    if (head != null && (current == null || head.compareTo(current) < 0)) {
+                        current = head;
+                    }
+                }
+                if (current == null) {
+                    break;
+                }
+
+                int presentCount = 0;
+                for (int i = 0; i < runCount; i++) {
+                    if (heads[i] != null && heads[i].compareTo(current) == 0) {
+                        runtimes[i] = heads[i].runtime;
+                        presentCount++;
+                        heads[i] = sources.get(i).next();
+                    }
+                }
+                if (presentCount < runCount) {
+                    // only posts that have been evaluated in all runs are compared
+                    incompleteKeys++;
+                    continue;
+                }
+
+                if (group == null || !group.descriptorKey.equals(current.descriptorKey)) {
+                    if (group != null) {
+                        writeComparisonPerMetric(csvPrinterMetric, sample, group, differences, relativeDifferences);
+                    }
+                    group = current;
+                    differences = new RunningStatistics[runCount];
+                    relativeDifferences = new RunningStatistics[runCount];
+                    for (int i = 1; i < runCount; i++) {
+                        differences[i] = new RunningStatistics();
+                        relativeDifferences[i] = new RunningStatistics();
+                    }
+                }
+
+                for (int i = 1; i < runCount; i++) {
+                    differences[i].add(runtimes[i] - runtimes[0]);
+                    if (runtimes[0] > 0) {
+                        relativeDifferences[i].add((double) (runtimes[i] - runtimes[0]) / runtimes[0]);
+                    }
+                }
+                writeComparisonPerPost(csvPrinterPost, sample, current, runtimes);
+            }
+
+            if (group != null) {
+                writeComparisonPerMetric(csvPrinterMetric, sample, group, differences, relativeDifferences);
+            }
+            if (incompleteKeys > 0) {
+                logger.warning(incompleteKeys + " results of sample " + sample + " are not available in all runs and have been ignored.");
+            }
+        } finally {
+            for (RowSource source : sources) {
+                source.close();
+            }
+        }
+    }
+
+    private static void writeComparisonPerPost(CSVPrinter csvPrinter, String sample, Row row,
+                                               long[] runtimes) throws IOException {
+        RunningStatistics statistics = new RunningStatistics();
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (long runtime : runtimes) {
+            statistics.add(runtime);
+            min = Math.min(min, runtime);
+            max = Math.max(max, runtime);
+        }
+
+        List<Object> record = new ArrayList<>(descriptorColumns.length + 10);
+        record.add(sample);
+        record.addAll(Arrays.asList(row.descriptor));
+        record.add(row.postId);
+        record.add(runtimes[0]);
+        record.add(min);
+        record.add(max);
+        record.add(max - min);
+        record.add(statistics.getMean());
+        record.add(statistics.getStandardDeviation());
+        record.add(statistics.getMean() > 0 ? statistics.getStandardDeviation() / statistics.getMean() : null);
+        record.add(min > 0 ? (double) (max - min) / min : null);
+        csvPrinter.printRecord(record);
+    }
+
+    private static void writeComparisonPerMetric(CSVPrinter csvPrinter, String sample, Row group,
+                                                 RunningStatistics[] differences,
+                                                 RunningStatistics[] relativeDifferences) throws IOException {
+        for (int i = 1; i < differences.length; i++) {
+            RunningStatistics difference = differences[i];
+
+            // paired comparison with the base run, the p-value uses the normal approximation of the t distribution
+            // (the number of posts per sample is large)
+            Double tStatistic = null;
+            Double pValue = null;
+            if (difference.getCount() > 1) {
+                double standardError = difference.getStandardDeviation() / Math.sqrt(difference.getCount());
+                if (standardError > 0) {
+                    tStatistic = difference.getMean() / standardError;
+                    pValue = erfc(Math.abs(tStatistic) / Math.sqrt(2));
+                } else {
+                    pValue = difference.getMean() == 0 ? 1.0 : 0.0;
+                }
+            }
+
+            List<Object> record = new ArrayList<>(descriptorColumns.length + 9);
+            record.add(sample);
+            record.addAll(Arrays.asList(group.descriptor));
+            record.add(i);
+            record.add(difference.getCount());
+            record.add(difference.getMean());
+            record.add(difference.getStandardDeviation());
+            record.add(relativeDifferences[i].getCount() > 0 ? relativeDifferences[i].getMean() : null);
+            record.add(tStatistic);
+            record.add(pValue);
+            record.add(pValue != null ? pValue < SIGNIFICANCE_LEVEL : null);
+            csvPrinter.printRecord(record);
+        }
+    }
+
+    // complementary error function, see Abramowitz and Stegun 7.1.26 (absolute error below 1.5e-7)
+    private static double erfc(double x) {
+        double t = 1.0 / (1.0 + 0.3275911 * x);
+        double polynomial = t * (0.254829592 + t * (-0.284496736 + t * (1.421413741 + t * (-1.453152027 + t * 1.061405429))));
+        return polynomial * Math.exp(-x * x);
+    }
+
+    /**
+     * @return rows of the per post file sorted by metric descriptor and post id
+     */
+    private RowSource sort(Path file) throws IOException {
+        List<Path> chunkFiles = new ArrayList<>();
+        List<Row> chunk = new ArrayList<>();
+
+        try (CSVParser csvParser = new CSVParser(openReader(file), csvFormatMetricEvaluationPerPost.withFirstRecordAsHeader())) {
+            Map<String, Integer> headerMap = csvParser.getHeaderMap();
+            if (headerMap == null || !headerMap.containsKey("Runtime") || !headerMap.containsKey("PostId")) {
+                String msg = "File " + file + " does not have the current per post format.";
+                logger.warning(msg);
+                throw new IllegalArgumentException(msg);
+            }
+
+            for (CSVRecord currentRecord : csvParser) {
+                String runtime = currentRecord.get("Runtime");
+                if (runtime == null) {
+                    // configuration collapsed by the sweep planner, its runtime has not been measured
+                    continue;
+                }
+                String[] descriptor = new String[descriptorColumns.length];
+                for (int i = 0; i < descriptorColumns.length; i++) {
+                    descriptor[i] = currentRecord.get(descriptorColumns[i]);
+                }
+                chunk.add(new Row(
+                        descriptor,
+                        Integer.parseInt(currentRecord.get("PostId")),
+                        Long.parseLong(runtime)
+                ));
+
+                if (chunk.size() == sortChunkSize) {
+                    chunkFiles.add(writeChunk(chunk));
+                    chunk.clear();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            deleteChunks(chunkFiles);
+            throw e;
+        }
+
+        Collections.sort(chunk);
+        if (chunkFiles.isEmpty()) {
+            return new ListRowSource(chunk);
+        }
+        if (!chunk.isEmpty()) {
+            chunkFiles.add(writeChunk(chunk));
+        }
+        return new MergedRowSource(chunkFiles);
+    }
+
+    private static Reader openReader(Path file) throws IOException {
+        InputStream inputStream = new FileInputStream(file.toFile());
+        if (file.toFile().getName().endsWith(".gz")) {
+            inputStream = new GZIPInputStream(inputStream, 64 * 1024);
+        }
+        return new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    private static Path writeChunk(List<Row> chunk) throws IOException {
+        Collections.sort(chunk);
+        Path chunkFile = Files.createTempFile("runtime-comparison-", ".chunk");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(chunkFile.toFile())))) {
+            output.writeInt(chunk.size());
+            for (Row row : chunk) {
+                for (String value : row.descriptor) {
+                    output.writeBoolean(value != null);
+                    if (value != null) {
+                        output.writeUTF(value);
+                    }
+                }
+                output.writeInt(row.postId);
+                output.writeLong(row.runtime);
+            }
+        }
+        return chunkFile;
+    }
+
+    private static void deleteChunks(List<Path> chunkFiles) {
+        for (Path chunkFile : chunkFiles) {
+            try {
+                Files.deleteIfExists(chunkFile);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static class Row implements Comparable<Row> {
+        private final String[] descriptor;
+        private final String descriptorKey;
+        private final int postId;
+        private final long runtime;
+
+        Row(String[] descriptor, int postId, long runtime) {
+            this.descriptor = descriptor;
+            this.descriptorKey = Arrays.toString(descriptor);
+            this.postId = postId;
+            this.runtime = runtime;
+        }
+
+        @Override
+        public int compareTo(Row other) {
+            int result = descriptorKey.compareTo(other.descriptorKey);
+            return result != 0 ? result : Integer.compare(postId, other.postId);
+        }
+    }
+
+    private interface RowSource extends Closeable {
+        /**
+         * @return next row, null if there are no more rows
+         */
+        Row next() throws IOException;
+    }
+
+    private static class ListRowSource implements RowSource {
+        private final Iterator<Row> rows;
+
+        ListRowSource(List<Row> rows) {
+            this.rows = rows.iterator();
+        }
+
+        @Override
+        public Row next() {
+            return rows.hasNext() ? rows.next() : null;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static class ChunkRowSource implements RowSource {
+        private final DataInputStream input;
+        private int remaining;
+
+        ChunkRowSource(Path chunkFile) throws IOException {
+            this.input = new DataInputStream(new BufferedInputStream(new FileInputStream(chunkFile.toFile())));
+            this.remaining = input.readInt();
+        }
+
+        @Override
+        public Row next() throws IOException {
+            if (remaining == 0) {
+                return null;
+            }
+            remaining--;
+            String[] descriptor = new String[descriptorColumns.length];
+            for (int i = 0; i < descriptor.length; i++) {
+                descriptor[i] = input.readBoolean() ? input.readUTF() : null;
+            }
+            return new Row(descriptor, input.readInt(), input.readLong());
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+    }
+
+    // k-way merge of the sorted chunks of a file
+    private static class MergedRowSource implements RowSource {
+        private final List<Path> chunkFiles;
+        private final List<ChunkRowSource> chunks = new ArrayList<>();
+        private final PriorityQueue<Map.Entry<Row, ChunkRowSource>> heads =
+                new PriorityQueue<>(Comparator.comparing(Map.Entry::getKey));
+
+        MergedRowSource(List<Path> chunkFiles) throws IOException {
+            this.chunkFiles = chunkFiles;
+            try {
+                for (Path chunkFile : chunkFiles) {
+                    ChunkRowSource chunk = new ChunkRowSource(chunkFile);
+                    chunks.add(chunk);
+                    advance(chunk);
+                }
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        private void advance(ChunkRowSource chunk) throws IOException {
+            Row row = chunk.next();
+            if (row != null) {
+                heads.add(new AbstractMap.SimpleImmutableEntry<>(row, chunk));
+            }
+        }
+
+        @Override
+        public Row next() throws IOException {
+            Map.Entry<Row, ChunkRowSource> head = heads.poll();
+            if (head == null) {
+                return null;
+            }
+            advance(head.getValue());
+            return head.getKey();
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (ChunkRowSource chunk : chunks) {
+                chunk.close();
+            }
+            deleteChunks(chunkFiles);
+        }
+    }
+
+    // mean and variance using Welford's algorithm
+    private static class RunningStatistics {
+        private long count = 0;
+        private double mean = 0;
+        private double sumOfSquaredDeviations = 0;
+
+        void add(double value) {
+            count++;
+            double delta = value - mean;
+            mean += delta / count;
+            sumOfSquaredDeviations += delta * (value - mean);
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        double getMean() {
+            return mean;
+        }
+
+        double getStandardDeviation() {
+            return count > 1 ? Math.sqrt(sumOfSquaredDeviations / (count - 1)) : 0;
+        }
+    }
+}
@@ -22,7 +22,6 @@ import java.util.regex.Matcher;
 import java.util.stream.Collectors;
 
 import static de.unitrier.st.soposthistory.metricscomparison.evaluation.MetricEvaluationManager.*;
-import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 /**
@@ -42,6 +41,9 @@ public class Statistics {
     private static final Path pathToMultipleConnectionsPostsFile = Paths.get(pathToMultipleConnectionsDir.toString(), "multiple_possible_connections_posts.csv");
 
     private static final Path outputDir = Paths.get("output");
+    private static final Path pathToCodeLineStatisticsFile = Paths.get(MetricEvaluationTest.testOutputDir.toString(), "numberOfCodeLineStatistics.csv");
+
+    private static final int threadCount = Runtime.getRuntime().availableProcessors();
 
     public static final CSVFormat csvFormatMultipleConnections;
 
@@ -64,7 +66,9 @@ public class Statistics {
 
     public static void main(String[] args) {
         Statistics statistics = new Statistics();
+//        statistics.getAllStatistics();
 //        statistics.getMultiplePossibleConnections();
+//        statistics.getMultiplePossibleConnectionsOfAllTestSamples();
 //        statistics.copyPostsWithPossibleMultipleConnectionsIntoDirectory();
 //        statistics.getDifferencesOfRuntimesBetweenMetricComparisons();
 //        statistics.getStatisticsOfBlockLengthsAndTokenSizes();
@@ -74,96 +78,30 @@ public class Statistics {
 //        statistics.getStatisticsOfCodeBlocks();
     }
 
-    private void getMultiplePossibleConnections() {
-
-        try (CSVPrinter csvPrinter = new CSVPrinter(new FileWriter(
-                pathToMultipleConnectionsFile.toFile()),
-                csvFormatMultipleConnections);
-             CSVPrinter csvPrinterPosts = new CSVPrinter(new FileWriter(
-                     pathToMultipleConnectionsPostsFile.toFile()),
-                     csvFormatPostIds
-             )) {
-
-            logger.info("Starting extraction of possible connections...");
-
-            Set<PostVersionList> selectedPostVersionLists = new HashSet<>();
-
-            // header is automatically written
-            for (Path currentSample : pathsToTestSamples.subList(0, 10)) { // only consider large samples here
-                logger.info("Processing sample: " + currentSample);
-
-                Path postVersionListDir = Paths.get(currentSample.toString(), "files");
-                List<PostVersionList> postVersionLists = PostVersionList.readFromDirectory(postVersionListDir);
-
-                for (PostVersionList postVersionList : postVersionLists) {
-                    for (int i = 0; i < postVersionList.size(); i++) {
-                        PostVersion currentVersion = postVersionList.get(i);
-                        PostVersion previousVersion = null;
-                        if (i > 0) {
-                            previousVersion = postVersionList.get(i - 1);
-                        }
-                        PostVersion nextVersion = null;
-                        if (i < postVersionList.size() - 1) {
-                            nextVersion = postVersionList.get(i + 1);
-                        }
+    // Reads each post of the samples once and computes all statistics below at the same time.
+    private void getAllStatistics() {
+        List<Path> largeTestSamples = pathsToTestSamples.subList(0, 10); // only consider large samples here
+        new DatasetScanner(threadCount)
+                .register(new MultiplePossibleConnectionsCollector(pathToMultipleConnectionsFile, pathToMultipleConnectionsPostsFile), largeTestSamples)
+                .register(new URLStatisticsCollector(System.out), largeTestSamples)
+                .register(new CodeBlockStatisticsCollector(pathToCodeLineStatisticsFile), largeTestSamples)
+                .register(new BlockLengthStatisticsCollector(System.out), pathsToGTSamples)
+                .scan();
+    }
 
-                        for (PostBlockVersion currentVersionPostBlock : currentVersion.getPostBlocks()) {
-                            LinkedList<PostBlockVersion> possiblePredecessors = new LinkedList<>();
-                            LinkedList<PostBlockVersion> possibleSuccessors = new LinkedList<>();
-
-                            if (previousVersion != null) {
-                                // get possible predecessors
-                                for (PostBlockVersion previousVersionPostBlock : previousVersion.getPostBlocks()) {
-                                    if (currentVersionPostBlock.getContent().equals(previousVersionPostBlock.getContent())) {
-                                        possiblePredecessors.add(previousVersionPostBlock);
-                                    }
-                                }
-                            }
-
-                            if (nextVersion != null) {
-                                // get possible successors
-                                for (PostBlockVersion nextVersionPostBlock : nextVersion.getPostBlocks()) {
-                                    if (currentVersionPostBlock.getContent().equals(nextVersionPostBlock.getContent())) {
-                                        possibleSuccessors.add(nextVersionPostBlock);
-                                    }
-                                }
-                            }
-
-                            // write version data to CSV file
-                            if (possiblePredecessors.size() > 1 || possibleSuccessors.size() > 1) {
-                                selectedPostVersionLists.add(postVersionList);
-
-                                csvPrinter.printRecord(
-                                        currentVersion.getPostId(),
-                                        currentVersion.getPostHistoryId(),
-                                        currentVersionPostBlock.getLocalId(),
-                                        currentVersionPostBlock.getPostBlockTypeId(),
-                                        possiblePredecessors.size(),
-                                        possibleSuccessors.size(),
-                                        Arrays.toString(possiblePredecessors.stream()
-                                                .map(PostBlockVersion::getLocalId).toArray()),
-                                        Arrays.toString(possibleSuccessors.stream()
-                                                .map(PostBlockVersion::getLocalId).toArray())
-                                );
-                            }
-                        }
-                    }
-                }
-                logger.info("Processed sample: " + currentSample);
-            }
+    private void getMultiplePossibleConnections() {
+        getMultiplePossibleConnections(pathsToTestSamples.subList(0, 10)); // only consider large samples here
+    }
 
-            logger.info("Writing list with selected posts to CSV file: " + pathToMultipleConnectionsPostsFile.toFile().getName());
+    // Considers all test samples, the posts are processed in parallel.
+    private void getMultiplePossibleConnectionsOfAllTestSamples() {
+        getMultiplePossibleConnections(pathsToTestSamples);
+    }
 
-            for (PostVersionList postVersionList : selectedPostVersionLists) {
-                csvPrinterPosts.printRecord(
-                        postVersionList.getPostId(),
-                        postVersionList.getPostTypeId(),
-                        postVersionList.size()
-                );
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    private void getMultiplePossibleConnections(List<Path> samples) {
+        new DatasetScanner(threadCount)
+                .register(new MultiplePossibleConnectionsCollector(pathToMultipleConnectionsFile, pathToMultipleConnectionsPostsFile), samples)
+                .scan();
     }
 
     // This method has been used to create the sample "PostId_VersionCount_SO_17-06_sample_100_multiple_possible_links",
@@ -216,7 +154,8 @@ public class Statistics {
         }
     }
 
-    // This method compares different directories of results of metric comparisons and creates a csv file with some differences
+    // This method compares different directories of results of metric comparisons and creates csv files with the
+    // differences of the runtimes (see RuntimeComparison)
     private void getDifferencesOfRuntimesBetweenMetricComparisons() {
 
         // Add all paths of computed comparisons
@@ -224,119 +163,8 @@ public class Statistics {
         pathsToOutputDirectories.add(Paths.get("output", "2017-11-14_sample_comparison_sebastian-4")); // base directory is first element
         pathsToOutputDirectories.add(Paths.get("output", "2017-11-14_sample_comparison_lorik-3"));
 
-        List<File[]> directoryFiles = new ArrayList<>();
-        for (Path path : pathsToOutputDirectories) {
-            File file = new File(path.toString());
-            directoryFiles.add(file.listFiles((dir, name) -> name.matches(".*per_post\\.csv"))); // https://stackoverflow.com/a/13515268
-        }
-
-
-        // check whether all files are available
-        for (int i = 1; i < directoryFiles.size(); i++) {
-            for (int j = 0; j < directoryFiles.get(i).length; j++) {
-                if (!directoryFiles.get(0)[j].getName().toLowerCase().equals(directoryFiles.get(i)[j].getName().toLowerCase())) { // Appearing difference between samples
-                    String msg = "Files need to be over same samples but there was a difference:"
-                            + "\n" + directoryFiles.get(0)[j].getName()
-                            + "\n" + directoryFiles.get(i)[j].getName();
-                    logger.warning(msg);
-                    throw new IllegalArgumentException(msg);
-                }
-            }
-        }
-
-        // parse measured data for comparison
-        List<List<MeasuredRuntimes>> listOfListsOfMeasuredRuntimesFromDifferentComparisons = new ArrayList<>();
-        for (File[] files : directoryFiles) {
-            List<MeasuredRuntimes> measuredRuntimesList = parseMeasuredTimes(files);
-            measuredRuntimesList.sort((o1, o2) -> measuredRuntimesList.get(0).compare(o1, o2));
-            listOfListsOfMeasuredRuntimesFromDifferentComparisons.add(measuredRuntimesList);   // sorting lists reduces runtime from n*n to n log n for later comparison
-        }
-
-        // print csv file
-        try (CSVPrinter csvPrinter = new CSVPrinter(new FileWriter(Paths.get("output", "differences_between_runtimes_metric_comparisons.csv").toString()), CSVFormat.DEFAULT
-                .withHeader(
-                        "sample", "metric", "threshold",
-
-                        "runtimeTotalTextMinimum", // "runtimeUserTextMinimum", "runtimeCPUTextMinimum",
-                        "runtimeTextTotalMaxDifference", // "runtimeTextUserMaxDifference", "runtimeTextCPUMaxDifference",
-                        "runtimeTextTotalDeviationWithConstantBaseAndAverage", // "runtimeTextUserDeviationWithConstantBaseAndAverage",
-                        "runtimeTextTotalDeviationWithMinAndMax", // "runtimeTextUserDeviationWithMinAndMax",
-
-                        "runtimeTotalCodeMinimum", // "runtimeUserCodeMinimum", "runtimeCPUCodeMinimum",
-                        "runtimeCodeTotalMaxDifference", // "runtimeCodeUserMaxDifference", "runtimeCodeUserMaxDifference",
-                        "runtimeCodeTotalDeviationWithConstantBaseAndAverage", // "runtimeCodeUserDeviationWithConstantBaseAndAverage",
-                        "runtimeCodeTotalDeviationWithMinAndMax" // "runtimeCodeUserDeviationWithMinAndMax"
-                )
-                .withDelimiter(';')
-                .withQuote('"')
-                .withQuoteMode(QuoteMode.MINIMAL) // TODO: Adjust with right quote mode
-                .withEscape('\\')
-                .withNullString("null"))) {
-
-
-            List<MeasuredRuntimes> baseComparison = listOfListsOfMeasuredRuntimesFromDifferentComparisons.get(0);
-            for (int j = 0; j < baseComparison.size(); j++) {
-
-                long minRuntimeTextTotal = baseComparison.get(j).runtimeTextTotal;
-                long minRuntimeCodeTotal = baseComparison.get(j).runtimeCodeTotal;
-
-                long maxRuntimeTextTotal = baseComparison.get(j).runtimeTextTotal;
-                long maxRuntimeCodeTotal = baseComparison.get(j).runtimeCodeTotal;
-
-                double averageRuntimeTextTotal = 0;
-                double averageRuntimeCodeTotal = 0;
-
-                for (int i = 1; i < listOfListsOfMeasuredRuntimesFromDifferentComparisons.size(); i++) {
-
-                    List<MeasuredRuntimes> currentComparison = listOfListsOfMeasuredRuntimesFromDifferentComparisons.get(i);
-
-                    // validate records
-                    assertEquals(baseComparison.get(j).postId, currentComparison.get(j).postId);
-                    assertEquals(baseComparison.get(j).metricName, currentComparison.get(j).metricName);
-                    assertEquals(baseComparison.get(j).threshold, currentComparison.get(j).threshold);
-
-                    minRuntimeTextTotal = Math.min(minRuntimeTextTotal, currentComparison.get(i).runtimeTextTotal);
-                    minRuntimeCodeTotal = Math.min(minRuntimeCodeTotal, currentComparison.get(i).runtimeCodeTotal);
-
-                    maxRuntimeTextTotal = Math.max(maxRuntimeTextTotal, currentComparison.get(i).runtimeTextTotal);
-                    maxRuntimeCodeTotal = Math.max(maxRuntimeCodeTotal, currentComparison.get(i).runtimeCodeTotal);
-
-                    averageRuntimeTextTotal += currentComparison.get(j).runtimeTextTotal;
-                    averageRuntimeCodeTotal += currentComparison.get(j).runtimeCodeTotal;
-                }
-
-                averageRuntimeTextTotal /= (listOfListsOfMeasuredRuntimesFromDifferentComparisons.size()-1);
-                averageRuntimeCodeTotal /= (listOfListsOfMeasuredRuntimesFromDifferentComparisons.size()-1);
-
-                /*
-                        "metric", "threshold",
-
-                        "runtimeTotalTextMinimum",
-                        "runtimeTextTotalMaxDifference",
-                        "runtimeTextTotalDeviationWithConstantBaseAndAverage",
-                        "runtimeTextTotalDeviationWithMinAndMax",
-
-                        "runtimeTotalCodeMinimum",
-                        "runtimeCodeTotalMaxDifference",
-                        "runtimeCodeTotalDeviationWithConstantBaseAndAverage",
-                        "runtimeCodeTotalDeviationWithMinAndMax",
-                 */
-                csvPrinter.printRecord(
-                        baseComparison.get(j).sample,
-                        baseComparison.get(j).metricName,
-                        baseComparison.get(j).threshold,
-
-                        minRuntimeTextTotal,
-                        maxRuntimeTextTotal - minRuntimeTextTotal,
-                        averageRuntimeTextTotal / (double)baseComparison.get(j).runtimeTextTotal, // TODO: handle division by 0
-                        maxRuntimeTextTotal != 0 ? ((double)minRuntimeTextTotal / maxRuntimeTextTotal) : 1,
-
-                        minRuntimeCodeTotal,
-                        maxRuntimeCodeTotal - minRuntimeCodeTotal,
-                        (double)baseComparison.get(j).runtimeCodeTotal / averageRuntimeCodeTotal, // TODO: handle division by 0
-                        maxRuntimeCodeTotal != 0 ? ((double)minRuntimeCodeTotal / maxRuntimeCodeTotal) : 1
-                );
-            }
+        try {
+            new RuntimeComparison(pathsToOutputDirectories).compare(outputDir);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -344,126 +172,15 @@ public class Statistics {
 
 
     private void getStatisticsOfURLs(){
-
-        int numberOfVersions = 0;
-
-        int numberOfURLsInTextBlocks = 0;
-        int numberOfURLsInTextBlocks_bareLinks = 0;
-        int numberOfURLsInTextBlocks_anchorLinks = 0;
-        int numberOfURLsInTextBlocks_markdownLinkAnglesBrackets = 0;
-        int numberOfURLsInTextBlocks_markdownLinkInline = 0;
-        int numberOfURLsInTextBlocks_markdownLinkReference = 0;
-
-        int count = 0;
-
-        for (Path pathToSample : pathsToTestSamples.subList(0, 10)) { // consider only large samples here
-
-            File file = Paths.get(pathToSample.toString(), "files").toFile();
-            File[] postVersionListFilesInFolder = file.listFiles(
-                    (dir, name) -> name.matches(PostVersionList.fileNamePattern.pattern())
-            );
-
-            assertNotNull(postVersionListFilesInFolder);
-            for (File postVersionListFile : postVersionListFilesInFolder) {
-                if(++count % 1000 == 0) {
-                    System.err.println("Process: " + (double)count / 100000 * 100 + " %");
-                }
-
-
-                Matcher matcher = PostVersionList.fileNamePattern.matcher(postVersionListFile.getName());
-                if (matcher.find()) {
-                    int postId = Integer.parseInt(matcher.group(1));
-                    PostVersionList postVersionList = PostVersionList.readFromCSV(file.toPath(), postId, 0);
-                    numberOfVersions++;
-
-                    String content = postVersionList.getLast().getMergedTextBlockContent();
-                    List<Link> links = Link.extractAll(content);
-                    numberOfURLsInTextBlocks += links.size();
-
-                    for (Link link : links) {
-                        if (link instanceof AnchorLink) {
-                            numberOfURLsInTextBlocks_anchorLinks++;
-                        } else if (link instanceof MarkdownLinkAngleBrackets) {
-                            numberOfURLsInTextBlocks_markdownLinkAnglesBrackets++;
-                        } else if (link instanceof MarkdownLinkInline) {
-                            numberOfURLsInTextBlocks_markdownLinkInline++;
-                        } else if (link instanceof MarkdownLinkReference) {
-                            numberOfURLsInTextBlocks_markdownLinkReference++;
-                        } else {
-                            numberOfURLsInTextBlocks_bareLinks++;
-                        }
-                    }
-                }
-            }
-        }
-
-        System.out.println("number of versions: " + numberOfVersions);
-
-        System.out.println("number of urls overall: " + numberOfURLsInTextBlocks);
-        System.out.println("number of anchorLinks: " + numberOfURLsInTextBlocks_anchorLinks);
-        System.out.println("number of markdownLinkAnglesBrackets: " + numberOfURLsInTextBlocks_markdownLinkAnglesBrackets);
-        System.out.println("number of markdownLinkInline: " + numberOfURLsInTextBlocks_markdownLinkInline);
-        System.out.println("number of markdownLinkReference: " + numberOfURLsInTextBlocks_markdownLinkReference);
-        System.out.println("number of bareLinks: " + numberOfURLsInTextBlocks_bareLinks);
+        new DatasetScanner(threadCount)
+                .register(new URLStatisticsCollector(System.out), pathsToTestSamples.subList(0, 10)) // consider only large samples here
+                .scan();
     }
 
     private void getStatisticsOfCodeBlocks(){
-
-        Map<Integer, Integer> codeLinesFrequencies = new HashMap<>(); // number of code lines -> frequencies
-
-        int count = 0;
-
-        for (Path pathToSample : pathsToTestSamples.subList(0, 10)) { // consider only large samples here
-
-            File file = Paths.get(pathToSample.toString(), "files").toFile();
-            File[] postVersionListFilesInFolder = file.listFiles(
-                    (dir, name) -> name.matches(PostVersionList.fileNamePattern.pattern())
-            );
-
-            assertNotNull(postVersionListFilesInFolder);
-            for (File postVersionListFile : postVersionListFilesInFolder) {
-                if(++count % 1000 == 0) {
-                    System.err.println("Process: " + (double)count / 100000 * 100 + " %");
-                }
-
-
-                Matcher matcher = PostVersionList.fileNamePattern.matcher(postVersionListFile.getName());
-                if (matcher.find()) {
-                    int postId = Integer.parseInt(matcher.group(1));
-                    PostVersionList postVersionList = PostVersionList.readFromCSV(file.toPath(), postId, 0);
-                    for (CodeBlockVersion codeBlockVersion : postVersionList.getLast().getCodeBlocks()) {
-                        StringTokenizer tokensCodeLines = new StringTokenizer(codeBlockVersion.getContent(), "\n");
-                        int numberOfCodeLines = tokensCodeLines.countTokens();
-
-                        if (codeLinesFrequencies.containsKey(numberOfCodeLines)) {
-                            codeLinesFrequencies.put(numberOfCodeLines, codeLinesFrequencies.get(numberOfCodeLines) + 1);
-                        } else {
-                            codeLinesFrequencies.put(numberOfCodeLines, 1);
-                        }
-                    }
-                }
-            }
-        }
-
-        try {
-            File outputFile = Paths.get(MetricEvaluationTest.testOutputDir.toString(),"numberOfCodeLineStatistics.csv").toFile();
-            PrintWriter printWriter = new PrintWriter(outputFile);
-
-            printWriter.write("number of code lines;frequencies\n");
-            // https://stackoverflow.com/a/1066603
-            Iterator it = codeLinesFrequencies.entrySet().iterator();
-            while (it.hasNext()) {
-                Map.Entry pair = (Map.Entry)it.next();
-                printWriter.write(pair.getKey() + ";" + pair.getValue() + "\n");
-                it.remove(); // avoids a ConcurrentModificationException
-            }
-
-            printWriter.flush();
-            printWriter.close();
-
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
-        }
+        new DatasetScanner(threadCount)
+                .register(new CodeBlockStatisticsCollector(pathToCodeLineStatisticsFile), pathsToTestSamples.subList(0, 10)) // consider only large samples here
+                .scan();
     }
 
 
@@ -500,68 +217,6 @@ public class Statistics {
         return pathsToTestSamples;
     }
 
-    private class MeasuredRuntimes implements Comparator{
-        String sample;
-        int postId;
-        String metricName;
-        double threshold;
-        long runtimeTextTotal;
-        long runtimeCodeTotal;
-
-        MeasuredRuntimes(String sample, int postId, String metricName, double threshold, long runtimeTextTotal, long runtimeCodeTotal) {
-            this.sample = sample;
-            this.postId = postId;
-            this.metricName = metricName;
-            this.threshold = threshold;
-            this.runtimeTextTotal = runtimeTextTotal;
-            this.runtimeCodeTotal = runtimeCodeTotal;
-        }
-
-
-        @Override
-        public int compare(Object o1, Object o2) {
-            if (((MeasuredRuntimes)o1).postId < ((MeasuredRuntimes)o2).postId) {
-                return -1;
-            } else if (((MeasuredRuntimes)o1).postId > ((MeasuredRuntimes)o2).postId) {
-                return 1;
-            } else if (((MeasuredRuntimes)o1).metricName.compareTo(((MeasuredRuntimes)o2).metricName) < 0) {
-                return -1;
-            } else if (((MeasuredRuntimes)o1).metricName.compareTo(((MeasuredRuntimes)o2).metricName) > 0) {
-                return 1;
-            } else return Double.compare(((MeasuredRuntimes)o1).threshold, ((MeasuredRuntimes)o2).threshold);
-        }
-    }
-
-    private List<MeasuredRuntimes> parseMeasuredTimes(File[] files){
-        List<MeasuredRuntimes> measuredRuntimes = new ArrayList<>();
-        for (File file : files) {
-            try (CSVParser csvParser = new CSVParser(
-                    new FileReader(file),
-                    //CSVFormat.DEFAULT.withHeader("Sample", "Metric", "Threshold", "PostId", "PostVersionCount", "PostBlockVersionCount", "PossibleConnections", "RuntimeTextTotal", "RuntimeTextUser", "TextBlockVersionCount", "PossibleConnectionsText", "TruePositivesText", "TrueNegativesText", "FalsePositivesText", "FalseNegativesText", "RuntimeCodeTotal", "RuntimeCodeUser", "CodeBlockVersionCount", "PossibleConnectionsCode", "TruePositivesCode", "TrueNegativesCode", "FalsePositivesCode", "FalseNegativesCode"))) {
-                    csvFormatMetricEvaluationPerPost.withHeader())) {
-
-                for (CSVRecord currentRecord : csvParser) {
-                    String sample = currentRecord.get("Sample");
-                    int postId = Integer.parseInt(currentRecord.get("PostId"));
-                    String metric = currentRecord.get("Metric");
-                    double threshold = Double.parseDouble(currentRecord.get("Threshold"));
-                    long runtimeTextTotal = Long.parseLong(currentRecord.get("RuntimeTextTotal"));
-                    long runtimeTextUser = Long.parseLong(currentRecord.get("RuntimeTextUser"));
-                    long runtimeCodeTotal = Long.parseLong(currentRecord.get("RuntimeCodeTotal"));
-                    long runtimeCodeUser = Long.parseLong(currentRecord.get("RuntimeCodeUser"));
-
-                    measuredRuntimes.add(
-                            new MeasuredRuntimes(sample, postId, metric, threshold, runtimeTextTotal, runtimeCodeTotal)
-                    );
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        }
-
-        return measuredRuntimes;
-    }
-
     private static double round(double value, int decimalDigits) {
 
         int tmp = 1;
@@ -574,175 +229,354 @@ public class Statistics {
     }
 
     private void getStatisticsOfBlockLengthsAndTokenSizes() {
-        List<Path> gtSamples = getGTSamples();
-
-        HashMap<Integer, Integer> postsWithCodeBlockLengthEqualZero = new HashMap<>(); // postId -> number of code blocks with length 0
-        HashMap<Integer, Integer> postsWithCodeBlockLengthEqualOne = new HashMap<>(); // postId -> number of code blocks with length 1
-        HashMap<Integer, Integer> postsWithCodeBlockLengthEqualTwo = new HashMap<>(); // postId -> number of code blocks with length 2
-        HashMap<Integer, Integer> postsWithCodeBlockLengthEqualThree = new HashMap<>(); // postId -> number of code blocks with length 3
-        HashMap<Integer, Integer> postsWithCodeBlockLengthEqualFour = new HashMap<>(); // postId -> number of code blocks with length 4
-
-        HashMap<Integer, Integer> postsWithCodeBlockLengthEqualZeroNormalized = new HashMap<>(); // postId -> number of normalized code blocks with length 0
-        HashMap<Integer, Integer> postsWithCodeBlockLengthEqualOneNormalized = new HashMap<>(); // postId -> number of normalized code blocks with length 1
-        HashMap<Integer, Integer> postsWithCodeBlockLengthEqualTwoNormalized = new HashMap<>(); // postId -> number of normalized code blocks with length 2
-        HashMap<Integer, Integer> postsWithCodeBlockLengthEqualThreeNormalized = new HashMap<>(); // postId -> number of normalized code blocks with length 3
-        HashMap<Integer, Integer> postsWithCodeBlockLengthEqualFourNormalized = new HashMap<>(); // postId -> number of normalized code blocks with length 4
-
+        new DatasetScanner(threadCount)
+                .register(new BlockLengthStatisticsCollector(System.out), getGTSamples())
+                .scan();
+    }
 
-        HashMap<Integer, Integer> postsWithOneCodeToken = new HashMap<>(); // postId -> number of one code tokens
-        HashMap<Integer, Integer> postsWithTwoCodeToken = new HashMap<>(); // postId -> number of two code tokens
+    private void createPostVersionCount(Path path) {
 
-        HashMap<Integer, Integer> postsWithOneCodeTokenNormalized = new HashMap<>(); // postId -> number of one code tokens normalized
-        HashMap<Integer, Integer> postsWithTwoCodeTokenNormalized = new HashMap<>(); // postId -> number of two code tokens normalized
+        Path pathToFiles = Paths.get(path.toString(), "files");
+        File file = Paths.get(pathToFiles.toString()).toFile();
+        File[] postVersionListFilesInFolder = file.listFiles(
+                (dir, name) -> name.matches(PostVersionList.fileNamePattern.pattern())
+        );
 
+        try (CSVPrinter csvPrinter = new CSVPrinter(new FileWriter(
+                Paths.get(path.toString(), "PostId_VersionCount_17_06_sample_editedGT.csv").toFile()),
+                CSVFormat.DEFAULT
+                        .withHeader("PostId","PostTypeId","VersionCount")
+                        .withDelimiter(';'))) {
 
-        for(Path path : gtSamples) {
-            path = Paths.get(path.toString(), "files");
-            File file = Paths.get(path.toString()).toFile();
-            File[] postVersionListFilesInFolder = file.listFiles(
-                    (dir, name) -> name.matches(PostVersionList.fileNamePattern.pattern())
-            );
+            assert postVersionListFilesInFolder != null;
+            for(File post : postVersionListFilesInFolder) {
+                int postId = Integer.parseInt(post.getName().replace(".csv", ""));
+                PostVersionList postVersionList = PostVersionList.readFromCSV(pathToFiles, postId, 2);
 
-            if (postVersionListFilesInFolder == null) {
-                continue;
+                csvPrinter.printRecord(postId, postVersionList.getPostTypeId(), postVersionList.size());
             }
 
-            for (File post : postVersionListFilesInFolder) {
-                int postId = Integer.valueOf(post.getName().replace(".csv", ""));
-                PostVersionList postVersionList = PostVersionList.readFromCSV(path, postId, 2, false);
-
-                for (PostVersion postVersion : postVersionList) {
-                    for (CodeBlockVersion codeBlockVersion : postVersion.getCodeBlocks()) {
+            csvPrinter.flush();
+            csvPrinter.close();
 
-                        // length for n grams
-                        int codeBlockLength = codeBlockVersion.getContent().length();
-                        switch (codeBlockLength) {
-                            case 0 : postsWithCodeBlockLengthEqualZero.merge(postId, 1, (a, b) -> a + b);
-                                break;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
 
-                            case 1 :
-                                postsWithCodeBlockLengthEqualOne.merge(postId, 1, (a, b) -> a + b);
-                                break;
+    // --------------------------------------------------------------------------------------
+    // collectors for the DatasetScanner from here
 
-                            case 2 :
-                                postsWithCodeBlockLengthEqualTwo.merge(postId, 1, (a, b) -> a + b);
-                                break;
+    public static class MultiplePossibleConnectionsState {
+        private final List<Object[]> records = new ArrayList<>();
+        private final Map<Integer, Object[]> selectedPosts = new HashMap<>(); // postId -> record in posts file
+    }
 
-                            case 3 :
-                                postsWithCodeBlockLengthEqualThree.merge(postId, 1, (a, b) -> a + b);
-                                break;
+    /**
+     * Writes the blocks with more than one possible predecessor or successor (blocks with the same content in the
+     * previous or next version) to outputFile (see csvFormatMultipleConnections) and the posts containing them to
+     * postsOutputFile (see csvFormatPostIds).
+     */
+    public static class MultiplePossibleConnectionsCollector implements DatasetScanner.Collector<MultiplePossibleConnectionsState> {
+        private final Path outputFile;
+        private final Path postsOutputFile;
+
+        public MultiplePossibleConnectionsCollector(Path outputFile, Path postsOutputFile) {
+            this.outputFile = outputFile;
+            this.postsOutputFile = postsOutputFile;
+        }
 
-                            case 4 :
-                                postsWithCodeBlockLengthEqualFour.merge(postId, 1, (a, b) -> a + b);
-                                break;
-                        }
+        @Override
+        public MultiplePossibleConnectionsState createState() {
+            return new MultiplePossibleConnectionsState();
+        }
 
-                        // Length for normalized ngrams
-                        int codeBlockLengthNormalized = Normalization.normalizeForNGram(codeBlockVersion.getContent()).length();
-                        switch (codeBlockLengthNormalized) {
-                            case 0 :
-                                postsWithCodeBlockLengthEqualZeroNormalized.merge(postId, 1, (a, b) -> a + b);
-                                break;
+        @Override
+        public void accept(MultiplePossibleConnectionsState state, Path sample, PostVersionList postVersionList) {
+            // blocks of the previous, current, and next version indexed by their content
+            Map<String, List<PostBlockVersion>> previousVersionIndex = null;
+            Map<String, List<PostBlockVersion>> currentVersionIndex = null;
+            Map<String, List<PostBlockVersion>> nextVersionIndex = postVersionList.isEmpty() ? null
+                    : indexByContent(postVersionList.get(0));
+
+            for (int i = 0; i < postVersionList.size(); i++) {
+                PostVersion currentVersion = postVersionList.get(i);
+                previousVersionIndex = currentVersionIndex;
+                currentVersionIndex = nextVersionIndex;
+                nextVersionIndex = i < postVersionList.size() - 1 ? indexByContent(postVersionList.get(i + 1)) : null;
+
+                for (PostBlockVersion currentVersionPostBlock : currentVersion.getPostBlocks()) {
+                    // get possible predecessors and successors
+                    List<PostBlockVersion> possiblePredecessors = getBlocksWithContent(
+                            previousVersionIndex, currentVersionPostBlock.getContent()
+                    );
+                    List<PostBlockVersion> possibleSuccessors = getBlocksWithContent(
+                            nextVersionIndex, currentVersionPostBlock.getContent()
+                    );
 
-                            case 1 :
-                                postsWithCodeBlockLengthEqualOneNormalized.merge(postId, 1, (a, b) -> a + b);
-                                break;
+                    if (possiblePredecessors.size() > 1 || possibleSuccessors.size() > 1) {
+                        state.selectedPosts.put(postVersionList.getPostId(), new Object[]{
+                                postVersionList.getPostId(),
+                                postVersionList.getPostTypeId(),
+                                postVersionList.size()
+                        });
+
+                        state.records.add(new Object[]{
+                                currentVersion.getPostId(),
+                                currentVersion.getPostHistoryId(),
+                                currentVersionPostBlock.getLocalId(),
+                                currentVersionPostBlock.getPostBlockTypeId(),
+                                possiblePredecessors.size(),
+                                possibleSuccessors.size(),
+                                Arrays.toString(possiblePredecessors.stream()
+                                        .map(PostBlockVersion::getLocalId).toArray()),
+                                Arrays.toString(possibleSuccessors.stream()
+                                        .map(PostBlockVersion::getLocalId).toArray())
+                        });
+                    }
+                }
+            }
+        }
 
-                            case 2 :
-                                postsWithCodeBlockLengthEqualTwoNormalized.merge(postId, 1, (a, b) -> a + b);
-                                break;
+        private static Map<String, List<PostBlockVersion>> indexByContent(PostVersion postVersion) {
+            Map<String, List<PostBlockVersion>> index = new HashMap<>();
+            for (PostBlockVersion postBlock : postVersion.getPostBlocks()) {
+                index.computeIfAbsent(postBlock.getContent(), content -> new ArrayList<>(1)).add(postBlock);
+            }
+            return index;
+        }
 
-                            case 3 :
-                                postsWithCodeBlockLengthEqualThreeNormalized.merge(postId, 1, (a, b) -> a + b);
-                                break;
+        private static List<PostBlockVersion> getBlocksWithContent(Map<String, List<PostBlockVersion>> index,
+                                                                   String content) {
+            if (index == null) {
+                return Collections.emptyList();
+            }
+            return index.getOrDefault(content, Collections.emptyList());
+        }
 
-                            case 4 :
-                                postsWithCodeBlockLengthEqualFourNormalized.merge(postId, 1, (a, b) -> a + b);
-                                break;
-                        }
+        @Override
+        public void merge(MultiplePossibleConnectionsState target, MultiplePossibleConnectionsState source) {
+            target.records.addAll(source.records);
+            target.selectedPosts.putAll(source.selectedPosts);
+        }
 
-                        // number of shingles
-                        List<String> tokens = Tokenization.tokens(codeBlockVersion.getContent());
-                        switch (tokens.size()) {
-                            case 1 :
-                                postsWithOneCodeToken.merge(postId, 1, (a, b) -> a + b);
-                                break;
+        @Override
+        public void finish(MultiplePossibleConnectionsState state) {
+            // the posts have been read in parallel, sort records by PostId, PostHistoryId, and LocalId
+            state.records.sort(Comparator
+                    .comparingInt((Object[] record) -> (Integer) record[0])
+                    .thenComparingInt(record -> (Integer) record[1])
+                    .thenComparingInt(record -> (Integer) record[2]));
 
-                            case 2 :
-                                postsWithTwoCodeToken.merge(postId, 1, (a, b) -> a + b);
-                                break;
-                        }
+            // header is automatically written
+            try (CSVPrinter csvPrinter = new CSVPrinter(new FileWriter(
+                    outputFile.toFile()),
+                    csvFormatMultipleConnections);
+                 CSVPrinter csvPrinterPosts = new CSVPrinter(new FileWriter(
+                         postsOutputFile.toFile()),
+                         csvFormatPostIds
+                 )) {
+
+                for (Object[] record : state.records) {
+                    csvPrinter.printRecord(record);
+                }
 
+                logger.info("Writing list with selected posts to CSV file: " + postsOutputFile.toFile().getName());
 
-                        // number of normalized shingles
-                        List<String> tokensNormalized = Tokenization.tokens(Normalization.normalizeForShingle(codeBlockVersion.getContent()));
+                for (Object[] record : new TreeMap<>(state.selectedPosts).values()) {
+                    csvPrinterPosts.printRecord(record);
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
 
-                        switch (tokensNormalized.size()) {
-                            case 1 :
-                                postsWithOneCodeTokenNormalized.merge(postId, 1, (a, b) -> a + b);
-                                break;
+    /**
+     * Prints the number of links per link type in the text blocks of the last version of each post.
+     */
+    public static class URLStatisticsCollector implements DatasetScanner.Collector<int[]> {
+        private static final int VERSIONS = 0;
+        private static final int URLS = 1;
+        private static final int ANCHOR_LINKS = 2;
+        private static final int MARKDOWN_LINKS_ANGLE_BRACKETS = 3;
+        private static final int MARKDOWN_LINKS_INLINE = 4;
+        private static final int MARKDOWN_LINKS_REFERENCE = 5;
+        private static final int BARE_LINKS = 6;
+
+        private final PrintStream out;
+
+        public URLStatisticsCollector(PrintStream out) {
+            this.out = out;
+        }
 
-                            case 2 :
-                                postsWithTwoCodeTokenNormalized.merge(postId, 1, (a, b) -> a + b);
-                                break;
-                        }
+        @Override
+        public int[] createState() {
+            return new int[7];
+        }
 
-                    }
+        @Override
+        public void accept(int[] state, Path sample, PostVersionList postVersionList) {
+            state[VERSIONS]++;
+
+            String content = postVersionList.getLast().getMergedTextBlockContent();
+            List<Link> links = Link.extractAll(content);
+            state[URLS] += links.size();
+
+            for (Link link : links) {
+                if (link instanceof AnchorLink) {
+                    state[ANCHOR_LINKS]++;
+                } else if (link instanceof MarkdownLinkAngleBrackets) {
+                    state[MARKDOWN_LINKS_ANGLE_BRACKETS]++;
+                } else if (link instanceof MarkdownLinkInline) {
+                    state[MARKDOWN_LINKS_INLINE]++;
+                } else if (link instanceof MarkdownLinkReference) {
+                    state[MARKDOWN_LINKS_REFERENCE]++;
+                } else {
+                    state[BARE_LINKS]++;
                 }
             }
         }
 
-        System.out.println("number of blocks with code length 0: " + postsWithCodeBlockLengthEqualZero.size());
-        System.out.println("number of blocks with code length 0 (normalized for n grams): " + postsWithCodeBlockLengthEqualZeroNormalized.size());
+        @Override
+        public void merge(int[] target, int[] source) {
+            for (int i = 0; i < target.length; i++) {
+                target[i] += source[i];
+            }
+        }
 
-        System.out.println("number of blocks with code length 1: " + postsWithCodeBlockLengthEqualOne.size());
-        System.out.println("number of blocks with code length 1 (normalized for n grams): " + postsWithCodeBlockLengthEqualOneNormalized.size());
+        @Override
+        public void finish(int[] state) {
+            out.println("number of versions: " + state[VERSIONS]);
+
+            out.println("number of urls overall: " + state[URLS]);
+            out.println("number of anchorLinks: " + state[ANCHOR_LINKS]);
+            out.println("number of markdownLinkAnglesBrackets: " + state[MARKDOWN_LINKS_ANGLE_BRACKETS]);
+            out.println("number of markdownLinkInline: " + state[MARKDOWN_LINKS_INLINE]);
+            out.println("number of markdownLinkReference: " + state[MARKDOWN_LINKS_REFERENCE]);
+            out.println("number of bareLinks: " + state[BARE_LINKS]);
+        }
+    }
 
-        System.out.println("number of blocks with code length 2: " + postsWithCodeBlockLengthEqualTwo.size());
-        System.out.println("number of blocks with code length 2 (normalized for n grams): " + postsWithCodeBlockLengthEqualTwoNormalized.size());
+    /**
+     * Writes the frequencies of the numbers of code lines of the code blocks in the last version of each post.
+     */
+    public static class CodeBlockStatisticsCollector implements DatasetScanner.Collector<Map<Integer, Integer>> {
+        private final Path outputFile;
 
-        System.out.println("number of blocks with code length 3: " + postsWithCodeBlockLengthEqualThree.size());
-        System.out.println("number of blocks with code length 3 (normalized for n grams): " + postsWithCodeBlockLengthEqualThreeNormalized.size());
+        public CodeBlockStatisticsCollector(Path outputFile) {
+            this.outputFile = outputFile;
+        }
 
-        System.out.println("number of blocks with code length 4: " + postsWithCodeBlockLengthEqualFour.size());
-        System.out.println("number of blocks with code length 4 (normalized for n grams): " + postsWithCodeBlockLengthEqualFourNormalized.size());
+        @Override
+        public Map<Integer, Integer> createState() {
+            return new HashMap<>(); // number of code lines -> frequencies
+        }
 
-        System.out.println("number of blocks with one code token: " + postsWithOneCodeToken.size());
-        System.out.println("number of blocks with one code token (normalized for shingles): " + postsWithOneCodeTokenNormalized.size());
+        @Override
+        public void accept(Map<Integer, Integer> state, Path sample, PostVersionList postVersionList) {
+            for (CodeBlockVersion codeBlockVersion : postVersionList.getLast().getCodeBlocks()) {
+                StringTokenizer tokensCodeLines = new StringTokenizer(codeBlockVersion.getContent(), "\n");
+                state.merge(tokensCodeLines.countTokens(), 1, Integer::sum);
+            }
+        }
 
-        System.out.println("number of blocks with two code token: " + postsWithTwoCodeToken.size());
-        System.out.println("number of blocks with two code token (normalized for shingles): " + postsWithTwoCodeTokenNormalized.size());
+        @Override
+        public void merge(Map<Integer, Integer> target, Map<Integer, Integer> source) {
+            source.forEach((numberOfCodeLines, frequency) -> target.merge(numberOfCodeLines, frequency, Integer::sum));
+        }
 
+        @Override
+        public void finish(Map<Integer, Integer> state) {
+            try (PrintWriter printWriter = new PrintWriter(outputFile.toFile())) {
+                printWriter.write("number of code lines;frequencies\n");
+                for (Map.Entry<Integer, Integer> entry : new TreeMap<>(state).entrySet()) {
+                    printWriter.write(entry.getKey() + ";" + entry.getValue() + "\n");
+                }
+            } catch (FileNotFoundException e) {
+                e.printStackTrace();
+            }
+        }
     }
 
-    private void createPostVersionCount(Path path) {
-
-        Path pathToFiles = Paths.get(path.toString(), "files");
-        File file = Paths.get(pathToFiles.toString()).toFile();
-        File[] postVersionListFilesInFolder = file.listFiles(
-                (dir, name) -> name.matches(PostVersionList.fileNamePattern.pattern())
+    /**
+     * Prints the number of posts containing code blocks that are very short or consist of one or two tokens.
+     */
+    public static class BlockLengthStatisticsCollector implements DatasetScanner.Collector<Map<String, Map<Integer, Integer>>> {
+        // statistics in the order in which they are printed
+        private static final List<String> statistics = Arrays.asList(
+                "code length 0", "code length 0 (normalized for n grams)",
+                "code length 1", "code length 1 (normalized for n grams)",
+                "code length 2", "code length 2 (normalized for n grams)",
+                "code length 3", "code length 3 (normalized for n grams)",
+                "code length 4", "code length 4 (normalized for n grams)",
+                "one code token", "one code token (normalized for shingles)",
+                "two code token", "two code token (normalized for shingles)"
         );
+        private static final String[] tokenCounts = {null, "one", "two"};
 
-        try (CSVPrinter csvPrinter = new CSVPrinter(new FileWriter(
-                Paths.get(path.toString(), "PostId_VersionCount_17_06_sample_editedGT.csv").toFile()),
-                CSVFormat.DEFAULT
-                        .withHeader("PostId","PostTypeId","VersionCount")
-                        .withDelimiter(';'))) {
+        private final PrintStream out;
 
-            assert postVersionListFilesInFolder != null;
-            for(File post : postVersionListFilesInFolder) {
-                int postId = Integer.parseInt(post.getName().replace(".csv", ""));
-                PostVersionList postVersionList = PostVersionList.readFromCSV(pathToFiles, postId, 2);
+        public BlockLengthStatisticsCollector(PrintStream out) {
+            this.out = out;
+        }
 
-                csvPrinter.printRecord(postId, postVersionList.getPostTypeId(), postVersionList.size());
+        @Override
+        public Map<String, Map<Integer, Integer>> createState() {
+            return new HashMap<>(); // statistic -> (postId -> number of code blocks)
+        }
+
+        @Override
+        public void accept(Map<String, Map<Integer, Integer>> state, Path sample, PostVersionList postVersionList) {
+            int postId = postVersionList.getPostId();
+            for (PostVersion postVersion : postVersionList) {
+                for (CodeBlockVersion codeBlockVersion : postVersion.getCodeBlocks()) {
+                    String content = codeBlockVersion.getContent();
+
+                    // length for n grams
+                    int codeBlockLength = content.length();
+                    if (codeBlockLength <= 4) {
+                        count(state, "code length " + codeBlockLength, postId);
+                    }
+
+                    // length for normalized n grams
+                    int codeBlockLengthNormalized = Normalization.normalizeForNGram(content).length();
+                    if (codeBlockLengthNormalized <= 4) {
+                        count(state, "code length " + codeBlockLengthNormalized + " (normalized for n grams)", postId);
+                    }
+
+                    // number of shingles
+                    int tokenCount = Tokenization.tokens(content).size();
+                    if (tokenCount == 1 || tokenCount == 2) {
+                        count(state, tokenCounts[tokenCount] + " code token", postId);
+                    }
+
+                    // number of normalized shingles
+                    int tokenCountNormalized = Tokenization.tokens(Normalization.normalizeForShingle(content)).size();
+                    if (tokenCountNormalized == 1 || tokenCountNormalized == 2) {
+                        count(state, tokenCounts[tokenCountNormalized] + " code token (normalized for shingles)", postId);
+                    }
+                }
             }
+        }
 
-            csvPrinter.flush();
-            csvPrinter.close();
+        private static void count(Map<String, Map<Integer, Integer>> state, String statistic, int postId) {
+            state.computeIfAbsent(statistic, key -> new HashMap<>()).merge(postId, 1, Integer::sum);
+        }
 
-        } catch (IOException e) {
-            e.printStackTrace();
+        @Override
+        public void merge(Map<String, Map<Integer, Integer>> target, Map<String, Map<Integer, Integer>> source) {
+            source.forEach((statistic, counts) -> counts.forEach(
+                    (postId, count) -> target.computeIfAbsent(statistic, key -> new HashMap<>()).merge(postId, count, Integer::sum)
+            ));
         }
-    }
 
+        @Override
+        public void finish(Map<String, Map<Integer, Integer>> state) {
+            for (String statistic : statistics) {
+                out.println("number of blocks with " + statistic + ": "
+                        + state.getOrDefault(statistic, Collections.emptyMap()).size());
+            }
+        }
+    }
 }
@@ -2,6 +2,7 @@ package de.unitrier.st.soposthistory.metricscomparison.tests;
 
 import de.unitrier.st.soposthistory.metricscomparison.evaluation.MetricEvaluationManager;
 import de.unitrier.st.soposthistory.metricscomparison.evaluation.SimilarityMetric;
+import de.unitrier.st.soposthistory.metricscomparison.io.PostHistoryMappedReader;
 import de.unitrier.st.soposthistory.metricscomparison.statistics.Statistics;
 import de.unitrier.st.soposthistory.version.PostVersionList;
 import de.unitrier.st.util.Util;
@@ -13,6 +14,7 @@ import org.junit.jupiter.api.Test;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
@@ -388,4 +390,41 @@ class DisabledTests {
         }
     }
 
+    @Test
+    void benchmarkMappedPostHistoryReader() throws IOException {
+        int iterations = 100;
+
+        List<String> lines = Files.readAllLines(MetricEvaluationTest.pathToPostIdList);
+        List<int[]> posts = new LinkedList<>(); // (postId, postTypeId)
+        for (String line : lines.subList(1, lines.size())) {
+            String[] values = line.split(";");
+            posts.add(new int[] {Integer.parseInt(values[0]), Integer.parseInt(values[1])});
+        }
+
+        // warm up
+        for (int[] post : posts) {
+            PostVersionList.readFromCSV(MetricEvaluationTest.pathToPostHistory, post[0], post[1], false);
+            PostHistoryMappedReader.readPostVersionList(MetricEvaluationTest.pathToPostHistory, post[0], post[1]);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            for (int[] post : posts) {
+                PostVersionList.readFromCSV(MetricEvaluationTest.pathToPostHistory, post[0], post[1], false);
+            }
+        }
+        long runtimeCommonsCSV = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            for (int[] post : posts) {
+                PostHistoryMappedReader.readPostVersionList(MetricEvaluationTest.pathToPostHistory, post[0], post[1]);
+            }
+        }
+        long runtimeMapped = System.nanoTime() - start;
+
+        logger.info("Reading " + posts.size() + " posts " + iterations + " times: "
+                + "readFromCSV " + runtimeCommonsCSV / 1000000 + "ms, "
+                + "PostHistoryMappedReader " + runtimeMapped / 1000000 + "ms");
+    }
 }
@@ -5,29 +5,69 @@ import de.unitrier.st.soposthistory.blocks.CodeBlockVersion;
 import de.unitrier.st.soposthistory.blocks.TextBlockVersion;
 import de.unitrier.st.soposthistory.gt.PostBlockConnection;
 import de.unitrier.st.soposthistory.gt.PostGroundTruth;
+import de.unitrier.st.soposthistory.metricscomparison.ForkedTimingRunner;
 import de.unitrier.st.soposthistory.metricscomparison.evaluation.MetricEvaluationManager;
 import de.unitrier.st.soposthistory.metricscomparison.evaluation.MetricEvaluationPerPost;
 import de.unitrier.st.soposthistory.metricscomparison.evaluation.MetricResult;
 import de.unitrier.st.soposthistory.metricscomparison.evaluation.SimilarityMetric;
+import de.unitrier.st.soposthistory.metricscomparison.io.OutputPipeline;
+import de.unitrier.st.soposthistory.metricscomparison.io.PackedGroundTruth;
+import de.unitrier.st.soposthistory.metricscomparison.io.PostHistoryMappedReader;
+import de.unitrier.st.soposthistory.metricscomparison.io.PostHistoryRecord;
+import de.unitrier.st.soposthistory.metricscomparison.io.SampleManifest;
+import de.unitrier.st.soposthistory.metricscomparison.monitoring.EvaluationEventLog;
+import de.unitrier.st.soposthistory.metricscomparison.monitoring.EvaluationProgress;
+import de.unitrier.st.soposthistory.version.PostVersion;
 import de.unitrier.st.soposthistory.version.PostVersionList;
 import de.unitrier.st.util.Util;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.apache.commons.csv.QuoteMode;
 import org.junit.jupiter.api.Test;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
 import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
 
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.junit.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class MetricEvaluationTest {
@@ -100,6 +140,483 @@ public class MetricEvaluationTest {
         }
     }
 
+    @Test
+    void testMetricEvaluationManagerWithContentDeduplication() throws IOException {
+        MetricEvaluationManager manager = MetricEvaluationManager.DEFAULT
+                .withName("TestMetricEvaluationManagerWithContentDeduplication")
+                .withInputPaths(pathToPostIdList, pathToPostHistory, pathToGroundTruth)
+                .withOutputDirPath(testOutputDir)
+                .withAllSimilarityMetrics(false)
+                .withContentDeduplication(true)
+                .initialize();
+
+        manager.addSimilarityMetric(
+                MetricEvaluationManager.getSimilarityMetric("fourGramOverlap", 0.6)
+        );
+
+        Thread managerThread = new Thread(manager);
+        managerThread.start();
+        try {
+            managerThread.join();
+            assertTrue(manager.isFinished()); // assert that execution of manager successfully finished
+
+            // skipping comparisons of identical contents must not change the results
+            List<Integer> postHistoryIds_3758880 = manager.getPostGroundTruths().get(3758880).getPostHistoryIds();
+            MetricEvaluationPerPost evaluation_a_3758880 = manager.getMetricEvaluation(3758880, "fourGramOverlap", 0.6);
+            validateAnswer3758880(postHistoryIds_3758880, evaluation_a_3758880);
+
+            List<Integer> postHistoryIds_22037280 = manager.getPostGroundTruths().get(22037280).getPostHistoryIds();
+            MetricEvaluationPerPost evaluation_a_22037280 = manager.getMetricEvaluation(22037280, "fourGramOverlap", 0.6);
+            validateAnswer22037280(postHistoryIds_22037280, evaluation_a_22037280);
+
+            // the comparisons answered without running the metric are written to the results per sample
+            List<String> resultsPerSample = Files.readAllLines(testOutputDir.resolve("TestMetricEvaluationManagerWithContentDeduplication_per_sample.csv"));
+            assertTrue(resultsPerSample.get(0).endsWith(";AvoidedComparisons"));
+            for (String line : resultsPerSample.subList(1, resultsPerSample.size())) {
+                assertTrue(Double.parseDouble(line.substring(line.lastIndexOf(';') + 1)) > 0);
+            }
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Test
+    void testMetricEvaluationManagerWithOffHeapStorage() throws IOException {
+        MetricEvaluationManager manager = MetricEvaluationManager.DEFAULT
+                .withName("TestMetricEvaluationManagerWithOffHeapStorage")
+                .withInputPaths(pathToPostIdList, pathToPostHistory, pathToGroundTruth)
+                .withOutputDirPath(testOutputDir)
+                .withAllSimilarityMetrics(false)
+                .withOffHeapStorage(true)
+                .initialize();
+
+        // post version lists and ground truths are not kept on the heap
+        assertTrue(manager.getPostVersionLists().isEmpty());
+        assertTrue(manager.getPostIds().contains(3758880));
+
+        manager.addSimilarityMetric(
+                MetricEvaluationManager.getSimilarityMetric("fourGramOverlap", 0.6)
+        );
+
+        Thread managerThread = new Thread(manager);
+        managerThread.start();
+        try {
+            managerThread.join();
+            assertTrue(manager.isFinished()); // assert that execution of manager successfully finished
+
+            // results must not depend on where the posts are stored
+            MetricEvaluationPerPost evaluation_a_3758880 = manager.getMetricEvaluation(3758880, "fourGramOverlap", 0.6);
+            validateAnswer3758880(evaluation_a_3758880.getPostHistoryIds(), evaluation_a_3758880);
+
+            MetricEvaluationPerPost evaluation_a_22037280 = manager.getMetricEvaluation(22037280, "fourGramOverlap", 0.6);
+            validateAnswer22037280(evaluation_a_22037280.getPostHistoryIds(), evaluation_a_22037280);
+
+            // the evaluations must not keep the posts they evaluated
+            assertTrue(evaluation_a_3758880.isPostReleased());
+            assertTrue(evaluation_a_22037280.isPostReleased());
+
+            // without a content store, the results per sample do not have the column AvoidedComparisons
+            List<String> resultsPerSample = Files.readAllLines(testOutputDir.resolve("TestMetricEvaluationManagerWithOffHeapStorage_per_sample.csv"));
+            assertTrue(resultsPerSample.get(0).endsWith(";FailureRateCode"));
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Test
+    void testMetricEvaluationManagerWithStreaming() throws IOException {
+        MetricEvaluationManager manager = MetricEvaluationManager.DEFAULT
+                .withName("TestMetricEvaluationManagerWithoutStreaming")
+                .withInputPaths(pathToPostIdList, pathToPostHistory, pathToGroundTruth)
+                .withOutputDirPath(testOutputDir)
+                .withAllSimilarityMetrics(false)
+                .initialize();
+        MetricEvaluationManager streamingManager = MetricEvaluationManager.DEFAULT
+                .withName("TestMetricEvaluationManagerWithStreaming")
+                .withInputPaths(pathToPostIdList, pathToPostHistory, pathToGroundTruth)
+                .withOutputDirPath(testOutputDir)
+                .withAllSimilarityMetrics(false)
+                .withStreaming(true)
+                .initialize();
+
+        // posts are not loaded before the evaluation
+        assertTrue(streamingManager.getPostVersionLists().isEmpty());
+
+        for (MetricEvaluationManager currentManager : Arrays.asList(manager, streamingManager)) {
+            currentManager.addSimilarityMetric(
+                    MetricEvaluationManager.getSimilarityMetric("fourGramOverlap", 0.6)
+            );
+            currentManager.addSimilarityMetric(
+                    MetricEvaluationManager.getSimilarityMetric("levenshteinNormalized", 0.3)
+            );
+            currentManager.run();
+            assertTrue(currentManager.isFinished());
+        }
+
+        // aggregated results must not depend on the order in which posts and metrics are evaluated
+        List<String> resultsPerSample = readResultsWithoutRuntime(testOutputDir.resolve("TestMetricEvaluationManagerWithoutStreaming_per_sample.csv"));
+        List<String> resultsPerSampleStreaming = readResultsWithoutRuntime(testOutputDir.resolve("TestMetricEvaluationManagerWithStreaming_per_sample.csv"));
+        assertEquals(3, resultsPerSample.size()); // header and two metrics
+        assertEquals(resultsPerSample, resultsPerSampleStreaming);
+
+        // results per post are written while streaming
+        assertEquals(
+                Files.readAllLines(testOutputDir.resolve("TestMetricEvaluationManagerWithoutStreaming_per_post.csv")).size(),
+                Files.readAllLines(testOutputDir.resolve("TestMetricEvaluationManagerWithStreaming_per_post.csv")).size()
+        );
+
+        // modes that read all posts in advance cannot be combined with streaming
+        assertThrows(IllegalStateException.class, () -> MetricEvaluationManager.DEFAULT
+                .withName("TestMetricEvaluationManagerWithStreamingAndSweepPlanning")
+                .withInputPaths(pathToPostIdList, pathToPostHistory, pathToGroundTruth)
+                .withOutputDirPath(testOutputDir)
+                .withAllSimilarityMetrics(false)
+                .withStreaming(true)
+                .withSweepPlanning(true)
+                .initialize()
+        );
+    }
+
+    @Test
+    void testMetricEvaluationManagerWithSweepPlanning() throws IOException {
+        MetricEvaluationManager manager = MetricEvaluationManager.DEFAULT
+                .withName("TestMetricEvaluationManagerWithSweepPlanning")
+                .withInputPaths(pathToPostIdList, pathToPostHistory, pathToGroundTruth)
+                .withOutputDirPath(testOutputDir)
+                .withAllSimilarityMetrics(false)
+                .withSweepPlanning(true)
+                .initialize();
+
+        // equality-based metrics yield identical results for both thresholds
+        manager.addSimilarityMetric(MetricEvaluationManager.getSimilarityMetric("equal", 0.3));
+        manager.addSimilarityMetric(MetricEvaluationManager.getSimilarityMetric("equal", 0.4));
+        manager.run();
+        assertTrue(manager.isFinished());
+
+        // the runtime (13th column) has only been measured for the representative (lowest threshold, 3rd column)
+        List<String> lines = Files.readAllLines(testOutputDir.resolve("TestMetricEvaluationManagerWithSweepPlanning_per_sample.csv"));
+        assertEquals(3, lines.size()); // header and two metrics
+        for (String line : lines.subList(1, lines.size())) {
+            String[] values = line.split(";", -1);
+            assertEquals(values[2].equals("0.4"), values[12].equals("null"));
+        }
+    }
+
+    @Test
+    void testMetricEvaluationManagerWithOutputCompression() throws IOException {
+        MetricEvaluationManager manager = MetricEvaluationManager.DEFAULT
+                .withName("TestMetricEvaluationManagerWithOutputCompression")
+                .withInputPaths(pathToPostIdList, pathToPostHistory, pathToGroundTruth)
+                .withOutputDirPath(testOutputDir)
+                .withAllSimilarityMetrics(false)
+                .withOutputCompression(true)
+                .initialize();
+
+        manager.addSimilarityMetric(
+                MetricEvaluationManager.getSimilarityMetric("fourGramOverlap", 0.6)
+        );
+        manager.run();
+        assertTrue(manager.isFinished());
+
+        // all output files have been written completely before the evaluation finished
+        for (String suffix : Arrays.asList("_per_version.csv.gz", "_per_post.csv.gz", "_per_sample.csv.gz")) {
+            Path outputFile = testOutputDir.resolve("TestMetricEvaluationManagerWithOutputCompression" + suffix);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(outputFile))))) {
+                List<String> lines = reader.lines().collect(Collectors.toList());
+                assertTrue(lines.size() > 1); // header and results
+            }
+        }
+    }
+
+    @Test
+    void testRescoringOfPersistedConnections() throws IOException {
+        MetricEvaluationManager manager = MetricEvaluationManager.DEFAULT
+                .withName("TestMetricEvaluationManagerWithConnectionPersistence")
+                .withInputPaths(pathToPostIdList, pathToPostHistory, pathToGroundTruth)
+                .withOutputDirPath(testOutputDir)
+                .withAllSimilarityMetrics(false)
+                .withConnectionPersistence(true)
+                .initialize();
+
+        manager.addSimilarityMetric(
+                MetricEvaluationManager.getSimilarityMetric("fourGramOverlap", 0.6)
+        );
+        manager.addSimilarityMetric(
+                MetricEvaluationManager.getSimilarityMetric("levenshteinNormalized", 0.3)
+        );
+        manager.run();
+        assertTrue(manager.isFinished());
+
+        // re-scoring against the unchanged ground truth must reproduce the results
+        Path rescoreOutputDir = testOutputDir.resolve("rescored");
+        MetricEvaluationManager.rescoreSample(
+                "TestMetricEvaluationManagerWithConnectionPersistence",
+                testOutputDir.resolve("TestMetricEvaluationManagerWithConnectionPersistence_connections.bin"),
+                pathToGroundTruth,
+                rescoreOutputDir,
+                false
+        );
+
+        for (String suffix : Arrays.asList("_per_version.csv", "_per_post.csv", "_per_sample.csv")) {
+            assertEquals(
+                    Files.readAllLines(testOutputDir.resolve("TestMetricEvaluationManagerWithConnectionPersistence" + suffix)),
+                    Files.readAllLines(rescoreOutputDir.resolve("TestMetricEvaluationManagerWithConnectionPersistence" + suffix))
+            );
+        }
+    }
+
+    @Test
+    void testRescoredCountsEqualEvaluatedCounts() throws IOException {
+        MetricEvaluationManager manager = MetricEvaluationManager.DEFAULT
+                .withName("TestRescoredCounts")
+                .withInputPaths(pathToPostIdList, pathToPostHistory, pathToGroundTruth)
+                .withOutputDirPath(testOutputDir)
+                .withAllSimilarityMetrics(false)
+                .withConnectionPersistence(true)
+                .initialize();
+
+        manager.addSimilarityMetric(
+                MetricEvaluationManager.getSimilarityMetric("fourGramOverlap", 0.6)
+        );
+        manager.run();
+        assertTrue(manager.isFinished());
+
+        Path rescoreOutputDir = testOutputDir.resolve("rescored");
+        MetricEvaluationManager.rescoreSample(
+                "TestRescoredCounts",
+                testOutputDir.resolve("TestRescoredCounts_connections.bin"),
+                pathToGroundTruth,
+                rescoreOutputDir,
+                false
+        );
+
+        CSVFormat csvFormatPerVersion = CSVFormat.DEFAULT
+                .withDelimiter(';')
+                .withQuote('"')
+                .withQuoteMode(QuoteMode.MINIMAL)
+                .withEscape('\\')
+                .withNullString("null")
+                .withFirstRecordAsHeader();
+
+        int versionCount = 0;
+        try (CSVParser csvParser = new CSVParser(
+                Files.newBufferedReader(rescoreOutputDir.resolve("TestRescoredCounts_per_version.csv")), csvFormatPerVersion)) {
+            for (CSVRecord record : csvParser) {
+                int postId = Integer.parseInt(record.get("PostId"));
+                int postHistoryId = Integer.parseInt(record.get("PostHistoryId"));
+                MetricEvaluationPerPost evaluation = manager.getMetricEvaluation(postId, "fourGramOverlap", 0.6);
+
+                MetricResult resultsText = evaluation.getResultsText(postHistoryId);
+                assertEquals(resultsText.getTruePositives(), Integer.parseInt(record.get("TruePositivesText")));
+                assertEquals(resultsText.getFalsePositives(), Integer.parseInt(record.get("FalsePositivesText")));
+                assertEquals(resultsText.getTrueNegatives(), Integer.parseInt(record.get("TrueNegativesText")));
+                assertEquals(resultsText.getFalseNegatives(), Integer.parseInt(record.get("FalseNegativesText")));
+
+                MetricResult resultsCode = evaluation.getResultsCode(postHistoryId);
+                assertEquals(resultsCode.getTruePositives(), Integer.parseInt(record.get("TruePositivesCode")));
+                assertEquals(resultsCode.getFalsePositives(), Integer.parseInt(record.get("FalsePositivesCode")));
+                assertEquals(resultsCode.getTrueNegatives(), Integer.parseInt(record.get("TrueNegativesCode")));
+                assertEquals(resultsCode.getFalseNegatives(), Integer.parseInt(record.get("FalseNegativesCode")));
+
+                versionCount++;
+            }
+        }
+        assertTrue(versionCount > 0);
+    }
+
+    @Test
+    void testMergeOfForkResults() throws IOException {
+        Path forksDir = testOutputDir.resolve("forks");
+        Path forkOutputDir1 = forksDir.resolve("fourGramOverlap");
+        Path forkOutputDir2 = forksDir.resolve("levenshtein");
+        Path mergedOutputDir = testOutputDir.resolve("merged");
+        for (Path dir : Arrays.asList(forkOutputDir1, forkOutputDir2, mergedOutputDir)) {
+            Files.createDirectories(dir);
+            try (Stream<Path> paths = Files.list(dir)) {
+                for (Path path : (Iterable<Path>) paths::iterator) {
+                    Files.delete(path);
+                }
+            }
+        }
+
+        String header = "MetricText;ThresholdText;PostId;Runtime";
+        Files.write(forkOutputDir1.resolve("sample_per_post.csv"), Arrays.asList(header,
+                "fourGramOverlap;0.5;1;10", "fourGramOverlap;0.5;2;20", "fourGramOverlap;0.6;1;30"));
+        Files.write(forkOutputDir2.resolve("sample_per_post.csv"), Arrays.asList(header,
+                "levenshtein;0.5;1;40", "levenshtein;0.5;2;50"));
+        // header only
+        Files.write(forkOutputDir1.resolve("MetricComparison_aggregated.csv"), Collections.singletonList(header));
+        Files.write(forkOutputDir2.resolve("MetricComparison_aggregated.csv"), Arrays.asList(header,
+                "levenshtein;0.5;null;90"));
+        // empty file, the header is taken from the next fork
+        Files.write(forkOutputDir1.resolve("sample_per_version.csv"), Collections.emptyList());
+        Files.write(forkOutputDir2.resolve("sample_per_version.csv"), Arrays.asList(header,
+                "levenshtein;0.5;1;40"));
+        // only CSV files are merged
+        Files.write(forkOutputDir2.resolve("sample_connections.bin"), Collections.singletonList("binary"));
+
+        ForkedTimingRunner.mergeResults(Arrays.asList(forkOutputDir1, forkOutputDir2), mergedOutputDir);
+
+        List<String> mergedPerPost = Files.readAllLines(mergedOutputDir.resolve("sample_per_post.csv"));
+        assertEquals(6, mergedPerPost.size());
+        assertEquals(header, mergedPerPost.get(0));
+        assertEquals(1, mergedPerPost.stream().filter(header::equals).count());
+        assertEquals("fourGramOverlap;0.5;1;10", mergedPerPost.get(1));
+        assertEquals("levenshtein;0.5;2;50", mergedPerPost.get(5));
+
+        assertEquals(Arrays.asList(header, "levenshtein;0.5;null;90"),
+                Files.readAllLines(mergedOutputDir.resolve("MetricComparison_aggregated.csv")));
+        assertEquals(Arrays.asList(header, "levenshtein;0.5;1;40"),
+                Files.readAllLines(mergedOutputDir.resolve("sample_per_version.csv")));
+        assertFalse(Files.exists(mergedOutputDir.resolve("sample_connections.bin")));
+    }
+
+    @Test
+    void testEvaluationEventLogRateLimit() {
+        AtomicLong now = new AtomicLong(10000);
+        EvaluationEventLog eventLog = new EvaluationEventLog(100, 2, now::get);
+        Logger eventLogger = createEventLogger(new ArrayList<>(), null, null);
+
+        // at most two events per category are logged per second, further events are counted as suppressed
+        assertTrue(eventLog.acquire(eventLogger, Level.FINE, "a"));
+        assertTrue(eventLog.acquire(eventLogger, Level.FINE, "a"));
+        assertFalse(eventLog.acquire(eventLogger, Level.FINE, "a"));
+        now.addAndGet(999);
+        assertFalse(eventLog.acquire(eventLogger, Level.FINE, "a"));
+        assertEquals(2, eventLog.getSuppressed("a"));
+
+        // the categories have separate windows
+        assertTrue(eventLog.acquire(eventLogger, Level.FINE, "b"));
+        assertEquals(0, eventLog.getSuppressed("b"));
+
+        // a new window starts one second after the start of the previous one
+        now.addAndGet(1);
+        assertTrue(eventLog.acquire(eventLogger, Level.FINE, "a"));
+        assertTrue(eventLog.acquire(eventLogger, Level.FINE, "a"));
+        assertFalse(eventLog.acquire(eventLogger, Level.FINE, "a"));
+        assertEquals(3, eventLog.getSuppressed("a"));
+
+        // events that are not loggable are neither logged nor suppressed
+        eventLogger.setLevel(Level.INFO);
+        assertFalse(eventLog.acquire(eventLogger, Level.FINE, "c"));
+        assertFalse(eventLog.acquire(null, Level.FINE, "c"));
+        assertEquals(0, eventLog.getSuppressed("c"));
+        assertEquals(0, eventLog.getLogged("a"));
+    }
+
+    @Test
+    void testEvaluationEventLogFlushAndDrop() throws InterruptedException {
+        EvaluationEventLog eventLog = new EvaluationEventLog(1, 100, System::currentTimeMillis);
+        List<String> messages = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch handlerEntered = new CountDownLatch(1);
+        CountDownLatch handlerReleased = new CountDownLatch(1);
+        Logger eventLogger = createEventLogger(messages, handlerEntered, handlerReleased);
+
+        // the first event blocks the writer thread, the second one fills the queue, the third one is dropped
+        eventLog.log(eventLogger, Level.FINE, "test", "first", "postId", 1);
+        assertTrue(handlerEntered.await(1, TimeUnit.MINUTES));
+        eventLog.log(eventLogger, Level.FINE, "test", "second", "postId", 2);
+        eventLog.log(eventLogger, Level.FINE, "test", "third", "postId", 3);
+        assertEquals(2, eventLog.getLogged("test"));
+        assertEquals(1, eventLog.getDroppedEvents());
+
+        // flush returns after all enqueued events have been logged in their order
+        handlerReleased.countDown();
+        eventLog.flush(eventLogger);
+        assertEquals(2, messages.size());
+        assertTrue(messages.get(0).startsWith("[test] first {thread="));
+        assertTrue(messages.get(0).endsWith(", postId=1}"));
+        assertTrue(messages.get(1).startsWith("[test] second {thread="));
+        assertTrue(messages.get(1).endsWith(", postId=2}"));
+
+        eventLog.log(eventLogger, Level.FINE, "test", "fourth");
+        eventLog.flush(eventLogger);
+        assertEquals(3, messages.size());
+        assertTrue(messages.get(2).startsWith("[test] fourth {thread="));
+        assertEquals(3, eventLog.getLogged("test"));
+        assertEquals(1, eventLog.getDroppedEvents());
+    }
+
+    private static Logger createEventLogger(List<String> messages, CountDownLatch handlerEntered,
+                                            CountDownLatch handlerReleased) {
+        Logger eventLogger = Logger.getAnonymousLogger();
+        eventLogger.setUseParentHandlers(false);
+        eventLogger.setLevel(Level.ALL);
+        eventLogger.addHandler(new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                messages.add(record.getMessage());
+                if (handlerEntered != null && handlerEntered.getCount() > 0) {
+                    handlerEntered.countDown();
+                    try {
+                        handlerReleased.await(1, TimeUnit.MINUTES);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        return eventLogger;
+    }
+
+    @Test
+    void testEvaluationProgressMBean() throws JMException {
+        EvaluationProgress.registerMBean();
+        EvaluationProgress.registerMBean(); // registering twice must not fail
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(EvaluationProgress.OBJECT_NAME);
+        assertTrue(server.isRegistered(name));
+
+        // the progress is shared by all managers of the JVM, i.e., only the changes of the counters are checked
+        long plannedPostEvaluations = (Long) server.getAttribute(name, "PlannedPostEvaluations");
+        long completedPostEvaluations = (Long) server.getAttribute(name, "CompletedPostEvaluations");
+        long completedComparisons = (Long) server.getAttribute(name, "CompletedComparisons");
+
+        EvaluationProgress progress = EvaluationProgress.getInstance();
+        progress.addPlannedPostEvaluations(5);
+        progress.postEvaluated(10);
+        progress.postEvaluated(7);
+        progress.setCurrentEvaluation(424242, "TestSample", "TestMetric");
+        progress.setQueueDepthSupplier(() -> 3);
+        try {
+            assertEquals(plannedPostEvaluations + 5, (long) (Long) server.getAttribute(name, "PlannedPostEvaluations"));
+            assertEquals(completedPostEvaluations + 2, (long) (Long) server.getAttribute(name, "CompletedPostEvaluations"));
+            assertEquals(completedComparisons + 17, (long) (Long) server.getAttribute(name, "CompletedComparisons"));
+            assertEquals(3, (int) (Integer) server.getAttribute(name, "QueueDepth"));
+            assertTrue((Double) server.getAttribute(name, "PostsPerSecond") >= 0);
+            assertTrue((Long) server.getAttribute(name, "MaxHeapMemory") != 0);
+            assertTrue(Arrays.asList((String[]) server.getAttribute(name, "CurrentEvaluations"))
+                    .contains("Thread 424242: (TestSample; TestMetric)"));
+
+            progress.clearCurrentEvaluation(424242);
+            assertFalse(Arrays.asList((String[]) server.getAttribute(name, "CurrentEvaluations"))
+                    .contains("Thread 424242: (TestSample; TestMetric)"));
+        } finally {
+            progress.clearCurrentEvaluation(424242);
+            progress.setQueueDepthSupplier(() -> 0);
+        }
+    }
+
+    private List<String> readResultsWithoutRuntime(Path file) throws IOException {
+        // the runtime is the 13th column (see MetricEvaluationPerSample.writeToCSV)
+        return Files.readAllLines(file).stream()
+                .map(line -> {
+                    List<String> values = new LinkedList<>(Arrays.asList(line.split(";", -1)));
+                    values.remove(12);
+                    return String.join(";", values);
+                })
+                .collect(Collectors.toList());
+    }
+
     private void validateAnswer3758880(List<Integer> postHistoryIds_3758880, MetricEvaluationPerPost evaluation_a_3758880) {
         /* validate answer 3758880 */
         // first version has never predecessors
@@ -547,6 +1064,251 @@ public class MetricEvaluationTest {
                 3, 0, 2*3 + 3, 0);
     }
 
+    @Test
+    void testMappedPostHistoryReader() throws IOException {
+        validateMappedPostHistoryReader(pathToPostIdList, pathToPostHistory);
+
+        // sample with escaped quotes and backslashes in the text (e.g., post 29071745)
+        Path sampleDir = Paths.get(pathToSamplesComparisonTestDir.toString(), "PostId_VersionCount_SO_17-06_sample_100_2");
+        validateMappedPostHistoryReader(
+                Paths.get(sampleDir.toString(), "PostId_VersionCount_SO_17-06_sample_100_2.csv"),
+                Paths.get(sampleDir.toString(), "files")
+        );
+    }
+
+    @Test
+    void testMappedPostHistoryReaderEscapes() throws IOException {
+        // values must be the same as the ones commons-csv reads with the format of the PostHistory files
+        CSVFormat csvFormatPostHistory = CSVFormat.DEFAULT
+                .withHeader("Id", "PostId", "UserId", "PostHistoryTypeId", "RevisionGUID", "CreationDate", "Text", "UserDisplayName", "Comment")
+                .withDelimiter(';')
+                .withQuote('"')
+                .withQuoteMode(QuoteMode.MINIMAL)
+                .withEscape('\\')
+                .withNullString("null")
+                .withFirstRecordAsHeader();
+
+        Path pathToFiles = Paths.get(pathToSamplesComparisonTestDir.toString(),
+                "PostId_VersionCount_SO_17-06_sample_100_2", "files");
+        int postId = 29071745;
+
+        List<CSVRecord> expected;
+        try (CSVParser csvParser = new CSVParser(
+                Files.newBufferedReader(Paths.get(pathToFiles.toString(), postId + ".csv")), csvFormatPostHistory)) {
+            expected = csvParser.getRecords();
+        }
+        expected.sort(Comparator.comparingInt(record -> Integer.parseInt(record.get("Id"))));
+        List<PostHistoryRecord> actual = PostHistoryMappedReader.readRecords(pathToFiles, postId, false);
+
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).get("Text"), actual.get(i).getText());
+            assertEquals(expected.get(i).get("Comment"), actual.get(i).getComment());
+        }
+        assertTrue(actual.stream().anyMatch(record -> record.getText().contains("expect \\\"password:")));
+    }
+
+    private static void validateMappedPostHistoryReader(Path pathToPostIdList, Path pathToPostHistory) throws IOException {
+        List<String> lines = Files.readAllLines(pathToPostIdList);
+        for (String line : lines.subList(1, lines.size())) {
+            String[] values = line.split(";");
+            int postId = Integer.parseInt(values[0]);
+            int postTypeId = Integer.parseInt(values[1]);
+
+            PostVersionList expected = PostVersionList.readFromCSV(pathToPostHistory, postId, postTypeId, false);
+            PostVersionList actual = PostHistoryMappedReader.readPostVersionList(pathToPostHistory, postId, postTypeId);
+
+            assertEquals(expected.getPostHistoryIds(), actual.getPostHistoryIds());
+            for (int i = 0; i < expected.size(); i++) {
+                PostVersion expectedVersion = expected.get(i);
+                PostVersion actualVersion = actual.get(i);
+                assertEquals(
+                        expectedVersion.getTextBlocks().stream().map(TextBlockVersion::getContent).collect(Collectors.toList()),
+                        actualVersion.getTextBlocks().stream().map(TextBlockVersion::getContent).collect(Collectors.toList())
+                );
+                assertEquals(
+                        expectedVersion.getCodeBlocks().stream().map(CodeBlockVersion::getContent).collect(Collectors.toList()),
+                        actualVersion.getCodeBlocks().stream().map(CodeBlockVersion::getContent).collect(Collectors.toList())
+                );
+            }
+        }
+    }
+
+    @Test
+    void testPackedGroundTruth() throws IOException {
+        List<String> lines = Files.readAllLines(pathToPostIdList);
+        for (String line : lines.subList(1, lines.size())) {
+            int postId = Integer.parseInt(line.split(";")[0]);
+            PostGroundTruth expected = PostGroundTruth.readFromCSV(pathToGroundTruth, postId);
+
+            // packed ground truths are stored as bytes off-heap and in manifests
+            PackedGroundTruth actual = PackedGroundTruth.read(ByteBuffer.wrap(PackedGroundTruth.of(expected).toByteArray()));
+
+            assertEquals(postId, actual.getPostId());
+            assertEquals(expected.getPostHistoryIds(), actual.getPostHistoryIds());
+            assertEquals(expected.getPossibleComparisons(), actual.getPossibleComparisons());
+            for (Set<Integer> postBlockTypeFilter : Arrays.asList(TextBlockVersion.getPostBlockTypeIdFilter(), CodeBlockVersion.getPostBlockTypeIdFilter())) {
+                assertEquals(expected.getPossibleComparisons(postBlockTypeFilter), actual.getPossibleComparisons(postBlockTypeFilter));
+                for (int postHistoryId : expected.getPostHistoryIds()) {
+                    assertEquals(expected.getPossibleComparisons(postHistoryId, postBlockTypeFilter),
+                            actual.getPossibleComparisons(postHistoryId, postBlockTypeFilter));
+                    assertEquals(expected.getPossibleConnections(postHistoryId, postBlockTypeFilter),
+                            actual.getPossibleConnections(postHistoryId, postBlockTypeFilter));
+                    assertEquals(expected.getConnections(postHistoryId, postBlockTypeFilter),
+                            actual.getConnections(postHistoryId, postBlockTypeFilter));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testOutputPipelineFailure() throws IOException {
+        Util.createDirectory(testOutputDir);
+        OutputPipeline outputPipeline = new OutputPipeline("TestOutputPipelineFailure", false);
+        Writer validWriter = outputPipeline.open(testOutputDir.resolve("TestOutputPipelineFailure.csv"));
+        validWriter.write("valid");
+        validWriter.flush();
+        // the writer thread cannot create a file in a directory that does not exist
+        Writer invalidWriter = outputPipeline.open(testOutputDir.resolve("missing").resolve("TestOutputPipelineFailure.csv"));
+        invalidWriter.write("invalid");
+        invalidWriter.flush();
+        // hand over chunks until the failure of the writer thread is reported
+        Writer probeWriter = outputPipeline.open(testOutputDir.resolve("TestOutputPipelineFailureProbe.csv"));
+        assertThrows(IOException.class, () -> {
+            while (true) {
+                probeWriter.write("probe");
+                probeWriter.flush();
+            }
+        });
+
+        // closing reports the failure and stops the writer thread, which closes the open files
+        assertThrows(IOException.class, outputPipeline::close);
+        assertFalse(Thread.getAllStackTraces().keySet().stream()
+                .anyMatch(thread -> thread.getName().equals("output-pipeline-TestOutputPipelineFailure")));
+        assertEquals("valid", new String(Files.readAllBytes(testOutputDir.resolve("TestOutputPipelineFailure.csv")), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testSampleManifest() throws IOException {
+        Util.createDirectory(testOutputDir);
+        Path packFile = testOutputDir.resolve("gt_test.pack");
+        SampleManifest.build(pathToPostIdList, pathToPostHistory, pathToGroundTruth, packFile);
+
+        // the manifest is read from the pack and index files
+        SampleManifest manifest = SampleManifest.open(packFile);
+
+        List<String> lines = Files.readAllLines(pathToPostIdList);
+        assertEquals(lines.subList(1, lines.size()).stream().distinct().count(), manifest.getPostIds().size());
+        for (String line : lines.subList(1, lines.size())) {
+            String[] values = line.split(";");
+            int postId = Integer.parseInt(values[0]);
+
+            assertTrue(manifest.contains(postId));
+            assertEquals(Integer.parseInt(values[1]), manifest.getPostTypeId(postId));
+            assertEquals(Integer.parseInt(values[2]), manifest.getVersionCount(postId));
+
+            assertEquals(
+                    ByteBuffer.wrap(Files.readAllBytes(pathToPostHistory.resolve(postId + ".csv"))),
+                    manifest.getPostHistory(postId)
+            );
+            // the ground truth is packed (see testPackedGroundTruth)
+            PostGroundTruth expectedGroundTruth = PostGroundTruth.readFromCSV(pathToGroundTruth, postId);
+            PackedGroundTruth actualGroundTruth = manifest.readGroundTruth(postId);
+            assertEquals(expectedGroundTruth.getPostHistoryIds(), actualGroundTruth.getPostHistoryIds());
+            assertEquals(expectedGroundTruth.getPossibleComparisons(), actualGroundTruth.getPossibleComparisons());
+            for (int postHistoryId : expectedGroundTruth.getPostHistoryIds()) {
+                assertEquals(expectedGroundTruth.getConnections(postHistoryId, TextBlockVersion.getPostBlockTypeIdFilter()),
+                        actualGroundTruth.getConnections(postHistoryId, TextBlockVersion.getPostBlockTypeIdFilter()));
+                assertEquals(expectedGroundTruth.getConnections(postHistoryId, CodeBlockVersion.getPostBlockTypeIdFilter()),
+                        actualGroundTruth.getConnections(postHistoryId, CodeBlockVersion.getPostBlockTypeIdFilter()));
+            }
+            assertEquals(Integer.parseInt(values[2]), manifest.readPostVersionList(postId).size());
+        }
+    }
+
+    @Test
+    void testSampleManifestUpToDate() throws IOException {
+        Util.createDirectory(testOutputDir);
+        Path postIdList = testOutputDir.resolve("gt_test_post_ids.csv");
+        Files.copy(pathToPostIdList, postIdList, StandardCopyOption.REPLACE_EXISTING);
+        Path groundTruth = testOutputDir.resolve("gt_test_up_to_date_gt");
+        Util.createDirectory(groundTruth);
+        try (Stream<Path> groundTruthFiles = Files.list(pathToGroundTruth)) {
+            for (Path groundTruthFile : (Iterable<Path>) groundTruthFiles::iterator) {
+                Files.copy(groundTruthFile, groundTruth.resolve(groundTruthFile.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Path packFile = testOutputDir.resolve("gt_test_up_to_date.pack");
+        Files.deleteIfExists(packFile);
+
+        assertFalse(SampleManifest.isUpToDate(packFile, postIdList, pathToPostHistory, groundTruth));
+        SampleManifest.openOrBuild(postIdList, pathToPostHistory, groundTruth, packFile);
+        assertTrue(SampleManifest.isUpToDate(packFile, postIdList, pathToPostHistory, groundTruth));
+
+        // a changed post id list makes the manifest outdated
+        Files.setLastModifiedTime(postIdList, FileTime.fromMillis(Files.getLastModifiedTime(postIdList).toMillis() + 1000));
+        assertFalse(SampleManifest.isUpToDate(packFile, postIdList, pathToPostHistory, groundTruth));
+        SampleManifest.openOrBuild(postIdList, pathToPostHistory, groundTruth, packFile);
+        assertTrue(SampleManifest.isUpToDate(packFile, postIdList, pathToPostHistory, groundTruth));
+
+        // a corrected ground truth file makes the manifest outdated
+        Path groundTruthFile = groundTruth.resolve("completed_3758880.csv");
+        Files.setLastModifiedTime(groundTruthFile, FileTime.fromMillis(Files.getLastModifiedTime(groundTruthFile).toMillis() + 1000));
+        assertFalse(SampleManifest.isUpToDate(packFile, postIdList, pathToPostHistory, groundTruth));
+        SampleManifest.openOrBuild(postIdList, pathToPostHistory, groundTruth, packFile);
+        assertTrue(SampleManifest.isUpToDate(packFile, postIdList, pathToPostHistory, groundTruth));
+
+        // a failed build keeps the previous pack and index, which are still consistent, but outdated
+        Files.delete(groundTruthFile);
+        assertFalse(SampleManifest.isUpToDate(packFile, postIdList, pathToPostHistory, groundTruth));
+        assertThrows(Exception.class,
+                () -> SampleManifest.openOrBuild(postIdList, pathToPostHistory, groundTruth, packFile));
+        assertFalse(SampleManifest.isUpToDate(packFile, postIdList, pathToPostHistory, groundTruth));
+        assertEquals(
+                ByteBuffer.wrap(Files.readAllBytes(pathToPostHistory.resolve("3758880.csv"))),
+                SampleManifest.open(packFile).getPostHistory(3758880)
+        );
+    }
+
+    @Test
+    void testMetricEvaluationManagerWithManifest() throws IOException {
+        Util.createDirectory(testOutputDir);
+        MetricEvaluationManager manager = MetricEvaluationManager.DEFAULT
+                .withName("TestMetricEvaluationManagerWithManifest")
+                .withInputPaths(pathToPostIdList, pathToPostHistory, pathToGroundTruth)
+                .withOutputDirPath(testOutputDir)
+                .withManifestPath(testOutputDir.resolve("gt_test_manager.pack"))
+                .withAllSimilarityMetrics(false)
+                .initialize();
+
+        // post version lists and ground truths are not kept on the heap
+        assertTrue(manager.getPostVersionLists().isEmpty());
+        assertTrue(manager.getPostIds().contains(3758880));
+
+        manager.addSimilarityMetric(
+                MetricEvaluationManager.getSimilarityMetric("fourGramOverlap", 0.6)
+        );
+        manager.run();
+        assertTrue(manager.isFinished());
+
+        // results must not depend on where the posts are read from
+        MetricEvaluationPerPost evaluation_a_3758880 = manager.getMetricEvaluation(3758880, "fourGramOverlap", 0.6);
+        validateAnswer3758880(evaluation_a_3758880.getPostHistoryIds(), evaluation_a_3758880);
+
+        MetricEvaluationPerPost evaluation_a_22037280 = manager.getMetricEvaluation(22037280, "fourGramOverlap", 0.6);
+        validateAnswer22037280(evaluation_a_22037280.getPostHistoryIds(), evaluation_a_22037280);
+
+        assertThrows(IllegalStateException.class, () -> MetricEvaluationManager.DEFAULT
+                .withName("TestMetricEvaluationManagerWithManifestAndStreaming")
+                .withInputPaths(pathToPostIdList, pathToPostHistory, pathToGroundTruth)
+                .withOutputDirPath(testOutputDir)
+                .withManifestPath(testOutputDir.resolve("gt_test_manager.pack"))
+                .withAllSimilarityMetrics(false)
+                .withStreaming(true)
+                .initialize()
+        );
+    }
+
     private void validateResults(PostVersionList postVersionList, PostGroundTruth postGroundTruth,
                                  Integer postHistoryId, Set<Integer> postBlockTypeFilter,
                                  int expectedTruePositives, int expectedFalsePositives,
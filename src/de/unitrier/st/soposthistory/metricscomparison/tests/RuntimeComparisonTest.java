@@ -0,0 +1,265 @@
+package de.unitrier.st.soposthistory.metricscomparison.tests;
+
+import de.unitrier.st.soposthistory.metricscomparison.statistics.RuntimeComparison;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+import static de.unitrier.st.soposthistory.metricscomparison.evaluation.MetricEvaluationManager.csvFormatMetricEvaluationPerPost;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RuntimeComparisonTest {
+    private static Path testOutputDir = Paths.get(MetricEvaluationTest.testOutputDir.toString(), "runtime_comparison");
+
+    private static final String[] descriptorColumns = {"MetricTypeText", "MetricText", "ThresholdText",
+            "MetricTypeTextBackup", "MetricTextBackup", "ThresholdTextBackup", "MetricTypeCode", "MetricCode",
+            "ThresholdCode", "MetricTypeCodeBackup", "MetricCodeBackup", "ThresholdCodeBackup"};
+    private static final String[] metrics = {"levenshtein", "fourGramOverlap", "winnowingTwoGramDice"};
+    private static final int runCount = 3;
+    private static final int postCount = 40;
+
+    @Test
+    void testRuntimeComparison() throws IOException {
+        // (descriptor, post id) -> runtimes of the rows with this key, per run
+        List<Map<String, List<Long>>> runtimesPerRun = new ArrayList<>();
+        Map<String, String> descriptorPerKey = new HashMap<>(); // (descriptor, post id) -> descriptor
+        List<Path> runDirs = new ArrayList<>();
+
+        Random random = new Random(42);
+        for (int run = 0; run < runCount; run++) {
+            Map<String, List<Long>> runtimes = new HashMap<>();
+            List<List<String>> records = new ArrayList<>();
+            for (int metric = 0; metric < metrics.length; metric++) {
+                for (int postId = 1; postId <= postCount; postId++) {
+                    // missing keys
+                    if ((run == 1 && postId % 7 == 0) || (run == 2 && postId % 11 == 0)) {
+                        continue;
+                    }
+
+                    // runtime of a configuration collapsed by the sweep planner (not measured)
+                    Long runtime = run == 0 && metric == 2 && postId == 17
+                            ? null
+                            : 1000L + postId * 10 + run * metric * 20 + random.nextInt(50);
+                    List<String> record = createRecord(metrics[metric], postId, runtime);
+                    records.add(record);
+
+                    // duplicate keys, in one run and in all runs
+                    if ((run == 0 && metric == 0 && postId == 5) || postId == 13) {
+                        records.add(record);
+                    }
+                }
+            }
+
+            for (List<String> record : records) {
+                String descriptor = String.join(";", record.subList(0, descriptorColumns.length));
+                String key = descriptor + ";" + record.get(descriptorColumns.length);
+                descriptorPerKey.put(key, descriptor);
+                String runtime = record.get(descriptorColumns.length + 1);
+                if (runtime != null) {
+                    runtimes.computeIfAbsent(key, k -> new ArrayList<>()).add(Long.parseLong(runtime));
+                }
+            }
+            runtimesPerRun.add(runtimes);
+
+            // the order of the rows must not matter
+            Collections.shuffle(records, random);
+            Path runDir = Paths.get(testOutputDir.toString(), "run" + run);
+            Files.createDirectories(runDir);
+            try (CSVPrinter csvPrinter = new CSVPrinter(Files.newBufferedWriter(
+                    Paths.get(runDir.toString(), "sample_per_post.csv")), csvFormatMetricEvaluationPerPost)) {
+                for (List<String> record : records) {
+                    csvPrinter.printRecord(toPerPostRecord(record));
+                }
+            }
+            runDirs.add(runDir);
+        }
+
+        // in-memory join: the rows with the same key are joined in order, keys that are not available in all runs
+        // are ignored
+        Map<String, List<long[]>> expectedPerPost = new HashMap<>(); // (descriptor, post id) -> joined runtimes
+        Map<String, List<long[]>> joinedPerDescriptor = new HashMap<>(); // descriptor -> joined runtimes
+        for (String key : descriptorPerKey.keySet()) {
+            int joinedCount = Integer.MAX_VALUE;
+            for (Map<String, List<Long>> runtimes : runtimesPerRun) {
+                joinedCount = Math.min(joinedCount, runtimes.getOrDefault(key, Collections.emptyList()).size());
+            }
+            for (int i = 0; i < joinedCount; i++) {
+                long[] joined = new long[runCount];
+                for (int run = 0; run < runCount; run++) {
+                    joined[run] = runtimesPerRun.get(run).get(key).get(i);
+                }
+                expectedPerPost.computeIfAbsent(key, k -> new ArrayList<>()).add(joined);
+                joinedPerDescriptor.computeIfAbsent(descriptorPerKey.get(key), k -> new ArrayList<>()).add(joined);
+            }
+        }
+        assertEquals(2, expectedPerPost.get(descriptorPerKey.keySet().stream()
+                .filter(key -> key.endsWith(";13")).findFirst().orElse(null)).size());
+
+        // small chunks: external sort and k-way merge of the chunks
+        Path outputDirChunked = Paths.get(testOutputDir.toString(), "chunked");
+        new RuntimeComparison(runDirs, 7).compare(outputDirChunked);
+
+        // per post
+        int perPostCount = 0;
+        String previousKey = null;
+        try (CSVParser csvParser = new CSVParser(
+                Files.newBufferedReader(Paths.get(outputDirChunked.toString(), "runtime_comparison_per_post.csv")),
+                RuntimeComparison.csvFormatRuntimeComparisonPerPost.withFirstRecordAsHeader())) {
+            for (CSVRecord record : csvParser) {
+                String key = getDescriptor(record) + ";" + record.get("PostId");
+                List<long[]> expectedRows = expectedPerPost.get(key);
+                assertTrue(expectedRows != null && !expectedRows.isEmpty(), "Unexpected row " + key);
+                long[] runtimes = expectedRows.remove(0);
+
+                double mean = mean(runtimes);
+                long min = Arrays.stream(runtimes).min().getAsLong();
+                long max = Arrays.stream(runtimes).max().getAsLong();
+                assertEquals(runtimes[0], Long.parseLong(record.get("RuntimeBase")));
+                assertEquals(min, Long.parseLong(record.get("RuntimeMin")));
+                assertEquals(max, Long.parseLong(record.get("RuntimeMax")));
+                assertEquals(max - min, Long.parseLong(record.get("RuntimeSpread")));
+                assertEquals(mean, Double.parseDouble(record.get("RuntimeMean")), 1e-9);
+                assertEquals(standardDeviation(runtimes), Double.parseDouble(record.get("RuntimeStandardDeviation")), 1e-9);
+                assertEquals(standardDeviation(runtimes) / mean, Double.parseDouble(record.get("RelativeDeviation")), 1e-9);
+                assertEquals((double) (max - min) / min, Double.parseDouble(record.get("RelativeSpread")), 1e-9);
+
+                // rows are ordered by the join key
+                if (previousKey != null && getDescriptor(record).equals(previousKey.substring(0, previousKey.lastIndexOf(';')))) {
+                    assertTrue(Integer.parseInt(record.get("PostId"))
+                            >= Integer.parseInt(previousKey.substring(previousKey.lastIndexOf(';') + 1)));
+                }
+                previousKey = key;
+                perPostCount++;
+            }
+        }
+        for (List<long[]> expectedRows : expectedPerPost.values()) {
+            assertTrue(expectedRows.isEmpty());
+        }
+        int joinedCount = joinedPerDescriptor.values().stream().mapToInt(List::size).sum();
+        assertEquals(joinedCount, perPostCount);
+
+        // per metric: paired comparison of each run with the base run
+        int perMetricCount = 0;
+        try (CSVParser csvParser = new CSVParser(
+                Files.newBufferedReader(Paths.get(outputDirChunked.toString(), "runtime_comparison_per_metric.csv")),
+                RuntimeComparison.csvFormatRuntimeComparisonPerMetric.withFirstRecordAsHeader())) {
+            for (CSVRecord record : csvParser) {
+                List<long[]> joined = joinedPerDescriptor.get(getDescriptor(record));
+                int run = Integer.parseInt(record.get("Run"));
+
+                double[] differences = new double[joined.size()];
+                List<Double> relativeDifferences = new ArrayList<>();
+                for (int i = 0; i < joined.size(); i++) {
+                    long[] runtimes = joined.get(i);
+                    differences[i] = runtimes[run] - runtimes[0];
+                    if (runtimes[0] > 0) {
+                        relativeDifferences.add(differences[i] / runtimes[0]);
+                    }
+                }
+                double meanDifference = mean(differences);
+                double standardDeviationOfDifference = standardDeviation(differences);
+                double tStatistic = meanDifference / (standardDeviationOfDifference / Math.sqrt(differences.length));
+                double pValue = 2 * normalTailProbability(Math.abs(tStatistic));
+
+                assertEquals(joined.size(), Integer.parseInt(record.get("PostCount")));
+                assertEquals(meanDifference, Double.parseDouble(record.get("MeanDifference")), 1e-9);
+                assertEquals(standardDeviationOfDifference, Double.parseDouble(record.get("StandardDeviationOfDifference")), 1e-9);
+                assertEquals(relativeDifferences.stream().mapToDouble(Double::doubleValue).average().getAsDouble(),
+                        Double.parseDouble(record.get("MeanRelativeDifference")), 1e-9);
+                assertEquals(tStatistic, Double.parseDouble(record.get("TStatistic")), 1e-9);
+                assertEquals(pValue, Double.parseDouble(record.get("PValue")), 1e-6);
+                assertEquals(pValue < 0.05, Boolean.parseBoolean(record.get("Significant")));
+                perMetricCount++;
+            }
+        }
+        assertEquals(metrics.length * (runCount - 1), perMetricCount);
+
+        // one chunk: sorted in memory, the results must be the same
+        Path outputDirInMemory = Paths.get(testOutputDir.toString(), "in_memory");
+        new RuntimeComparison(runDirs).compare(outputDirInMemory);
+        for (String file : Arrays.asList("runtime_comparison_per_post.csv", "runtime_comparison_per_metric.csv")) {
+            assertEquals(
+                    Files.readAllLines(Paths.get(outputDirChunked.toString(), file)),
+                    Files.readAllLines(Paths.get(outputDirInMemory.toString(), file))
+            );
+        }
+    }
+
+    private static List<String> createRecord(String metric, int postId, Long runtime) {
+        List<String> record = new ArrayList<>(Arrays.asList(
+                "EDIT", metric, "0.5", "NONE", null, "0.0", "EDIT", metric, "0.5", "NONE", null, "0.0"
+        ));
+        record.add(String.valueOf(postId));
+        record.add(runtime != null ? String.valueOf(runtime) : null);
+        return record;
+    }
+
+    private static List<String> toPerPostRecord(List<String> record) {
+        // columns that are not used for the comparison are zero
+        List<String> perPostRecord = new ArrayList<>();
+        for (String column : csvFormatMetricEvaluationPerPost.getHeader()) {
+            int descriptorIndex = Arrays.asList(descriptorColumns).indexOf(column);
+            if (descriptorIndex >= 0) {
+                perPostRecord.add(record.get(descriptorIndex));
+            } else if (column.equals("PostId")) {
+                perPostRecord.add(record.get(descriptorColumns.length));
+            } else if (column.equals("Runtime")) {
+                perPostRecord.add(record.get(descriptorColumns.length + 1));
+            } else {
+                perPostRecord.add("0");
+            }
+        }
+        return perPostRecord;
+    }
+
+    private static String getDescriptor(CSVRecord record) {
+        List<String> descriptor = new ArrayList<>(descriptorColumns.length);
+        for (String column : descriptorColumns) {
+            descriptor.add(record.get(column));
+        }
+        return String.join(";", descriptor);
+    }
+
+    // two-pass mean and standard deviation, independent of the running statistics of RuntimeComparison
+    private static double mean(long[] values) {
+        return Arrays.stream(values).average().orElse(0);
+    }
+
+    private static double standardDeviation(long[] values) {
+        return standardDeviation(Arrays.stream(values).asDoubleStream().toArray());
+    }
+
+    private static double mean(double[] values) {
+        return Arrays.stream(values).average().orElse(0);
+    }
+
+    private static double standardDeviation(double[] values) {
+        double mean = mean(values);
+        double sumOfSquaredDeviations = 0;
+        for (double value : values) {
+            sumOfSquaredDeviations += (value - mean) * (value - mean);
+        }
+        return Math.sqrt(sumOfSquaredDeviations / (values.length - 1));
+    }
+
+    // P(Z > x) for a standard normal Z, Simpson's rule on [x, x + 12]
+    private static double normalTailProbability(double x) {
+        int intervals = 100000;
+        double width = 12.0 / intervals;
+        double sum = 0;
+        for (int i = 0; i <= intervals; i++) {
+            double z = x + i * width;
+            double density = Math.exp(-z * z / 2) / Math.sqrt(2 * Math.PI);
+            sum += (i == 0 || i == intervals ? 1 : (i % 2 == 1 ? 4 : 2)) * density;
+        }
+        return sum * width / 3;
+    }
+}
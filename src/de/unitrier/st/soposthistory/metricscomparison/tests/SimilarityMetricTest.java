@@ -0,0 +1,382 @@
+package de.unitrier.st.soposthistory.metricscomparison.tests;
+
+import de.unitrier.st.soposthistory.blocks.PostBlockVersion;
+import de.unitrier.st.soposthistory.metricscomparison.evaluation.SimilarityMetric;
+import de.unitrier.st.soposthistory.metricscomparison.evaluation.SimilarityMetricCatalog;
+import de.unitrier.st.soposthistory.metricscomparison.similarity.BandedEditDistance;
+import de.unitrier.st.soposthistory.metricscomparison.similarity.BitParallelEditDistance;
+import de.unitrier.st.soposthistory.metricscomparison.similarity.BitParallelLongestCommonSubsequence;
+import de.unitrier.st.soposthistory.metricscomparison.similarity.DenseProfile;
+import de.unitrier.st.soposthistory.metricscomparison.similarity.MinHash;
+import de.unitrier.st.soposthistory.metricscomparison.similarity.Prefilter;
+import de.unitrier.st.soposthistory.version.PostVersion;
+import de.unitrier.st.soposthistory.version.PostVersionList;
+import de.unitrier.st.stringsimilarity.Normalization;
+import de.unitrier.st.util.Util;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.DoubleFunction;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SimilarityMetricTest {
+    private static Logger logger = null;
+
+    private static Path pathToSamplesComparisonTestDir = Paths.get("testdata", "samples_comparison_test");
+
+    // do not use for loop with += 0.1 --> leads to rounding errors
+    private static final List<Double> thresholds = Arrays.asList(0.0, 0.1, 0.2, 0.3, 0.4, 0.5, 0.6, 0.7, 0.8, 0.9, 1.0);
+
+    // pairs of blocks with the same type from consecutive versions of all posts in the test data
+    private static List<String[]> blockPairs;
+
+    static {
+        // configure logger
+        try {
+            logger = Util.getClassLogger(SimilarityMetricTest.class);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @BeforeAll
+    static void readBlockPairs() {
+        List<Path> postHistoryPaths = new ArrayList<>();
+        postHistoryPaths.add(MetricEvaluationTest.pathToPostHistory);
+        File[] sampleDirs = pathToSamplesComparisonTestDir.toFile().listFiles(File::isDirectory);
+        if (sampleDirs != null) {
+            for (File sampleDir : sampleDirs) {
+                postHistoryPaths.add(Paths.get(sampleDir.toString(), "files"));
+            }
+        }
+
+        blockPairs = new ArrayList<>();
+        for (Path postHistoryPath : postHistoryPaths) {
+            for (PostVersionList postVersionList : PostVersionList.readFromDirectory(postHistoryPath)) {
+                for (int i = 1; i < postVersionList.size(); i++) {
+                    PostVersion previousVersion = postVersionList.get(i - 1);
+                    PostVersion currentVersion = postVersionList.get(i);
+                    for (PostBlockVersion currentBlock : currentVersion.getPostBlocks()) {
+                        for (PostBlockVersion previousBlock : previousVersion.getPostBlocks()) {
+                            if (currentBlock.getPostBlockTypeId() == previousBlock.getPostBlockTypeId()) {
+                                blockPairs.add(new String[]{currentBlock.getContent(), previousBlock.getContent()});
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        logger.info(blockPairs.size() + " block pairs read.");
+    }
+
+    private void assertSameValues(BiFunction<String, String, Double> expectedMetric,
+                                  BiFunction<String, String, Double> actualMetric) {
+        assertTrue(blockPairs.size() > 0);
+        int longBlockPairs = 0;
+        for (String[] blockPair : blockPairs) {
+            double expected = expectedMetric.apply(blockPair[0], blockPair[1]);
+            double actual = actualMetric.apply(blockPair[0], blockPair[1]);
+            assertEquals(expected, actual, 1e-10,
+                    "Different values for blocks\n" + blockPair[0] + "\nand\n" + blockPair[1]);
+            if (Math.min(blockPair[0].length(), blockPair[1].length()) > 64) {
+                longBlockPairs++;
+            }
+        }
+        // the multi-word variant is used for blocks with more than 64 characters
+        assertTrue(longBlockPairs > 0);
+    }
+
+    @Test
+    void testBitParallelLevenshtein() {
+        assertSameValues(
+                de.unitrier.st.stringsimilarity.edit.Variants::levenshtein,
+                BitParallelEditDistance::levenshtein
+        );
+        assertSameValues(
+                de.unitrier.st.stringsimilarity.edit.Variants::levenshteinNormalized,
+                BitParallelEditDistance::levenshteinNormalized
+        );
+    }
+
+    @Test
+    void testBitParallelOptimalAlignment() {
+        assertSameValues(
+                de.unitrier.st.stringsimilarity.edit.Variants::optimalAlignment,
+                BitParallelEditDistance::optimalAlignment
+        );
+        assertSameValues(
+                de.unitrier.st.stringsimilarity.edit.Variants::optimalAlignmentNormalized,
+                BitParallelEditDistance::optimalAlignmentNormalized
+        );
+    }
+
+    @Test
+    void testBitParallelLongestCommonSubsequence() {
+        assertSameValues(
+                de.unitrier.st.stringsimilarity.edit.Variants::longestCommonSubsequence,
+                BitParallelLongestCommonSubsequence::longestCommonSubsequence
+        );
+        assertSameValues(
+                de.unitrier.st.stringsimilarity.edit.Variants::longestCommonSubsequenceNormalized,
+                BitParallelLongestCommonSubsequence::longestCommonSubsequenceNormalized
+        );
+
+        assertEquals(0, BitParallelLongestCommonSubsequence.longestCommonSubsequenceLength("", "abc"));
+        assertEquals(4, BitParallelLongestCommonSubsequence.longestCommonSubsequenceLength("ABCBDAB", "BDCABA"));
+        assertEquals(1.0, BitParallelLongestCommonSubsequence.longestCommonSubsequence("", ""));
+
+        // blocks with more than 64 characters
+        StringBuilder longBlock = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            longBlock.append((char) ('a' + i % 26));
+        }
+        String changedBlock = longBlock.substring(0, 63) + "XY" + longBlock.substring(66) + "Z";
+        assertEquals(197, BitParallelLongestCommonSubsequence.longestCommonSubsequenceLength(longBlock.toString(), changedBlock));
+    }
+
+    private void assertSameDecisions(BiFunction<String, String, Double> exactMetric,
+                                     DoubleFunction<BiFunction<String, String, Double>> thresholdAwareMetric) {
+        assertTrue(blockPairs.size() > 0);
+        for (double threshold : thresholds) {
+            BiFunction<String, String, Double> metric = thresholdAwareMetric.apply(threshold);
+            for (String[] blockPair : blockPairs) {
+                double expected = exactMetric.apply(blockPair[0], blockPair[1]);
+                double actual = metric.apply(blockPair[0], blockPair[1]);
+                assertEquals(expected >= threshold, actual >= threshold,
+                        "Different decisions for threshold " + threshold + " and blocks\n" + blockPair[0] + "\nand\n" + blockPair[1]);
+                if (expected >= threshold) {
+                    // accepted pairs have the exact similarity
+                    assertEquals(expected, actual, 1e-10);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testBandedLevenshtein() {
+        assertSameDecisions(
+                de.unitrier.st.stringsimilarity.edit.Variants::levenshtein,
+                BandedEditDistance::levenshtein
+        );
+        assertSameDecisions(
+                de.unitrier.st.stringsimilarity.edit.Variants::levenshteinNormalized,
+                BandedEditDistance::levenshteinNormalized
+        );
+    }
+
+    @Test
+    void testBandedOptimalAlignment() {
+        assertSameDecisions(
+                de.unitrier.st.stringsimilarity.edit.Variants::optimalAlignment,
+                BandedEditDistance::optimalAlignment
+        );
+        assertSameDecisions(
+                de.unitrier.st.stringsimilarity.edit.Variants::optimalAlignmentNormalized,
+                BandedEditDistance::optimalAlignmentNormalized
+        );
+    }
+
+    @Test
+    void testBandedEditDistanceEdgeCases() {
+        assertEquals(3, BandedEditDistance.levenshteinDistance("kitten", "sitting", 3));
+        assertEquals(3, BandedEditDistance.levenshteinDistance("kitten", "sitting", 2)); // bound exceeded
+        assertEquals(2, BandedEditDistance.levenshteinDistance("abcdef", "abcdefgh", 1)); // length difference
+        assertEquals(1, BandedEditDistance.optimalAlignmentDistance("abcdef", "abdcef", 1));
+        assertEquals(0, BandedEditDistance.levenshteinDistance("", "", 0));
+        assertEquals(1.0, (double) BandedEditDistance.levenshtein(1.0).apply("abc", "abc"));
+        assertTrue(BandedEditDistance.levenshtein(1.0).apply("abc", "abd") < 1.0);
+    }
+
+    @Test
+    void testLengthRatioPrefilter() {
+        long eliminatedComparisons = Prefilter.LENGTH_RATIO.getEliminatedComparisons();
+        assertSameDecisions(
+                BitParallelEditDistance::levenshtein,
+                threshold -> Prefilter.LENGTH_RATIO.apply(BitParallelEditDistance::levenshtein, threshold)
+        );
+        assertSameDecisions(
+                BitParallelEditDistance::optimalAlignment,
+                threshold -> Prefilter.LENGTH_RATIO.apply(BitParallelEditDistance::optimalAlignment, threshold)
+        );
+        assertTrue(Prefilter.LENGTH_RATIO.getEliminatedComparisons() > eliminatedComparisons);
+
+        // the prefilter normalizes the strings and passes them to the metric without normalization
+        eliminatedComparisons = Prefilter.NORMALIZED_LENGTH_RATIO.getEliminatedComparisons();
+        assertSameDecisions(
+                BitParallelEditDistance::levenshteinNormalized,
+                threshold -> Prefilter.NORMALIZED_LENGTH_RATIO.apply(BitParallelEditDistance::levenshtein, threshold)
+        );
+        assertSameDecisions(
+                de.unitrier.st.stringsimilarity.edit.Variants::levenshteinNormalized,
+                threshold -> Prefilter.NORMALIZED_LENGTH_RATIO.apply(de.unitrier.st.stringsimilarity.edit.Variants::levenshtein, threshold)
+        );
+        assertTrue(Prefilter.NORMALIZED_LENGTH_RATIO.getEliminatedComparisons() > eliminatedComparisons);
+    }
+
+    private static double nGramJaccard(String str1, String str2, int n) {
+        Set<String> nGrams1 = new HashSet<>();
+        for (int i = 0; i + n <= str1.length(); i++) {
+            nGrams1.add(str1.substring(i, i + n));
+        }
+        Set<String> nGrams2 = new HashSet<>();
+        for (int i = 0; i + n <= str2.length(); i++) {
+            nGrams2.add(str2.substring(i, i + n));
+        }
+        Set<String> union = new HashSet<>(nGrams1);
+        union.addAll(nGrams2);
+        nGrams1.retainAll(nGrams2);
+        return union.isEmpty() ? 1.0 : (double) nGrams1.size() / union.size();
+    }
+
+    @Test
+    void testMinHash() {
+        MinHash minHash = MinHash.nGramsNormalized(3, MinHash.DEFAULT_SIGNATURE_LENGTH);
+        assertTrue(blockPairs.size() > 0);
+        double errorSum = 0.0;
+        int comparedPairs = 0;
+        for (String[] blockPair : blockPairs) {
+            String str1 = Normalization.normalizeForNGram(blockPair[0]);
+            String str2 = Normalization.normalizeForNGram(blockPair[1]);
+            if (str1.length() < 3 || str2.length() < 3) {
+                continue;
+            }
+            errorSum += Math.abs(nGramJaccard(str1, str2, 3) - minHash.jaccard(blockPair[0], blockPair[1]));
+            comparedPairs++;
+        }
+        // the standard error of a single estimate is at most 0.5 / sqrt(128) = 0.044
+        assertTrue(errorSum / comparedPairs < 0.05);
+
+        assertEquals(1.0, minHash.jaccard("public static void", "public static void"));
+        assertEquals(1.0, minHash.dice("public static void", "public static void"));
+        assertEquals(0.0, minHash.jaccard("ab", "public static void")); // no 3-grams
+        assertEquals(0.0, minHash.jaccard("aaaa", "bbbb"), 0.05);
+    }
+
+    private static double[] nGramProfileSimilarities(String str1, String str2, int n) {
+        // n-gram -> counts in both strings
+        Map<String, int[]> profiles = new HashMap<>();
+        for (int i = 0; i + n <= str1.length(); i++) {
+            profiles.computeIfAbsent(str1.substring(i, i + n), nGram -> new int[2])[0]++;
+        }
+        for (int i = 0; i + n <= str2.length(); i++) {
+            profiles.computeIfAbsent(str2.substring(i, i + n), nGram -> new int[2])[1]++;
+        }
+        double dotProduct = 0.0, norm1 = 0.0, norm2 = 0.0, distance = 0.0, total = 0.0;
+        for (int[] counts : profiles.values()) {
+            dotProduct += (double) counts[0] * counts[1];
+            norm1 += (double) counts[0] * counts[0];
+            norm2 += (double) counts[1] * counts[1];
+            distance += Math.abs(counts[0] - counts[1]);
+            total += counts[0] + counts[1];
+        }
+        return new double[]{dotProduct / (Math.sqrt(norm1) * Math.sqrt(norm2)), 1.0 - distance / total};
+    }
+
+    @Test
+    void testDenseProfile() {
+        assertTrue(blockPairs.size() > 0);
+        for (int n = 2; n <= 4; n++) {
+            BiFunction<String, String, Double> cosine = DenseProfile.cosineNGramNormalized(n);
+            BiFunction<String, String, Double> manhattan = DenseProfile.manhattanNGramNormalized(n);
+            for (String[] blockPair : blockPairs) {
+                String str1 = Normalization.normalizeForNGram(blockPair[0]);
+                String str2 = Normalization.normalizeForNGram(blockPair[1]);
+                if (str1.length() < n || str2.length() < n) {
+                    continue;
+                }
+                double[] expected = nGramProfileSimilarities(str1, str2, n);
+                assertEquals(expected[0], cosine.apply(blockPair[0], blockPair[1]), 1e-10);
+                assertEquals(expected[1], manhattan.apply(blockPair[0], blockPair[1]), 1e-10);
+            }
+        }
+        logger.info("Dense profile metrics use " + DenseProfile.getImplementation() + " implementation.");
+    }
+
+    @Test
+    void testBitParallelEditDistanceEdgeCases() {
+        assertEquals(0, BitParallelEditDistance.levenshteinDistance("", ""));
+        assertEquals(3, BitParallelEditDistance.levenshteinDistance("", "abc"));
+        assertEquals(3, BitParallelEditDistance.levenshteinDistance("kitten", "sitting"));
+        assertEquals(2, BitParallelEditDistance.levenshteinDistance("ab", "ba"));
+        assertEquals(1, BitParallelEditDistance.optimalAlignmentDistance("ab", "ba"));
+        // optimal string alignment does not edit a substring twice
+        assertEquals(3, BitParallelEditDistance.optimalAlignmentDistance("ca", "abc"));
+
+        // blocks with more than 64 characters
+        StringBuilder longBlock = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            longBlock.append((char) ('a' + i % 26));
+        }
+        String changedBlock = longBlock.substring(0, 100) + "XY" + longBlock.substring(102) + "Z";
+        assertEquals(3, BitParallelEditDistance.levenshteinDistance(longBlock.toString(), changedBlock));
+        String swappedBlock = longBlock.substring(0, 63) + longBlock.charAt(64) + longBlock.charAt(63) + longBlock.substring(65);
+        assertEquals(1, BitParallelEditDistance.optimalAlignmentDistance(longBlock.toString(), swappedBlock));
+        assertEquals(2, BitParallelEditDistance.levenshteinDistance(longBlock.toString(), swappedBlock));
+        assertEquals(1.0, BitParallelEditDistance.levenshtein("", ""));
+    }
+
+    @Test
+    void testSimilarityMetricCatalog() {
+        // signature lengths that no other test uses, i.e., the catalogs have not created configurations yet
+        SimilarityMetricCatalog catalog = SimilarityMetricCatalog.getInstance(
+                EnumSet.noneOf(SimilarityMetric.MetricType.class), 7);
+
+        // configurations are only created when they are requested
+        assertEquals(0, catalog.getCreatedSimilarityMetricCount());
+        SimilarityMetric levenshtein = catalog.getSimilarityMetric("levenshtein", 0.3);
+        assertEquals(1, catalog.getCreatedSimilarityMetricCount());
+
+        // (name, threshold) lookup returns the same instance
+        assertSame(levenshtein, catalog.getSimilarityMetric("levenshtein", 0.3));
+        assertNotSame(levenshtein, catalog.getSimilarityMetric("levenshtein", 0.4));
+        assertEquals("levenshtein", levenshtein.getNameText());
+        assertEquals(0.3, levenshtein.getConfig().getTextSimilarityThreshold());
+        assertEquals(2, catalog.getCreatedSimilarityMetricCount());
+
+        // all configurations include the ones created before
+        List<SimilarityMetric> allSimilarityMetrics = catalog.getAllSimilarityMetrics();
+        assertEquals(SimilarityMetricCatalog.getSimilarityMetricNames().size() * thresholds.size(), allSimilarityMetrics.size());
+        assertEquals(allSimilarityMetrics.size(), catalog.getCreatedSimilarityMetricCount());
+        assertTrue(allSimilarityMetrics.contains(levenshtein));
+        assertSame(allSimilarityMetrics, catalog.getAllSimilarityMetrics());
+
+        // one catalog per (prefiltered metric types, MinHash signature length)
+        assertSame(catalog, SimilarityMetricCatalog.getInstance(EnumSet.noneOf(SimilarityMetric.MetricType.class), 7));
+        SimilarityMetricCatalog prefilteredCatalog = SimilarityMetricCatalog.getInstance(
+                EnumSet.of(SimilarityMetric.MetricType.EDIT), 7);
+        assertNotSame(catalog, prefilteredCatalog);
+        assertSame(prefilteredCatalog, SimilarityMetricCatalog.getInstance(
+                new HashSet<>(Arrays.asList(SimilarityMetric.MetricType.EDIT)), 7));
+        SimilarityMetricCatalog otherSignatureLengthCatalog = SimilarityMetricCatalog.getInstance(
+                EnumSet.noneOf(SimilarityMetric.MetricType.class), 8);
+        assertNotSame(catalog, otherSignatureLengthCatalog);
+
+        // the catalogs create their own configurations
+        assertEquals(0, otherSignatureLengthCatalog.getCreatedSimilarityMetricCount());
+        SimilarityMetric prefilteredLevenshtein = prefilteredCatalog.getSimilarityMetric("levenshtein", 0.3);
+        assertNotSame(levenshtein, prefilteredLevenshtein);
+        assertNotSame(levenshtein.getConfig().getTextSimilarityMetric(), prefilteredLevenshtein.getConfig().getTextSimilarityMetric());
+        assertNotSame(
+                catalog.getSimilarityMetric("twoGramJaccardNormalizedMinHash", 0.5),
+                otherSignatureLengthCatalog.getSimilarityMetric("twoGramJaccardNormalizedMinHash", 0.5)
+        );
+    }
+}
@@ -0,0 +1,231 @@
+package de.unitrier.st.soposthistory.metricscomparison.tests;
+
+import de.unitrier.st.soposthistory.blocks.PostBlockVersion;
+import de.unitrier.st.soposthistory.metricscomparison.statistics.DatasetScanner;
+import de.unitrier.st.soposthistory.metricscomparison.statistics.Statistics;
+import de.unitrier.st.soposthistory.version.PostVersion;
+import de.unitrier.st.soposthistory.version.PostVersionList;
+import de.unitrier.st.util.Util;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.regex.Matcher;
+
+import static de.unitrier.st.soposthistory.metricscomparison.evaluation.MetricEvaluationManager.csvFormatPostIds;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatisticsTest {
+    private static Path testOutputDir = Paths.get(MetricEvaluationTest.testOutputDir.toString(), "statistics");
+
+    private static final List<Path> samples = Arrays.asList(
+            Paths.get("testdata", "samples_comparison_test", "PostId_VersionCount_SO_17-06_sample_100_1"),
+            Paths.get("testdata", "samples_comparison_test", "PostId_VersionCount_SO_17-06_sample_100_2")
+    );
+
+    @Test
+    void testDatasetScanner() throws IOException {
+        Util.ensureEmptyDirectoryExists(testOutputDir);
+
+        // each statistic on its own, single-threaded, and with the posts read like before the DatasetScanner existed
+        String expectedOutput = collectSingleThreaded(testOutputDir.resolve("single_threaded"));
+        assertTrue(expectedOutput.contains("number of versions: 196"));
+
+        // all statistics in one pass, the results must not depend on the number of threads
+        for (int threadCount : new int[]{1, 4}) {
+            assertEquals(expectedOutput, scan(testOutputDir.resolve("threads_" + threadCount), threadCount));
+        }
+    }
+
+    @Test
+    void testMultiplePossibleConnections() throws IOException {
+        Path outputDir = testOutputDir.resolve("multiple_possible_connections");
+        Util.ensureEmptyDirectoryExists(outputDir);
+
+        // gt_test contains posts with multiple possible connections (see testdata/multiple_connections)
+        List<Path> connectionSamples = new ArrayList<>(samples);
+        connectionSamples.add(Paths.get("testdata", "gt_test"));
+
+        new DatasetScanner(2)
+                .register(createMultiplePossibleConnectionsCollector(outputDir), connectionSamples)
+                .scan();
+
+        // compare blocks by their content like the previous implementation, which did not use an index
+        List<Object[]> expectedRecords = new ArrayList<>();
+        for (Path sample : connectionSamples) {
+            File[] postVersionListFilesInFolder = sample.resolve("files").toFile().listFiles(
+                    (dir, name) -> name.matches(PostVersionList.fileNamePattern.pattern())
+            );
+            assertNotNull(postVersionListFilesInFolder);
+
+            for (File postVersionListFile : postVersionListFilesInFolder) {
+                Matcher matcher = PostVersionList.fileNamePattern.matcher(postVersionListFile.getName());
+                if (matcher.find()) {
+                    int postId = Integer.parseInt(matcher.group(1));
+                    PostVersionList postVersionList = PostVersionList.readFromCSV(sample.resolve("files"), postId, 0, false);
+                    addMultiplePossibleConnections(postVersionList, expectedRecords);
+                }
+            }
+        }
+        assertFalse(expectedRecords.isEmpty());
+
+        expectedRecords.sort(Comparator
+                .comparingInt((Object[] record) -> (Integer) record[0])
+                .thenComparingInt(record -> (Integer) record[1])
+                .thenComparingInt(record -> (Integer) record[2]));
+        StringBuilder expectedOutput = new StringBuilder();
+        try (CSVPrinter csvPrinter = new CSVPrinter(expectedOutput, Statistics.csvFormatMultipleConnections)) {
+            for (Object[] record : expectedRecords) {
+                csvPrinter.printRecord(record);
+            }
+        }
+
+        assertEquals(expectedOutput.toString(), new String(
+                Files.readAllBytes(outputDir.resolve("multiple_possible_connections.csv")), StandardCharsets.UTF_8
+        ));
+    }
+
+    private static void addMultiplePossibleConnections(PostVersionList postVersionList, List<Object[]> records) {
+        for (int i = 0; i < postVersionList.size(); i++) {
+            PostVersion currentVersion = postVersionList.get(i);
+            PostVersion previousVersion = i > 0 ? postVersionList.get(i - 1) : null;
+            PostVersion nextVersion = i < postVersionList.size() - 1 ? postVersionList.get(i + 1) : null;
+
+            for (PostBlockVersion currentVersionPostBlock : currentVersion.getPostBlocks()) {
+                List<PostBlockVersion> possiblePredecessors = new LinkedList<>();
+                List<PostBlockVersion> possibleSuccessors = new LinkedList<>();
+
+                if (previousVersion != null) {
+                    for (PostBlockVersion previousVersionPostBlock : previousVersion.getPostBlocks()) {
+                        if (currentVersionPostBlock.getContent().equals(previousVersionPostBlock.getContent())) {
+                            possiblePredecessors.add(previousVersionPostBlock);
+                        }
+                    }
+                }
+
+                if (nextVersion != null) {
+                    for (PostBlockVersion nextVersionPostBlock : nextVersion.getPostBlocks()) {
+                        if (currentVersionPostBlock.getContent().equals(nextVersionPostBlock.getContent())) {
+                            possibleSuccessors.add(nextVersionPostBlock);
+                        }
+                    }
+                }
+
+                if (possiblePredecessors.size() > 1 || possibleSuccessors.size() > 1) {
+                    records.add(new Object[]{
+                            currentVersion.getPostId(),
+                            currentVersion.getPostHistoryId(),
+                            currentVersionPostBlock.getLocalId(),
+                            currentVersionPostBlock.getPostBlockTypeId(),
+                            possiblePredecessors.size(),
+                            possibleSuccessors.size(),
+                            Arrays.toString(possiblePredecessors.stream()
+                                    .map(PostBlockVersion::getLocalId).toArray()),
+                            Arrays.toString(possibleSuccessors.stream()
+                                    .map(PostBlockVersion::getLocalId).toArray())
+                    });
+                }
+            }
+        }
+    }
+
+    private static String scan(Path outputDir, int threadCount) throws IOException {
+        Files.createDirectories(outputDir);
+        ByteArrayOutputStream printedOutput = new ByteArrayOutputStream();
+        try (PrintStream out = new PrintStream(printedOutput, true, "UTF-8")) {
+            new DatasetScanner(threadCount)
+                    .register(createMultiplePossibleConnectionsCollector(outputDir), samples)
+                    .register(new Statistics.URLStatisticsCollector(out), samples)
+                    .register(new Statistics.CodeBlockStatisticsCollector(outputDir.resolve("code_lines.csv")), samples)
+                    .register(new Statistics.BlockLengthStatisticsCollector(out), samples)
+                    .scan();
+        }
+        return readOutput(outputDir, printedOutput);
+    }
+
+    private static String collectSingleThreaded(Path outputDir) throws IOException {
+        Files.createDirectories(outputDir);
+        ByteArrayOutputStream printedOutput = new ByteArrayOutputStream();
+        try (PrintStream out = new PrintStream(printedOutput, true, "UTF-8")) {
+            // the version history was processed, only the block length statistics did not process it
+            Map<Path, Map<Integer, Integer>> postTypeIds = new HashMap<>();
+            for (Path sample : samples) {
+                postTypeIds.put(sample, readPostTypeIds(sample));
+            }
+            collectSingleThreaded(createMultiplePossibleConnectionsCollector(outputDir),
+                    (sample, postId) -> PostVersionList.readFromCSV(sample.resolve("files"), postId, postTypeIds.get(sample).get(postId)));
+            collectSingleThreaded(new Statistics.URLStatisticsCollector(out),
+                    (sample, postId) -> PostVersionList.readFromCSV(sample.resolve("files"), postId, 0));
+            collectSingleThreaded(new Statistics.CodeBlockStatisticsCollector(outputDir.resolve("code_lines.csv")),
+                    (sample, postId) -> PostVersionList.readFromCSV(sample.resolve("files"), postId, 0));
+            collectSingleThreaded(new Statistics.BlockLengthStatisticsCollector(out),
+                    (sample, postId) -> PostVersionList.readFromCSV(sample.resolve("files"), postId, 2, false));
+        }
+        return readOutput(outputDir, printedOutput);
+    }
+
+    private static <S> void collectSingleThreaded(DatasetScanner.Collector<S> collector,
+                                                  BiFunction<Path, Integer, PostVersionList> readPostVersionList) {
+        S state = collector.createState();
+        for (Path sample : samples) {
+            File[] postVersionListFilesInFolder = sample.resolve("files").toFile().listFiles(
+                    (dir, name) -> name.matches(PostVersionList.fileNamePattern.pattern())
+            );
+            assertNotNull(postVersionListFilesInFolder);
+
+            for (File postVersionListFile : postVersionListFilesInFolder) {
+                Matcher matcher = PostVersionList.fileNamePattern.matcher(postVersionListFile.getName());
+                if (matcher.find()) {
+                    int postId = Integer.parseInt(matcher.group(1));
+                    collector.accept(state, sample, readPostVersionList.apply(sample, postId));
+                }
+            }
+        }
+        collector.finish(state);
+    }
+
+    private static DatasetScanner.Collector<?> createMultiplePossibleConnectionsCollector(Path outputDir) {
+        return new Statistics.MultiplePossibleConnectionsCollector(
+                outputDir.resolve("multiple_possible_connections.csv"),
+                outputDir.resolve("multiple_possible_connections_posts.csv")
+        );
+    }
+
+    private static Map<Integer, Integer> readPostTypeIds(Path sample) {
+        Map<Integer, Integer> postTypeIds = new HashMap<>();
+        Path postIdPath = sample.resolve(sample.toFile().getName() + ".csv");
+        try (CSVParser csvParser = new CSVParser(new FileReader(postIdPath.toFile()), csvFormatPostIds.withFirstRecordAsHeader())) {
+            for (CSVRecord record : csvParser) {
+                postTypeIds.put(Integer.parseInt(record.get("PostId")), Integer.parseInt(record.get("PostTypeId")));
+            }
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return postTypeIds;
+    }
+
+    private static String readOutput(Path outputDir, ByteArrayOutputStream printedOutput) throws IOException {
+        StringBuilder output = new StringBuilder(new String(printedOutput.toByteArray(), StandardCharsets.UTF_8));
+        for (String fileName : new String[]{"multiple_possible_connections.csv", "multiple_possible_connections_posts.csv",
+                "code_lines.csv"}) {
+            output.append(fileName).append(":\n")
+                    .append(new String(Files.readAllBytes(outputDir.resolve(fileName)), StandardCharsets.UTF_8));
+        }
+        return output.toString();
+    }
+}